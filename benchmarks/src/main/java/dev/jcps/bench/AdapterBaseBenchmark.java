@@ -0,0 +1,48 @@
+package dev.jcps.bench;
+
+import dev.jcps.JavaAppletAdapter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@code getCodeBase()} and {@code getDocumentBase()}, which asset-resolution code calls in tight loops.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class AdapterBaseBenchmark {
+    private final JavaAppletAdapter adapter = new BenchAdapter();
+
+    @Benchmark
+    public Object getCodeBase() {
+        return adapter.getCodeBase();
+    }
+
+    @Benchmark
+    public String getDocumentBase() {
+        return adapter.getDocumentBase();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object getCodeBaseContended() {
+        return adapter.getCodeBase();
+    }
+
+    static class BenchAdapter extends Panel implements JavaAppletAdapter {
+    }
+}
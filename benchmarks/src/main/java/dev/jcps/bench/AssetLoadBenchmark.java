@@ -0,0 +1,141 @@
+package dev.jcps.bench;
+
+import dev.jcps.AssetCache;
+import dev.jcps.AssetResolver;
+import dev.jcps.AudioSample;
+import dev.jcps.JavaAppletAdapter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sound.sampled.Clip;
+import java.awt.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the adapter's image and audio loaders through each source in their fallback chains.
+ * <p>
+ * With {@code cache=warm} the shared caches and resolver are left populated, which is the cost of asking for an
+ * asset again. With {@code cache=cold} they are cleared before every call, which is the cost of the first load
+ * including every failing probe. Audio runs against {@link NullMixer}, so no sound hardware is needed.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true",
+        "-Djavax.sound.sampled.Clip=dev.jcps.bench.NullMixerProvider#Null Mixer"})
+public class AssetLoadBenchmark {
+    private static final String SPRITE = "bench-sprite.png";
+    private static final String URL_SPRITE = "url-sprite.png";
+    private static final String SOUND = "bench-pin.wav";
+
+    @Param({"warm", "cold"})
+    public String cache;
+
+    private final BenchAdapter adapter = new BenchAdapter();
+    private Path assets;
+    private Path empty;
+    private String fileBase;
+    private String emptyBase;
+    private String urlBase;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        assets = Files.createTempDirectory("awf-bench");
+        empty = Files.createDirectory(assets.resolve("empty"));
+        copyResource("/" + SPRITE, assets.resolve(SPRITE));
+        copyResource("/" + SPRITE, assets.resolve(URL_SPRITE));
+        copyResource(SOUND, assets.resolve(SOUND));
+        fileBase = assets.toString();
+        emptyBase = empty.toString();
+        urlBase = assets.toUri().toString();
+    }
+
+    @Setup(Level.Invocation)
+    public void resetCaches() {
+        if ("cold".equals(cache)) {
+            AssetCache.images().clear();
+            AssetCache.samples().clear();
+            AssetResolver.getInstance().clear();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> walk = Files.walk(assets)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Image getImageFile() {
+        return adapter.getImage(fileBase, SPRITE);
+    }
+
+    @Benchmark
+    public Image getImageClasspathFallback() {
+        return adapter.getImage(emptyBase, SPRITE);
+    }
+
+    @Benchmark
+    public Image getImageUrlFallback() {
+        return adapter.getImage(urlBase, URL_SPRITE);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Image getImageFileContended() {
+        return adapter.getImage(fileBase, SPRITE);
+    }
+
+    @Benchmark
+    public AudioSample getAudioSampleFile() {
+        return adapter.getAudioSample(fileBase, SOUND);
+    }
+
+    @Benchmark
+    public AudioSample getAudioSampleClassResourceFallback() {
+        return adapter.getAudioSample(emptyBase, SOUND);
+    }
+
+    @Benchmark
+    public int getAudioClip() {
+        Clip clip = adapter.getAudioClip(fileBase, SOUND);
+        int frames = clip.getFrameLength();
+        clip.close();
+        return frames;
+    }
+
+    private static void copyResource(String name, Path target) throws IOException {
+        try (InputStream in = AssetLoadBenchmark.class.getResourceAsStream(name)) {
+            if (in == null) {
+                throw new UncheckedIOException(new IOException("Missing benchmark resource " + name));
+            }
+            Files.copy(in, target);
+        }
+    }
+
+    static class BenchAdapter extends Panel implements JavaAppletAdapter {
+    }
+}
@@ -0,0 +1,85 @@
+package dev.jcps.bench;
+
+import dev.jcps.CompatibleImages;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-frame cost of blitting sprites as {@code ImageIO} typically returns them against the same
+ * sprites converted by {@link CompatibleImages}.
+ * <p>
+ * Each invocation draws one frame of {@code sprites} sprites onto an 800x600 back buffer, so the score is the
+ * blit cost per frame.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImageBlitBenchmark {
+    @Param({"100"})
+    public int sprites;
+
+    @Param({"3BYTE_BGR", "4BYTE_ABGR"})
+    public String sourceType;
+
+    private BufferedImage loaded;
+    private BufferedImage compatible;
+    private BufferedImage backBuffer;
+    private Graphics2D g;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int type = "3BYTE_BGR".equals(sourceType) ? BufferedImage.TYPE_3BYTE_BGR : BufferedImage.TYPE_4BYTE_ABGR;
+        loaded = new BufferedImage(64, 64, type);
+        Graphics2D sg = loaded.createGraphics();
+        sg.setPaint(new GradientPaint(0, 0, Color.RED, 64, 64, new Color(0, 0, 255, 128)));
+        sg.fillOval(0, 0, 64, 64);
+        sg.dispose();
+        compatible = CompatibleImages.toCompatible(loaded);
+        backBuffer = GraphicsEnvironment.isHeadless()
+                ? new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB)
+                : GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                .getDefaultConfiguration().createCompatibleImage(800, 600);
+        g = backBuffer.createGraphics();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        g.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage blitAsLoaded() {
+        return frame(loaded);
+    }
+
+    @Benchmark
+    public BufferedImage blitCompatible() {
+        return frame(compatible);
+    }
+
+    private BufferedImage frame(BufferedImage sprite) {
+        for (int i = 0; i < sprites; i++) {
+            g.drawImage(sprite, (i * 37) % 736, (i * 53) % 536, null);
+        }
+        return backBuffer;
+    }
+}
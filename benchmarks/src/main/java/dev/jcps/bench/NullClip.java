@@ -0,0 +1,177 @@
+package dev.jcps.bench;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.Clip;
+import javax.sound.sampled.Control;
+import javax.sound.sampled.Line;
+import javax.sound.sampled.LineListener;
+import java.io.IOException;
+
+/**
+ * A silent {@link Clip} for {@link NullMixer}. Playback state is tracked but nothing is rendered.
+ */
+public class NullClip implements Clip {
+    private final Line.Info info;
+    private AudioFormat format;
+    private byte[] data;
+    private int framePosition;
+    private boolean open;
+    private boolean running;
+
+    NullClip(Line.Info info) {
+        this.info = info;
+    }
+
+    @Override
+    public void open(AudioFormat format, byte[] data, int offset, int bufferSize) {
+        this.format = format;
+        this.data = new byte[bufferSize];
+        System.arraycopy(data, offset, this.data, 0, bufferSize);
+        open = true;
+    }
+
+    @Override
+    public void open(AudioInputStream stream) throws IOException {
+        byte[] bytes = stream.readAllBytes();
+        open(stream.getFormat(), bytes, 0, bytes.length);
+    }
+
+    @Override
+    public int getFrameLength() {
+        return data == null ? 0 : data.length / format.getFrameSize();
+    }
+
+    @Override
+    public long getMicrosecondLength() {
+        return format == null ? 0 : (long) (getFrameLength() / format.getFrameRate() * 1_000_000);
+    }
+
+    @Override
+    public void setFramePosition(int frames) {
+        framePosition = frames;
+    }
+
+    @Override
+    public void setMicrosecondPosition(long microseconds) {
+        framePosition = (int) (microseconds * format.getFrameRate() / 1_000_000);
+    }
+
+    @Override
+    public void setLoopPoints(int start, int end) {
+    }
+
+    @Override
+    public void loop(int count) {
+        running = true;
+    }
+
+    @Override
+    public void drain() {
+        running = false;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public boolean isActive() {
+        return running;
+    }
+
+    @Override
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    @Override
+    public int getBufferSize() {
+        return data == null ? 0 : data.length;
+    }
+
+    @Override
+    public int available() {
+        return 0;
+    }
+
+    @Override
+    public int getFramePosition() {
+        return framePosition;
+    }
+
+    @Override
+    public long getLongFramePosition() {
+        return framePosition;
+    }
+
+    @Override
+    public long getMicrosecondPosition() {
+        return format == null ? 0 : (long) (framePosition / format.getFrameRate() * 1_000_000);
+    }
+
+    @Override
+    public float getLevel() {
+        return 0;
+    }
+
+    @Override
+    public Line.Info getLineInfo() {
+        return info;
+    }
+
+    @Override
+    public void open() {
+        open = true;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+        running = false;
+        data = null;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public Control[] getControls() {
+        return new Control[0];
+    }
+
+    @Override
+    public boolean isControlSupported(Control.Type control) {
+        return false;
+    }
+
+    @Override
+    public Control getControl(Control.Type control) {
+        throw new IllegalArgumentException("Unsupported control: " + control);
+    }
+
+    @Override
+    public void addLineListener(LineListener listener) {
+    }
+
+    @Override
+    public void removeLineListener(LineListener listener) {
+    }
+}
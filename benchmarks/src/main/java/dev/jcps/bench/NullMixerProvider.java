@@ -0,0 +1,25 @@
+package dev.jcps.bench;
+
+import javax.sound.sampled.Mixer;
+import javax.sound.sampled.spi.MixerProvider;
+
+/**
+ * Registers {@link NullMixer} with {@code AudioSystem}, so audio benchmarks run on machines without sound
+ * hardware. Select it with {@code -Djavax.sound.sampled.Clip=dev.jcps.bench.NullMixerProvider#Null Mixer}.
+ */
+public class NullMixerProvider extends MixerProvider {
+    private static final NullMixer MIXER = new NullMixer();
+
+    @Override
+    public Mixer.Info[] getMixerInfo() {
+        return new Mixer.Info[]{NullMixer.INFO};
+    }
+
+    @Override
+    public Mixer getMixer(Mixer.Info info) {
+        if (info == null || info.equals(NullMixer.INFO)) {
+            return MIXER;
+        }
+        throw new IllegalArgumentException("Unknown mixer: " + info);
+    }
+}
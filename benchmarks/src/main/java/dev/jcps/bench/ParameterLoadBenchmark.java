@@ -0,0 +1,76 @@
+package dev.jcps.bench;
+
+import dev.jcps.AppletParameters;
+import dev.jcps.ParameterLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading a large {@code <param>} block from HTML with {@link ParameterLoader}, and storing the result
+ * with one {@code putAll} against one {@code putString} per parameter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParameterLoadBenchmark {
+    @Param({"50", "1000"})
+    public int count;
+
+    private String html;
+    private Map<String, String> parsed;
+
+    @Setup
+    public void setUp() throws IOException {
+        StringBuilder sb = new StringBuilder("<html><body><p>Loading...</p>\n<applet code=\"Game.class\" width=640 height=480>\n");
+        for (int i = 0; i < count; i++) {
+            sb.append("  <param name=\"key").append(i).append("\" value=\"").append(i * 31).append("\">\n");
+        }
+        sb.append("</applet>\n");
+        for (int i = 0; i < count; i++) {
+            sb.append("<p>Footer text that is never read ").append(i).append("</p>\n");
+        }
+        sb.append("</body></html>\n");
+        html = sb.toString();
+        parsed = ParameterLoader.readHtml(new StringReader(html), null);
+    }
+
+    @Benchmark
+    public AppletParameters readHtmlPutAll() throws IOException {
+        AppletParameters params = new AppletParameters();
+        params.putAll(ParameterLoader.readHtml(new StringReader(html), null));
+        return params;
+    }
+
+    @Benchmark
+    public AppletParameters putAll() {
+        AppletParameters params = new AppletParameters();
+        params.putAll(parsed);
+        return params;
+    }
+
+    @Benchmark
+    public AppletParameters putEach() {
+        AppletParameters params = new AppletParameters();
+        for (Map.Entry<String, String> e : parsed.entrySet()) {
+            params.putString(e.getKey(), e.getValue());
+        }
+        return params;
+    }
+}
@@ -0,0 +1,86 @@
+package dev.jcps.bench;
+
+import dev.jcps.AppletParameters;
+import dev.jcps.JavaAppletAdapter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@code AppletParameters.getInt}/{@code putInt} on an adapter's own parameters, alone and while
+ * other threads write.
+ * <p>
+ * The {@code contended} group runs three readers against one writer updating the same scope, the pattern of
+ * a loader thread writing parameters while render threads read them.
+ * </p>
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParameterReadBenchmark {
+    private AppletParameters params;
+    private JavaAppletAdapter adapter;
+    private int counter;
+
+    @Setup
+    public void setUp() {
+        adapter = new BenchAdapter();
+        params = adapter.getAppletParameters();
+        params.putInt("speed", 42);
+        params.putString("title", "bench");
+        AppletParameters.global().putString("inherited", "yes");
+    }
+
+    @Benchmark
+    @Group("uncontended")
+    @GroupThreads(1)
+    public int getInt() {
+        return params.getInt("speed");
+    }
+
+    @Benchmark
+    @Group("uncontendedPut")
+    @GroupThreads(1)
+    public void putInt() {
+        params.putInt("speed", counter++ & 1023);
+    }
+
+    @Benchmark
+    @Group("uncontendedInherited")
+    @GroupThreads(1)
+    public String getParameterInherited() {
+        return adapter.getParameter("inherited");
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public int contendedGetInt() {
+        return params.getInt("speed");
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public void contendedPutInt() {
+        params.putInt("speed", counter++ & 1023);
+    }
+
+    static class BenchAdapter extends Panel implements JavaAppletAdapter {
+    }
+}
@@ -0,0 +1,518 @@
+package dev.jcps;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@code AdapterContext} class holds the state that belongs to one {@link JavaAppletAdapter} instance.
+ * <p>
+ * A Java interface cannot hold instance fields, so the default methods of {@link JavaAppletAdapter} find their
+ * per-instance state here. Contexts are kept in a concurrent map keyed weakly by adapter identity: looking one
+ * up never takes a lock, and a context disappears once its adapter is garbage collected.
+ * </p>
+ * <p>
+ * Each context owns an {@link AppletParameters} scope. Parameters are resolved in this order:
+ * <ol>
+ *     <li>values set on the adapter's own scope,</li>
+ *     <li>values of the parent scope given to {@link #attach(JavaAppletAdapter, AppletParameters)}, typically a
+ *     host's shared settings,</li>
+ *     <li>values of {@link AppletParameters#global()}, the legacy {@link JavaAppletAdapter#paramMap}.</li>
+ * </ol>
+ * </p>
+ * <p>
+ * A context also holds the adapter's base locations: the document base, the code base and the location of the
+ * adapter class's own package. They are worked out once, on first use, and kept both in the forms the applet API
+ * returns and as {@link Path}, {@link URI} and {@link URL} objects that names can be resolved against directly.
+ * The jar or directory the adapter class was loaded from is listed once by a {@link ResourceIndex}, which the
+ * code base, the jar root and resources at the root of the code base are read from.
+ * {@link #refreshBases()} works them out again, for instance after {@code user.dir} has changed.
+ * </p>
+ * <p>
+ * Finally, a context keeps the adapter's last {@code showStatus} message, so a host running several adapters
+ * can show each one's status on its own through a {@link StatusListener}.
+ * </p>
+ *
+ * @since 1.1
+ */
+public final class AdapterContext {
+    private static final ConcurrentHashMap<Object, AdapterContext> CONTEXTS = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<JavaAppletAdapter> QUEUE = new ReferenceQueue<>();
+    private static final ThreadLocal<Lookup> LOOKUP = ThreadLocal.withInitial(Lookup::new);
+
+    private final Class<?> owner;
+    private final AppletParameters parameters;
+    private volatile Bases bases;
+    private volatile String status;
+    private volatile StatusListener statusListener;
+
+    private AdapterContext(Class<?> owner, AppletParameters parent) {
+        this.owner = owner;
+        this.parameters = new AppletParameters(parent);
+    }
+
+    /**
+     * Returns the context of an adapter, creating one whose parameters inherit from
+     * {@link AppletParameters#global()} if it has none yet.
+     *
+     * @param adapter the adapter.
+     * @return the adapter's context.
+     */
+    public static AdapterContext of(JavaAppletAdapter adapter) {
+        // A reused lookup key keeps the common path free of allocation; only a new context needs a weak key
+        Lookup lookup = LOOKUP.get();
+        lookup.set(adapter);
+        AdapterContext context = CONTEXTS.get(lookup);
+        lookup.set(null);
+        if (context != null) {
+            return context;
+        }
+        expunge();
+        return CONTEXTS.computeIfAbsent(new Key(adapter, QUEUE), k -> new AdapterContext(adapter.getClass(), AppletParameters.global()));
+    }
+
+    /**
+     * Gives an adapter a fresh context whose parameters inherit from {@code parent}, replacing any existing one.
+     * Hosts call this before starting an adapter so it sees their shared settings.
+     *
+     * @param adapter the adapter.
+     * @param parent  the parameters the adapter's own parameters inherit from.
+     * @return the new context.
+     */
+    public static AdapterContext attach(JavaAppletAdapter adapter, AppletParameters parent) {
+        expunge();
+        AdapterContext context = new AdapterContext(adapter.getClass(), parent);
+        CONTEXTS.put(new Key(adapter, QUEUE), context);
+        return context;
+    }
+
+    /**
+     * Drops the context of an adapter.
+     *
+     * @param adapter the adapter.
+     */
+    public static void release(JavaAppletAdapter adapter) {
+        CONTEXTS.remove(new Key(adapter, null));
+    }
+
+    private static void expunge() {
+        Object ref;
+        while ((ref = QUEUE.poll()) != null) {
+            CONTEXTS.remove(ref);
+        }
+    }
+
+    /**
+     * @return the adapter's own parameters.
+     */
+    public AppletParameters getParameters() {
+        return parameters;
+    }
+
+    /**
+     * @return the document base, as returned by {@link JavaAppletAdapter#getDocumentBase()}.
+     */
+    public String getDocumentBase() {
+        return bases().documentBase;
+    }
+
+    /**
+     * @return the document base as an absolute path.
+     */
+    public Path getDocumentBasePath() {
+        return bases().documentPath;
+    }
+
+    /**
+     * @return the code base, as returned by {@link JavaAppletAdapter#getCodeBase()}.
+     */
+    public Object getCodeBase() {
+        return bases().codeBase;
+    }
+
+    /**
+     * @return the code base as a URI, or {@code null} if it is not a valid URI.
+     */
+    public URI getCodeBaseUri() {
+        return bases().codeBaseUri;
+    }
+
+    /**
+     * Resolves a name against the document base directory.
+     *
+     * @param name a relative path.
+     * @return the path of {@code name} under the document base.
+     */
+    public Path resolveDocument(String name) {
+        return bases().documentPath.resolve(name);
+    }
+
+    /**
+     * Resolves a name against the code base.
+     *
+     * @param name a relative path, using {@code /} as separator.
+     * @return the URI of {@code name} under the code base, or {@code null} if the code base is not a valid URI.
+     */
+    public URI resolveCode(String name) {
+        URI base = bases().codeBaseUri;
+        return base == null ? null : base.resolve(stripLeadingSlash(name));
+    }
+
+    /**
+     * Resolves a file name against a base directory, as {@code new File(base + name)}. When {@code base} is the
+     * document base, the name is resolved against the cached {@link #getDocumentBasePath()} instead.
+     *
+     * @param base the base directory, with or without a trailing separator.
+     * @param name a relative path.
+     * @return the file.
+     */
+    File resolveFile(String base, String name) {
+        Bases b = bases();
+        if (isBase(base, b.documentBase)) {
+            try {
+                return b.documentPath.resolve(stripLeadingSlash(name)).toFile();
+            } catch (InvalidPathException e) {
+                // Not a valid path on this platform; let File report it when it is read
+            }
+        }
+        return new File(base + name);
+    }
+
+    /**
+     * Resolves a name against a base URL, as {@code new URL(base + name)}. When {@code base} is the code base,
+     * the name is resolved against the cached {@link #getCodeBaseUri()} instead.
+     *
+     * @param base the base URL, with or without a trailing slash.
+     * @param name a relative path, using {@code /} as separator.
+     * @return the URL.
+     * @throws MalformedURLException if {@code base + name} is not a URL.
+     */
+    URL resolveUrl(String base, String name) throws MalformedURLException {
+        Bases b = bases();
+        URI uri = b.codeBaseUri;
+        // A jar: code base is an opaque URI, which cannot resolve relative names
+        if (uri != null && !uri.isOpaque() && isBase(base, String.valueOf(b.codeBase))) {
+            try {
+                return uri.resolve(stripLeadingSlash(name)).toURL();
+            } catch (IllegalArgumentException e) {
+                // Not a valid URI reference, such as a name with spaces; build the URL from the strings instead
+            }
+        }
+        return new URL(base + name);
+    }
+
+    /**
+     * Tells whether {@code base} is {@code root}, possibly with one trailing separator added.
+     */
+    private static boolean isBase(String base, String root) {
+        if (base == null || root == null || !base.startsWith(root)) {
+            return false;
+        }
+        if (base.length() == root.length()) {
+            return true;
+        }
+        char last = base.charAt(base.length() - 1);
+        return base.length() == root.length() + 1 && (last == '/' || last == File.separatorChar);
+    }
+
+    /**
+     * Resolves a name against the package of the adapter class, as {@code getClass().getResource("") + name}.
+     *
+     * @param name a relative path, using {@code /} as separator.
+     * @return the URL of {@code name} in the adapter's package.
+     * @throws MalformedURLException if the adapter class has no resource location.
+     * @throws FileNotFoundException if the adapter's jar does not hold {@code name}.
+     */
+    URL resolveClassRelative(String name) throws IOException {
+        URL base = bases().classResource;
+        if (base == null) {
+            throw new MalformedURLException("No resource location for " + owner.getName());
+        }
+        return checkIndexed(new URL(base, stripLeadingSlash(name)));
+    }
+
+    /**
+     * Resolves the last segment of a name against the root of the jar holding the adapter class.
+     *
+     * @param name a relative path, using {@code /} as separator.
+     * @return the URL of the last segment of {@code name} at the root of the jar.
+     * @throws MalformedURLException if the adapter class is not inside a jar.
+     * @throws FileNotFoundException if the jar does not hold that name.
+     */
+    URL resolveJarRoot(String name) throws IOException {
+        URL root = bases().jarRoot;
+        if (root == null) {
+            throw new MalformedURLException("Not inside a jar: " + owner.getName());
+        }
+        return checkIndexed(new URL(root, name.substring(name.lastIndexOf('/') + 1)));
+    }
+
+    /**
+     * Opens a resource at the root of the code base, as {@code getClass().getResourceAsStream("/" + name)}. The
+     * adapter's {@link ResourceIndex} is looked in first; the class loader is asked only for names it does not
+     * hold, which may be in another element of the class path.
+     *
+     * @param name a path relative to the root, using {@code /} as separator.
+     * @return a stream of the resource.
+     * @throws IOException if the resource is not found or cannot be read.
+     */
+    InputStream openResource(String name) throws IOException {
+        ResourceIndex resources = bases().resources;
+        ResourceIndex.Entry entry = resources == null ? null : resources.find(name);
+        if (entry != null) {
+            return entry.open();
+        }
+        InputStream in = owner.getResourceAsStream("/" + stripLeadingSlash(name));
+        if (in == null) {
+            throw new FileNotFoundException("/" + name);
+        }
+        return in;
+    }
+
+    /**
+     * Tells whether {@link #openResource(String)} would find a resource, without opening it.
+     *
+     * @param name a path relative to the root, using {@code /} as separator.
+     * @return {@code true} if the resource exists.
+     */
+    boolean hasResource(String name) {
+        ResourceIndex resources = bases().resources;
+        return resources != null && resources.find(name) != null
+                || owner.getResource("/" + stripLeadingSlash(name)) != null;
+    }
+
+    /**
+     * @return the index of the jar or directory the adapter class was loaded from, or {@code null}.
+     */
+    ResourceIndex getResourceIndex() {
+        return bases().resources;
+    }
+
+    /**
+     * Fails fast for a URL inside the adapter's jar that the jar does not hold. A jar cannot change while it is
+     * open, so its index is enough to tell; URLs elsewhere are returned unchecked.
+     */
+    private URL checkIndexed(URL url) throws FileNotFoundException {
+        ResourceIndex resources = bases().resources;
+        if (resources != null && resources.isJar()) {
+            String path = resources.relativize(url.toString());
+            if (path != null && resources.find(path) == null) {
+                throw new FileNotFoundException(url.toString());
+            }
+        }
+        return url;
+    }
+
+    /**
+     * @return the location of the adapter class's package, as {@code getClass().getResource("")}, or {@code null}.
+     */
+    URL getClassResource() {
+        return bases().classResource;
+    }
+
+    /**
+     * Records a status message of the adapter, tells the status listener, if any, and passes the message to
+     * the {@link Diagnostics} listeners.
+     *
+     * @param message the status message.
+     */
+    public void showStatus(String message) {
+        status = message;
+        StatusListener listener = statusListener;
+        if (listener != null) {
+            listener.statusChanged(message);
+        }
+        Diagnostics.getInstance().message(message);
+    }
+
+    /**
+     * @return the last status message of the adapter, or {@code null}.
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * Sets the listener told of each status message of this adapter only.
+     *
+     * @param statusListener the listener, or {@code null}.
+     */
+    public void setStatusListener(StatusListener statusListener) {
+        this.statusListener = statusListener;
+    }
+
+    /**
+     * Discards the cached base locations, so they are worked out again on next use.
+     */
+    public void refreshBases() {
+        bases = null;
+    }
+
+    private Bases bases() {
+        Bases b = bases;
+        if (b == null) {
+            b = new Bases(owner);
+            bases = b;
+        }
+        return b;
+    }
+
+    private static String stripLeadingSlash(String name) {
+        return name.startsWith("/") ? name.substring(1) : name;
+    }
+
+    /**
+     * Listens for the status messages of one adapter.
+     */
+    @FunctionalInterface
+    public interface StatusListener {
+        /**
+         * Called on the thread that called {@code showStatus}.
+         *
+         * @param status the status message.
+         */
+        void statusChanged(String status);
+    }
+
+    /**
+     * The base locations of an adapter class, worked out once.
+     */
+    private static final class Bases {
+        final String documentBase;
+        final Path documentPath;
+        final Object codeBase;
+        final URI codeBaseUri;
+        final URL classResource;
+        final URL jarRoot;
+        final ResourceIndex resources;
+
+        Bases(Class<?> owner) {
+            String dir = "";
+            try {
+                // get working directory
+                dir = System.getProperty("user.dir");
+            } catch (final SecurityException e) {
+                Diagnostics.getInstance().message("Security exception: " + e.getMessage());
+            }
+            documentBase = dir;
+            documentPath = Paths.get(dir == null ? "" : dir).toAbsolutePath();
+
+            classResource = owner.getResource("");
+            resources = ResourceIndex.of(owner);
+            codeBase = codeBase(owner, resources);
+            codeBaseUri = toUri(codeBase);
+            URL root = null;
+            String resource = String.valueOf(classResource);
+            int index = resource.indexOf("!/");
+            if (resources != null && resources.isJar()) {
+                root = resources.getRootUrl();
+            } else if (classResource != null && index != -1) {
+                // Not loaded from a local jar, so the root can only be read from the resource URL
+                try {
+                    root = new URL(resource.substring(0, index + 2));
+                } catch (MalformedURLException e) {
+                    root = null;
+                }
+            }
+            jarRoot = root;
+        }
+
+        private static Object codeBase(Class<?> owner, ResourceIndex resources) {
+            Object o = null;
+            try {
+                o = owner.getResource("/");
+            } catch (final Exception e) {
+                Diagnostics.getInstance().message("Exception: " + e.getMessage());
+            }
+            if (o == null && resources != null && resources.isJar()) {
+                o = resources.getRootUrl().toString();
+            }
+            if (o == null) {
+                String p;
+                try {
+                    p = Objects.requireNonNull(owner.getResource("")).toString();
+                } catch (Exception e) {
+                    p = "/";
+                }
+                o = p.substring(0, p.lastIndexOf("!/") + 2);
+            }
+            return o;
+        }
+
+        private static URI toUri(Object codeBase) {
+            try {
+                return codeBase instanceof URL ? ((URL) codeBase).toURI() : new URI(codeBase.toString());
+            } catch (URISyntaxException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * A weak reference to an adapter that compares by identity.
+     */
+    private static final class Key extends WeakReference<JavaAppletAdapter> {
+        private final int hash;
+
+        Key(JavaAppletAdapter adapter, ReferenceQueue<JavaAppletAdapter> queue) {
+            super(adapter, queue);
+            hash = System.identityHashCode(adapter);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key) && !(o instanceof Lookup)) {
+                return false;
+            }
+            Object referent = get();
+            if (o instanceof Lookup) {
+                return referent != null && referent == ((Lookup) o).adapter;
+            }
+            return referent != null && referent == ((Key) o).get();
+        }
+    }
+
+    /**
+     * A strong, reusable key for looking up a context, equal to the {@link Key} of the same adapter. Each thread
+     * has its own, and clears it after each look-up so it does not keep the adapter alive.
+     */
+    private static final class Lookup {
+        private JavaAppletAdapter adapter;
+        private int hash;
+
+        void set(JavaAppletAdapter adapter) {
+            this.adapter = adapter;
+            hash = System.identityHashCode(adapter);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && adapter != null && adapter == ((Key) o).get();
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package dev.jcps;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.awt.image.BufferStrategy;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * The {@code AppletHost} class runs a {@link JavaAppletAdapter} the way a browser ran an applet.
+ * <p>
+ * It puts the adapter in a window, drives it through {@link JavaAppletAdapter#init()},
+ * {@link JavaAppletAdapter#start()}, {@link JavaAppletAdapter#stop()} and {@link JavaAppletAdapter#destroy()},
+ * and runs a {@link GameLoop} on its own thread. Adapters implementing {@link Updatable} receive fixed-timestep
+ * updates; after the updates of each frame the adapter is painted with active rendering through the window's
+ * {@link BufferStrategy}, so frames do not wait for the AWT repaint queue. The mouse and key events of adapters
+ * implementing {@link InputQueue.Handler} are recorded in an {@link InputQueue} and handed to them on the loop
+ * thread before each update.
+ * </p>
+ * <p>
+ * Threading: {@code init()}, {@code start()} and the listeners of the adapter run as usual, on the thread calling
+ * {@link #launch()} and on the event dispatch thread. {@code update} and {@code paint} run on the loop thread, so
+ * state they share with event listeners must be guarded; input taken through an {@link InputQueue} needs no
+ * guarding, as it is handed over on the loop thread. While a host runs, Swing double buffering is turned off in
+ * the window's {@link RepaintManager}, so a {@code repaint()} by the adapter does not replace the window's
+ * {@link BufferStrategy} with Swing's own; it is turned back on when the host shuts down. {@code stop()} and
+ * {@code destroy()} are the last calls made on the loop thread, after its final frame.
+ * </p>
+ * <p>
+ * Example usage:
+ * <pre>{@code
+ * public static void main(String[] args) {
+ *     AppletHost.launch(new MyAppletAdapterImpl(), "Your App", 640, 480);
+ * }
+ * }</pre>
+ * </p>
+ *
+ * @since 1.1
+ */
+public class AppletHost {
+    private final JavaAppletAdapter adapter;
+    private final Component component;
+    private final String title;
+    private final int width;
+    private final int height;
+    private int updatesPerSecond = 60;
+    private int framesPerSecond = 60;
+    private int maxUpdatesPerFrame = 5;
+    private boolean watchAssets = Boolean.getBoolean("awf.watch");
+    private AssetWatcher watcher;
+    private InputQueue input;
+    private JFrame frame;
+    private volatile GameLoop loop;
+    private Thread loopThread;
+    private boolean swingDoubleBuffering;
+
+    /**
+     * Constructs an {@code AppletHost} for an adapter.
+     *
+     * @param adapter the adapter to host. It must be a {@link Component}, typically a {@code Panel} or
+     *                {@code JPanel}.
+     * @param title   the window title.
+     * @param width   the width of the adapter area, in pixels.
+     * @param height  the height of the adapter area, in pixels.
+     */
+    public AppletHost(JavaAppletAdapter adapter, String title, int width, int height) {
+        if (!(adapter instanceof Component)) {
+            throw new IllegalArgumentException("Adapter must be a Component: " + adapter.getClass().getName());
+        }
+        this.adapter = adapter;
+        this.component = (Component) adapter;
+        this.title = title;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Creates a host for an adapter and launches it.
+     *
+     * @param adapter the adapter to host.
+     * @param title   the window title.
+     * @param width   the width of the adapter area, in pixels.
+     * @param height  the height of the adapter area, in pixels.
+     * @return the running host.
+     */
+    public static AppletHost launch(JavaAppletAdapter adapter, String title, int width, int height) {
+        AppletHost host = new AppletHost(adapter, title, width, height);
+        host.launch();
+        return host;
+    }
+
+    /**
+     * Sets the number of fixed updates per second. Must be called before {@link #launch()}.
+     *
+     * @param updatesPerSecond the update rate.
+     */
+    public void setUpdatesPerSecond(int updatesPerSecond) {
+        this.updatesPerSecond = updatesPerSecond;
+    }
+
+    /**
+     * Sets the maximum number of frames rendered per second, or {@code 0} for no limit.
+     * Must be called before {@link #launch()}.
+     *
+     * @param framesPerSecond the frame cap.
+     */
+    public void setFramesPerSecond(int framesPerSecond) {
+        this.framesPerSecond = framesPerSecond;
+    }
+
+    /**
+     * Sets how many updates may run before a render when the loop falls behind.
+     * Must be called before {@link #launch()}.
+     *
+     * @param maxUpdatesPerFrame the catch-up limit.
+     */
+    public void setMaxUpdatesPerFrame(int maxUpdatesPerFrame) {
+        this.maxUpdatesPerFrame = maxUpdatesPerFrame;
+    }
+
+    /**
+     * Sets whether assets under the document base are reloaded when they change, using an {@link AssetWatcher}.
+     * Off by default, or on with {@code -Dawf.watch=true}. Must be called before {@link #launch()}.
+     *
+     * @param watchAssets {@code true} to watch the document base.
+     */
+    public void setWatchAssets(boolean watchAssets) {
+        this.watchAssets = watchAssets;
+    }
+
+    /**
+     * @return the watcher reloading changed assets, or {@code null} if assets are not watched.
+     */
+    public AssetWatcher getAssetWatcher() {
+        return watcher;
+    }
+
+    /**
+     * Opens the window, calls {@code init()} and {@code start()}, then starts the game loop thread.
+     */
+    public void launch() {
+        runOnEdt(this::openWindow);
+        if (adapter instanceof InputQueue.Handler) {
+            input = InputQueue.attach(component);
+        }
+        adapter.init();
+        adapter.start();
+        if (watchAssets) {
+            try {
+                watcher = AssetWatcher.watch(adapter);
+            } catch (IOException e) {
+                Diagnostics.getInstance().message("Cannot watch assets: " + e.getMessage());
+            }
+        }
+        GameLoop l = new GameLoop(new GameLoop.Callbacks() {
+            @Override
+            public void update(double dt) {
+                if (input != null) {
+                    input.drain((InputQueue.Handler) adapter);
+                }
+                if (adapter instanceof Updatable) {
+                    ((Updatable) adapter).update(dt);
+                }
+            }
+
+            @Override
+            public void render(double alpha) {
+                renderFrame();
+            }
+        }, updatesPerSecond, framesPerSecond, maxUpdatesPerFrame);
+        Thread t = new Thread(() -> {
+            try {
+                l.run();
+            } finally {
+                finish();
+            }
+        }, "AppletHost-" + title);
+        t.setDaemon(true);
+        // Publish both together, so a shutdown() racing with launch() always has a thread to join
+        synchronized (this) {
+            loop = l;
+            loopThread = t;
+        }
+        t.start();
+    }
+
+    /**
+     * Stops the game loop and waits for its thread to call {@code stop()} and {@code destroy()} and dispose of the
+     * window. Called on the loop thread itself, it returns at once and the loop finishes after the current frame.
+     */
+    public void shutdown() {
+        GameLoop l;
+        Thread t;
+        synchronized (this) {
+            l = loop;
+            if (l == null) {
+                return;
+            }
+            loop = null;
+            t = loopThread;
+        }
+        l.stop();
+        if (Thread.currentThread() != t) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                // The loop thread still finishes on its own
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Tears the adapter down on the loop thread, once its last frame has run.
+     */
+    private void finish() {
+        loop = null;
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
+        if (input != null) {
+            input.detach();
+            input = null;
+        }
+        try {
+            adapter.stop();
+            adapter.destroy();
+        } finally {
+            // Not invokeAndWait: the event dispatch thread may be the one waiting in shutdown()
+            SwingUtilities.invokeLater(() -> {
+                RepaintManager.currentManager(component).setDoubleBufferingEnabled(swingDoubleBuffering);
+                frame.dispose();
+            });
+        }
+    }
+
+    /**
+     * @return the frame time statistics of the running loop, or {@code null} before {@link #launch()}.
+     */
+    public FrameStats getFrameStats() {
+        GameLoop l = loop;
+        return l == null ? null : l.getStats();
+    }
+
+    /**
+     * @return the queue of the adapter's mouse and key events, or {@code null} if the adapter does not implement
+     * {@link InputQueue.Handler}.
+     */
+    public InputQueue getInputQueue() {
+        return input;
+    }
+
+    /**
+     * @return the running game loop, or {@code null} when the host is not running.
+     */
+    public GameLoop getLoop() {
+        return loop;
+    }
+
+    public JFrame getFrame() {
+        return frame;
+    }
+
+    private void openWindow() {
+        frame = new JFrame(title);
+        frame.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                new Thread(AppletHost.this::shutdown, "AppletHost-shutdown").start();
+            }
+        });
+        component.setPreferredSize(new Dimension(width, height));
+        frame.getContentPane().add(component);
+        frame.setIgnoreRepaint(true);
+        component.setIgnoreRepaint(true);
+        RepaintManager repaintManager = RepaintManager.currentManager(component);
+        swingDoubleBuffering = repaintManager.isDoubleBufferingEnabled();
+        repaintManager.setDoubleBufferingEnabled(false);
+        frame.pack();
+        frame.setResizable(false);
+        frame.setLocationRelativeTo(null);
+        frame.setVisible(true);
+        frame.createBufferStrategy(2);
+    }
+
+    private void renderFrame() {
+        BufferStrategy strategy = frame.getBufferStrategy();
+        if (strategy == null) {
+            return;
+        }
+        Point origin = SwingUtilities.convertPoint(component, 0, 0, frame);
+        do {
+            do {
+                Graphics g = strategy.getDrawGraphics();
+                try {
+                    g.translate(origin.x, origin.y);
+                    g.clipRect(0, 0, component.getWidth(), component.getHeight());
+                    component.paint(g);
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+    }
+
+    private static void runOnEdt(Runnable r) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            r.run();
+            return;
+        }
+        try {
+            SwingUtilities.invokeAndWait(r);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package dev.jcps;
 
 import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -11,23 +13,45 @@ import java.util.HashMap;
  * The parameters managed by this class control various aspects of the applet's behaviour and
  * appearance.
  * </p>
+ * <p>
+ * Alongside the string view in {@code paramMap}, the typed getters keep each value parsed into a
+ * primitive slot. A typed setter stores the value directly, and a value written as a string is parsed
+ * the first time it is read, so repeated reads in a game loop do no parsing and no boxing. A slot is
+ * only trusted while {@code paramMap} still holds the exact string it was parsed from, so legacy code
+ * writing to {@code paramMap} directly stays consistent.
+ * </p>
+ * <p>
+ * Parameters may be read and written from several threads at once: {@code paramMap} is a concurrent map, so
+ * reads never take a lock. A set of parameters can also inherit from a parent; a key missing here is looked up
+ * in the parent, then in the parent's parent. Each {@link JavaAppletAdapter} gets its own parameters through
+ * {@link JavaAppletAdapter#getAppletParameters()}, which inherit from the shared {@link #global()} parameters.
+ * </p>
  *
  * @author neoFuzz
  * @since 1.0
  */
 public class AppletParameters {
+    @SuppressWarnings("deprecation")
+    private static final AppletParameters GLOBAL =
+            new AppletParameters(JavaAppletAdapter.paramMap, null);
+
     /**
      * A HashMap that stores key-value pairs representing various applet parameters.
      * The keys are String identifiers for the parameters, and the values are their corresponding settings.
+     * The map is safe to read and write from several threads at once, and accepts {@code null} keys and values
+     * like any {@code HashMap}; a key mapped to {@code null} is treated as not set.
      */
     public HashMap<String, String> paramMap;
 
+    private final ConcurrentHashMap<String, Slot> slots = new ConcurrentHashMap<>();
+    private final AppletParameters parent;
+
     /**
-     * Constructs a {@code AppletParameters} object and initialises it with a blank HashMap,
+     * Constructs a {@code AppletParameters} object and initialises it with a blank map,
      * represented as key-value pairs in the {@code paramMap}.
      */
     public AppletParameters() {
-        paramMap = new HashMap<>();
+        this(new ConcurrentParameterMap(), null);
     }
 
     /**
@@ -37,21 +61,117 @@ public class AppletParameters {
      * @param hashMap The HashMap containing key-value pairs representing various parameters.
      */
     public AppletParameters(HashMap<String, String> hashMap) {
-        paramMap = new AppletParameters().paramMap;
-        paramMap.putAll(hashMap);
+        this(new ConcurrentParameterMap(hashMap), null);
+    }
+
+    /**
+     * Constructs a {@code AppletParameters} object and initialises it with a given set of settings.
+     * The settings are provided as a map of key-value pairs, which are then stored in the paramMap.
+     *
+     * @param map The map containing key-value pairs representing various parameters.
+     */
+    public AppletParameters(Map<String, String> map) {
+        this(new ConcurrentParameterMap(map), null);
+    }
+
+    /**
+     * Constructs an empty {@code AppletParameters} object that inherits every key it does not hold from
+     * {@code parent}.
+     *
+     * @param parent the parameters to fall back to, or {@code null}.
+     */
+    public AppletParameters(AppletParameters parent) {
+        this(new ConcurrentParameterMap(), parent);
+    }
+
+    private AppletParameters(HashMap<String, String> paramMap, AppletParameters parent) {
+        this.paramMap = paramMap;
+        this.parent = parent;
+    }
+
+    /**
+     * Returns the process-wide parameters backed by the legacy {@link JavaAppletAdapter#paramMap}.
+     * Every adapter's own parameters inherit from these unless a host sets up a different parent.
+     *
+     * @return the shared parameters.
+     */
+    public static AppletParameters global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Retrieves the string value of a parameter, looking in the parent parameters if it is not set here.
+     *
+     * @param key The key associated with the value to be retrieved.
+     * @return The value associated with the specified key, or {@code null} if neither these parameters nor
+     * any parent hold it.
+     */
+    public String getString(String key) {
+        AppletParameters p = this;
+        do {
+            String value = p.paramMap.get(key);
+            if (value != null) {
+                return value;
+            }
+            p = p.parent;
+        } while (p != null);
+        return null;
+    }
+
+    /**
+     * Associates a string value with a specific key in the paramMap.
+     *
+     * @param key   The key with which the specified value is to be associated.
+     * @param value The value to be associated with the specified key.
+     */
+    public void putString(String key, String value) {
+        paramMap.put(key, value);
+    }
+
+    /**
+     * Stores many string values at once, such as those read by {@link ParameterLoader}. Values already set for
+     * the same keys are replaced; typed values parsed from them are dropped on their next read.
+     *
+     * @param values the keys and values to store.
+     */
+    public void putAll(Map<String, String> values) {
+        paramMap.putAll(values);
+    }
+
+    /**
+     * Removes a key from these parameters. A value inherited from the parent becomes visible again.
+     *
+     * @param key The key to remove.
+     */
+    public void remove(String key) {
+        paramMap.remove(key);
+        if (key != null) {
+            slots.remove(key);
+        }
+    }
+
+    /**
+     * @return the parameters this object inherits from, or {@code null}.
+     */
+    public AppletParameters getParent() {
+        return parent;
     }
 
     /**
      * Retrieves an integer value associated with a specific key from the paramMap.
      *
      * @param key The key associated with the integer value to be retrieved.
-     * @return The integer value associated with the specified key.
+     * @return The integer value associated with the specified key, or {@code 0} if there is none.
      * @throws NumberFormatException If the value associated with the key cannot be parsed as an integer.
      */
     public int getInt(String key) {
-        String value = paramMap.get(key);
+        String value = getString(key);
         if (value == null) return 0;
-        return Integer.parseInt(value);
+        Slot slot = slot(key);
+        if (slot == null || slot.source != value || slot.type != Slot.INT) {
+            slot = cache(key, value, Slot.INT, Integer.parseInt(value.trim()));
+        }
+        return (int) slot.bits;
     }
 
     /**
@@ -62,6 +182,163 @@ public class AppletParameters {
      * @param i   The integer value to be associated with the specified key.
      */
     public void putInt(String key, int i) {
-        paramMap.put(key, String.valueOf(i));
+        store(key, String.valueOf(i), Slot.INT, i);
+    }
+
+    /**
+     * Retrieves a long value associated with a specific key from the paramMap.
+     *
+     * @param key The key associated with the long value to be retrieved.
+     * @return The long value associated with the specified key, or {@code 0} if there is none.
+     * @throws NumberFormatException If the value associated with the key cannot be parsed as a long.
+     */
+    public long getLong(String key) {
+        String value = getString(key);
+        if (value == null) return 0;
+        Slot slot = slot(key);
+        if (slot == null || slot.source != value || slot.type != Slot.LONG) {
+            slot = cache(key, value, Slot.LONG, Long.parseLong(value.trim()));
+        }
+        return slot.bits;
+    }
+
+    /**
+     * Associates a specific long value with a specific key in the paramMap.
+     *
+     * @param key The key with which the specified long value is to be associated.
+     * @param l   The long value to be associated with the specified key.
+     */
+    public void putLong(String key, long l) {
+        store(key, String.valueOf(l), Slot.LONG, l);
+    }
+
+    /**
+     * Retrieves a double value associated with a specific key from the paramMap.
+     *
+     * @param key The key associated with the double value to be retrieved.
+     * @return The double value associated with the specified key, or {@code 0.0} if there is none.
+     * @throws NumberFormatException If the value associated with the key cannot be parsed as a double.
+     */
+    public double getDouble(String key) {
+        String value = getString(key);
+        if (value == null) return 0;
+        Slot slot = slot(key);
+        if (slot == null || slot.source != value || slot.type != Slot.DOUBLE) {
+            slot = cache(key, value, Slot.DOUBLE, Double.doubleToRawLongBits(Double.parseDouble(value)));
+        }
+        return Double.longBitsToDouble(slot.bits);
+    }
+
+    /**
+     * Associates a specific double value with a specific key in the paramMap.
+     *
+     * @param key The key with which the specified double value is to be associated.
+     * @param d   The double value to be associated with the specified key.
+     */
+    public void putDouble(String key, double d) {
+        store(key, String.valueOf(d), Slot.DOUBLE, Double.doubleToRawLongBits(d));
+    }
+
+    /**
+     * Retrieves a boolean value associated with a specific key from the paramMap.
+     * The value is {@code true} if the stored string is {@code "true"}, ignoring case.
+     *
+     * @param key The key associated with the boolean value to be retrieved.
+     * @return The boolean value associated with the specified key, or {@code false} if there is none.
+     */
+    public boolean getBoolean(String key) {
+        String value = getString(key);
+        if (value == null) return false;
+        Slot slot = slot(key);
+        if (slot == null || slot.source != value || slot.type != Slot.BOOLEAN) {
+            slot = cache(key, value, Slot.BOOLEAN, Boolean.parseBoolean(value.trim()) ? 1 : 0);
+        }
+        return slot.bits != 0;
+    }
+
+    /**
+     * Associates a specific boolean value with a specific key in the paramMap.
+     *
+     * @param key The key with which the specified boolean value is to be associated.
+     * @param b   The boolean value to be associated with the specified key.
+     */
+    public void putBoolean(String key, boolean b) {
+        store(key, String.valueOf(b), Slot.BOOLEAN, b ? 1 : 0);
+    }
+
+    /**
+     * Retrieves a colour associated with a specific key from the paramMap.
+     * The stored string may be written as {@code #RRGGBB}, {@code #AARRGGBB}, {@code 0xRRGGBB} or a decimal number,
+     * as accepted by {@link java.awt.Color#decode(String)}.
+     *
+     * @param key The key associated with the colour to be retrieved.
+     * @return The colour as packed RGB (or ARGB) bits, or {@code 0} if there is none.
+     * @throws NumberFormatException If the value associated with the key cannot be parsed as a colour.
+     */
+    public int getColor(String key) {
+        String value = getString(key);
+        if (value == null) return 0;
+        Slot slot = slot(key);
+        if (slot == null || slot.source != value || slot.type != Slot.COLOR) {
+            slot = cache(key, value, Slot.COLOR, (int) (long) Long.decode(value.trim()));
+        }
+        return (int) slot.bits;
+    }
+
+    /**
+     * Associates a colour with a specific key in the paramMap. The string view holds it as {@code #RRGGBB},
+     * or {@code #AARRGGBB} when the alpha bits are set.
+     *
+     * @param key The key with which the specified colour is to be associated.
+     * @param rgb The colour as packed RGB (or ARGB) bits.
+     */
+    public void putColor(String key, int rgb) {
+        String s = (rgb >>> 24) != 0
+                ? String.format("#%08X", rgb)
+                : String.format("#%06X", rgb);
+        store(key, s, Slot.COLOR, rgb);
+    }
+
+    private Slot slot(String key) {
+        // The slots cannot hold a null key; a value under one is parsed on every read
+        return key == null ? null : slots.get(key);
+    }
+
+    private void store(String key, String value, int type, long bits) {
+        paramMap.put(key, value);
+        if (key != null) {
+            slots.put(key, new Slot(value, type, bits));
+        }
+    }
+
+    private Slot cache(String key, String value, int type, long bits) {
+        // Only the slot is written here; a concurrent writer may have replaced the string meanwhile,
+        // in which case the identity check rejects this slot on the next read
+        Slot slot = new Slot(value, type, bits);
+        if (key != null) {
+            slots.put(key, slot);
+        }
+        return slot;
+    }
+
+    /**
+     * A parsed value, valid while the parameter lookup returns the same string instance it was parsed from.
+     */
+    private static final class Slot {
+        static final int INT = 0;
+        static final int LONG = 1;
+        static final int DOUBLE = 2;
+        static final int BOOLEAN = 3;
+        static final int COLOR = 4;
+
+        final String source;
+        final int type;
+        final long bits;
+
+        Slot(String source, int type, long bits) {
+            this.source = source;
+            this.type = type;
+            this.bits = bits;
+        }
     }
 }
@@ -0,0 +1,364 @@
+package dev.jcps;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * The {@code AssetCache} class is a process-wide, size-bounded store for decoded assets.
+ * <p>
+ * Entries are keyed by their resolved location (for example {@code file:/abs/path.png},
+ * {@code classpath:/sprites.png} or a full URL) so that every adapter asking for the same
+ * asset shares one decoded copy. The cache keeps the total estimated size of its entries under
+ * a byte budget and evicts the least recently used entries first when a new entry would exceed it.
+ * </p>
+ * <p>
+ * Hit, miss and eviction counts are kept so the budget can be tuned for a given application.
+ * </p>
+ * <p>
+ * A {@link SecondTier} can be set to receive evicted entries instead of dropping them; a later miss takes the
+ * entry back from the tier rather than decoding it again. {@link OffHeapImageTier} keeps evicted images in
+ * direct memory, so the heap budget can be small without paying for decodes. Only evicted images move there:
+ * Java2D rasters need heap arrays, so images held by the cache, and any image being drawn, stay on the heap.
+ * The shared image cache gets a tier of {@code N} MiB when the system property {@code awf.offHeapImages=N} is
+ * set.
+ * </p>
+ *
+ * @param <V> the type of decoded asset held by the cache.
+ * @since 1.1
+ */
+public class AssetCache<V> {
+    /**
+     * Default byte budget of the shared image cache, 64 MiB.
+     */
+    public static final long DEFAULT_IMAGE_BUDGET = 64L * 1024 * 1024;
+
+    /**
+     * Default byte budget of the shared decoded audio cache, 32 MiB.
+     */
+    public static final long DEFAULT_SAMPLE_BUDGET = 32L * 1024 * 1024;
+
+    private static final AssetCache<BufferedImage> IMAGES =
+            new AssetCache<>(DEFAULT_IMAGE_BUDGET, AssetCache::imageSize);
+    private static final AssetCache<AudioSample> SAMPLES =
+            new AssetCache<>(DEFAULT_SAMPLE_BUDGET, AudioSample::getByteLength);
+
+    static {
+        long offHeapMiB = Long.getLong("awf.offHeapImages", 0);
+        if (offHeapMiB > 0) {
+            IMAGES.setSecondTier(new OffHeapImageTier(offHeapMiB * 1024 * 1024));
+        }
+    }
+
+    private final LinkedHashMap<String, Entry<V>> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final ToLongFunction<V> weigher;
+    private long maxBytes;
+    private long currentBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private SecondTier<V> secondTier;
+
+    /**
+     * Constructs an {@code AssetCache} with the given byte budget.
+     *
+     * @param maxBytes the maximum total estimated size of the cached entries, in bytes.
+     * @param weigher  a function returning the estimated size of an entry, in bytes.
+     */
+    public AssetCache(long maxBytes, ToLongFunction<V> weigher) {
+        this.maxBytes = maxBytes;
+        this.weigher = weigher;
+    }
+
+    /**
+     * Returns the cache shared by all {@link JavaAppletAdapter#getImage(String, String)} calls.
+     *
+     * @return the process-wide image cache.
+     */
+    public static AssetCache<BufferedImage> images() {
+        return IMAGES;
+    }
+
+    /**
+     * Returns the cache of decoded PCM shared by all {@link JavaAppletAdapter#getAudioSample(String, String)} calls.
+     *
+     * @return the process-wide decoded audio cache.
+     */
+    public static AssetCache<AudioSample> samples() {
+        return SAMPLES;
+    }
+
+    /**
+     * Estimates the memory held by a decoded image from the size of its raster data.
+     *
+     * @param image the image to measure.
+     * @return the estimated size of the image data, in bytes.
+     */
+    static long imageSize(BufferedImage image) {
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        long bytesPerElement = Math.max(1, DataBuffer.getDataTypeSize(buffer.getDataType()) / 8);
+        return (long) buffer.getSize() * buffer.getNumBanks() * bytesPerElement;
+    }
+
+    /**
+     * Returns the cached entry for {@code key}, or loads, stores and returns it when absent.
+     * <p>
+     * The loader runs outside the cache lock, so a slow decode does not block lookups of other
+     * entries. A {@code null} result from the loader is returned but not cached.
+     * </p>
+     *
+     * @param key    the resolved location of the asset.
+     * @param loader the function used to decode the asset on a miss.
+     * @return the cached or freshly loaded asset, or {@code null} if the loader produced nothing.
+     * @throws IOException if the loader fails.
+     */
+    public V load(String key, Loader<V> loader) throws IOException {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        value = loader.load();
+        if (value != null) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Retrieves the entry stored for {@code key} and marks it as recently used.
+     *
+     * @param key the resolved location of the asset.
+     * @return the cached asset, or {@code null} if it is not present.
+     */
+    public synchronized V get(String key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            V spilled = secondTier == null ? null : secondTier.take(key);
+            if (spilled != null) {
+                hits++;
+                put(key, spilled);
+                return spilled;
+            }
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    /**
+     * Stores an entry, evicting least recently used entries until the budget is respected.
+     * Entries larger than the whole budget are not stored.
+     *
+     * @param key   the resolved location of the asset.
+     * @param value the decoded asset.
+     */
+    public synchronized void put(String key, V value) {
+        long size = weigher.applyAsLong(value);
+        if (size > maxBytes) {
+            return;
+        }
+        if (secondTier != null) {
+            // A spilled copy would be stale now
+            secondTier.remove(key);
+        }
+        Entry<V> old = entries.put(key, new Entry<>(value, size));
+        if (old != null) {
+            currentBytes -= old.size;
+        }
+        currentBytes += size;
+        trim();
+    }
+
+    /**
+     * Removes the entry stored for {@code key}, if any.
+     *
+     * @param key the resolved location of the asset.
+     * @return {@code true} if an entry was removed.
+     */
+    public synchronized boolean invalidate(String key) {
+        if (secondTier != null) {
+            secondTier.remove(key);
+        }
+        Entry<V> old = entries.remove(key);
+        if (old == null) {
+            return false;
+        }
+        currentBytes -= old.size;
+        return true;
+    }
+
+    /**
+     * Removes every entry holding {@code value} itself, whatever its key, for a caller that has a decoded asset
+     * but not the location it was cached under.
+     *
+     * @param value the asset to drop.
+     * @return {@code true} if an entry was removed.
+     */
+    public synchronized boolean invalidateValue(V value) {
+        boolean removed = false;
+        for (Iterator<Map.Entry<String, Entry<V>>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Entry<V>> e = it.next();
+            if (e.getValue().value == value) {
+                if (secondTier != null) {
+                    secondTier.remove(e.getKey());
+                }
+                currentBytes -= e.getValue().size;
+                it.remove();
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Removes every entry and resets the statistics.
+     */
+    public synchronized void clear() {
+        if (secondTier != null) {
+            secondTier.clear();
+        }
+        entries.clear();
+        currentBytes = 0;
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    /**
+     * Changes the byte budget, evicting entries immediately if the cache is now over budget.
+     *
+     * @param maxBytes the new maximum total estimated size of the cached entries, in bytes.
+     */
+    public synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        trim();
+    }
+
+    public synchronized long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    /**
+     * Sets the tier that receives evicted entries, or {@code null} to drop them.
+     *
+     * @param secondTier the tier, or {@code null}.
+     */
+    public synchronized void setSecondTier(SecondTier<V> secondTier) {
+        if (this.secondTier != null) {
+            this.secondTier.clear();
+        }
+        this.secondTier = secondTier;
+    }
+
+    public synchronized SecondTier<V> getSecondTier() {
+        return secondTier;
+    }
+
+    /**
+     * @param value an asset.
+     * @return the estimated size of {@code value}, in bytes, as this cache counts it.
+     */
+    long weigh(V value) {
+        return weigher.applyAsLong(value);
+    }
+
+    private void trim() {
+        Iterator<Map.Entry<String, Entry<V>>> it = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Entry<V>> eldest = it.next();
+            currentBytes -= eldest.getValue().size;
+            it.remove();
+            evictions++;
+            if (secondTier != null) {
+                secondTier.store(eldest.getKey(), eldest.getValue().value);
+            }
+        }
+    }
+
+    /**
+     * Decodes an asset on a cache miss.
+     *
+     * @param <V> the type of decoded asset.
+     */
+    @FunctionalInterface
+    public interface Loader<V> {
+        /**
+         * Decodes the asset.
+         *
+         * @return the decoded asset, or {@code null} if the source holds no readable asset.
+         * @throws IOException if the source cannot be read.
+         */
+        V load() throws IOException;
+    }
+
+    /**
+     * A slower store below the cache that keeps entries evicted from it.
+     * Methods are called with the cache locked.
+     *
+     * @param <V> the type of decoded asset.
+     */
+    public interface SecondTier<V> {
+        /**
+         * Keeps an entry evicted from the cache. The tier may decline to keep it.
+         *
+         * @param key   the entry key.
+         * @param value the evicted asset.
+         */
+        void store(String key, V value);
+
+        /**
+         * Removes and returns an entry, which the cache then holds again.
+         *
+         * @param key the entry key.
+         * @return the asset, or {@code null} if the tier does not hold it.
+         */
+        V take(String key);
+
+        /**
+         * Drops an entry, if held.
+         *
+         * @param key the entry key.
+         */
+        void remove(String key);
+
+        /**
+         * Drops every entry.
+         */
+        void clear();
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long size;
+
+        Entry(V value, long size) {
+            this.value = value;
+            this.size = size;
+        }
+    }
+}
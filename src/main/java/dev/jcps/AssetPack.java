@@ -0,0 +1,253 @@
+package dev.jcps;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The {@code AssetPack} class reads a pack of assets bundled into one indexed file by {@link AssetPackWriter}.
+ * <p>
+ * The whole pack is memory-mapped with {@link FileChannel#map}, and each entry is served as a read-only
+ * {@link ByteBuffer} slice of the mapping, so no bytes are copied until a decoder reads them. Packs that are
+ * {@linkplain #mount(AssetPack) mounted} are checked by {@link JavaAppletAdapter#getImage(String, String)} and
+ * {@link JavaAppletAdapter#getAudioSample(String, String)} before the file, classpath and URL sources.
+ * </p>
+ * <p>
+ * The file layout, all integers big-endian, is:
+ * <pre>
+ * "AWFP" magic, int version, int entry count
+ * per entry: unsigned short name length, UTF-8 name, long data offset, int data length
+ * entry data
+ * </pre>
+ * A pack is at most {@code Integer.MAX_VALUE} bytes, the most one mapping can hold.
+ * </p>
+ *
+ * @since 1.1
+ */
+public class AssetPack {
+    static final int MAGIC = 0x41574650; // "AWFP"
+    static final int VERSION = 1;
+    /**
+     * The largest pack that can be mapped, {@code Integer.MAX_VALUE} bytes.
+     */
+    static final long MAX_SIZE = Integer.MAX_VALUE;
+
+    private static final CopyOnWriteArrayList<AssetPack> MOUNTED = new CopyOnWriteArrayList<>();
+
+    private final Path path;
+    private final MappedByteBuffer mapping;
+    private final Map<String, long[]> index;
+
+    private AssetPack(Path path, MappedByteBuffer mapping, Map<String, long[]> index) {
+        this.path = path;
+        this.mapping = mapping;
+        this.index = index;
+    }
+
+    /**
+     * Memory-maps a pack file and reads its index.
+     *
+     * @param path the pack file.
+     * @return the opened pack.
+     * @throws IOException if the file cannot be mapped or is not a valid pack.
+     */
+    public static AssetPack open(Path path) throws IOException {
+        MappedByteBuffer mapping;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > MAX_SIZE) {
+                // One mapping holds at most 2 GiB, and entries are sliced with int offsets
+                throw new IOException("Asset pack of " + size + " bytes is too large to map: " + path);
+            }
+            // The mapping stays valid after the channel is closed
+            mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        try {
+            if (mapping.getInt() != MAGIC) {
+                throw new IOException("Not an asset pack: " + path);
+            }
+            int version = mapping.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported asset pack version " + version + ": " + path);
+            }
+            int count = mapping.getInt();
+            Map<String, long[]> index = new HashMap<>(count * 2);
+            byte[] nameBytes = new byte[256];
+            for (int i = 0; i < count; i++) {
+                int nameLength = Short.toUnsignedInt(mapping.getShort());
+                if (nameLength > nameBytes.length) {
+                    nameBytes = new byte[nameLength];
+                }
+                mapping.get(nameBytes, 0, nameLength);
+                String name = new String(nameBytes, 0, nameLength, StandardCharsets.UTF_8);
+                long offset = mapping.getLong();
+                int length = mapping.getInt();
+                if (offset < 0 || length < 0 || offset + length > mapping.capacity()) {
+                    throw new IOException("Corrupt asset pack entry " + name + ": " + path);
+                }
+                index.put(name, new long[]{offset, length});
+            }
+            return new AssetPack(path, mapping, index);
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt asset pack: " + path, e);
+        }
+    }
+
+    /**
+     * Adds a pack to the packs checked by the adapter loaders. Packs mounted earlier take priority. Where the
+     * {@link AssetResolver} found the pack's names before, including names it found nowhere, is forgotten, so the
+     * next request for them looks in the pack first.
+     *
+     * @param pack the pack to mount.
+     */
+    public static void mount(AssetPack pack) {
+        if (MOUNTED.addIfAbsent(pack)) {
+            forget(pack);
+        }
+    }
+
+    /**
+     * Removes a pack from the packs checked by the adapter loaders. Its entries are dropped from the asset caches
+     * and the resolutions of its names are forgotten, so they are looked up in the other sources again.
+     *
+     * @param pack the pack to unmount.
+     * @return {@code true} if the pack was mounted.
+     */
+    public static boolean unmount(AssetPack pack) {
+        boolean removed = MOUNTED.remove(pack);
+        if (removed) {
+            forget(pack);
+        }
+        return removed;
+    }
+
+    /**
+     * Drops what the loaders remember about the names of a pack: their resolutions and the {@code pack:} cache
+     * entries decoded from whichever pack held them.
+     */
+    private static void forget(AssetPack pack) {
+        AssetResolver.getInstance().forgetNamed(pack.index.keySet());
+        AssetCache<BufferedImage> images = AssetCache.images();
+        AssetCache<AudioSample> samples = AssetCache.samples();
+        for (String name : pack.index.keySet()) {
+            images.invalidate("pack:" + name);
+            samples.invalidate("pack:" + name);
+        }
+    }
+
+    /**
+     * Finds an entry in the mounted packs.
+     *
+     * @param name the entry name, a path relative to the directory the pack was built from.
+     * @return a read-only slice of the first mounted pack holding the entry, or {@code null} if none does.
+     */
+    public static ByteBuffer find(String name) {
+        for (AssetPack pack : MOUNTED) {
+            ByteBuffer entry = pack.get(name);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns an entry of this pack.
+     *
+     * @param name the entry name.
+     * @return a read-only slice of the mapping holding the entry, positioned at zero, or {@code null} if absent.
+     */
+    public ByteBuffer get(String name) {
+        long[] entry = index.get(name);
+        if (entry == null) {
+            return null;
+        }
+        return mapping.slice((int) entry[0], (int) entry[1]).asReadOnlyBuffer();
+    }
+
+    public boolean contains(String name) {
+        return index.containsKey(name);
+    }
+
+    public Set<String> names() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Returns an {@code InputStream} reading the remaining bytes of a buffer, with mark and reset support.
+     *
+     * @param buffer the buffer to read. Its position is not changed.
+     * @return a stream over the buffer's contents.
+     */
+    static InputStream stream(ByteBuffer buffer) {
+        return new BufferInputStream(buffer.duplicate());
+    }
+
+    private static final class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            int k = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + k);
+            return k;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int readLimit) {
+            buffer.mark();
+        }
+
+        @Override
+        public synchronized void reset() {
+            buffer.reset();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package dev.jcps;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The {@code AssetPackWriter} class is the build-time tool that bundles a directory of assets into one
+ * {@link AssetPack} file.
+ * <p>
+ * Entry names are the paths of the files relative to the directory, using {@code /} as the separator, so a file
+ * {@code assets/sprites/hero.png} packed from {@code assets} is found as {@code sprites/hero.png}.
+ * </p>
+ * <p>
+ * A pack is mapped as one buffer when it is opened, so a whole pack, index included, must stay under 2 GiB.
+ * Split larger asset sets over several packs and mount them all.
+ * </p>
+ * <p>
+ * Example usage:
+ * <pre>{@code
+ * java -cp appletwrapperframework.jar dev.jcps.AssetPackWriter game.pack src/main/resources
+ * }</pre>
+ * </p>
+ *
+ * @since 1.1
+ */
+public class AssetPackWriter {
+    private final List<String> names = new ArrayList<>();
+    private final List<Path> files = new ArrayList<>();
+
+    /**
+     * Bundles a directory into a pack file.
+     *
+     * @param args the pack file to write, followed by the directory to bundle.
+     * @throws IOException if a file cannot be read or the pack cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: AssetPackWriter <output.pack> <asset directory>");
+            return;
+        }
+        AssetPackWriter writer = new AssetPackWriter();
+        int count = writer.addDirectory(Paths.get(args[1]));
+        writer.write(Paths.get(args[0]));
+        System.out.println("Packed " + count + " assets into " + args[0]);
+    }
+
+    /**
+     * Adds every regular file below a directory.
+     *
+     * @param dir the directory to bundle.
+     * @return the number of files added.
+     * @throws IOException if the directory cannot be walked.
+     */
+    public int addDirectory(Path dir) throws IOException {
+        List<Path> found;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            found = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        for (Path file : found) {
+            add(dir.relativize(file).toString().replace('\\', '/'), file);
+        }
+        return found.size();
+    }
+
+    /**
+     * Adds one file under the given entry name.
+     *
+     * @param name the entry name.
+     * @param file the file holding the entry data.
+     */
+    public void add(String name, Path file) {
+        if (name.getBytes(StandardCharsets.UTF_8).length > 0xFFFF) {
+            throw new IllegalArgumentException("Entry name too long: " + name);
+        }
+        names.add(name);
+        files.add(file);
+    }
+
+    /**
+     * Writes the index and the data of every added file.
+     *
+     * @param out the pack file to write.
+     * @throws IOException if a file cannot be read, the pack would reach 2 GiB, or it cannot be written.
+     */
+    public void write(Path out) throws IOException {
+        long[] lengths = new long[files.size()];
+        long indexSize = 12;
+        for (int i = 0; i < files.size(); i++) {
+            lengths[i] = Files.size(files.get(i));
+            if (lengths[i] > Integer.MAX_VALUE) {
+                throw new IOException("Asset too large for a pack: " + files.get(i));
+            }
+            indexSize += 2 + names.get(i).getBytes(StandardCharsets.UTF_8).length + 8 + 4;
+        }
+        long total = indexSize;
+        for (long length : lengths) {
+            total += length;
+        }
+        if (total > AssetPack.MAX_SIZE) {
+            throw new IOException("Asset pack of " + total + " bytes is too large to map; split it into packs under "
+                    + AssetPack.MAX_SIZE + " bytes: " + out);
+        }
+        try (OutputStream os = Files.newOutputStream(out);
+             DataOutputStream data = new DataOutputStream(new BufferedOutputStream(os))) {
+            data.writeInt(AssetPack.MAGIC);
+            data.writeInt(AssetPack.VERSION);
+            data.writeInt(files.size());
+            long offset = indexSize;
+            for (int i = 0; i < files.size(); i++) {
+                byte[] name = names.get(i).getBytes(StandardCharsets.UTF_8);
+                data.writeShort(name.length);
+                data.write(name);
+                data.writeLong(offset);
+                data.writeInt((int) lengths[i]);
+                offset += lengths[i];
+            }
+            for (Path file : files) {
+                Files.copy(file, data);
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package dev.jcps;
+
+import java.awt.*;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * The {@code AssetPreloader} class loads images and sounds in the background, in the spirit of the applet
+ * {@code MediaTracker}.
+ * <p>
+ * Every asset in a manifest is loaded in parallel on a bounded pool of daemon threads through the adapter's own
+ * {@link JavaAppletAdapter#getImage(String, String)} and {@link JavaAppletAdapter#getAudioSample(String, String)},
+ * so the decoded results land in the same {@link AssetCache} those methods read from. Later calls on the event
+ * dispatch thread are then served from memory.
+ * </p>
+ * <p>
+ * Example usage:
+ * <pre>{@code
+ * AssetPreloader preloader = new AssetPreloader();
+ * AssetPreloader.Batch batch = preloader.preload(this, getDocumentBase(),
+ *         List.of("title.png", "sprites.png"), List.of("pin.wav"),
+ *         (name, done, total, ok) -> showStatus("Loaded " + done + " of " + total));
+ * batch.all().thenRun(this::start);
+ * }</pre>
+ * </p>
+ *
+ * @since 1.1
+ */
+public class AssetPreloader implements AutoCloseable {
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    private final ExecutorService executor;
+
+    /**
+     * Constructs an {@code AssetPreloader} with one loader thread per available processor.
+     */
+    public AssetPreloader() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs an {@code AssetPreloader} that loads at most {@code threads} assets at a time.
+     *
+     * @param threads the number of loader threads.
+     */
+    public AssetPreloader(int threads) {
+        int pool = POOL_COUNT.incrementAndGet();
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread t = new Thread(r, "AssetPreloader-" + pool + "-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        executor = Executors.newFixedThreadPool(threads, factory);
+    }
+
+    /**
+     * Starts loading every image and sound in the manifest. A name listed more than once among the images, or
+     * among the sounds, is loaded and counted once.
+     *
+     * @param adapter      the adapter whose loaders are used.
+     * @param documentBase the base location the names are relative to.
+     * @param images       the image file names to load.
+     * @param sounds       the sound file names to load.
+     * @param listener     notified after each asset finishes, or {@code null}.
+     * @return a {@code Batch} holding one future per asset.
+     */
+    public Batch preload(JavaAppletAdapter adapter, String documentBase, Collection<String> images,
+                         Collection<String> sounds, ProgressListener listener) {
+        // The futures are keyed by name, so duplicates would be loaded twice yet counted once in the maps
+        Set<String> imageNames = new LinkedHashSet<>(images);
+        Set<String> soundNames = new LinkedHashSet<>(sounds);
+        Batch batch = new Batch(imageNames.size() + soundNames.size(), listener);
+        for (String name : imageNames) {
+            batch.images.put(name, batch.submit(name, () -> adapter.getImage(documentBase, name)));
+        }
+        for (String name : soundNames) {
+            batch.sounds.put(name, batch.submit(name, () -> adapter.getAudioSample(documentBase, name)));
+        }
+        return batch;
+    }
+
+    /**
+     * Stops accepting new work. Loads already started are allowed to finish.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * Receives progress notifications from a {@link Batch}.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * Called on a loader thread each time an asset finishes.
+         *
+         * @param name      the name of the asset that finished.
+         * @param completed the number of assets of the batch finished so far.
+         * @param total     the number of distinct assets in the batch.
+         * @param loaded    {@code true} if the asset was loaded, {@code false} if it could not be found or read.
+         */
+        void progress(String name, int completed, int total, boolean loaded);
+    }
+
+    /**
+     * The set of futures for one preload manifest.
+     */
+    public final class Batch {
+        private final Map<String, CompletableFuture<Image>> images = new LinkedHashMap<>();
+        private final Map<String, CompletableFuture<AudioSample>> sounds = new LinkedHashMap<>();
+        private final AtomicInteger completed = new AtomicInteger();
+        private final int total;
+        private final ProgressListener listener;
+
+        private Batch(int total, ProgressListener listener) {
+            this.total = total;
+            this.listener = listener;
+        }
+
+        private <T> CompletableFuture<T> submit(String name, Supplier<T> loader) {
+            return CompletableFuture.supplyAsync(loader, executor).whenComplete((value, error) -> {
+                int done = completed.incrementAndGet();
+                if (listener != null) {
+                    listener.progress(name, done, total, error == null && value != null);
+                }
+            });
+        }
+
+        /**
+         * @return the image futures, keyed by file name. A future completes with {@code null} if the image
+         * could not be loaded.
+         */
+        public Map<String, CompletableFuture<Image>> getImages() {
+            return Collections.unmodifiableMap(images);
+        }
+
+        /**
+         * @return the sound futures, keyed by file name. A future completes with {@code null} if the sound
+         * could not be loaded.
+         */
+        public Map<String, CompletableFuture<AudioSample>> getSounds() {
+            return Collections.unmodifiableMap(sounds);
+        }
+
+        /**
+         * @return a future that completes when every asset of the batch has finished.
+         */
+        public CompletableFuture<Void> all() {
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[images.size() + sounds.size()];
+            int i = 0;
+            for (CompletableFuture<?> f : images.values()) {
+                futures[i++] = f;
+            }
+            for (CompletableFuture<?> f : sounds.values()) {
+                futures[i++] = f;
+            }
+            return CompletableFuture.allOf(futures);
+        }
+
+        public int getCompleted() {
+            return completed.get();
+        }
+
+        public int getTotal() {
+            return total;
+        }
+    }
+}
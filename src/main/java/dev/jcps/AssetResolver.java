@@ -0,0 +1,271 @@
+package dev.jcps;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@code AssetResolver} class remembers where each asset was found.
+ * <p>
+ * The loaders in {@link JavaAppletAdapter} try several sources in turn for every asset: a file, a classpath
+ * resource, a URL and so on. Each source that misses costs an exception and a filesystem, jar or network lookup.
+ * Once a source has worked for a given owner class, asset kind, base and name, the resolver records it and the
+ * loaders go straight there on the next request. Names that could not be found anywhere are remembered too, so
+ * they are not probed again until {@link #forget(String)} or {@link #clear()} is called.
+ * </p>
+ * <p>
+ * Counters report how many lookups were answered from the resolver and how many probes that saved.
+ * </p>
+ *
+ * @since 1.1
+ */
+public class AssetResolver {
+    /**
+     * The order in which {@link JavaAppletAdapter#getImage(String, String)} probes sources.
+     */
+    static final Source[] IMAGE_CHAIN = {Source.PACK, Source.FILE, Source.CLASSPATH, Source.URL};
+
+    /**
+     * The order in which {@link JavaAppletAdapter#getAudioSample(String, String)} probes sources.
+     */
+    static final Source[] AUDIO_CHAIN = {
+            Source.PACK, Source.URL, Source.FILE, Source.CLASS_RELATIVE, Source.JAR_ROOT};
+
+    private static final AssetResolver INSTANCE = new AssetResolver();
+
+    private final ConcurrentHashMap<String, Resolution> resolutions = new ConcurrentHashMap<>();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder resolvedHits = new LongAdder();
+    private final LongAdder missingHits = new LongAdder();
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder probesSaved = new LongAdder();
+
+    /**
+     * @return the resolver shared by all adapters.
+     */
+    public static AssetResolver getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Builds the key identifying one asset request.
+     *
+     * @param owner the adapter class, which determines the classpath the resources are read from.
+     * @param kind  the kind of asset, for example {@code "image"} or {@code "audio"}.
+     * @param base  the base location the asset was requested from.
+     * @param name  the asset name.
+     * @return the resolver key.
+     */
+    public static String key(Class<?> owner, String kind, String base, String name) {
+        return kind + '|' + owner.getName() + '|' + base + '|' + name;
+    }
+
+    /**
+     * Looks up how an asset was previously resolved.
+     *
+     * @param key the key built by {@link #key(Class, String, String, String)}.
+     * @return the previous resolution, or {@code null} if the asset has not been resolved yet.
+     */
+    public Resolution lookup(String key) {
+        lookups.increment();
+        Resolution r = resolutions.get(key);
+        if (r != null) {
+            (r.source == Source.NONE ? missingHits : resolvedHits).increment();
+            probesSaved.add(r.failedProbes);
+        }
+        return r;
+    }
+
+    /**
+     * Records that an asset was found.
+     *
+     * @param key          the key built by {@link #key(Class, String, String, String)}.
+     * @param source       the source that worked.
+     * @param failedProbes the number of sources tried without success before it.
+     */
+    public void record(String key, Source source, int failedProbes) {
+        resolutions.put(key, new Resolution(source, failedProbes));
+    }
+
+    /**
+     * Records that an asset could not be found in any source.
+     *
+     * @param key          the key built by {@link #key(Class, String, String, String)}.
+     * @param failedProbes the number of sources tried.
+     */
+    public void recordMissing(String key, int failedProbes) {
+        resolutions.put(key, new Resolution(Source.NONE, failedProbes));
+    }
+
+    /**
+     * Counts one attempt to read an asset from a source.
+     */
+    public void countProbe() {
+        probes.increment();
+    }
+
+    /**
+     * Forgets how an asset was resolved, so the next request probes every source again.
+     *
+     * @param key the key built by {@link #key(Class, String, String, String)}.
+     */
+    public void forget(String key) {
+        resolutions.remove(key);
+    }
+
+    /**
+     * Forgets every remembered "not found", so those assets are probed again. Called when files appear.
+     */
+    public void forgetMissing() {
+        resolutions.values().removeIf(Resolution::isMissing);
+    }
+
+    /**
+     * Forgets how every asset with a given name was resolved, whatever its owner, kind and base. The name
+     * matches a request for the same name or for a path ending with it.
+     *
+     * @param name the asset name, with {@code /} as the separator.
+     */
+    public void forgetNamed(String name) {
+        String exact = '|' + name;
+        String suffix = '/' + name;
+        resolutions.keySet().removeIf(k -> k.endsWith(exact) || k.endsWith(suffix));
+    }
+
+    /**
+     * Forgets how every asset with one of the given names was resolved, as {@link #forgetNamed(String)} does for
+     * each of them, in one pass over the remembered resolutions.
+     *
+     * @param names the asset names, with {@code /} as the separator.
+     */
+    public void forgetNamed(Collection<String> names) {
+        if (names.isEmpty()) {
+            return;
+        }
+        resolutions.keySet().removeIf(k -> {
+            // The name is the last field of the key; match it whole or by any trailing path
+            String name = k.substring(k.lastIndexOf('|') + 1);
+            int slash = -1;
+            do {
+                if (names.contains(name.substring(slash + 1))) {
+                    return true;
+                }
+                slash = name.indexOf('/', slash + 1);
+            } while (slash >= 0);
+            return false;
+        });
+    }
+
+    /**
+     * Forgets every resolution and resets the counters.
+     */
+    public void clear() {
+        resolutions.clear();
+        lookups.reset();
+        resolvedHits.reset();
+        missingHits.reset();
+        probes.reset();
+        probesSaved.reset();
+    }
+
+    public long getLookupCount() {
+        return lookups.sum();
+    }
+
+    /**
+     * @return the number of lookups that went straight to a previously successful source.
+     */
+    public long getResolvedHitCount() {
+        return resolvedHits.sum();
+    }
+
+    /**
+     * @return the number of lookups answered with a remembered "not found".
+     */
+    public long getMissingHitCount() {
+        return missingHits.sum();
+    }
+
+    /**
+     * @return the number of sources actually probed.
+     */
+    public long getProbeCount() {
+        return probes.sum();
+    }
+
+    /**
+     * @return the number of failing probes skipped thanks to remembered resolutions.
+     */
+    public long getProbesSavedCount() {
+        return probesSaved.sum();
+    }
+
+    /**
+     * The places an asset can be loaded from.
+     */
+    public enum Source {
+        /**
+         * An entry of a mounted {@link AssetPack}.
+         */
+        PACK,
+        /**
+         * A file relative to the document base.
+         */
+        FILE,
+        /**
+         * A resource at the root of the classpath.
+         */
+        CLASSPATH,
+        /**
+         * A URL formed from the document base and the name.
+         */
+        URL,
+        /**
+         * A resource relative to the adapter class's package.
+         */
+        CLASS_RELATIVE,
+        /**
+         * A resource at the root of the jar holding the adapter class.
+         */
+        JAR_ROOT,
+        /**
+         * The asset was not found anywhere.
+         */
+        NONE
+    }
+
+    /**
+     * The remembered outcome of resolving one asset.
+     */
+    public static final class Resolution {
+        private final Source source;
+        private final int failedProbes;
+        private final Source[] chain;
+
+        Resolution(Source source, int failedProbes) {
+            this.source = source;
+            this.failedProbes = failedProbes;
+            this.chain = new Source[]{source};
+        }
+
+        public Source getSource() {
+            return source;
+        }
+
+        /**
+         * @return {@code true} if the asset was not found in any source.
+         */
+        public boolean isMissing() {
+            return source == Source.NONE;
+        }
+
+        /**
+         * Returns the sources to probe for this asset: only the remembered one.
+         *
+         * @return a one-element source chain.
+         */
+        Source[] chain() {
+            return chain;
+        }
+    }
+}
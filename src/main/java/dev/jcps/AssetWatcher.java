@@ -0,0 +1,343 @@
+package dev.jcps;
+
+import javax.imageio.ImageIO;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * The {@code AssetWatcher} class reloads assets and parameter files when they change on disk.
+ * <p>
+ * A watcher follows a directory tree, normally an adapter's document base, with a {@link WatchService}. Editors
+ * tend to save a file in several steps, so events are collected until none has arrived for a short quiet
+ * period and then handled as one batch. For each changed file, a decoded image or sound held by
+ * {@link AssetCache} under its {@code file:} key is decoded again and replaced in the cache, and remembered
+ * {@link AssetResolver} outcomes for its name are forgotten, so a file that was missing, or found elsewhere,
+ * is looked up again. Parameter files registered with {@link #watchParameters(Path, AppletParameters)} are read
+ * again and their values stored. All of this happens on the watcher's own daemon thread; the render thread only
+ * ever sees the cache swap to the new entry.
+ * </p>
+ * <p>
+ * Images and sounds already handed out are not changed. The next {@code getImage} or {@code getAudioClip} call
+ * returns the new version; a {@link ChangeListener} can be used to make those calls after each batch.
+ * </p>
+ * <p>
+ * Example usage:
+ * <pre>{@code
+ * AssetWatcher watcher = AssetWatcher.watch(adapter);
+ * watcher.watchParameters(Paths.get("game.properties"), adapter.getAppletParameters());
+ * watcher.addListener(changed -> reloadSprites());
+ * }</pre>
+ * </p>
+ *
+ * @since 1.1
+ */
+public class AssetWatcher implements AutoCloseable {
+    private static final long DEFAULT_QUIET_MILLIS = 100;
+
+    private final Path root;
+    private final WatchService service;
+    private final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+    private final Map<Path, ParameterFile> parameterFiles = new ConcurrentHashMap<>();
+    private final CopyOnWriteArrayList<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final long quietMillis;
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile long batches;
+    private volatile long reloads;
+
+    /**
+     * Constructs an {@code AssetWatcher} for a directory tree with a quiet period of 100 ms and starts it.
+     *
+     * @param root the directory to watch, given as the document base is, so cache keys match.
+     * @throws IOException if the directory cannot be watched.
+     */
+    public AssetWatcher(Path root) throws IOException {
+        this(root, DEFAULT_QUIET_MILLIS);
+    }
+
+    /**
+     * Constructs an {@code AssetWatcher} for a directory tree and starts it.
+     *
+     * @param root        the directory to watch, given as the document base is, so cache keys match.
+     * @param quietMillis how long no event must arrive before a batch of changes is handled.
+     * @throws IOException if the directory cannot be watched.
+     */
+    public AssetWatcher(Path root, long quietMillis) throws IOException {
+        this.root = root.toAbsolutePath();
+        this.quietMillis = quietMillis;
+        this.service = FileSystems.getDefault().newWatchService();
+        try {
+            registerTree(this.root);
+        } catch (IOException e) {
+            service.close();
+            throw e;
+        }
+        thread = new Thread(this::run, "AssetWatcher-" + this.root.getFileName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Starts watching the document base of an adapter.
+     *
+     * @param adapter the adapter whose assets should be reloaded.
+     * @return the running watcher.
+     * @throws IOException if the document base cannot be watched.
+     */
+    public static AssetWatcher watch(JavaAppletAdapter adapter) throws IOException {
+        return new AssetWatcher(Path.of(adapter.getDocumentBase()));
+    }
+
+    /**
+     * Reads a parameter file now and again each time it changes. Files ending in {@code .html} or {@code .htm}
+     * are read with {@link ParameterLoader#readHtml(File, String)}, others as properties. Keys that disappear
+     * from the file are removed from {@code target}. The file may be outside the watched tree.
+     *
+     * @param file   the parameter file.
+     * @param target the parameters to store the values in.
+     * @throws IOException if the file cannot be read or its directory cannot be watched.
+     */
+    public void watchParameters(Path file, AppletParameters target) throws IOException {
+        Path path = file.toAbsolutePath();
+        ParameterFile parameterFile = new ParameterFile(path, target);
+        parameterFile.reload();
+        parameterFiles.put(path, parameterFile);
+        Path dir = path.getParent();
+        if (!dir.startsWith(root)) {
+            register(dir);
+        }
+    }
+
+    /**
+     * Adds a listener told after each batch of changes has been handled.
+     *
+     * @param listener the listener, called on the watcher thread.
+     */
+    public void addListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * @return the number of batches of changes handled.
+     */
+    public long getBatchCount() {
+        return batches;
+    }
+
+    /**
+     * @return the number of cache entries and parameter files reloaded.
+     */
+    public long getReloadCount() {
+        return reloads;
+    }
+
+    /**
+     * Stops watching. Changes still waiting for their quiet period are dropped.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            service.close();
+        } catch (IOException ignored) {
+            // The thread stops either way
+        }
+        thread.interrupt();
+    }
+
+    private void registerTree(Path dir) throws IOException {
+        try (Stream<Path> walk = Files.walk(dir)) {
+            for (Path d : (Iterable<Path>) walk.filter(Files::isDirectory)::iterator) {
+                register(d);
+            }
+        }
+    }
+
+    private void register(Path dir) throws IOException {
+        WatchKey key = dir.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        directories.put(key, dir);
+    }
+
+    private void run() {
+        while (running) {
+            Set<Path> changed = new LinkedHashSet<>();
+            Set<Path> created = new HashSet<>();
+            try {
+                WatchKey key = service.take();
+                // Gather events until the quiet period passes without one
+                while (key != null) {
+                    collect(key, changed, created);
+                    key = service.poll(quietMillis, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            handle(changed, created);
+        }
+    }
+
+    private void collect(WatchKey key, Set<Path> changed, Set<Path> created) {
+        Path dir = directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || dir == null) {
+                Diagnostics.getInstance().message("Asset watcher missed events under " + root);
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                created.add(path);
+                if (Files.isDirectory(path)) {
+                    try {
+                        registerTree(path);
+                    } catch (IOException e) {
+                        Diagnostics.getInstance().message("Cannot watch " + path + ": " + e.getMessage());
+                    }
+                }
+            }
+            changed.add(path);
+        }
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+    }
+
+    private void handle(Set<Path> changed, Set<Path> created) {
+        AssetResolver resolver = AssetResolver.getInstance();
+        if (!created.isEmpty()) {
+            // A new file may be what an earlier lookup failed to find
+            resolver.forgetMissing();
+        }
+        for (Path path : changed) {
+            if (Files.isDirectory(path)) {
+                continue;
+            }
+            ParameterFile parameterFile = parameterFiles.get(path);
+            if (parameterFile != null) {
+                try {
+                    parameterFile.reload();
+                    reloads++;
+                } catch (IOException e) {
+                    Diagnostics.getInstance().message("Cannot reload parameters " + path + ": " + e.getMessage());
+                }
+            }
+            if (!path.startsWith(root)) {
+                continue;
+            }
+            if (created.contains(path) || !Files.exists(path)) {
+                // The file may now be found by a source earlier in the chain, or not at all
+                resolver.forgetNamed(root.relativize(path).toString().replace(File.separatorChar, '/'));
+            }
+            reloadAsset(path);
+        }
+        batches++;
+        Set<Path> batch = Collections.unmodifiableSet(changed);
+        for (ChangeListener listener : listeners) {
+            listener.assetsChanged(batch);
+        }
+    }
+
+    private void reloadAsset(Path path) {
+        String key = "file:" + path;
+        boolean exists = Files.isRegularFile(path);
+        AssetCache<BufferedImage> images = AssetCache.images();
+        if (images.invalidate(key) && exists) {
+            try {
+                BufferedImage image = CompatibleImages.prepare(ImageIO.read(path.toFile()));
+                if (image != null) {
+                    images.put(key, image);
+                    reloads++;
+                }
+            } catch (IOException e) {
+                // Probably caught mid-write; the next request decodes the file again
+                Diagnostics.getInstance().message("Cannot reload image " + path + ": " + e.getMessage());
+            }
+        }
+        AssetCache<AudioSample> samples = AssetCache.samples();
+        if (samples.invalidate(key) && exists) {
+            try {
+                AudioSample sample = AudioSample.decode(AudioSample.sourceFor(key).open());
+                sample.setKey(key);
+                samples.put(key, sample);
+                reloads++;
+            } catch (IOException | UnsupportedAudioFileException e) {
+                Diagnostics.getInstance().message("Cannot reload sound " + path + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Listens for batches of changed files.
+     */
+    @FunctionalInterface
+    public interface ChangeListener {
+        /**
+         * Called on the watcher thread once a batch of changes has been handled.
+         *
+         * @param changed the files and directories created, modified or deleted.
+         */
+        void assetsChanged(Set<Path> changed);
+    }
+
+    /**
+     * A parameter file and the keys it stored last time it was read.
+     */
+    private static final class ParameterFile {
+        final Path path;
+        final AppletParameters target;
+        Set<String> keys = Collections.emptySet();
+
+        ParameterFile(Path path, AppletParameters target) {
+            this.path = path;
+            this.target = target;
+        }
+
+        synchronized void reload() throws IOException {
+            Map<String, String> values;
+            if (!Files.exists(path)) {
+                values = new HashMap<>();
+            } else {
+                String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+                values = name.endsWith(".html") || name.endsWith(".htm")
+                        ? ParameterLoader.readHtml(path.toFile(), null)
+                        : ParameterLoader.readProperties(path.toFile());
+            }
+            for (String key : keys) {
+                if (!values.containsKey(key)) {
+                    target.remove(key);
+                }
+            }
+            target.putAll(values);
+            keys = new HashSet<>(values.keySet());
+        }
+    }
+}
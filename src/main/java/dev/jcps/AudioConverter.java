@@ -0,0 +1,327 @@
+package dev.jcps;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.DataLine;
+import javax.sound.sampled.Line;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * The {@code AudioConverter} class converts decoded sounds to the format the output device plays natively.
+ * <p>
+ * Old applet sounds come in many rates and sample sizes: 8 kHz μ-law {@code .au} files next to 22 kHz 8-bit
+ * and 44.1 kHz 16-bit {@code .wav} files. A {@link javax.sound.sampled.Clip} opened in a format the device does
+ * not play itself converts the data again every time it is opened. {@link #normalize(AudioSample)} instead
+ * converts each sample once to the {@linkplain #getTargetFormat() target format}. The result is kept in
+ * {@link AssetCache#samples()} next to the decoded sound, under its key qualified by the target format, so it
+ * counts against the same budget and every later clip is opened from the converted data.
+ * </p>
+ * <p>
+ * Rates are changed by linear interpolation between neighbouring frames, stepping through the source in 32.32
+ * fixed point. {@link #resample(short[], int, int, long, long, short[], int, int)} works between arrays supplied
+ * by the caller and allocates nothing, so it can also be used on buffers that are reused from block to block.
+ * </p>
+ * <p>
+ * The target format is 16-bit signed little-endian stereo. Its rate is taken from the formats the default mixer
+ * lists for its {@link SourceDataLine}s when first needed: 44.1 kHz if the mixer takes that rate or any rate,
+ * otherwise the first rate it lists, and 44.1 kHz if it lists none or there is no sound device. A mixer that
+ * only reports some formats may still resample internally. Another rate can be chosen with
+ * {@code -Dawf.audioRate=48000}, or any 16-bit signed mono or stereo format with
+ * {@link #setTargetFormat(AudioFormat)}.
+ * </p>
+ * <p>
+ * Example usage:
+ * <pre>{@code
+ * AudioSample sample = adapter.getAudioSample(base, "pin.au");    // 8 kHz mono μ-law, decoded once
+ * AudioSample playable = AudioConverter.normalize(sample);        // 16-bit stereo, converted once
+ * playable.open(clip);
+ * }</pre>
+ * </p>
+ *
+ * @since 1.1
+ */
+public final class AudioConverter {
+    private static final long ONE = 1L << 32;
+    private static final float FRACTION = 1f / ONE;
+    private static final float DEFAULT_RATE = 44100;
+
+    private static AudioFormat target;
+    private static long conversions;
+    private static long hits;
+
+    private AudioConverter() {
+    }
+
+    /**
+     * @return the format {@link #normalize(AudioSample)} converts to.
+     */
+    public static synchronized AudioFormat getTargetFormat() {
+        if (target == null) {
+            target = deviceFormat();
+        }
+        return target;
+    }
+
+    /**
+     * Works out the default target format from {@code awf.audioRate} or the default mixer.
+     *
+     * @return a 16-bit signed little-endian stereo format.
+     */
+    static AudioFormat deviceFormat() {
+        String rate = System.getProperty("awf.audioRate");
+        if (rate != null) {
+            return SoftwareMixer.outputFormat(Float.parseFloat(rate));
+        }
+        float listed = AudioSystem.NOT_SPECIFIED;
+        try {
+            for (Line.Info info : AudioSystem.getMixer(null).getSourceLineInfo(new Line.Info(SourceDataLine.class))) {
+                if (!(info instanceof DataLine.Info)) {
+                    continue;
+                }
+                for (AudioFormat f : ((DataLine.Info) info).getFormats()) {
+                    if (!AudioFormat.Encoding.PCM_SIGNED.equals(f.getEncoding()) || f.getSampleSizeInBits() != 16
+                            || f.getChannels() != 2 || f.isBigEndian()) {
+                        continue;
+                    }
+                    if (f.getSampleRate() == AudioSystem.NOT_SPECIFIED || f.getSampleRate() == DEFAULT_RATE) {
+                        return SoftwareMixer.outputFormat(DEFAULT_RATE);
+                    }
+                    if (listed == AudioSystem.NOT_SPECIFIED) {
+                        listed = f.getSampleRate();
+                    }
+                }
+            }
+        } catch (IllegalArgumentException | SecurityException e) {
+            // No sound device, or no access to it
+        }
+        return SoftwareMixer.outputFormat(listed == AudioSystem.NOT_SPECIFIED ? DEFAULT_RATE : listed);
+    }
+
+    /**
+     * Sets the format {@link #normalize(AudioSample)} converts to. Samples converted to the previous format stay
+     * cached under that format until they are evicted.
+     *
+     * @param format a 16-bit signed PCM format with one or two channels.
+     * @throws IllegalArgumentException if the format is not supported.
+     */
+    public static synchronized void setTargetFormat(AudioFormat format) {
+        checkTarget(format);
+        target = format;
+    }
+
+    /**
+     * Returns a sample in the target format with the same sound as {@code sample}. A sample already in the
+     * target format is returned as it is. Any other is converted; if it was loaded through the shared
+     * {@link AssetCache#samples()} cache, the conversion is stored there under the sample's key and the target
+     * format, and returned again on later calls for as long as it stays cached and the sample is not reloaded.
+     *
+     * @param sample a PCM sample.
+     * @return the sample in the target format.
+     */
+    public static AudioSample normalize(AudioSample sample) {
+        AudioFormat format = getTargetFormat();
+        if (sample.getFormat().matches(format)) {
+            return sample;
+        }
+        AssetCache<AudioSample> cache = AssetCache.samples();
+        String key = sample.getKey() == null ? null : sample.getKey() + "#" + describe(format);
+        if (key != null) {
+            AudioSample converted = cache.get(key);
+            if (converted != null && converted.isConvertedFrom(sample)) {
+                synchronized (AudioConverter.class) {
+                    hits++;
+                }
+                return converted;
+            }
+        }
+        // Two threads converting the same sample at once only waste the work
+        AudioSample converted = convert(sample, format);
+        if (key != null) {
+            converted.setConvertedFrom(sample);
+            cache.put(key, converted);
+        }
+        synchronized (AudioConverter.class) {
+            conversions++;
+        }
+        return converted;
+    }
+
+    private static String describe(AudioFormat format) {
+        return (int) format.getSampleRate() + "/" + format.getChannels() + (format.isBigEndian() ? "/be" : "/le");
+    }
+
+    /**
+     * Converts a sample to a 16-bit signed PCM format, changing its rate and channel count as needed. A mono sound
+     * is copied to both channels of a stereo format, and both channels of a stereo sound are averaged for a mono
+     * one. The result is kept off the heap if {@code sample} is.
+     *
+     * @param sample a PCM sample.
+     * @param format a 16-bit signed PCM format with one or two channels.
+     * @return the converted sample.
+     * @throws IllegalArgumentException if {@code format} is not supported.
+     */
+    public static AudioSample convert(AudioSample sample, AudioFormat format) {
+        checkTarget(format);
+        AudioFormat f = sample.getFormat();
+        short[] pcm = toShorts(sample);
+        int channels = Math.min(2, f.getChannels());
+        int frames = pcm.length / channels;
+
+        short[] resampled = pcm;
+        int outFrames = frames;
+        if (f.getSampleRate() != format.getSampleRate()) {
+            outFrames = (int) ((double) frames * format.getSampleRate() / f.getSampleRate());
+            resampled = new short[outFrames * channels];
+            resample(pcm, channels, frames, 0, step(f.getSampleRate(), format.getSampleRate()),
+                    resampled, 0, outFrames);
+        }
+
+        int outChannels = format.getChannels();
+        boolean bigEndian = format.isBigEndian();
+        byte[] data = new byte[outFrames * outChannels * 2];
+        for (int frame = 0, b = 0; frame < outFrames; frame++) {
+            int l = resampled[frame * channels];
+            int r = channels == 2 ? resampled[frame * channels + 1] : l;
+            if (outChannels == 1) {
+                b = put(data, b, (l + r) >> 1, bigEndian);
+            } else {
+                b = put(data, b, l, bigEndian);
+                b = put(data, b, r, bigEndian);
+            }
+        }
+        if (sample.isOffHeap()) {
+            return new AudioSample(format, OffHeapStore.shared().copyOf(data));
+        }
+        return new AudioSample(format, data);
+    }
+
+    /**
+     * Resamples interleaved 16-bit frames by linear interpolation, without allocating. Frames of {@code in} are
+     * read from {@code position}, which advances by {@code step} for each frame written to {@code out}. Past the
+     * last input frame, the last frame is repeated.
+     *
+     * @param in        the input frames.
+     * @param channels  the number of interleaved channels in both arrays.
+     * @param inFrames  the number of frames in {@code in}.
+     * @param position  the input position of the first output frame, in frames, as 32.32 fixed point.
+     * @param step      the input frames per output frame, as 32.32 fixed point; see
+     *                  {@link #step(float, float)}.
+     * @param out       receives the output frames.
+     * @param outOffset the first frame of {@code out} to write.
+     * @param outFrames the number of frames to write.
+     * @return the input position after the last frame written.
+     */
+    public static long resample(short[] in, int channels, int inFrames, long position, long step,
+                                short[] out, int outOffset, int outFrames) {
+        int last = inFrames - 1;
+        int o = outOffset * channels;
+        for (int i = 0; i < outFrames; i++) {
+            int frame = (int) Math.min(position >>> 32, last);
+            int next = frame < last ? frame + 1 : last;
+            float t = weight(position);
+            int a = frame * channels;
+            int b = next * channels;
+            for (int c = 0; c < channels; c++) {
+                out[o++] = (short) Math.round(interpolate(in, a + c, b + c, t));
+            }
+            position += step;
+        }
+        return position;
+    }
+
+    /**
+     * @param position a 32.32 fixed-point position.
+     * @return how far the position lies between its frame and the next, from 0 to 1.
+     */
+    static float weight(long position) {
+        return (position & 0xFFFFFFFFL) * FRACTION;
+    }
+
+    /**
+     * Interpolates linearly between two samples.
+     *
+     * @param pcm the samples.
+     * @param a   the index of the first sample.
+     * @param b   the index of the second sample.
+     * @param t   the weight of the second sample, from 0 to 1.
+     * @return the interpolated value.
+     */
+    static float interpolate(short[] pcm, int a, int b, float t) {
+        float s = pcm[a];
+        return s + (pcm[b] - s) * t;
+    }
+
+    /**
+     * @param fromRate the input sample rate.
+     * @param toRate   the output sample rate.
+     * @return the step of {@link #resample(short[], int, int, long, long, short[], int, int)} between the rates.
+     */
+    public static long step(float fromRate, float toRate) {
+        return Math.round((double) fromRate / toRate * ONE);
+    }
+
+    /**
+     * Reads the first two channels of a PCM sample as 16-bit signed samples, interleaved. Wider samples keep their
+     * most significant 16 bits, and 8-bit samples are scaled up.
+     *
+     * @param sample a PCM sample of 8 to 32 bits per sample.
+     * @return the interleaved samples, one or two per frame.
+     */
+    static short[] toShorts(AudioSample sample) {
+        AudioFormat f = sample.getFormat();
+        byte[] data = sample.getData();
+        int bytesPerSample = (f.getSampleSizeInBits() + 7) / 8;
+        int frameSize = f.getFrameSize();
+        int channels = Math.min(2, f.getChannels());
+        int frames = data.length / frameSize;
+        boolean unsigned = AudioFormat.Encoding.PCM_UNSIGNED.equals(f.getEncoding());
+        short[] pcm = new short[frames * channels];
+        for (int frame = 0; frame < frames; frame++) {
+            for (int c = 0; c < channels; c++) {
+                int offset = frame * frameSize + c * bytesPerSample;
+                // Keep the most significant 16 bits of each sample
+                int msb = f.isBigEndian() ? offset : offset + bytesPerSample - 1;
+                int hi = data[msb] & 0xFF;
+                if (unsigned) {
+                    hi ^= 0x80;
+                }
+                hi = (byte) hi;
+                int lo = bytesPerSample > 1 ? data[f.isBigEndian() ? msb + 1 : msb - 1] & 0xFF : 0;
+                pcm[frame * channels + c] = (short) (hi << 8 | lo);
+            }
+        }
+        return pcm;
+    }
+
+    /**
+     * @return the number of samples converted by {@link #normalize(AudioSample)}.
+     */
+    public static synchronized long getConversionCount() {
+        return conversions;
+    }
+
+    /**
+     * @return the number of {@link #normalize(AudioSample)} calls answered from the cache.
+     */
+    public static synchronized long getHitCount() {
+        return hits;
+    }
+
+    private static int put(byte[] data, int b, int value, boolean bigEndian) {
+        if (bigEndian) {
+            data[b] = (byte) (value >> 8);
+            data[b + 1] = (byte) value;
+        } else {
+            data[b] = (byte) value;
+            data[b + 1] = (byte) (value >> 8);
+        }
+        return b + 2;
+    }
+
+    private static void checkTarget(AudioFormat format) {
+        if (!AudioFormat.Encoding.PCM_SIGNED.equals(format.getEncoding()) || format.getSampleSizeInBits() != 16
+                || format.getChannels() < 1 || format.getChannels() > 2) {
+            throw new IllegalArgumentException("not 16-bit signed mono or stereo PCM: " + format);
+        }
+    }
+}
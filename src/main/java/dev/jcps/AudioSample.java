@@ -0,0 +1,283 @@
+package dev.jcps;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Clip;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.nio.ByteBuffer;
+
+/**
+ * The {@code AudioSample} class holds a sound that has been fully decoded to PCM.
+ * <p>
+ * Samples are decoded once and shared through {@link AssetCache#samples()}, so a sound effect that
+ * is requested many times is read from disk and decoded a single time. Any number of {@link Clip}s or
+ * {@link SoundEffect} voices can then be opened from the same buffer.
+ * </p>
+ * <p>
+ * With {@code -Dawf.offHeapAudio=true}, or after {@link #setOffHeap(boolean) setOffHeap(true)}, decoded PCM is
+ * kept in an {@link OffHeapStore} block instead of a heap array, so long-lived sound banks no longer add to the
+ * work of the garbage collector. The data is copied onto the heap only for as long as a caller needs an array.
+ * </p>
+ *
+ * @since 1.1
+ */
+public final class AudioSample {
+    private static volatile boolean offHeap = Boolean.getBoolean("awf.offHeapAudio");
+
+    private final AudioFormat format;
+    private final byte[] data;
+    private final OffHeapStore.Block block;
+    private final int length;
+    private volatile String key;
+    private volatile WeakReference<AudioSample> convertedFrom;
+
+    /**
+     * Constructs an {@code AudioSample} from PCM data already in memory.
+     *
+     * @param format the PCM format of {@code data}.
+     * @param data   the PCM frames. The array is shared, not copied.
+     */
+    public AudioSample(AudioFormat format, byte[] data) {
+        this.format = format;
+        this.data = data;
+        this.block = null;
+        this.length = data.length;
+    }
+
+    /**
+     * Constructs an {@code AudioSample} from PCM data in direct memory.
+     *
+     * @param format the PCM format of the block's data.
+     * @param block  the PCM frames. The sample takes ownership of the block and releases it in {@link #release()}.
+     */
+    public AudioSample(AudioFormat format, OffHeapStore.Block block) {
+        this.format = format;
+        this.data = null;
+        this.block = block;
+        this.length = block.size();
+    }
+
+    /**
+     * Sets whether {@link #decode(AudioInputStream)} keeps the PCM it decodes in direct memory. Samples already
+     * decoded are not moved.
+     *
+     * @param enabled {@code true} to store new samples off the heap.
+     */
+    public static void setOffHeap(boolean enabled) {
+        offHeap = enabled;
+    }
+
+    public static boolean isOffHeapDefault() {
+        return offHeap;
+    }
+
+    /**
+     * Reads a stream to the end and decodes it to PCM.
+     * Streams in a compressed or companded encoding (for example μ-law {@code .au} files) are converted to
+     * signed PCM with the same sample size, rate and channel count.
+     *
+     * @param stream the audio stream to decode. It is closed when this method returns.
+     * @return the decoded sample.
+     * @throws IOException if the stream cannot be read.
+     */
+    public static AudioSample decode(AudioInputStream stream) throws IOException {
+        try (AudioInputStream in = toPcm(stream)) {
+            byte[] pcm = in.readAllBytes();
+            if (offHeap) {
+                return new AudioSample(in.getFormat(), OffHeapStore.shared().copyOf(pcm));
+            }
+            return new AudioSample(in.getFormat(), pcm);
+        }
+    }
+
+    /**
+     * Returns the sample cached for {@code key}, or opens, decodes and caches it when absent.
+     *
+     * @param key    the resolved location of the sound.
+     * @param source opens the encoded stream on a cache miss.
+     * @return the decoded sample.
+     * @throws IOException                   if the source cannot be read.
+     * @throws UnsupportedAudioFileException if the source is not a recognised audio format.
+     */
+    static AudioSample load(String key, Source source) throws IOException, UnsupportedAudioFileException {
+        AssetCache<AudioSample> cache = AssetCache.samples();
+        AudioSample sample = cache.get(key);
+        if (sample == null) {
+            long start = System.nanoTime();
+            sample = decode(source.open());
+            Diagnostics.getInstance().recordDecode(Diagnostics.Kind.AUDIO, key, System.nanoTime() - start,
+                    sample.getByteLength());
+            sample.key = key;
+            cache.put(key, sample);
+        }
+        return sample;
+    }
+
+    /**
+     * @return the key this sample was stored under in {@link AssetCache#samples()} when it was decoded, or
+     * {@code null} if it was not decoded for the cache.
+     */
+    String getKey() {
+        return key;
+    }
+
+    void setKey(String key) {
+        this.key = key;
+    }
+
+    /**
+     * @param original a sample.
+     * @return {@code true} if this sample was converted from {@code original} by {@link AudioConverter}.
+     */
+    boolean isConvertedFrom(AudioSample original) {
+        WeakReference<AudioSample> from = convertedFrom;
+        return from != null && from.get() == original;
+    }
+
+    void setConvertedFrom(AudioSample original) {
+        // Weakly, so a cached conversion does not keep an evicted original alive
+        convertedFrom = new WeakReference<>(original);
+    }
+
+    /**
+     * Returns a source that opens the sound at a location as built by the loaders of {@link JavaAppletAdapter}:
+     * {@code pack:name} for an {@link AssetPack} entry, {@code file:path} for a file, or any other URL. Entries of a
+     * jar listed by a {@link ResourceIndex} are read through the index.
+     *
+     * @param location the resolved location of the sound.
+     * @return a source opening that location each time it is called.
+     */
+    static Source sourceFor(String location) {
+        if (location.startsWith("pack:")) {
+            String name = location.substring(5);
+            return () -> {
+                ByteBuffer entry = AssetPack.find(name);
+                if (entry == null) {
+                    throw new FileNotFoundException(location);
+                }
+                return AudioSystem.getAudioInputStream(AssetPack.stream(entry));
+            };
+        }
+        if (location.startsWith("jar:")) {
+            // Read entries of an indexed jar through its open ZipFile rather than a new jar connection
+            ResourceIndex.Entry entry = ResourceIndex.findUrl(location);
+            if (entry != null) {
+                return () -> AudioSystem.getAudioInputStream(new BufferedInputStream(entry.open()));
+            }
+        }
+        if (location.startsWith("file:")) {
+            // Locations of the FILE source hold a plain path, which may not be a valid URL
+            File file = new File(location.substring(5));
+            if (file.isFile()) {
+                return () -> AudioSystem.getAudioInputStream(file);
+            }
+        }
+        return () -> AudioSystem.getAudioInputStream(new URL(location));
+    }
+
+    /**
+     * Converts a stream in a compressed or companded encoding to signed PCM. PCM streams are returned as they are.
+     *
+     * @param stream the audio stream.
+     * @return a PCM stream.
+     */
+    static AudioInputStream toPcm(AudioInputStream stream) {
+        AudioFormat f = stream.getFormat();
+        AudioFormat.Encoding encoding = f.getEncoding();
+        if (AudioFormat.Encoding.PCM_SIGNED.equals(encoding) || AudioFormat.Encoding.PCM_UNSIGNED.equals(encoding)) {
+            return stream;
+        }
+        int bits = f.getSampleSizeInBits() > 8 ? f.getSampleSizeInBits() : 16;
+        AudioFormat pcm = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, f.getSampleRate(), bits,
+                f.getChannels(), f.getChannels() * bits / 8, f.getSampleRate(), f.isBigEndian());
+        return AudioSystem.getAudioInputStream(pcm, stream);
+    }
+
+    /**
+     * Opens {@code clip} with this sample's PCM data.
+     *
+     * @param clip an unopened clip.
+     * @throws LineUnavailableException if the clip cannot be opened.
+     */
+    public void open(Clip clip) throws LineUnavailableException {
+        // A clip copies the data into its own buffer, so a temporary copy of off-heap data is enough
+        byte[] pcm = getData();
+        clip.open(format, pcm, 0, pcm.length);
+    }
+
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Returns the PCM frames of this sample. For a sample on the heap, the array is shared by every user of the
+     * sample and must not be modified. For a sample {@linkplain #isOffHeap() off the heap}, a new copy is returned
+     * on each call.
+     *
+     * @return the PCM data.
+     * @throws IllegalStateException if the sample has been released.
+     */
+    public byte[] getData() {
+        if (block == null) {
+            return data;
+        }
+        byte[] copy = new byte[length];
+        block.get(0, copy, 0, length);
+        return copy;
+    }
+
+    /**
+     * @return the size of the PCM data, in bytes.
+     */
+    public int getByteLength() {
+        return length;
+    }
+
+    /**
+     * @return the number of sample frames in this sample.
+     */
+    public int getFrameLength() {
+        return length / format.getFrameSize();
+    }
+
+    /**
+     * @return {@code true} if the PCM data is held in direct memory.
+     */
+    public boolean isOffHeap() {
+        return block != null;
+    }
+
+    /**
+     * Frees the direct memory of an off-heap sample at once rather than when the sample is collected. The sample
+     * must not be used afterwards; it should first be removed from {@link AssetCache#samples()}. Does nothing for
+     * a sample on the heap.
+     */
+    public void release() {
+        if (block != null) {
+            block.release();
+        }
+    }
+
+    /**
+     * Opens the encoded audio of a sound, for a cache miss or each time a {@link StreamingTrack} starts over.
+     */
+    @FunctionalInterface
+    public interface Source {
+        /**
+         * Opens a new stream positioned at the start of the sound.
+         *
+         * @return the audio stream.
+         * @throws IOException                   if the sound cannot be read.
+         * @throws UnsupportedAudioFileException if the sound is not in a recognised format.
+         */
+        AudioInputStream open() throws IOException, UnsupportedAudioFileException;
+    }
+}
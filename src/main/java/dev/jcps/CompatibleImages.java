@@ -0,0 +1,134 @@
+package dev.jcps;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * The {@code CompatibleImages} class converts loaded images into a form Java2D can draw quickly.
+ * <p>
+ * {@code ImageIO} often returns {@code TYPE_CUSTOM} or {@code TYPE_3BYTE_BGR} images, which Java2D blits
+ * through slow generic loops on every frame. When enabled, {@link JavaAppletAdapter#getImage(String, String)}
+ * converts each image once, as it is decoded, into an image created by the screen's
+ * {@link GraphicsConfiguration#createCompatibleImage(int, int, int)}. Such images are managed by Java2D, which
+ * keeps an accelerated copy in video memory where the pipeline supports it. The transparency of the result is
+ * the least the pixels need: fully opaque images become opaque and images whose alpha is only ever 0 or 255
+ * become bitmask images, both of which draw faster than translucent ones.
+ * </p>
+ * <p>
+ * In a headless environment the images are converted to {@code TYPE_INT_RGB} or {@code TYPE_INT_ARGB_PRE},
+ * which have the fastest software loops.
+ * </p>
+ * <p>
+ * Conversion is off by default. Enable it with {@link #setEnabled(boolean)} or the system property
+ * {@code awf.compatibleImages=true}, before images are first loaded: images already cached are not converted.
+ * </p>
+ *
+ * @since 1.1
+ */
+public final class CompatibleImages {
+    private static volatile boolean enabled = Boolean.getBoolean("awf.compatibleImages");
+
+    private CompatibleImages() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns conversion of loaded images on or off.
+     *
+     * @param enabled {@code true} to convert images as they are loaded.
+     */
+    public static void setEnabled(boolean enabled) {
+        CompatibleImages.enabled = enabled;
+    }
+
+    /**
+     * Converts a freshly decoded image if conversion is enabled.
+     *
+     * @param image the decoded image, or {@code null}.
+     * @return the converted image, or {@code image} itself when conversion is off or not needed.
+     */
+    static BufferedImage prepare(BufferedImage image) {
+        return enabled && image != null ? toCompatible(image) : image;
+    }
+
+    /**
+     * Converts an image into the format of the default screen, or the fastest software format when headless.
+     *
+     * @param src the image to convert.
+     * @return a compatible copy of {@code src}, or {@code src} itself if it is already compatible.
+     */
+    public static BufferedImage toCompatible(BufferedImage src) {
+        int transparency = transparencyOf(src);
+        if (GraphicsEnvironment.isHeadless()) {
+            if (src.getType() == headlessType(transparency)) {
+                return src;
+            }
+        } else if (src.getColorModel().equals(defaultConfiguration().getColorModel(transparency))) {
+            return src;
+        }
+        BufferedImage dst = createCompatible(src.getWidth(), src.getHeight(), transparency);
+        Graphics2D g = dst.createGraphics();
+        try {
+            g.setComposite(AlphaComposite.Src);
+            g.drawImage(src, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return dst;
+    }
+
+    /**
+     * Creates an empty image in the format of the default screen, or the fastest software format when headless.
+     *
+     * @param width        the image width.
+     * @param height       the image height.
+     * @param transparency {@link Transparency#OPAQUE}, {@link Transparency#BITMASK} or
+     *                     {@link Transparency#TRANSLUCENT}.
+     * @return the new image.
+     */
+    public static BufferedImage createCompatible(int width, int height, int transparency) {
+        if (GraphicsEnvironment.isHeadless()) {
+            return new BufferedImage(width, height, headlessType(transparency));
+        }
+        return defaultConfiguration().createCompatibleImage(width, height, transparency);
+    }
+
+    private static int headlessType(int transparency) {
+        return transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB_PRE;
+    }
+
+    private static GraphicsConfiguration defaultConfiguration() {
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+    }
+
+    /**
+     * Finds the least transparency mode that represents every pixel of an image exactly.
+     *
+     * @param image the image to inspect.
+     * @return {@link Transparency#OPAQUE}, {@link Transparency#BITMASK} or {@link Transparency#TRANSLUCENT}.
+     */
+    public static int transparencyOf(BufferedImage image) {
+        if (!image.getColorModel().hasAlpha()) {
+            return Transparency.OPAQUE;
+        }
+        int width = image.getWidth();
+        int[] row = new int[width];
+        boolean bitmask = false;
+        for (int y = 0; y < image.getHeight(); y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            for (int argb : row) {
+                int alpha = argb >>> 24;
+                if (alpha != 0xFF) {
+                    if (alpha != 0) {
+                        return Transparency.TRANSLUCENT;
+                    }
+                    bitmask = true;
+                }
+            }
+        }
+        return bitmask ? Transparency.BITMASK : Transparency.OPAQUE;
+    }
+}
@@ -0,0 +1,316 @@
+package dev.jcps;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * A {@link HashMap} whose contents live in a {@link ConcurrentHashMap}, so it can be read and written from several
+ * threads at once.
+ * <p>
+ * {@link JavaAppletAdapter#paramMap} and {@link AppletParameters#paramMap} were public {@code HashMap} fields in
+ * 1.0 and are still the live store legacy code writes to, so their declared type cannot change. This class keeps
+ * that type while every public method of {@code HashMap} is overridden to work on the concurrent map; the table
+ * inherited from {@code HashMap} is never used. {@code AppletParametersTest} checks that no public {@code HashMap}
+ * method is left un-overridden, as one would silently work on the empty inherited table. Unlike a
+ * {@code ConcurrentHashMap}, it accepts a {@code null} key and {@code null} values, as a {@code HashMap} does.
+ * </p>
+ *
+ * @since 1.1
+ */
+final class ConcurrentParameterMap extends HashMap<String, String> {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Stands in for a {@code null} key or value, which a {@code ConcurrentHashMap} cannot hold.
+     */
+    private static final Object NULL = new Object();
+
+    private final transient ConcurrentHashMap<Object, Object> map = new ConcurrentHashMap<>();
+
+    ConcurrentParameterMap() {
+    }
+
+    ConcurrentParameterMap(Map<? extends String, ? extends String> values) {
+        putAll(values);
+    }
+
+    private static Object mask(Object o) {
+        return o == null ? NULL : o;
+    }
+
+    private static String unmask(Object o) {
+        return o == NULL ? null : (String) o;
+    }
+
+    private static boolean isSet(Object o) {
+        return o != null && o != NULL;
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    @Override
+    public String get(Object key) {
+        return unmask(map.get(mask(key)));
+    }
+
+    @Override
+    public String getOrDefault(Object key, String defaultValue) {
+        Object value = map.get(mask(key));
+        return value == null ? defaultValue : unmask(value);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return map.containsKey(mask(key));
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return map.containsValue(mask(value));
+    }
+
+    @Override
+    public String put(String key, String value) {
+        return unmask(map.put(mask(key), mask(value)));
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ? extends String> values) {
+        values.forEach(this::put);
+    }
+
+    @Override
+    public String remove(Object key) {
+        return unmask(map.remove(mask(key)));
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        return map.remove(mask(key), mask(value));
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+    }
+
+    @Override
+    public String putIfAbsent(String key, String value) {
+        // As in HashMap, a key mapped to null counts as absent
+        Object[] previous = new Object[1];
+        map.compute(mask(key), (k, current) -> {
+            previous[0] = current;
+            return isSet(current) ? current : mask(value);
+        });
+        return unmask(previous[0]);
+    }
+
+    @Override
+    public boolean replace(String key, String oldValue, String newValue) {
+        return map.replace(mask(key), mask(oldValue), mask(newValue));
+    }
+
+    @Override
+    public String replace(String key, String value) {
+        return unmask(map.replace(mask(key), mask(value)));
+    }
+
+    @Override
+    public String computeIfAbsent(String key, Function<? super String, ? extends String> mappingFunction) {
+        Objects.requireNonNull(mappingFunction);
+        return unmask(map.compute(mask(key), (k, current) -> {
+            if (isSet(current)) {
+                return current;
+            }
+            String value = mappingFunction.apply(key);
+            return value != null ? value : current;
+        }));
+    }
+
+    @Override
+    public String computeIfPresent(String key,
+                                   BiFunction<? super String, ? super String, ? extends String> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        return unmask(map.computeIfPresent(mask(key),
+                (k, current) -> current == NULL ? current : remappingFunction.apply(key, (String) current)));
+    }
+
+    @Override
+    public String compute(String key, BiFunction<? super String, ? super String, ? extends String> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        return unmask(map.compute(mask(key), (k, current) -> remappingFunction.apply(key, unmask(current))));
+    }
+
+    @Override
+    public String merge(String key, String value,
+                        BiFunction<? super String, ? super String, ? extends String> remappingFunction) {
+        Objects.requireNonNull(value);
+        Objects.requireNonNull(remappingFunction);
+        return unmask(map.compute(mask(key),
+                (k, current) -> isSet(current) ? remappingFunction.apply((String) current, value) : value));
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super String> action) {
+        Objects.requireNonNull(action);
+        map.forEach((k, v) -> action.accept(unmask(k), unmask(v)));
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super String, ? super String, ? extends String> function) {
+        Objects.requireNonNull(function);
+        map.replaceAll((k, v) -> mask(function.apply(unmask(k), unmask(v))));
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<String> iterator() {
+                return mapped(map.keySet().iterator(), ConcurrentParameterMap::unmask);
+            }
+
+            @Override
+            public int size() {
+                return map.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return map.containsKey(mask(o));
+            }
+
+            @Override
+            public boolean remove(Object o) {
+                return map.remove(mask(o)) != null;
+            }
+
+            @Override
+            public void clear() {
+                map.clear();
+            }
+        };
+    }
+
+    @Override
+    public Collection<String> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<String> iterator() {
+                return mapped(map.values().iterator(), ConcurrentParameterMap::unmask);
+            }
+
+            @Override
+            public int size() {
+                return map.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return map.containsValue(mask(o));
+            }
+
+            @Override
+            public void clear() {
+                map.clear();
+            }
+        };
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<String, String>> iterator() {
+                return mapped(map.entrySet().iterator(), e -> new Entry(unmask(e.getKey()), unmask(e.getValue())));
+            }
+
+            @Override
+            public int size() {
+                return map.size();
+            }
+
+            @Override
+            public void clear() {
+                map.clear();
+            }
+        };
+    }
+
+    /**
+     * @return a copy, itself a {@code ConcurrentParameterMap}.
+     */
+    @Override
+    public Object clone() {
+        ConcurrentParameterMap copy = new ConcurrentParameterMap();
+        copy.map.putAll(map);
+        return copy;
+    }
+
+    /**
+     * Serializes a plain {@code HashMap} copy, as the concurrent map behind this one is not part of the form.
+     *
+     * @return the copy.
+     */
+    private Object writeReplace() {
+        return new HashMap<>(this);
+    }
+
+    /**
+     * Wraps an iterator of the concurrent map, converting each element and removing through it.
+     */
+    private static <T, R> Iterator<R> mapped(Iterator<T> iterator, Function<T, R> convert) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public R next() {
+                return convert.apply(iterator.next());
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+            }
+        };
+    }
+
+    /**
+     * An entry of a view. Setting its value writes through to the map.
+     */
+    private final class Entry extends AbstractMap.SimpleEntry<String, String> {
+        private static final long serialVersionUID = 1L;
+
+        Entry(String key, String value) {
+            super(key, value);
+        }
+
+        @Override
+        public String setValue(String value) {
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+}
@@ -0,0 +1,432 @@
+package dev.jcps;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@code Diagnostics} class collects what the asset loaders of {@link JavaAppletAdapter} are doing.
+ * <p>
+ * Loaders count successes and failures per {@link AssetResolver.Source}, time every decode into a latency
+ * histogram per {@link Kind}, and add up the bytes of decoded data they produce. All of this is kept in
+ * {@link LongAdder}s and atomic arrays, so recording never takes a lock and costs little when nothing is
+ * watching.
+ * </p>
+ * <p>
+ * Loaders do no console I/O themselves. Error messages, and the messages passed to
+ * {@link JavaAppletAdapter#showStatus(String)}, go to the {@link Listener}s added with
+ * {@link #addListener(Listener)}; with no listener attached they are not even built. {@link #console()} returns
+ * a listener printing them to {@code System.out} as earlier versions did, and is attached at startup when the
+ * system property {@code awf.diagnostics.console=true} is set. The counters can also be published over JMX
+ * with {@link #registerMBean()}.
+ * </p>
+ *
+ * @since 1.1
+ */
+public final class Diagnostics {
+    private static final Diagnostics INSTANCE = new Diagnostics();
+
+    private final Map<AssetResolver.Source, LongAdder> successes = new EnumMap<>(AssetResolver.Source.class);
+    private final Map<AssetResolver.Source, LongAdder> failures = new EnumMap<>(AssetResolver.Source.class);
+    private final Map<Kind, Histogram> latency = new EnumMap<>(Kind.class);
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    static {
+        if (Boolean.getBoolean("awf.diagnostics.console")) {
+            INSTANCE.addListener(console());
+        }
+    }
+
+    private Diagnostics() {
+        for (AssetResolver.Source source : AssetResolver.Source.values()) {
+            successes.put(source, new LongAdder());
+            failures.put(source, new LongAdder());
+        }
+        for (Kind kind : Kind.values()) {
+            latency.put(kind, new Histogram());
+        }
+    }
+
+    /**
+     * @return the diagnostics shared by all adapters.
+     */
+    public static Diagnostics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns a listener that prints error and status messages to {@code System.out}.
+     *
+     * @return a new console listener.
+     */
+    public static Listener console() {
+        return new Listener() {
+            @Override
+            public void failed(Kind kind, String name, String message) {
+                System.out.println(message);
+            }
+
+            @Override
+            public void message(String message) {
+                System.out.println(message);
+            }
+        };
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return {@code true} if at least one listener is attached, in which case messages are worth building.
+     */
+    public boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+
+    /**
+     * Records that a source held the asset asked for.
+     *
+     * @param source the source that was read.
+     */
+    void recordSuccess(AssetResolver.Source source) {
+        successes.get(source).increment();
+    }
+
+    /**
+     * Records that a source did not hold the asset asked for, or could not be read.
+     *
+     * @param source the source that was probed.
+     */
+    void recordFailure(AssetResolver.Source source) {
+        failures.get(source).increment();
+    }
+
+    /**
+     * Records one decode of an asset that was not cached.
+     *
+     * @param kind  the kind of asset.
+     * @param key   the location the asset was read from.
+     * @param nanos the time spent reading and decoding, in nanoseconds.
+     * @param bytes the size of the decoded data, in bytes.
+     */
+    void recordDecode(Kind kind, String key, long nanos, long bytes) {
+        latency.get(kind).record(nanos);
+        bytesRead.add(bytes);
+        if (!listeners.isEmpty()) {
+            for (Listener listener : listeners) {
+                listener.decoded(kind, key, nanos, bytes);
+            }
+        }
+    }
+
+    /**
+     * Records that an asset could not be loaded from any source.
+     *
+     * @param kind    the kind of asset.
+     * @param name    the asset name.
+     * @param message the error message. Only built by callers when {@link #hasListeners()} is {@code true}.
+     */
+    void recordError(Kind kind, String name, String message) {
+        errors.increment();
+        if (!listeners.isEmpty()) {
+            for (Listener listener : listeners) {
+                listener.failed(kind, name, message);
+            }
+        }
+    }
+
+    /**
+     * Passes a status or warning message to the listeners.
+     *
+     * @param message the message.
+     */
+    void message(String message) {
+        if (!listeners.isEmpty()) {
+            for (Listener listener : listeners) {
+                listener.message(message);
+            }
+        }
+    }
+
+    public long getSuccessCount(AssetResolver.Source source) {
+        return successes.get(source).sum();
+    }
+
+    public long getFailureCount(AssetResolver.Source source) {
+        return failures.get(source).sum();
+    }
+
+    /**
+     * @return the total size of the data decoded by the loaders, in bytes.
+     */
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    /**
+     * @return the number of assets that could not be loaded from any source.
+     */
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    /**
+     * @param kind the kind of asset.
+     * @return the histogram of decode times for that kind.
+     */
+    public Histogram getLatency(Kind kind) {
+        return latency.get(kind);
+    }
+
+    /**
+     * Resets every counter and histogram. Listeners stay attached.
+     */
+    public void reset() {
+        successes.values().forEach(LongAdder::reset);
+        failures.values().forEach(LongAdder::reset);
+        latency.values().forEach(Histogram::reset);
+        bytesRead.reset();
+        errors.reset();
+    }
+
+    /**
+     * Registers the counters with the platform MBean server as {@code dev.jcps:type=Diagnostics}.
+     * Registering again does nothing.
+     *
+     * @return the name the counters are registered under.
+     * @throws IllegalStateException if the MBean cannot be registered.
+     */
+    public static synchronized ObjectName registerMBean() {
+        try {
+            ObjectName name = new ObjectName("dev.jcps:type=Diagnostics");
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MXBeanImpl(INSTANCE), name);
+            }
+            return name;
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register diagnostics MBean", e);
+        }
+    }
+
+    /**
+     * The kinds of asset the loaders time separately.
+     */
+    public enum Kind {
+        IMAGE, AUDIO
+    }
+
+    /**
+     * Receives diagnostic events. Every method has an empty default, so listeners implement only what they need.
+     * Methods are called on the loading thread and should return quickly.
+     */
+    public interface Listener {
+        /**
+         * Called after an asset that was not cached has been read and decoded.
+         *
+         * @param kind  the kind of asset.
+         * @param key   the location the asset was read from.
+         * @param nanos the time spent reading and decoding, in nanoseconds.
+         * @param bytes the size of the decoded data, in bytes.
+         */
+        default void decoded(Kind kind, String key, long nanos, long bytes) {
+        }
+
+        /**
+         * Called when an asset could not be loaded.
+         *
+         * @param kind    the kind of asset.
+         * @param name    the asset name.
+         * @param message a description of what failed.
+         */
+        default void failed(Kind kind, String name, String message) {
+        }
+
+        /**
+         * Called with status messages from {@link JavaAppletAdapter#showStatus(String)} and other warnings.
+         *
+         * @param message the message.
+         */
+        default void message(String message) {
+        }
+    }
+
+    /**
+     * A lock-free histogram of durations in power-of-two nanosecond buckets.
+     * <p>
+     * Bucket {@code i} counts durations below {@code 2^i} nanoseconds and at least {@code 2^(i-1)}, so
+     * percentiles are accurate to within a factor of two, which is enough to tell a cache hit from a disk read
+     * from a network fetch.
+     * </p>
+     */
+    public static final class Histogram {
+        private static final int BUCKETS = 64;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAdder total = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+
+        /**
+         * Records one duration.
+         *
+         * @param nanos the duration, in nanoseconds.
+         */
+        public void record(long nanos) {
+            int bucket = nanos <= 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+            counts.incrementAndGet(bucket);
+            total.increment();
+            sum.add(Math.max(0, nanos));
+        }
+
+        public long getCount() {
+            return total.sum();
+        }
+
+        /**
+         * @return the mean recorded duration, in nanoseconds.
+         */
+        public double getMeanNanos() {
+            long n = total.sum();
+            return n == 0 ? 0 : sum.sum() / (double) n;
+        }
+
+        /**
+         * @param bucket the bucket index, between 0 and 63.
+         * @return the number of durations below {@code 2^bucket} nanoseconds and at least {@code 2^(bucket-1)}.
+         */
+        public long getBucketCount(int bucket) {
+            return counts.get(bucket);
+        }
+
+        /**
+         * Returns an upper bound of a percentile of the recorded durations.
+         *
+         * @param percentile the percentile, between 0 and 100.
+         * @return the upper bound of the bucket holding that percentile, in nanoseconds, or 0 if nothing was recorded.
+         */
+        public long getPercentileNanos(double percentile) {
+            long[] snapshot = new long[BUCKETS];
+            long n = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = counts.get(i);
+                n += snapshot[i];
+            }
+            if (n == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    return i >= 63 ? Long.MAX_VALUE : 1L << i;
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts.set(i, 0);
+            }
+            total.reset();
+            sum.reset();
+        }
+    }
+
+    /**
+     * The JMX view of {@link Diagnostics}.
+     */
+    public interface DiagnosticsMXBean {
+        Map<String, Long> getSuccessCounts();
+
+        Map<String, Long> getFailureCounts();
+
+        long getBytesRead();
+
+        long getErrorCount();
+
+        long getImageDecodeCount();
+
+        long getImageDecodeP99Micros();
+
+        long getAudioDecodeCount();
+
+        long getAudioDecodeP99Micros();
+
+        void reset();
+    }
+
+    private static final class MXBeanImpl implements DiagnosticsMXBean {
+        private final Diagnostics diagnostics;
+
+        MXBeanImpl(Diagnostics diagnostics) {
+            this.diagnostics = diagnostics;
+        }
+
+        @Override
+        public Map<String, Long> getSuccessCounts() {
+            return counts(diagnostics.successes);
+        }
+
+        @Override
+        public Map<String, Long> getFailureCounts() {
+            return counts(diagnostics.failures);
+        }
+
+        @Override
+        public long getBytesRead() {
+            return diagnostics.getBytesRead();
+        }
+
+        @Override
+        public long getErrorCount() {
+            return diagnostics.getErrorCount();
+        }
+
+        @Override
+        public long getImageDecodeCount() {
+            return diagnostics.getLatency(Kind.IMAGE).getCount();
+        }
+
+        @Override
+        public long getImageDecodeP99Micros() {
+            return diagnostics.getLatency(Kind.IMAGE).getPercentileNanos(99) / 1000;
+        }
+
+        @Override
+        public long getAudioDecodeCount() {
+            return diagnostics.getLatency(Kind.AUDIO).getCount();
+        }
+
+        @Override
+        public long getAudioDecodeP99Micros() {
+            return diagnostics.getLatency(Kind.AUDIO).getPercentileNanos(99) / 1000;
+        }
+
+        @Override
+        public void reset() {
+            diagnostics.reset();
+        }
+
+        private static Map<String, Long> counts(Map<AssetResolver.Source, LongAdder> adders) {
+            Map<String, Long> counts = new TreeMap<>();
+            adders.forEach((source, adder) -> counts.put(source.name(), adder.sum()));
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package dev.jcps;
+
+import java.awt.*;
+import java.awt.geom.Area;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@code DirtyRegionManager} class repaints only the parts of an adapter that changed.
+ * <p>
+ * Applet code tends to call {@code repaint()} on the whole panel when one sprite moves, and the panel then
+ * redraws everything. With a manager, the adapter reports the rectangles that changed through
+ * {@link #markDirty(int, int, int, int)} and hands its drawing code to the manager as a {@link Painter}. The
+ * manager keeps the picture in a persistent back buffer and, on each paint, clears the dirty rectangles and
+ * calls the painter once with the graphics clipped to their union, then copies the back buffer to the screen.
+ * Overlapping and nearby rectangles are merged first, so a sprite moving a few pixels is redrawn as one rectangle
+ * rather than two. A frame with more than 16 rectangles is redrawn as the one rectangle bounding them all.
+ * </p>
+ * <p>
+ * Counters report how many pixels were redrawn and how many a full repaint would have cost on top, in total
+ * and for the last frame.
+ * </p>
+ * <p>
+ * Example usage:
+ * <pre>{@code
+ * private final DirtyRegionManager dirty = new DirtyRegionManager(this, this::paintScene);
+ *
+ * public void update(Graphics g) { dirty.paint(g); }
+ * public void paint(Graphics g) { dirty.paint(g); }
+ *
+ * void moveShip(int dx, int dy) {
+ *     dirty.markDirty(ship);          // where it was
+ *     ship.translate(dx, dy);
+ *     dirty.repaint(ship);            // where it is now, and ask AWT to paint
+ * }
+ * }</pre>
+ * </p>
+ *
+ * @since 1.1
+ */
+public class DirtyRegionManager {
+    /**
+     * Above this many separate rectangles, a frame is repainted as the one rectangle bounding them all.
+     */
+    private static final int MAX_RECTANGLES = 16;
+    /**
+     * Two rectangles are merged when the union wastes at most this many pixels, or a quarter of their area.
+     */
+    private static final int MERGE_SLACK = 256;
+
+    private final Component component;
+    private final Painter painter;
+    private final List<Rectangle> dirty = new ArrayList<>();
+    private boolean allDirty = true;
+    private BufferedImage backBuffer;
+    private long frames;
+    private long pixelsPainted;
+    private long pixelsSaved;
+    private long lastPixelsPainted;
+    private long lastPixelsSaved;
+    private int lastRectangles;
+
+    /**
+     * Constructs a {@code DirtyRegionManager}. Everything is dirty until the first paint.
+     *
+     * @param component the component painted, whose size is the size of the back buffer.
+     * @param painter   draws the component's content.
+     */
+    public DirtyRegionManager(Component component, Painter painter) {
+        this.component = component;
+        this.painter = painter;
+    }
+
+    /**
+     * Marks a rectangle as changed. May be called from any thread.
+     *
+     * @param x      the left edge.
+     * @param y      the top edge.
+     * @param width  the width.
+     * @param height the height.
+     */
+    public void markDirty(int x, int y, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        synchronized (dirty) {
+            if (!allDirty) {
+                dirty.add(new Rectangle(x, y, width, height));
+            }
+        }
+    }
+
+    /**
+     * Marks a rectangle as changed.
+     *
+     * @param r the rectangle.
+     */
+    public void markDirty(Rectangle r) {
+        markDirty(r.x, r.y, r.width, r.height);
+    }
+
+    /**
+     * Marks the whole component as changed, for instance when the scene is replaced.
+     */
+    public void markAllDirty() {
+        synchronized (dirty) {
+            allDirty = true;
+            dirty.clear();
+        }
+    }
+
+    /**
+     * Marks a rectangle as changed and asks AWT to repaint just that rectangle.
+     *
+     * @param r the rectangle.
+     */
+    public void repaint(Rectangle r) {
+        markDirty(r);
+        component.repaint(r.x, r.y, r.width, r.height);
+    }
+
+    /**
+     * @return {@code true} if something has changed since the last paint.
+     */
+    public boolean isDirty() {
+        synchronized (dirty) {
+            return allDirty || !dirty.isEmpty();
+        }
+    }
+
+    /**
+     * Redraws the dirty rectangles into the back buffer, then copies the back buffer to {@code g} within its
+     * clip. Call it from the component's {@code paint} and {@code update}.
+     *
+     * @param g the graphics of the component.
+     */
+    public void paint(Graphics g) {
+        BufferedImage buffer = render();
+        g.drawImage(buffer, 0, 0, null);
+    }
+
+    /**
+     * Redraws the dirty rectangles into the back buffer, creating it, or recreating it if the component has
+     * been resized.
+     *
+     * @return the back buffer, complete and up to date.
+     */
+    public BufferedImage render() {
+        int width = Math.max(1, component.getWidth());
+        int height = Math.max(1, component.getHeight());
+        if (backBuffer == null || backBuffer.getWidth() != width || backBuffer.getHeight() != height) {
+            backBuffer = CompatibleImages.createCompatible(width, height, Transparency.OPAQUE);
+            markAllDirty();
+        }
+        List<Rectangle> rects = drain(width, height);
+        long painted = 0;
+        if (!rects.isEmpty()) {
+            Graphics2D g = backBuffer.createGraphics();
+            try {
+                Color background = component.getBackground();
+                g.setColor(background != null ? background : Color.BLACK);
+                Area clip = new Area();
+                for (Rectangle r : rects) {
+                    g.fillRect(r.x, r.y, r.width, r.height);
+                    clip.add(new Area(r));
+                    painted += (long) r.width * r.height;
+                }
+                // One pass over the scene for the whole frame, however many rectangles it has
+                g.setClip(rects.size() == 1 ? rects.get(0) : clip);
+                painter.paint(g);
+            } finally {
+                g.dispose();
+            }
+        }
+        long full = (long) width * height;
+        frames++;
+        lastRectangles = rects.size();
+        lastPixelsPainted = painted;
+        lastPixelsSaved = full - painted;
+        pixelsPainted += painted;
+        pixelsSaved += lastPixelsSaved;
+        return backBuffer;
+    }
+
+    /**
+     * Takes the dirty rectangles, clipped to the component and merged. Beyond {@link #MAX_RECTANGLES} they are
+     * replaced by their bounding box before merging, which keeps merging cheap however many were marked.
+     */
+    private List<Rectangle> drain(int width, int height) {
+        List<Rectangle> rects = new ArrayList<>();
+        Rectangle bounds = new Rectangle(0, 0, width, height);
+        synchronized (dirty) {
+            if (allDirty) {
+                allDirty = false;
+                dirty.clear();
+                rects.add(bounds);
+                return rects;
+            }
+            Rectangle all = null;
+            for (Rectangle r : dirty) {
+                Rectangle clipped = r.intersection(bounds);
+                if (!clipped.isEmpty()) {
+                    rects.add(clipped);
+                    all = all == null ? clipped : all.union(clipped);
+                }
+            }
+            dirty.clear();
+            if (rects.size() > MAX_RECTANGLES) {
+                rects.clear();
+                rects.add(all);
+                return rects;
+            }
+        }
+        return merge(rects);
+    }
+
+    /**
+     * Merges rectangles while any two of them can be covered by their union without wasting many pixels. Too
+     * many rectangles are replaced by the one bounding them all.
+     *
+     * @param rects the rectangles, modified in place.
+     * @return the merged rectangles.
+     */
+    static List<Rectangle> merge(List<Rectangle> rects) {
+        boolean merged = true;
+        while (merged && rects.size() > 1) {
+            merged = false;
+            for (int i = 0; i < rects.size() && !merged; i++) {
+                for (int j = i + 1; j < rects.size(); j++) {
+                    Rectangle a = rects.get(i);
+                    Rectangle b = rects.get(j);
+                    if (shouldMerge(a, b)) {
+                        rects.set(i, a.union(b));
+                        rects.remove(j);
+                        merged = true;
+                        break;
+                    }
+                }
+            }
+        }
+        if (rects.size() > MAX_RECTANGLES) {
+            Rectangle all = rects.get(0);
+            for (Rectangle r : rects) {
+                all = all.union(r);
+            }
+            rects.clear();
+            rects.add(all);
+        }
+        return rects;
+    }
+
+    private static boolean shouldMerge(Rectangle a, Rectangle b) {
+        long areaA = (long) a.width * a.height;
+        long areaB = (long) b.width * b.height;
+        Rectangle overlap = a.intersection(b);
+        long shared = overlap.isEmpty() ? 0 : (long) overlap.width * overlap.height;
+        Rectangle union = a.union(b);
+        long waste = (long) union.width * union.height - (areaA + areaB - shared);
+        return waste <= Math.max(MERGE_SLACK, (areaA + areaB) / 4);
+    }
+
+    /**
+     * @return the back buffer, or {@code null} before the first paint.
+     */
+    public BufferedImage getBackBuffer() {
+        return backBuffer;
+    }
+
+    /**
+     * @return the number of frames painted.
+     */
+    public long getFrameCount() {
+        return frames;
+    }
+
+    /**
+     * @return the pixels redrawn over all frames.
+     */
+    public long getPixelsPainted() {
+        return pixelsPainted;
+    }
+
+    /**
+     * @return the pixels a full repaint of every frame would have drawn in addition.
+     */
+    public long getPixelsSaved() {
+        return pixelsSaved;
+    }
+
+    /**
+     * @return the pixels redrawn in the last frame.
+     */
+    public long getLastPixelsPainted() {
+        return lastPixelsPainted;
+    }
+
+    /**
+     * @return the pixels not redrawn in the last frame.
+     */
+    public long getLastPixelsSaved() {
+        return lastPixelsSaved;
+    }
+
+    /**
+     * @return the number of rectangles redrawn in the last frame, after merging.
+     */
+    public int getLastRectangleCount() {
+        return lastRectangles;
+    }
+
+    /**
+     * Draws a component's content. It is called once per frame, with the graphics clipped to the union of the
+     * dirty rectangles, which have been cleared to the component's background. Drawing outside the clip leaves
+     * no mark but still costs the work of issuing it, so a painter with many objects should skip those outside
+     * {@link Graphics#getClipBounds()}.
+     */
+    @FunctionalInterface
+    public interface Painter {
+        /**
+         * Draws the content.
+         *
+         * @param g the graphics of the back buffer, clipped to the dirty rectangles.
+         */
+        void paint(Graphics2D g);
+    }
+}
@@ -0,0 +1,123 @@
+package dev.jcps;
+
+import java.util.Arrays;
+
+/**
+ * The {@code FrameStats} class records frame times for a {@link GameLoop}.
+ * <p>
+ * The most recent frame times are kept in a fixed ring, so recording a frame never allocates. Summary values
+ * such as the mean, worst frame and 99th percentile are computed over that ring when asked for.
+ * </p>
+ *
+ * @since 1.1
+ */
+public class FrameStats {
+    private final long[] frameNanos;
+    private int next;
+    private int count;
+    private long totalFrames;
+    private long droppedUpdates;
+
+    /**
+     * Constructs a {@code FrameStats} that summarises the last 240 frames.
+     */
+    public FrameStats() {
+        this(240);
+    }
+
+    /**
+     * Constructs a {@code FrameStats} that summarises the last {@code window} frames.
+     *
+     * @param window the number of recent frames to keep.
+     */
+    public FrameStats(int window) {
+        frameNanos = new long[window];
+    }
+
+    /**
+     * Records the duration of one frame.
+     *
+     * @param nanos the time since the previous frame, in nanoseconds.
+     */
+    public synchronized void recordFrame(long nanos) {
+        frameNanos[next] = nanos;
+        next = (next + 1) % frameNanos.length;
+        if (count < frameNanos.length) {
+            count++;
+        }
+        totalFrames++;
+    }
+
+    /**
+     * Records updates skipped because the loop fell too far behind.
+     *
+     * @param updates the number of skipped updates.
+     */
+    public synchronized void recordDroppedUpdates(long updates) {
+        droppedUpdates += updates;
+    }
+
+    /**
+     * @return the mean frame time over the window, in milliseconds.
+     */
+    public synchronized double getMeanMillis() {
+        if (count == 0) {
+            return 0;
+        }
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += frameNanos[i];
+        }
+        return sum / (double) count / 1_000_000.0;
+    }
+
+    /**
+     * @return the longest frame time over the window, in milliseconds.
+     */
+    public synchronized double getMaxMillis() {
+        long max = 0;
+        for (int i = 0; i < count; i++) {
+            max = Math.max(max, frameNanos[i]);
+        }
+        return max / 1_000_000.0;
+    }
+
+    /**
+     * Returns a frame time percentile over the window.
+     *
+     * @param percentile the percentile, between 0 and 100.
+     * @return the frame time at that percentile, in milliseconds.
+     */
+    public synchronized double getPercentileMillis(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(frameNanos, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, index))] / 1_000_000.0;
+    }
+
+    /**
+     * @return the frame rate implied by the mean frame time.
+     */
+    public synchronized double getFramesPerSecond() {
+        double mean = getMeanMillis();
+        return mean == 0 ? 0 : 1000.0 / mean;
+    }
+
+    public synchronized long getTotalFrames() {
+        return totalFrames;
+    }
+
+    public synchronized long getDroppedUpdates() {
+        return droppedUpdates;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%.1f fps, mean %.2f ms, p99 %.2f ms, max %.2f ms, %d frames, %d dropped updates",
+                getFramesPerSecond(), getMeanMillis(), getPercentileMillis(99), getMaxMillis(),
+                totalFrames, droppedUpdates);
+    }
+}
@@ -0,0 +1,153 @@
+package dev.jcps;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The {@code GameLoop} class runs a fixed-timestep update loop with a separate render step.
+ * <p>
+ * Updates always advance the game by the same step, {@code 1 / updatesPerSecond} seconds, however long
+ * rendering takes. Each frame runs as many updates as the elapsed time calls for, then renders once with the
+ * fraction of a step left over, so rendering can interpolate between the last two updates. If the loop falls
+ * far behind, at most {@code maxUpdatesPerFrame} updates are run and the rest are dropped rather than letting
+ * the backlog grow.
+ * </p>
+ * <p>
+ * Between frames the loop parks its thread until the next frame is due instead of spinning or calling
+ * {@code Thread.sleep} with a rounded interval.
+ * </p>
+ *
+ * @since 1.1
+ */
+public class GameLoop implements Runnable {
+    private final Callbacks callbacks;
+    private final long stepNanos;
+    private final long frameNanos;
+    private final int maxUpdatesPerFrame;
+    private final FrameStats stats = new FrameStats();
+    private volatile boolean running;
+    private volatile boolean stopRequested;
+    private boolean started;
+    private long previous;
+    private long accumulator;
+    private double alpha;
+
+    /**
+     * Constructs a {@code GameLoop}.
+     *
+     * @param callbacks          the update and render steps.
+     * @param updatesPerSecond   the fixed update rate.
+     * @param framesPerSecond    the maximum render rate, or {@code 0} to render as fast as possible.
+     * @param maxUpdatesPerFrame the most updates run before a render when the loop falls behind.
+     */
+    public GameLoop(Callbacks callbacks, int updatesPerSecond, int framesPerSecond, int maxUpdatesPerFrame) {
+        this.callbacks = callbacks;
+        this.stepNanos = 1_000_000_000L / updatesPerSecond;
+        this.frameNanos = framesPerSecond > 0 ? 1_000_000_000L / framesPerSecond : 0;
+        this.maxUpdatesPerFrame = maxUpdatesPerFrame;
+    }
+
+    /**
+     * Runs one frame at the given time: the updates that are due, then a render. The first call only starts the
+     * clock: it renders without updating, and no frame time is recorded for it.
+     *
+     * @param now the current time from {@link System#nanoTime()}.
+     * @return the number of updates run.
+     */
+    public int advance(long now) {
+        // nanoTime may be negative, so the first frame is marked by a flag rather than a sentinel time
+        if (!started) {
+            started = true;
+            previous = now;
+        } else {
+            long elapsed = now - previous;
+            previous = now;
+            stats.recordFrame(elapsed);
+            accumulator += elapsed;
+        }
+
+        int updates = 0;
+        double dt = stepNanos / 1_000_000_000.0;
+        while (accumulator >= stepNanos && updates < maxUpdatesPerFrame) {
+            callbacks.update(dt);
+            accumulator -= stepNanos;
+            updates++;
+        }
+        if (accumulator >= stepNanos) {
+            // Too far behind: drop the backlog rather than spiralling
+            stats.recordDroppedUpdates(accumulator / stepNanos);
+            accumulator %= stepNanos;
+        }
+        alpha = accumulator / (double) stepNanos;
+        callbacks.render(alpha);
+        return updates;
+    }
+
+    /**
+     * Runs frames on the calling thread until {@link #stop()} is called. A loop stopped before this method is
+     * reached, for instance just after its thread was started, returns at once.
+     */
+    @Override
+    public void run() {
+        if (stopRequested) {
+            return;
+        }
+        running = true;
+        long next = System.nanoTime();
+        // The request is never cleared here, so a stop() that comes before run() still ends the loop
+        while (!stopRequested) {
+            advance(System.nanoTime());
+            next += frameNanos > 0 ? frameNanos : 0;
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+            } else {
+                // Behind schedule or uncapped: do not try to catch up on missed frames
+                next = System.nanoTime();
+                Thread.yield();
+            }
+        }
+        running = false;
+    }
+
+    /**
+     * Asks the loop to finish after the current frame, or not to start if {@link #run()} has not been reached
+     * yet. A stopped loop does not run again.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return the fraction of an update step left over after the last frame's updates, between 0 and 1.
+     */
+    public double getAlpha() {
+        return alpha;
+    }
+
+    public FrameStats getStats() {
+        return stats;
+    }
+
+    /**
+     * The steps driven by a {@link GameLoop}.
+     */
+    public interface Callbacks {
+        /**
+         * Advances the game by one fixed step.
+         *
+         * @param dt the step length, in seconds.
+         */
+        void update(double dt);
+
+        /**
+         * Draws the current state.
+         *
+         * @param alpha the fraction of a step elapsed since the last update, for interpolation.
+         */
+        void render(double alpha);
+    }
+}
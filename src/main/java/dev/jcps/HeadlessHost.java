@@ -0,0 +1,500 @@
+package dev.jcps;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code HeadlessHost} class runs an adapter without a display, painting each frame into an off-screen
+ * image, for thumbnails, server-side rendering and regression tests.
+ * <p>
+ * The host drives the adapter with a {@link GameLoop} on a simulated clock: every call to {@link #step()}
+ * advances time by exactly one frame at the configured rate, however long painting took, so a run produces the
+ * same frames each time. Frames are painted on the calling thread into images taken from a small pool, then
+ * handed to a pool of encoder threads that turn them into PNG or raw RGB while the next frames are painted.
+ * Encoded frames reach the {@link FrameOutput} in frame order. When the encoders fall behind, painting waits
+ * for a free image rather than queueing frames without bound.
+ * </p>
+ * <p>
+ * Sound has no device to go to either. The host owns a {@link SoftwareMixer} whose output goes to a
+ * {@link SoftwareMixer.Sink}, by default {@link SoftwareMixer.Sink#discard()}, or a WAV file with
+ * {@link SoftwareMixer.Sink#wavFile(java.io.File, float)}. The mixer is advanced on the same simulated clock, so
+ * the audio stays in step with the frames.
+ * </p>
+ * <p>
+ * Example usage:
+ * <pre>{@code
+ * try (HeadlessHost host = new HeadlessHost(new MyAppletAdapterImpl(), 640, 480)) {
+ *     HeadlessHost.Format png = HeadlessHost.Format.PNG;
+ *     host.setOutput(HeadlessHost.FrameOutput.directory(Paths.get("frames"), "frame", png), png);
+ *     host.capture(300);
+ * }
+ * }</pre>
+ * </p>
+ *
+ * @since 1.1
+ */
+public class HeadlessHost implements AutoCloseable {
+    private final JavaAppletAdapter adapter;
+    private final Component component;
+    private final int width;
+    private final int height;
+    private int updatesPerSecond = 60;
+    private int framesPerSecond = 30;
+    private int maxUpdatesPerFrame = 5;
+    private int encoderThreads = Runtime.getRuntime().availableProcessors();
+    private float sampleRate = 44100;
+    private SoftwareMixer.Sink audioSink = SoftwareMixer.Sink.discard();
+    private FrameOutput output;
+    private Format format = Format.PNG;
+
+    private GameLoop loop;
+    private SoftwareMixer mixer;
+    private ExecutorService encoders;
+    private BlockingQueue<BufferedImage> images;
+    private BufferedImage last;
+    private long clock;
+    private long frameNanos;
+    private double audioFramesDue;
+    private int frameIndex;
+
+    private final Object writeLock = new Object();
+    private final Map<Integer, byte[]> pending = new HashMap<>();
+    private int nextToWrite;
+    private int inFlight;
+    private IOException failure;
+
+    /**
+     * Constructs a {@code HeadlessHost} for an adapter.
+     *
+     * @param adapter the adapter to run. It must be a {@link Component}, typically a {@code Panel} or
+     *                {@code JPanel}.
+     * @param width   the width of the frames, in pixels.
+     * @param height  the height of the frames, in pixels.
+     */
+    public HeadlessHost(JavaAppletAdapter adapter, int width, int height) {
+        if (!(adapter instanceof Component)) {
+            throw new IllegalArgumentException("Adapter must be a Component: " + adapter.getClass().getName());
+        }
+        this.adapter = adapter;
+        this.component = (Component) adapter;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Sets the number of fixed updates per simulated second. Must be called before {@link #start()}.
+     *
+     * @param updatesPerSecond the update rate.
+     */
+    public void setUpdatesPerSecond(int updatesPerSecond) {
+        this.updatesPerSecond = updatesPerSecond;
+    }
+
+    /**
+     * Sets the number of frames per simulated second. Must be called before {@link #start()}.
+     *
+     * @param framesPerSecond the frame rate.
+     */
+    public void setFramesPerSecond(int framesPerSecond) {
+        this.framesPerSecond = framesPerSecond;
+    }
+
+    /**
+     * Sets how many updates may run before a frame is painted. Must be called before {@link #start()}.
+     *
+     * @param maxUpdatesPerFrame the catch-up limit.
+     */
+    public void setMaxUpdatesPerFrame(int maxUpdatesPerFrame) {
+        this.maxUpdatesPerFrame = maxUpdatesPerFrame;
+    }
+
+    /**
+     * Sets the number of threads encoding frames. Must be called before {@link #start()}.
+     *
+     * @param encoderThreads the number of encoder threads.
+     */
+    public void setEncoderThreads(int encoderThreads) {
+        this.encoderThreads = encoderThreads;
+    }
+
+    /**
+     * Sets where frames go and how they are encoded, or {@code null} to only paint them. Must be called before
+     * {@link #start()}.
+     *
+     * @param output receives the encoded frames.
+     * @param format the encoding.
+     */
+    public void setOutput(FrameOutput output, Format format) {
+        this.output = output;
+        this.format = format;
+    }
+
+    /**
+     * Sets where the mixer's sound goes. Must be called before {@link #start()}.
+     *
+     * @param sink       the audio sink.
+     * @param sampleRate the mixer's sample rate, in Hz.
+     */
+    public void setAudioSink(SoftwareMixer.Sink sink, float sampleRate) {
+        this.audioSink = sink;
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Sizes the adapter, calls {@code init()} and {@code start()}, and starts the encoders. Called by the first
+     * {@link #step()} if not called before.
+     */
+    public synchronized void start() {
+        if (loop != null) {
+            return;
+        }
+        component.setSize(width, height);
+        mixer = new SoftwareMixer(audioSink, sampleRate, 32, SoftwareMixer.DEFAULT_BLOCK_FRAMES);
+        AtomicInteger count = new AtomicInteger();
+        encoders = Executors.newFixedThreadPool(encoderThreads, r -> {
+            Thread t = new Thread(r, "HeadlessHost-encoder-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        // Enough images for every encoder to be busy while one more frame is painted
+        images = new ArrayBlockingQueue<>(encoderThreads + 2);
+        for (int i = 0; i < encoderThreads + 2; i++) {
+            images.add(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB));
+        }
+        frameNanos = 1_000_000_000L / framesPerSecond;
+        loop = new GameLoop(new GameLoop.Callbacks() {
+            @Override
+            public void update(double dt) {
+                if (adapter instanceof Updatable) {
+                    ((Updatable) adapter).update(dt);
+                }
+            }
+
+            @Override
+            public void render(double alpha) {
+                renderFrame();
+            }
+        }, updatesPerSecond, framesPerSecond, maxUpdatesPerFrame);
+        adapter.init();
+        adapter.start();
+    }
+
+    /**
+     * Advances the simulated clock by one frame: runs the updates that are due, paints the frame, queues it for
+     * encoding and mixes the frame's share of audio. The first frame shows the adapter as {@code start()} left
+     * it, and each later one is a frame interval on.
+     *
+     * @return the index of the frame painted, counting from 0.
+     * @throws IOException if encoding or writing an earlier frame failed.
+     */
+    public synchronized int step() throws IOException {
+        if (loop == null) {
+            start();
+        }
+        checkFailure();
+        if (frameIndex > 0) {
+            clock += frameNanos;
+        }
+        loop.advance(clock);
+        if (frameIndex == 1) {
+            // No time has passed before the first frame
+            return 0;
+        }
+        audioFramesDue += sampleRate / framesPerSecond;
+        while (audioFramesDue >= mixer.getBlockFrames()) {
+            mixer.mixBlock();
+            audioFramesDue -= mixer.getBlockFrames();
+        }
+        return frameIndex - 1;
+    }
+
+    /**
+     * Paints a number of frames and waits for all of them to be written.
+     *
+     * @param frames the number of frames.
+     * @throws IOException if a frame cannot be encoded or written.
+     */
+    public void capture(int frames) throws IOException {
+        for (int i = 0; i < frames; i++) {
+            step();
+        }
+        flush();
+    }
+
+    /**
+     * Waits until every frame painted so far has been encoded and written.
+     *
+     * @throws IOException if a frame cannot be encoded or written.
+     */
+    public void flush() throws IOException {
+        synchronized (writeLock) {
+            while (inFlight > 0 && failure == null) {
+                try {
+                    writeLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted waiting for frames");
+                }
+            }
+        }
+        checkFailure();
+    }
+
+    /**
+     * Paints the current state of the adapter into a new image, without advancing the clock, for a thumbnail.
+     *
+     * @return the image.
+     */
+    public synchronized BufferedImage snapshot() {
+        if (loop == null) {
+            start();
+        }
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        paintInto(image);
+        return image;
+    }
+
+    /**
+     * @return the mixer adapters should play sounds through, or {@code null} before {@link #start()}.
+     */
+    public synchronized SoftwareMixer getMixer() {
+        return mixer;
+    }
+
+    /**
+     * @return the frame time statistics, on the simulated clock.
+     */
+    public synchronized FrameStats getFrameStats() {
+        return loop == null ? null : loop.getStats();
+    }
+
+    /**
+     * @return the number of frames painted.
+     */
+    public synchronized int getFrameCount() {
+        return frameIndex;
+    }
+
+    /**
+     * Writes the remaining frames, calls {@code stop()} and {@code destroy()}, and closes the mixer, its sink
+     * and the frame output.
+     *
+     * @throws IOException if a frame cannot be written or the output cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (loop == null) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            encoders.shutdown();
+            adapter.stop();
+            adapter.destroy();
+            mixer.close();
+            loop = null;
+            if (output != null) {
+                output.close();
+            }
+        }
+    }
+
+    private void renderFrame() {
+        BufferedImage image;
+        try {
+            image = images.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        paintInto(image);
+        int index = frameIndex++;
+        if (output == null) {
+            // Nothing to encode: keep the frame until the next one is painted
+            if (last != null) {
+                images.add(last);
+            }
+            last = image;
+            return;
+        }
+        synchronized (writeLock) {
+            inFlight++;
+        }
+        encoders.execute(() -> encode(index, image));
+    }
+
+    private void paintInto(BufferedImage image) {
+        Graphics2D g = image.createGraphics();
+        try {
+            Color background = component.getBackground();
+            g.setColor(background != null ? background : Color.BLACK);
+            g.fillRect(0, 0, width, height);
+            component.paint(g);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    private void encode(int index, BufferedImage image) {
+        byte[] data = null;
+        IOException error = null;
+        try {
+            data = format == Format.PNG ? encodePng(image) : encodeRgb(image);
+        } catch (IOException e) {
+            error = e;
+        } catch (RuntimeException e) {
+            error = new IOException("Cannot encode frame " + index, e);
+        } finally {
+            images.add(image);
+        }
+        synchronized (writeLock) {
+            try {
+                if (error != null && failure == null) {
+                    failure = error;
+                }
+                pending.put(index, data);
+                // Write every frame that is next in order; frames encoded early wait here
+                byte[] next;
+                while (failure == null && (next = pending.remove(nextToWrite)) != null) {
+                    try {
+                        output.write(nextToWrite, next);
+                    } catch (IOException e) {
+                        failure = e;
+                    } catch (RuntimeException e) {
+                        failure = new IOException("Cannot write frame " + nextToWrite, e);
+                    }
+                    nextToWrite++;
+                }
+            } finally {
+                // Always wake flush() and close(), or they would wait for this frame forever
+                inFlight--;
+                writeLock.notifyAll();
+            }
+        }
+    }
+
+    private static byte[] encodePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(image.getWidth() * image.getHeight());
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static byte[] encodeRgb(BufferedImage image) {
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        byte[] rgb = new byte[pixels.length * 3];
+        for (int i = 0, j = 0; i < pixels.length; i++, j += 3) {
+            int p = pixels[i];
+            rgb[j] = (byte) (p >> 16);
+            rgb[j + 1] = (byte) (p >> 8);
+            rgb[j + 2] = (byte) p;
+        }
+        return rgb;
+    }
+
+    private void checkFailure() throws IOException {
+        synchronized (writeLock) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * The encodings frames can be written in.
+     */
+    public enum Format {
+        /**
+         * One PNG file per frame.
+         */
+        PNG("png"),
+        /**
+         * Raw 8-bit red, green and blue bytes, row by row, with no header.
+         */
+        RGB("rgb");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    /**
+     * Receives encoded frames, one at a time and in frame order.
+     */
+    @FunctionalInterface
+    public interface FrameOutput {
+        /**
+         * Returns an output writing each frame to a file of its own, named {@code prefix-000000.ext} with the
+         * frame number and the extension of the format.
+         *
+         * @param dir    the directory to write to. It is created if needed.
+         * @param prefix the start of each file name.
+         * @param format the format the frames are encoded in, for the file extension.
+         * @return the output.
+         * @throws IOException if the directory cannot be created.
+         */
+        static FrameOutput directory(Path dir, String prefix, Format format) throws IOException {
+            Files.createDirectories(dir);
+            return (index, data) -> Files.write(
+                    dir.resolve(String.format("%s-%06d.%s", prefix, index, format.getExtension())), data);
+        }
+
+        /**
+         * Returns an output appending every frame to one stream, for piping raw RGB to a video encoder.
+         *
+         * @param out the stream. It is closed with the output.
+         * @return the output.
+         */
+        static FrameOutput stream(OutputStream out) {
+            return new FrameOutput() {
+                @Override
+                public void write(int index, byte[] data) throws IOException {
+                    out.write(data);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    out.close();
+                }
+            };
+        }
+
+        /**
+         * Writes one frame.
+         *
+         * @param index the frame number, counting from 0.
+         * @param data  the encoded frame.
+         * @throws IOException if the frame cannot be written.
+         */
+        void write(int index, byte[] data) throws IOException;
+
+        /**
+         * Releases the output. The default does nothing.
+         *
+         * @throws IOException if the output cannot be closed.
+         */
+        default void close() throws IOException {
+        }
+    }
+}
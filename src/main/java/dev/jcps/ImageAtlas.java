@@ -0,0 +1,289 @@
+package dev.jcps;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code ImageAtlas} class packs many small images into a few large shared sheets.
+ * <p>
+ * Applets typically load dozens of tiny sprites, each becoming its own {@link BufferedImage} with its own
+ * surface, header and, when accelerated, its own texture. An atlas copies them into sheets of a fixed size and
+ * hands back a {@link Region} for each one. A region draws with a single {@code drawImage} call that takes a
+ * source rectangle from its sheet, so a frame drawing many sprites draws from a handful of surfaces instead of
+ * switching between dozens.
+ * </p>
+ * <p>
+ * An image packed with {@link #add(JavaAppletAdapter, String, String)} is removed from {@link AssetCache#images()}
+ * once it has been copied, so only the sheet keeps its pixels; loading the same name again through the adapter
+ * decodes it again. An image passed to {@link #add(String, Image)} still belongs to the caller, and its memory is
+ * only freed once the caller drops it.
+ * </p>
+ * <p>
+ * Images are placed on shelves: rows whose height is set by their first image, filled left to right. Adding
+ * images in decreasing height order, as {@link #addAll(Map)} does, wastes the least space. An image that does
+ * not fit an empty sheet gets a sheet of its own size. Sheets are created by
+ * {@link CompatibleImages#createCompatible(int, int, int)}, so they draw as fast as the screen allows.
+ * </p>
+ * <p>
+ * Example usage:
+ * <pre>{@code
+ * ImageAtlas atlas = new ImageAtlas(1024, 1024);
+ * ImageAtlas.Region ship = atlas.add(adapter, base, "ship.png");
+ * // in paint()
+ * ship.draw(g, x, y);
+ * }</pre>
+ * </p>
+ *
+ * @since 1.1
+ */
+public class ImageAtlas {
+    private final int sheetWidth;
+    private final int sheetHeight;
+    private final int padding;
+    private final List<BufferedImage> sheets = new ArrayList<>();
+    private final Map<String, Region> regions = new HashMap<>();
+    private BufferedImage current;
+    private int shelfX;
+    private int shelfY;
+    private int shelfHeight;
+    private long packedPixels;
+
+    /**
+     * Constructs an {@code ImageAtlas} with sheets of the given size and one pixel of padding between images.
+     *
+     * @param sheetWidth  the width of each sheet.
+     * @param sheetHeight the height of each sheet.
+     */
+    public ImageAtlas(int sheetWidth, int sheetHeight) {
+        this(sheetWidth, sheetHeight, 1);
+    }
+
+    /**
+     * Constructs an {@code ImageAtlas}.
+     *
+     * @param sheetWidth  the width of each sheet.
+     * @param sheetHeight the height of each sheet.
+     * @param padding     the transparent gap kept around each image, so scaled drawing does not pick up
+     *                    pixels of its neighbours.
+     */
+    public ImageAtlas(int sheetWidth, int sheetHeight, int padding) {
+        this.sheetWidth = sheetWidth;
+        this.sheetHeight = sheetHeight;
+        this.padding = padding;
+    }
+
+    /**
+     * Loads an image through an adapter and packs it, then drops the decoded original from
+     * {@link AssetCache#images()}.
+     *
+     * @param adapter      the adapter to load with.
+     * @param documentBase the base the image is relative to.
+     * @param fileName     the image name, also used as the region name.
+     * @return the region holding the image, or {@code null} if the image cannot be loaded.
+     */
+    public Region add(JavaAppletAdapter adapter, String documentBase, String fileName) {
+        Image image = adapter.getImage(documentBase, fileName);
+        if (image == null) {
+            return null;
+        }
+        Region region = add(fileName, image);
+        if (image instanceof BufferedImage) {
+            // The sheet holds the pixels now; keeping the original cached would hold them twice
+            AssetCache.images().invalidateValue((BufferedImage) image);
+        }
+        return region;
+    }
+
+    /**
+     * Packs several images, tallest first.
+     *
+     * @param images the images by name.
+     * @return the regions by name.
+     */
+    public synchronized Map<String, Region> addAll(Map<String, ? extends Image> images) {
+        List<Map.Entry<String, ? extends Image>> sorted = new ArrayList<>(images.entrySet());
+        sorted.sort(Comparator.comparingInt((Map.Entry<String, ? extends Image> e) -> e.getValue().getHeight(null))
+                .reversed());
+        Map<String, Region> added = new HashMap<>();
+        for (Map.Entry<String, ? extends Image> e : sorted) {
+            added.put(e.getKey(), add(e.getKey(), e.getValue()));
+        }
+        return added;
+    }
+
+    /**
+     * Packs one image. Adding a name again packs the new image and replaces the old region.
+     *
+     * @param name  the region name.
+     * @param image a fully loaded image.
+     * @return the region holding the image.
+     */
+    public synchronized Region add(String name, Image image) {
+        int width = image.getWidth(null);
+        int height = image.getHeight(null);
+        if (width < 0 || height < 0) {
+            throw new IllegalArgumentException("Image is not loaded: " + name);
+        }
+        int w = width + padding * 2;
+        int h = height + padding * 2;
+        BufferedImage sheet;
+        int x;
+        int y;
+        if (w > sheetWidth || h > sheetHeight) {
+            // Too large to share a sheet
+            sheet = newSheet(w, h);
+            x = 0;
+            y = 0;
+        } else {
+            if (current == null || shelfX + w > sheetWidth) {
+                // Start a new shelf below the current one
+                shelfY += shelfHeight;
+                shelfX = 0;
+                shelfHeight = 0;
+            }
+            if (current == null || shelfY + h > sheetHeight) {
+                current = newSheet(sheetWidth, sheetHeight);
+                shelfX = 0;
+                shelfY = 0;
+                shelfHeight = 0;
+            }
+            sheet = current;
+            x = shelfX;
+            y = shelfY;
+            shelfX += w;
+            shelfHeight = Math.max(shelfHeight, h);
+        }
+        Graphics2D g = sheet.createGraphics();
+        try {
+            g.setComposite(AlphaComposite.Src);
+            g.drawImage(image, x + padding, y + padding, null);
+        } finally {
+            g.dispose();
+        }
+        packedPixels += (long) width * height;
+        Region region = new Region(name, sheet, x + padding, y + padding, width, height);
+        regions.put(name, region);
+        return region;
+    }
+
+    /**
+     * @param name the region name.
+     * @return the region packed under that name, or {@code null}.
+     */
+    public synchronized Region get(String name) {
+        return regions.get(name);
+    }
+
+    /**
+     * @return the sheets created so far.
+     */
+    public synchronized List<BufferedImage> getSheets() {
+        return Collections.unmodifiableList(new ArrayList<>(sheets));
+    }
+
+    public synchronized int getRegionCount() {
+        return regions.size();
+    }
+
+    /**
+     * @return the fraction of the sheets' pixels covered by packed images, between 0 and 1.
+     */
+    public synchronized double getFillRatio() {
+        long total = 0;
+        for (BufferedImage sheet : sheets) {
+            total += (long) sheet.getWidth() * sheet.getHeight();
+        }
+        return total == 0 ? 0 : packedPixels / (double) total;
+    }
+
+    private BufferedImage newSheet(int width, int height) {
+        BufferedImage sheet = CompatibleImages.createCompatible(width, height, Transparency.TRANSLUCENT);
+        sheets.add(sheet);
+        return sheet;
+    }
+
+    /**
+     * A rectangle of an atlas sheet holding one packed image.
+     */
+    public static final class Region {
+        private final String name;
+        private final BufferedImage sheet;
+        private final int x;
+        private final int y;
+        private final int width;
+        private final int height;
+
+        Region(String name, BufferedImage sheet, int x, int y, int width, int height) {
+            this.name = name;
+            this.sheet = sheet;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+
+        /**
+         * Draws the image at its own size.
+         *
+         * @param g  the graphics to draw with.
+         * @param dx the x coordinate of the top left corner.
+         * @param dy the y coordinate of the top left corner.
+         */
+        public void draw(Graphics g, int dx, int dy) {
+            g.drawImage(sheet, dx, dy, dx + width, dy + height, x, y, x + width, y + height, null);
+        }
+
+        /**
+         * Draws the image scaled into a rectangle.
+         *
+         * @param g  the graphics to draw with.
+         * @param dx the x coordinate of the top left corner.
+         * @param dy the y coordinate of the top left corner.
+         * @param dw the width to draw.
+         * @param dh the height to draw.
+         */
+        public void draw(Graphics g, int dx, int dy, int dw, int dh) {
+            g.drawImage(sheet, dx, dy, dx + dw, dy + dh, x, y, x + width, y + height, null);
+        }
+
+        /**
+         * Returns the region as an image of its own for code that needs an {@link Image}. The image shares the
+         * sheet's pixels, but drawing it may not be as fast as {@link #draw(Graphics, int, int)}.
+         *
+         * @return a sub-image of the sheet.
+         */
+        public BufferedImage toImage() {
+            return sheet.getSubimage(x, y, width, height);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public BufferedImage getSheet() {
+            return sheet;
+        }
+
+        public int getX() {
+            return x;
+        }
+
+        public int getY() {
+            return y;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+    }
+}
@@ -0,0 +1,453 @@
+package dev.jcps;
+
+import java.awt.*;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
+import java.awt.event.MouseMotionListener;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code InputQueue} class hands mouse and key events from the AWT event thread to the game thread.
+ * <p>
+ * Applets handled {@code mouseDown}, {@code keyDown} and the like on the event dispatch thread, changing game
+ * state while the game thread was reading it. An {@code InputQueue} attached to an adapter's component only
+ * records each event, as a few integers, in a preallocated ring buffer. The game thread calls
+ * {@link #drain(Handler)} once per tick, before its update, and the events recorded since the last tick are
+ * passed to the {@link Handler} there, in order. Game state is then only touched by one thread, and each update
+ * sees the input as it stood at the start of the tick.
+ * </p>
+ * <p>
+ * The buffer has a single producer, the event dispatch thread, and a single consumer, the game thread, so it
+ * needs no lock: each side owns one counter and publishes it with an ordered write. Recording or draining an
+ * event allocates nothing. When the game thread falls so far behind that the buffer is full, new events are
+ * dropped and counted rather than blocking the event thread.
+ * </p>
+ * <p>
+ * {@link AppletHost} attaches a queue to adapters implementing {@link Handler} and drains it before each update.
+ * </p>
+ * <p>
+ * Example usage:
+ * <pre>{@code
+ * public class Pong extends JPanel implements JavaAppletAdapter, Updatable, InputQueue.Handler {
+ *     public void mouseMove(int x, int y, int modifiers) {
+ *         paddleY = y;                    // on the game thread, between updates
+ *     }
+ *
+ *     public void update(double dt) {
+ *         ball.move(dt);
+ *     }
+ * }
+ * }</pre>
+ * </p>
+ *
+ * @since 1.1
+ */
+public final class InputQueue implements MouseListener, MouseMotionListener, KeyListener {
+    /**
+     * The number of events buffered by default.
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /**
+     * Key codes of non-character keys, with the values of the {@code java.awt.Event} constants legacy
+     * handlers compare against.
+     */
+    public static final int HOME = 1000, END = 1001, PGUP = 1002, PGDN = 1003, UP = 1004, DOWN = 1005,
+            LEFT = 1006, RIGHT = 1007, F1 = 1008, INSERT = 1025;
+
+    /**
+     * Modifier bits, with the values of the {@code java.awt.Event} masks. As in the applet event model, the
+     * right mouse button is reported as {@link #META_MASK} and the middle one as {@link #ALT_MASK}.
+     */
+    public static final int SHIFT_MASK = 1, CTRL_MASK = 2, META_MASK = 4, ALT_MASK = 8;
+
+    private static final int MOUSE_DOWN = 1, MOUSE_UP = 2, MOUSE_MOVE = 3, MOUSE_DRAG = 4, MOUSE_ENTER = 5,
+            MOUSE_EXIT = 6, KEY_DOWN = 7, KEY_UP = 8;
+    private static final int STRIDE = 5;
+
+    private final int[] slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long dropped;
+    private Component component;
+
+    /**
+     * Constructs an {@code InputQueue} buffering {@link #DEFAULT_CAPACITY} events.
+     */
+    public InputQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an {@code InputQueue}.
+     *
+     * @param capacity the number of events buffered between two drains, rounded up to a power of two.
+     */
+    public InputQueue(int capacity) {
+        if (capacity < 1 || capacity > 1 << 24) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^24: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new int[size * STRIDE];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Creates a queue and attaches it to a component.
+     *
+     * @param component the component whose events are recorded, typically an adapter.
+     * @return the attached queue.
+     */
+    public static InputQueue attach(Component component) {
+        InputQueue queue = new InputQueue();
+        queue.attachTo(component);
+        return queue;
+    }
+
+    /**
+     * Starts recording the mouse and key events of a component. The component is made focusable so that it
+     * receives key events.
+     *
+     * @param target the component.
+     */
+    public synchronized void attachTo(Component target) {
+        detach();
+        component = target;
+        target.addMouseListener(this);
+        target.addMouseMotionListener(this);
+        target.addKeyListener(this);
+        target.setFocusable(true);
+    }
+
+    /**
+     * Stops recording events. Events already recorded can still be drained.
+     */
+    public synchronized void detach() {
+        if (component != null) {
+            component.removeMouseListener(this);
+            component.removeMouseMotionListener(this);
+            component.removeKeyListener(this);
+            component = null;
+        }
+    }
+
+    /**
+     * Passes the events recorded since the last drain to a handler, in the order they happened. Events
+     * recorded while the handler runs are left for the next drain. Call it from one thread only, typically
+     * the game thread once per tick.
+     *
+     * @param handler receives the events.
+     * @return the number of events passed.
+     */
+    public int drain(Handler handler) {
+        long h = head.get();
+        long t = tail.get();
+        int[] s = slots;
+        for (long i = h; i < t; i++) {
+            int o = (int) (i & mask) * STRIDE;
+            int a = s[o + 1];
+            int b = s[o + 2];
+            int modifiers = s[o + 3];
+            switch (s[o]) {
+                case MOUSE_DOWN:
+                    handler.mouseDown(a, b, modifiers, s[o + 4]);
+                    break;
+                case MOUSE_UP:
+                    handler.mouseUp(a, b, modifiers);
+                    break;
+                case MOUSE_MOVE:
+                    handler.mouseMove(a, b, modifiers);
+                    break;
+                case MOUSE_DRAG:
+                    handler.mouseDrag(a, b, modifiers);
+                    break;
+                case MOUSE_ENTER:
+                    handler.mouseEnter(a, b);
+                    break;
+                case MOUSE_EXIT:
+                    handler.mouseExit(a, b);
+                    break;
+                case KEY_DOWN:
+                    handler.keyDown(a, modifiers);
+                    break;
+                case KEY_UP:
+                    handler.keyUp(a, modifiers);
+                    break;
+                default:
+                    break;
+            }
+            // Free the slot only once it has been read
+            head.lazySet(i + 1);
+        }
+        return (int) (t - h);
+    }
+
+    /**
+     * Discards the events recorded so far. Call it from the thread that drains.
+     */
+    public void clear() {
+        head.lazySet(tail.get());
+    }
+
+    /**
+     * @return the number of events recorded and not yet drained.
+     */
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    /**
+     * @return the number of events the buffer can hold.
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return the number of events dropped because the buffer was full.
+     */
+    public long getDroppedCount() {
+        return dropped;
+    }
+
+    /**
+     * Records an event. Call it from one thread only; the listener methods do so on the event dispatch thread.
+     *
+     * @param type      the kind of event.
+     * @param a         the x coordinate, or the key.
+     * @param b         the y coordinate.
+     * @param modifiers the modifier bits.
+     * @param clicks    the click count of a mouse press.
+     */
+    private void offer(int type, int a, int b, int modifiers, int clicks) {
+        long t = tail.get();
+        if (t - head.get() > mask) {
+            dropped++;
+            return;
+        }
+        int o = (int) (t & mask) * STRIDE;
+        slots[o] = type;
+        slots[o + 1] = a;
+        slots[o + 2] = b;
+        slots[o + 3] = modifiers;
+        slots[o + 4] = clicks;
+        // Publish the slot after it has been written
+        tail.lazySet(t + 1);
+    }
+
+    @Override
+    public void mousePressed(MouseEvent e) {
+        offer(MOUSE_DOWN, e.getX(), e.getY(), modifiers(e), e.getClickCount());
+    }
+
+    @Override
+    public void mouseReleased(MouseEvent e) {
+        offer(MOUSE_UP, e.getX(), e.getY(), modifiers(e), 0);
+    }
+
+    @Override
+    public void mouseClicked(MouseEvent e) {
+        // The applet event model had no click event; presses and releases are enough
+    }
+
+    @Override
+    public void mouseEntered(MouseEvent e) {
+        offer(MOUSE_ENTER, e.getX(), e.getY(), 0, 0);
+    }
+
+    @Override
+    public void mouseExited(MouseEvent e) {
+        offer(MOUSE_EXIT, e.getX(), e.getY(), 0, 0);
+    }
+
+    @Override
+    public void mouseMoved(MouseEvent e) {
+        offer(MOUSE_MOVE, e.getX(), e.getY(), modifiers(e), 0);
+    }
+
+    @Override
+    public void mouseDragged(MouseEvent e) {
+        offer(MOUSE_DRAG, e.getX(), e.getY(), modifiers(e), 0);
+    }
+
+    @Override
+    public void keyPressed(KeyEvent e) {
+        int key = key(e);
+        if (key != 0) {
+            offer(KEY_DOWN, key, 0, modifiers(e), 0);
+        }
+    }
+
+    @Override
+    public void keyReleased(KeyEvent e) {
+        int key = key(e);
+        if (key != 0) {
+            offer(KEY_UP, key, 0, modifiers(e), 0);
+        }
+    }
+
+    @Override
+    public void keyTyped(KeyEvent e) {
+        // Characters are reported with the press, as keyDown did
+    }
+
+    /**
+     * Returns the key of an event as a legacy handler expects it: the character typed, or one of the key
+     * constants of this class for keys that type none.
+     */
+    private static int key(KeyEvent e) {
+        char c = e.getKeyChar();
+        if (c != KeyEvent.CHAR_UNDEFINED) {
+            return c;
+        }
+        int code = e.getKeyCode();
+        switch (code) {
+            case KeyEvent.VK_HOME:
+                return HOME;
+            case KeyEvent.VK_END:
+                return END;
+            case KeyEvent.VK_PAGE_UP:
+                return PGUP;
+            case KeyEvent.VK_PAGE_DOWN:
+                return PGDN;
+            case KeyEvent.VK_UP:
+            case KeyEvent.VK_KP_UP:
+                return UP;
+            case KeyEvent.VK_DOWN:
+            case KeyEvent.VK_KP_DOWN:
+                return DOWN;
+            case KeyEvent.VK_LEFT:
+            case KeyEvent.VK_KP_LEFT:
+                return LEFT;
+            case KeyEvent.VK_RIGHT:
+            case KeyEvent.VK_KP_RIGHT:
+                return RIGHT;
+            case KeyEvent.VK_INSERT:
+                return INSERT;
+            default:
+                if (code >= KeyEvent.VK_F1 && code <= KeyEvent.VK_F12) {
+                    return F1 + code - KeyEvent.VK_F1;
+                }
+                // Modifier keys alone were not reported
+                return 0;
+        }
+    }
+
+    private static int modifiers(InputEvent e) {
+        int ex = e.getModifiersEx();
+        int m = 0;
+        if ((ex & InputEvent.SHIFT_DOWN_MASK) != 0) {
+            m |= SHIFT_MASK;
+        }
+        if ((ex & InputEvent.CTRL_DOWN_MASK) != 0) {
+            m |= CTRL_MASK;
+        }
+        if ((ex & (InputEvent.META_DOWN_MASK | InputEvent.BUTTON3_DOWN_MASK)) != 0) {
+            m |= META_MASK;
+        }
+        if ((ex & (InputEvent.ALT_DOWN_MASK | InputEvent.BUTTON2_DOWN_MASK)) != 0) {
+            m |= ALT_MASK;
+        }
+        if (e instanceof MouseEvent) {
+            // A release no longer has its button down, so take the button from the event itself
+            int button = ((MouseEvent) e).getButton();
+            if (button == MouseEvent.BUTTON3) {
+                m |= META_MASK;
+            } else if (button == MouseEvent.BUTTON2) {
+                m |= ALT_MASK;
+            }
+        }
+        return m;
+    }
+
+    /**
+     * Receives the events of an {@link InputQueue} on the thread that drains it. The methods follow the event
+     * handlers of the applet API without the {@code Event} argument, so migrated handlers keep their bodies;
+     * each does nothing by default.
+     */
+    public interface Handler {
+        /**
+         * A mouse button was pressed.
+         *
+         * @param x          the x coordinate in the component.
+         * @param y          the y coordinate in the component.
+         * @param modifiers  the modifier bits, such as {@link InputQueue#SHIFT_MASK}.
+         * @param clickCount the number of quick successive presses, {@code 2} for a double click.
+         */
+        default void mouseDown(int x, int y, int modifiers, int clickCount) {
+        }
+
+        /**
+         * A mouse button was released.
+         *
+         * @param x         the x coordinate in the component.
+         * @param y         the y coordinate in the component.
+         * @param modifiers the modifier bits.
+         */
+        default void mouseUp(int x, int y, int modifiers) {
+        }
+
+        /**
+         * The mouse moved with no button pressed.
+         *
+         * @param x         the x coordinate in the component.
+         * @param y         the y coordinate in the component.
+         * @param modifiers the modifier bits.
+         */
+        default void mouseMove(int x, int y, int modifiers) {
+        }
+
+        /**
+         * The mouse moved with a button pressed.
+         *
+         * @param x         the x coordinate in the component.
+         * @param y         the y coordinate in the component.
+         * @param modifiers the modifier bits.
+         */
+        default void mouseDrag(int x, int y, int modifiers) {
+        }
+
+        /**
+         * The mouse entered the component.
+         *
+         * @param x the x coordinate in the component.
+         * @param y the y coordinate in the component.
+         */
+        default void mouseEnter(int x, int y) {
+        }
+
+        /**
+         * The mouse left the component.
+         *
+         * @param x the x coordinate in the component.
+         * @param y the y coordinate in the component.
+         */
+        default void mouseExit(int x, int y) {
+        }
+
+        /**
+         * A key was pressed.
+         *
+         * @param key       the character typed, or a key constant such as {@link InputQueue#UP} for keys that type none.
+         * @param modifiers the modifier bits.
+         */
+        default void keyDown(int key, int modifiers) {
+        }
+
+        /**
+         * A key was released.
+         *
+         * @param key       the character of the key, or a key constant such as {@link InputQueue#UP}.
+         * @param modifiers the modifier bits.
+         */
+        default void keyUp(int key, int modifiers) {
+        }
+    }
+}
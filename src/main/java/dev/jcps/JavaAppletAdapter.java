@@ -1,17 +1,22 @@
 package dev.jcps;
 
 import javax.imageio.ImageIO;
+import javax.imageio.stream.MemoryCacheImageInputStream;
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.Clip;
 import javax.sound.sampled.LineUnavailableException;
 import javax.sound.sampled.UnsupportedAudioFileException;
 import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.ImageObserver;
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
-import java.util.Objects;
 
 /**
  * The {@code JavaAppletAdapter} interface defines methods for adapting Java applet functionality to standard applications.
@@ -37,112 +42,272 @@ import java.util.Objects;
  * @since 1.0
  */
 public interface JavaAppletAdapter {
-    HashMap<String, String> paramMap = new HashMap<>();
+    /**
+     * Parameters shared by every adapter in the process. Each adapter's own {@link #getAppletParameters()} inherit
+     * from these, so values put here are visible to all adapters unless an adapter overrides them.
+     *
+     * @deprecated Use {@link #getAppletParameters()} for per-adapter values or {@link AppletParameters#global()} for
+     * process-wide ones.
+     */
+    @Deprecated
+    HashMap<String, String> paramMap = new ConcurrentParameterMap();
 
     /**
      * Retrieves an audio clip from the specified location relative to the document base.
      * <p>
-     * This method attempts to load an audio clip from the specified location {@code s} relative tothe document base {@code documentBase}.
-     * It first checks if the document base path ends with a file separator (\ or /), and if not, appends the appropriate file separator.
-     * It then attempts to load the audio clip using {@link AudioSystem#getClip()}
-     * and opens it with the audio input stream obtained from the specified file path.
-     * If loading the audio clip fails due to unsupported audio file format or unavailability of audio resources,
-     * an attempt is made to load the audio clip from the specified location using a URL obtained from
-     * the class's resource and appending the specified path.
-     * If loading the audio clip still fails, an error message is printed to the console.
+     * This method obtains a clip using {@link AudioSystem#getClip()} and opens it with the decoded sound returned by
+     * {@link #getAudioSample(String, String)}. Because decoded sounds are cached, asking for the same clip again only
+     * allocates a new line; the file is not read or decoded a second time. The clip is opened in the format of
+     * {@link AudioConverter#normalize(AudioSample)}, converted once per sound, so the line does not convert it again.
+     * If the sound cannot be loaded, the returned clip is left unopened and an error is reported to {@link Diagnostics}.
      * </p>
      *
      * @param documentBase a {@code String} representing the document base directory where the audio clip is located.
      * @param fileName     a {@code String} representing the file name of the audio clip relative to the document base.
-     * @return A {@code Clip} object representing the loaded audio clip. If the audio clip cannot be loaded, {@code null} is returned.
+     * @return A {@code Clip} object representing the loaded audio clip. If no clip can be obtained, {@code null} is returned.
      */
     default Clip getAudioClip(String documentBase, String fileName) {
         Clip clip = null;
-        String errors = "";
         try {
-            URL url = new URL(documentBase + fileName);
-            // If documentBase is a valid URL, load the audio clip directly from the URL
             clip = AudioSystem.getClip();
-            clip.open(AudioSystem.getAudioInputStream(url));
-        } catch (MalformedURLException e) {
-            // If documentBase is not a valid URL, treat it as a file path
+            AudioSample sample = getAudioSample(documentBase, fileName);
+            if (sample != null) {
+                AudioConverter.normalize(sample).open(clip);
+            }
+        } catch (LineUnavailableException ex) {
+            // Handle unavailable lines
+            Diagnostics diagnostics = Diagnostics.getInstance();
+            diagnostics.recordError(Diagnostics.Kind.AUDIO, fileName,
+                    diagnostics.hasListeners() ? "ERROR A2: " + ex.getMessage() : null);
+        }
+        return clip;
+    }
+
+    /**
+     * Retrieves a sound effect that can be played many times, overlapping itself, without further allocation.
+     * <p>
+     * The sound is loaded through {@link #getAudioSample(String, String)} and a pool of {@code voices} clips is
+     * opened from the shared decoded buffer. The caller owns the returned effect and should close it when done.
+     * </p>
+     *
+     * @param documentBase a {@code String} representing the document base directory where the sound is located.
+     * @param fileName     a {@code String} representing the file name of the sound relative to the document base.
+     * @param voices       the maximum number of overlapping plays.
+     * @return A {@code SoundEffect} for the sound, or {@code null} if the sound or its lines cannot be loaded.
+     */
+    default SoundEffect getSoundEffect(String documentBase, String fileName, int voices) {
+        AudioSample sample = getAudioSample(documentBase, fileName);
+        if (sample == null) {
+            return null;
+        }
+        try {
+            return new SoundEffect(sample, voices);
+        } catch (LineUnavailableException ex) {
+            Diagnostics diagnostics = Diagnostics.getInstance();
+            diagnostics.recordError(Diagnostics.Kind.AUDIO, fileName,
+                    diagnostics.hasListeners() ? "ERROR A2: " + ex.getMessage() : null);
+            return null;
+        }
+    }
+
+    /**
+     * Retrieves a long sound, such as background music, for playback without decoding it into memory.
+     * <p>
+     * The sound is looked for in the same sources, in the same order, as {@link #getAudioSample(String, String)},
+     * but it is not decoded or cached: the returned {@link StreamingTrack} decodes it while it plays, using a
+     * small fixed buffer whatever the length of the track. The caller owns the track and should close it when done.
+     * </p>
+     *
+     * @param documentBase a {@code String} representing the document base directory where the sound is located.
+     * @param fileName     a {@code String} representing the file name of the sound relative to the document base.
+     * @return A {@code StreamingTrack} for the sound, or {@code null} if the sound or a line for it cannot be opened.
+     */
+    default StreamingTrack getMusicTrack(String documentBase, String fileName) {
+        AssetResolver resolver = AssetResolver.getInstance();
+        String key = AssetResolver.key(this.getClass(), "audio", documentBase, fileName);
+        AssetResolver.Resolution known = resolver.lookup(key);
+        if (known != null && known.isMissing()) {
+            return null;
+        }
+
+        Diagnostics diagnostics = Diagnostics.getInstance();
+        AssetResolver.Source[] chain = known != null ? known.chain() : AssetResolver.AUDIO_CHAIN;
+        for (int i = 0; i < chain.length; i++) {
+            resolver.countProbe();
             try {
-                // Ensure the document base ends with the appropriate file separator
-                if (!documentBase.endsWith(File.separator)) {
-                    documentBase = documentBase + File.separator;
+                StreamingTrack track = new StreamingTrack(
+                        AudioSample.sourceFor(audioLocation(chain[i], documentBase, fileName)));
+                if (known == null) {
+                    resolver.record(key, chain[i], i);
                 }
-
-                // Attempt to load the audio clip from the specified file path
-                String fullPath = documentBase + fileName;
-                clip = AudioSystem.getClip();
-                clip.open(AudioSystem.getAudioInputStream(new File(fullPath)));
+                diagnostics.recordSuccess(chain[i]);
+                return track;
             } catch (UnsupportedAudioFileException | LineUnavailableException ex) {
-                // Handle exceptions related to unsupported audio files or unavailable lines
-                errors = "ERROR A1: " + ex.getMessage();
+                // The sound exists but cannot be played, so there is no point trying other sources
+                diagnostics.recordFailure(chain[i]);
+                diagnostics.recordError(Diagnostics.Kind.AUDIO, fileName,
+                        diagnostics.hasListeners() ? "ERROR A2: " + ex.getMessage() : null);
+                return null;
             } catch (IOException ex) {
-                // Handle IO errors
-                errors = "IO Error I1: " + ex.getMessage();
-                clip = tryClipLoad(fileName);
+                diagnostics.recordFailure(chain[i]);
             }
-        } catch (UnsupportedAudioFileException | LineUnavailableException ex) {
-            // Handle exceptions related to unsupported audio files or unavailable lines
-            errors = "ERROR A2: " + ex.getMessage();
-        } catch (IOException ex) {
-            // Handle IO errors
-            errors = "IO Error I2: " + ex.getMessage();
-            clip = tryClipLoad(fileName);
         }
-        System.out.printf(errors);
-        return clip;
+
+        if (known != null) {
+            // The remembered source no longer works, so probe every source again
+            resolver.forget(key);
+            return getMusicTrack(documentBase, fileName);
+        }
+        resolver.recordMissing(key, chain.length);
+        diagnostics.recordError(Diagnostics.Kind.AUDIO, fileName,
+                diagnostics.hasListeners() ? "ERROR A4: cannot find " + documentBase + fileName : null);
+        return null;
     }
 
     /**
-     * Tries to load an audio clip from the specified location.
+     * Retrieves a sound decoded to PCM from the specified location relative to the document base.
      * <p>
-     * This method attempts to load an audio clip from the specified location {@code s}.
-     * It first checks if the document base path ends with a file separator (\ or /), and if not, appends the appropriate file separator.
-     * It then attempts to load the audio clip using {@link AudioSystem#getClip()}
-     * and opens it with the audio input stream obtained from the specified file path.
-     * If loading the audio clip fails due to unsupported audio file format or unavailability of audio resources,
-     * an attempt is made to load the audio clip from the specified location using a URL obtained from
-     * the class's resource and appending the specified path.
+     * This method first looks for {@code fileName} in the mounted {@link AssetPack}s.
+     * It then attempts to read the sound from the URL formed by {@code documentBase} and {@code fileName}.
+     * If {@code documentBase} is not a valid URL, it is treated as a directory: the appropriate file separator is
+     * appended if missing and the sound is read from the resulting file path.
+     * If reading fails with an IO error, an attempt is made to load the sound from the specified location using a
+     * URL obtained from the class's resource and appending the specified path.
+     * If loading the sound still fails, an error is reported to {@link Diagnostics}.
+     * </p>
+     * <p>
+     * Decoded sounds are kept in the shared {@link AssetCache#samples()} cache, keyed by the location they were
+     * read from. The source that worked is remembered by {@link AssetResolver}, so later requests go straight to
+     * it, and names that were found nowhere return {@code null} without probing again.
+     * </p>
      *
-     * @param fileName a {@code String} representing the file name of the audio clip relative to the document base.
-     * @return A {@code Clip} object representing the loaded audio clip. If the audio clip cannot be loaded, {@code null} is returned.
+     * @param documentBase a {@code String} representing the document base directory where the sound is located.
+     * @param fileName     a {@code String} representing the file name of the sound relative to the document base.
+     * @return The decoded {@code AudioSample}, or {@code null} if the sound cannot be loaded.
      */
-    private Clip tryClipLoad(String fileName) {
-        Clip clip = null;
-        URL url = null;
-        String errors = "";
-        try {
-            clip = AudioSystem.getClip();
-            url = new URL(this.getClass().getResource("") + fileName);
-            clip.open(AudioSystem.getAudioInputStream(url));
-        } catch (Exception e) {
-            String urlString = "";
-            errors = "ERROR A3: " + this.getClass().getResource("") + fileName + "\n" + e.getMessage();
-            // Find the index of "!/" in the URL
+    default AudioSample getAudioSample(String documentBase, String fileName) {
+        AssetResolver resolver = AssetResolver.getInstance();
+        String key = AssetResolver.key(this.getClass(), "audio", documentBase, fileName);
+        AssetResolver.Resolution known = resolver.lookup(key);
+        if (known != null && known.isMissing()) {
+            return null;
+        }
+
+        Diagnostics diagnostics = Diagnostics.getInstance();
+        AssetResolver.Source failedSource = null;
+        IOException failure = null;
+        AssetResolver.Source[] chain = known != null ? known.chain() : AssetResolver.AUDIO_CHAIN;
+        for (int i = 0; i < chain.length; i++) {
+            resolver.countProbe();
             try {
-                urlString = Objects.requireNonNull(url).toString();
-            } catch (Exception ignored) {
-            }
-            int index = urlString.indexOf("!/");
-            if (index != -1) {
-                // Find the last occurrence of "/" before "!/"
-                int lastSlashIndex = urlString.lastIndexOf("/");
-                if (lastSlashIndex != -1) { // If "/" is found before "!/"
-                    String trimmedUrl = urlString.substring(0, index + 1) + urlString.substring(lastSlashIndex);
-                    try {
-                        clip = AudioSystem.getClip();
-                        clip.open(AudioSystem.getAudioInputStream(new URL(trimmedUrl)));
-                    } catch (Exception ex) {
-                        errors = "ERROR A4: " + ex.getMessage();
-                    }
+                AudioSample sample = readAudioSample(chain[i], documentBase, fileName);
+                if (known == null) {
+                    resolver.record(key, chain[i], i);
                 }
+                diagnostics.recordSuccess(chain[i]);
+                return sample;
+            } catch (MalformedURLException e) {
+                // Not a usable URL for this source, move on to the next one
+                diagnostics.recordFailure(chain[i]);
+            } catch (UnsupportedAudioFileException ex) {
+                // The sound exists but cannot be decoded, so there is no point trying other sources
+                diagnostics.recordFailure(chain[i]);
+                diagnostics.recordError(Diagnostics.Kind.AUDIO, fileName, diagnostics.hasListeners()
+                        ? (chain[i] == AssetResolver.Source.FILE ? "ERROR A1: " : "ERROR A2: ") + ex.getMessage()
+                        : null);
+                return null;
+            } catch (IOException ex) {
+                // Remember the last IO error; the message is only built if every source fails
+                diagnostics.recordFailure(chain[i]);
+                failedSource = chain[i];
+                failure = ex;
             }
         }
-        System.out.println(errors);
-        return clip;
+
+        if (known != null) {
+            // The remembered source no longer works, so probe every source again
+            resolver.forget(key);
+            return getAudioSample(documentBase, fileName);
+        }
+        resolver.recordMissing(key, chain.length);
+        String errors = "";
+        if (failure != null && diagnostics.hasListeners()) {
+            switch (failedSource) {
+                case URL:
+                    errors = "IO Error I2: " + failure.getMessage();
+                    break;
+                case FILE:
+                    errors = "IO Error I1: " + failure.getMessage();
+                    break;
+                case CLASS_RELATIVE:
+                    errors = "ERROR A3: " + AdapterContext.of(this).getClassResource() + fileName + "\n" + failure.getMessage();
+                    break;
+                default:
+                    errors = "ERROR A4: " + failure.getMessage();
+                    break;
+            }
+        }
+        diagnostics.recordError(Diagnostics.Kind.AUDIO, fileName, errors);
+        return null;
+    }
+
+    /**
+     * Reads a sound from one source.
+     *
+     * @param source       the source to read from.
+     * @param documentBase a {@code String} representing the document base directory where the sound is located.
+     * @param fileName     a {@code String} representing the file name of the sound relative to the document base.
+     * @return The decoded {@code AudioSample}.
+     * @throws IOException                   if the source does not hold the sound or cannot be read.
+     * @throws UnsupportedAudioFileException if the sound is not in a recognised format.
+     */
+    private AudioSample readAudioSample(AssetResolver.Source source, String documentBase, String fileName)
+            throws IOException, UnsupportedAudioFileException {
+        String location = audioLocation(source, documentBase, fileName);
+        return AudioSample.load(location, AudioSample.sourceFor(location));
+    }
+
+    /**
+     * Builds the location of a sound in one source.
+     * <p>
+     * {@link AssetResolver.Source#PACK} names the entry {@code fileName} of a mounted {@link AssetPack}.
+     * {@link AssetResolver.Source#URL} is the URL formed by {@code documentBase} and {@code fileName}.
+     * {@link AssetResolver.Source#FILE} treats {@code documentBase} as a directory, appending the appropriate file
+     * separator if missing. Both resolve against the cached bases of the {@link AdapterContext} when
+     * {@code documentBase} is one of them. {@link AssetResolver.Source#CLASS_RELATIVE} is {@code fileName} relative to the
+     * class's resource, and {@link AssetResolver.Source#JAR_ROOT} trims that resource path back to the root of the
+     * jar holding the class.
+     * </p>
+     *
+     * @param source       the source to look in.
+     * @param documentBase a {@code String} representing the document base directory where the sound is located.
+     * @param fileName     a {@code String} representing the file name of the sound relative to the document base.
+     * @return the location, in the form read by {@link AudioSample#sourceFor(String)}.
+     * @throws IOException if the source cannot hold the sound.
+     */
+    private String audioLocation(AssetResolver.Source source, String documentBase, String fileName) throws IOException {
+        switch (source) {
+            case PACK:
+                if (AssetPack.find(fileName) == null) {
+                    throw new FileNotFoundException("pack:" + fileName);
+                }
+                return "pack:" + fileName;
+            case URL:
+                return AdapterContext.of(this).resolveUrl(documentBase, fileName).toString();
+            case FILE:
+                // Ensure the document base ends with the appropriate file separator
+                if (!documentBase.endsWith(File.separator)) {
+                    documentBase = documentBase + File.separator;
+                }
+                return "file:" + AdapterContext.of(this).resolveFile(documentBase, fileName).getAbsolutePath();
+            case CLASS_RELATIVE:
+                return AdapterContext.of(this).resolveClassRelative(fileName).toString();
+            case JAR_ROOT:
+                // The jar location and the last path segment
+                return AdapterContext.of(this).resolveJarRoot(fileName).toString();
+            default:
+                throw new FileNotFoundException(fileName);
+        }
     }
 
     /**
@@ -151,7 +316,8 @@ public interface JavaAppletAdapter {
      * This method is used to retrieve the document base of the application.
      * It is used to resolve relative paths to resources such as images and sound effects.
      * The document base is the directory in which the application is stored and is used to resolve relative
-     * paths to resources. The default implementation returns the current working directory.
+     * paths to resources. The default implementation returns the current working directory, read once per
+     * adapter and kept in its {@link AdapterContext}.
      * </p>
      * <p>
      * This method is used by the {@link JavaAppletAdapter}.
@@ -160,49 +326,38 @@ public interface JavaAppletAdapter {
      * @return a {@code String} representing the document base, which is the current working directory.
      */
     default String getDocumentBase() {
-        String s = "";
-        try {
-            // get working directory
-            s = System.getProperty("user.dir");
-        } catch (final SecurityException e) {
-            System.out.println("Security exception: " + e.getMessage());
-        }
-        return s;
+        return AdapterContext.of(this).getDocumentBase();
     }
 
     /**
      * Returns the code base location of the current class.
+     * <p>
+     * The location is worked out once per adapter and kept in its {@link AdapterContext}, which also offers it as
+     * a {@code URI} to resolve names against.
+     * </p>
      *
      * @return The code base location as a {@code java.lang.Object}. If an exception occurs during
      * retrieval, {@code null} is returned.
      */
     default Object getCodeBase() {
-        Object o = null;
-        try {
-            o = this.getClass().getResource("/");
-        } catch (final Exception e) {
-            System.out.println("Exception: " + e.getMessage());
-        }
-        if (o == null) {
-            String p;
-            try {
-               p = Objects.requireNonNull(this.getClass().getResource("")).toString();
-            } catch (Exception e) {
-                p = "/";
-            }
-            o = p.substring(0, p.lastIndexOf("!/") + 2);
-        }
-        return o;
+        return AdapterContext.of(this).getCodeBase();
     }
 
     /**
      * Loads an image from either a file path or a resource within the classpath.
      * <p>
-     * It first checks if the document base path ends with a file separator (\ or /), and if not, appends the appropriate file separator.
+     * It first looks for {@code fileName} in the mounted {@link AssetPack}s.
+     * It then checks if the document base path ends with a file separator (\ or /), and if not, appends the appropriate file separator.
      * It then attempts to load the image from the specified file path using {@link ImageIO#read(File)}.
      * If loading the image fails, an attempt is made to load the image from the specified location using a URL obtained from
      * the class's resource and appending the specified path.
-     * If loading the image still fails, an error message is printed to the console.
+     * If loading the image still fails, an error is reported to {@link Diagnostics}.
+     * </p>
+     * <p>
+     * Decoded images are kept in the shared {@link AssetCache#images()} cache, keyed by the location they were
+     * read from, so repeated requests for the same image return the same instance without decoding it again.
+     * The source that worked is remembered by {@link AssetResolver}, so later requests skip the sources that
+     * failed, and names that were found nowhere return {@code null} without probing again.
      * </p>
      *
      * @param o        The base path or directory where the image file is located. Can be {@code null}.
@@ -211,10 +366,6 @@ public interface JavaAppletAdapter {
      * {@code null} is returned.
      */
     default Image getImage(String o, String fileName) {
-        Image image = null;
-        String msg = "";
-        boolean loaded = false;
-
         // If the base path is null, set it to an empty string
         if (o == null) {
             o = "";
@@ -225,60 +376,248 @@ public interface JavaAppletAdapter {
             o = o + "/";
         }
 
-        // Attempt to load the image from a file
-        try {
-            image = ImageIO.read(new File(o + fileName));
-            loaded = true;
-        } catch (final IOException e) {
-            msg = "Failure loading image file: " + o + fileName;
+        AssetResolver resolver = AssetResolver.getInstance();
+        String key = AssetResolver.key(this.getClass(), "image", o, fileName);
+        AssetResolver.Resolution known = resolver.lookup(key);
+        if (known != null && known.isMissing()) {
+            return null;
+        }
+
+        Diagnostics diagnostics = Diagnostics.getInstance();
+        AssetResolver.Source[] chain = known != null ? known.chain() : AssetResolver.IMAGE_CHAIN;
+        for (int i = 0; i < chain.length; i++) {
+            resolver.countProbe();
             try {
-                // If loading from file fails, attempt to load from the classpath resources
-                image = ImageIO.read(Objects.requireNonNull(this.getClass().getResourceAsStream("/" + fileName)));
-                loaded = true;
-            } catch (NullPointerException ex) {
-                try {
-                    // try loading as URL
-                    image = ImageIO.read(new URL(o + fileName));
-                    loaded = true;
-                } catch (MalformedURLException exception) {
-                    msg += " & unusable URL";
-                } catch (IOException exception) {
-                    msg += " & couldn't load URL";
+                Image image = readImage(chain[i], o, fileName);
+                if (known == null) {
+                    resolver.record(key, chain[i], i);
                 }
-            } catch (final Exception ex) {
-                msg += " & couldn't load resource: ";
+                diagnostics.recordSuccess(chain[i]);
+                return image;
+            } catch (final IOException e) {
+                diagnostics.recordFailure(chain[i]);
             }
         }
 
-        // If the image loading fails, print an error message
-        if (!msg.isEmpty() && !loaded) {
-            System.out.println(msg);
+        if (known != null) {
+            // The remembered source no longer works, so probe every source again
+            resolver.forget(key);
+            return getImage(o, fileName);
+        }
+        resolver.recordMissing(key, chain.length);
+
+        // If the image loading fails, report an error
+        diagnostics.recordError(Diagnostics.Kind.IMAGE, fileName, diagnostics.hasListeners()
+                ? "Failure loading image file: " + o + fileName + " & couldn't load resource & couldn't load URL"
+                : null);
+        return null;
+    }
+
+    /**
+     * Loads an image without waiting for it to be read or decoded, as the applet {@code getImage} did.
+     * <p>
+     * If the image is a file under {@code o}, or a URL formed by {@code o} and {@code fileName}, an image is
+     * returned at once and a {@link ProgressiveImage} opens, reads and decodes it in the background. Its size is
+     * {@code -1} until the header has been read; {@code observer} is told {@link ImageObserver#WIDTH} and
+     * {@link ImageObserver#HEIGHT} then, again as rows arrive, and when the image is complete or cannot be read, so
+     * it can repaint. A {@link Component} passing itself as the observer repaints on its own. Asking for an image
+     * that is still being decoded returns the same image. Images already cached, in a mounted {@link AssetPack},
+     * or on the classpath are loaded by {@link #getImage(String, String)}, and the observer is told at once.
+     * </p>
+     *
+     * @param o        The base path, directory or URL where the image is located. Can be {@code null}.
+     * @param fileName The name of the image file.
+     * @param observer the observer to notify as the image is decoded, or {@code null}.
+     * @return the image, possibly still being loaded, or {@code null} if it cannot be found.
+     */
+    default Image getImageProgressive(String o, String fileName, ImageObserver observer) {
+        String base = o == null ? "" : o;
+        if (base.lastIndexOf("/") != base.length() - 1) {
+            base = base + "/";
+        }
+        AdapterContext context = AdapterContext.of(this);
+        File file = context.resolveFile(base, fileName);
+        // Packs and the classpath come before URLs in the usual order, so images there are loaded the usual way
+        if (AssetPack.find(fileName) == null && (file.isFile() || !context.hasResource(fileName))) {
+            AssetCache<BufferedImage> cache = AssetCache.images();
+            try {
+                URL url = file.isFile() ? null : context.resolveUrl(base, fileName);
+                String key = url == null ? "file:" + file.getAbsolutePath() : url.toString();
+                BufferedImage cached = cache.get(key);
+                if (cached == null) {
+                    // Only the file's existence is checked here; the URL is opened on the decoder thread
+                    ProgressiveImage progressive = url == null
+                            ? ProgressiveImage.open(file)
+                            : ProgressiveImage.open(url);
+                    if (observer != null) {
+                        progressive.addObserver(observer);
+                    }
+                    return progressive.getImage();
+                }
+                if (observer != null) {
+                    observer.imageUpdate(cached, ImageObserver.ALLBITS, 0, 0, cached.getWidth(), cached.getHeight());
+                }
+                return cached;
+            } catch (MalformedURLException e) {
+                // Neither a file nor a URL, so try every source the usual way
+            }
+        }
+        Image image = getImage(o, fileName);
+        if (observer != null) {
+            if (image != null) {
+                observer.imageUpdate(image, ImageObserver.ALLBITS, 0, 0, image.getWidth(null), image.getHeight(null));
+            } else {
+                observer.imageUpdate(null, ImageObserver.ERROR | ImageObserver.ABORT, 0, 0, 0, 0);
+            }
         }
         return image;
     }
 
+    /**
+     * Reads an image from one source.
+     * <p>
+     * {@link AssetResolver.Source#PACK} reads the entry {@code fileName} of a mounted {@link AssetPack},
+     * {@link AssetResolver.Source#FILE} reads the file {@code o + fileName}, {@link AssetResolver.Source#CLASSPATH}
+     * reads the resource {@code "/" + fileName}, through the adapter's {@link ResourceIndex} when it holds it,
+     * and {@link AssetResolver.Source#URL} reads the URL {@code o + fileName}. When {@code o} is the document or
+     * code base, the file or URL is resolved against the base the {@link AdapterContext} already holds rather than
+     * parsed again from the joined string. Decoded images are shared through
+     * {@link AssetCache#images()}, keyed by the location they were read from. If {@link CompatibleImages}
+     * conversion is enabled, images are converted once as they are decoded, before they are cached.
+     * </p>
+     *
+     * @param source   the source to read from.
+     * @param o        The base path or directory where the image file is located, ending with a slash.
+     * @param fileName The name of the image file.
+     * @return the decoded image, or {@code null} if the source holds data no image reader understands.
+     * @throws IOException if the source does not hold the image or cannot be read.
+     */
+    private Image readImage(AssetResolver.Source source, String o, String fileName) throws IOException {
+        AssetCache<BufferedImage> cache = AssetCache.images();
+        switch (source) {
+            case PACK: {
+                ByteBuffer entry = AssetPack.find(fileName);
+                if (entry == null) {
+                    throw new FileNotFoundException("pack:" + fileName);
+                }
+                return cache.load("pack:" + fileName, measured("pack:" + fileName,
+                        () -> CompatibleImages.prepare(ImageIO.read(new MemoryCacheImageInputStream(AssetPack.stream(entry))))));
+            }
+            case FILE: {
+                File file = AdapterContext.of(this).resolveFile(o, fileName);
+                String fileKey = "file:" + file.getAbsolutePath();
+                return cache.load(fileKey, measured(fileKey, () -> CompatibleImages.prepare(ImageIO.read(file))));
+            }
+            case CLASSPATH:
+                return cache.load("classpath:/" + fileName, measured("classpath:/" + fileName, () -> {
+                    try (InputStream in = AdapterContext.of(this).openResource(fileName)) {
+                        return CompatibleImages.prepare(ImageIO.read(in));
+                    }
+                }));
+            case URL: {
+                URL url = AdapterContext.of(this).resolveUrl(o, fileName);
+                return cache.load(url.toString(), measured(url.toString(), () -> CompatibleImages.prepare(ImageIO.read(url))));
+            }
+            default:
+                throw new FileNotFoundException(fileName);
+        }
+    }
+
+    /**
+     * Wraps an image loader so that each decode it performs is timed and reported to {@link Diagnostics}.
+     *
+     * @param key    the location the image is read from.
+     * @param loader the loader to wrap.
+     * @return a loader reporting each decode.
+     */
+    private static AssetCache.Loader<BufferedImage> measured(String key, AssetCache.Loader<BufferedImage> loader) {
+        return () -> {
+            long start = System.nanoTime();
+            BufferedImage image = loader.load();
+            Diagnostics.getInstance().recordDecode(Diagnostics.Kind.IMAGE, key, System.nanoTime() - start,
+                    image == null ? 0 : AssetCache.images().weigh(image));
+            return image;
+        };
+    }
+
     /**
      * <p>
      * This method is used to retrieve the value of a specific parameter .
+     * The value is looked up in this adapter's own {@link #getAppletParameters()}, then in the scopes they
+     * inherit from, as described in {@link AdapterContext}.
      * </p>
      *
      * @param key a {@code String} representing the name of the parameter to retrieve.
      * @return String value associated to the {@code key}, or {@code null}
      */
     default String getParameter(String key) {
-        return paramMap.get(key);
+        return getAppletParameters().getString(key);
+    }
+
+    /**
+     * Returns the parameters that belong to this adapter instance.
+     * <p>
+     * The default implementation keeps them in the adapter's {@link AdapterContext}. Reads never take a lock,
+     * so loader threads can write parameters while render threads read them.
+     * </p>
+     *
+     * @return this adapter's parameters.
+     */
+    default AppletParameters getAppletParameters() {
+        return AdapterContext.of(this).getParameters();
+    }
+
+    /**
+     * Replacement function for the applet API {@code init()} method.
+     * <p>
+     * Called once by an {@link AppletHost} after the adapter has been added to its window and before
+     * {@link #start()}. The default implementation does nothing.
+     * </p>
+     */
+    default void init() {
+    }
+
+    /**
+     * Replacement function for the applet API {@code start()} method.
+     * <p>
+     * Called by an {@link AppletHost} after {@link #init()}, just before its game loop starts.
+     * The default implementation does nothing.
+     * </p>
+     */
+    default void start() {
+    }
+
+    /**
+     * Replacement function for the applet API {@code stop()} method.
+     * <p>
+     * Called by an {@link AppletHost} after its game loop has stopped. The default implementation does nothing.
+     * </p>
+     */
+    default void stop() {
+    }
+
+    /**
+     * Replacement function for the applet API {@code destroy()} method.
+     * <p>
+     * Called once by an {@link AppletHost} after {@link #stop()}, before its window is disposed.
+     * The default implementation does nothing.
+     * </p>
+     */
+    default void destroy() {
     }
 
     /**
      * Replacement function for the applet API {@code showStatus()} method.
      * <p>
      * This method is used to display a status message for the application.
-     * The default implementation prints the specified message to the console.
+     * The default implementation records the message in the adapter's {@link AdapterContext}, where a host can
+     * pick it up, and passes it to the {@link Diagnostics} listeners; attach {@link Diagnostics#console()} to
+     * print it.
      * </p>
      *
      * @param s the status message to be displayed.
      */
     default void showStatus(String s) {
-        System.out.println(s);
+        AdapterContext.of(this).showStatus(s);
     }
 }
@@ -0,0 +1,552 @@
+package dev.jcps;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code MultiAppletHost} class runs many adapters side by side in one process, as a kiosk would.
+ * <p>
+ * Each adapter added becomes an {@link Instance} with a context of its own: its parameters inherit from the
+ * host's {@linkplain #getSharedParameters() shared parameters} but are written only by that adapter, and its
+ * {@code showStatus} messages are kept apart. Every instance runs on its own lane, a serial executor on a
+ * pool shared by the host, so {@code init()}, updates and painting of one adapter never overlap each other,
+ * different adapters run in parallel, and a hundred adapters do not need a hundred threads. An adapter whose
+ * frame throws is stopped and removed, as by {@link #remove(Instance)}, without disturbing the others.
+ * </p>
+ * <p>
+ * Each frame, an instance runs the updates that are due through a {@link GameLoop}, then paints the adapter
+ * into an off-screen image; {@link #showWindow(String, int)} tiles the latest images of all instances in one
+ * window. Decoded images and sounds are kept in the process-wide {@link AssetCache}s, and resolved locations
+ * in the {@link AssetResolver}, so instances loading the same assets share one copy of each.
+ * </p>
+ * <p>
+ * Code that still writes the deprecated static {@link JavaAppletAdapter#paramMap} writes to the scope every
+ * instance inherits from, so such writes are seen by all instances.
+ * </p>
+ *
+ * @since 1.1
+ */
+public class MultiAppletHost implements AutoCloseable {
+    private final ExecutorService workers;
+    private final ScheduledExecutorService ticker;
+    private final AppletParameters shared = new AppletParameters(AppletParameters.global());
+    private final CopyOnWriteArrayList<Instance> instances = new CopyOnWriteArrayList<>();
+    private final CopyOnWriteArrayList<StatusListener> listeners = new CopyOnWriteArrayList<>();
+    private int updatesPerSecond = 60;
+    private int framesPerSecond = 30;
+    private int maxUpdatesPerFrame = 5;
+    private Timer windowTimer;
+    private JFrame frame;
+
+    /**
+     * Constructs a {@code MultiAppletHost} with one worker thread per processor.
+     */
+    public MultiAppletHost() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a {@code MultiAppletHost}.
+     *
+     * @param threads the number of worker threads shared by all instances.
+     */
+    public MultiAppletHost(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "MultiAppletHost-worker-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "MultiAppletHost-ticker");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Sets the number of fixed updates per second of instances added afterwards.
+     *
+     * @param updatesPerSecond the update rate.
+     */
+    public void setUpdatesPerSecond(int updatesPerSecond) {
+        this.updatesPerSecond = updatesPerSecond;
+    }
+
+    /**
+     * Sets the number of frames per second of instances added afterwards.
+     *
+     * @param framesPerSecond the frame rate.
+     */
+    public void setFramesPerSecond(int framesPerSecond) {
+        this.framesPerSecond = framesPerSecond;
+    }
+
+    /**
+     * Sets how many updates an instance may run before painting when it falls behind, for instances added
+     * afterwards.
+     *
+     * @param maxUpdatesPerFrame the catch-up limit.
+     */
+    public void setMaxUpdatesPerFrame(int maxUpdatesPerFrame) {
+        this.maxUpdatesPerFrame = maxUpdatesPerFrame;
+    }
+
+    /**
+     * Adds an adapter with no parameters of its own and starts it.
+     *
+     * @param name    the instance name.
+     * @param adapter the adapter. It must be a {@link Component}.
+     * @param width   the width of the adapter area, in pixels.
+     * @param height  the height of the adapter area, in pixels.
+     * @return the running instance.
+     */
+    public Instance add(String name, JavaAppletAdapter adapter, int width, int height) {
+        return add(name, adapter, width, height, Collections.emptyMap());
+    }
+
+    /**
+     * Adds an adapter and starts it: it is attached to a fresh context holding {@code parameters}, then
+     * {@code init()} and {@code start()} run on its lane, followed by its frames.
+     *
+     * @param name       the instance name.
+     * @param adapter    the adapter. It must be a {@link Component}.
+     * @param width      the width of the adapter area, in pixels.
+     * @param height     the height of the adapter area, in pixels.
+     * @param parameters the adapter's own parameters, for instance read by {@link ParameterLoader}.
+     * @return the running instance.
+     */
+    public Instance add(String name, JavaAppletAdapter adapter, int width, int height,
+                        Map<String, String> parameters) {
+        if (!(adapter instanceof Component)) {
+            throw new IllegalArgumentException("Adapter must be a Component: " + adapter.getClass().getName());
+        }
+        Instance instance = new Instance(name, adapter, width, height);
+        instance.context.getParameters().putAll(parameters);
+        instances.add(instance);
+        instance.start();
+        return instance;
+    }
+
+    /**
+     * Stops an instance: its frames end, then {@code stop()} and {@code destroy()} run on its lane and its
+     * context is released.
+     *
+     * @param instance the instance to remove.
+     */
+    public void remove(Instance instance) {
+        if (instances.remove(instance)) {
+            instance.shutdown();
+        }
+    }
+
+    /**
+     * @return the running instances, in the order they were added.
+     */
+    public List<Instance> getInstances() {
+        return Collections.unmodifiableList(new ArrayList<>(instances));
+    }
+
+    /**
+     * Returns the parameters every instance inherits from. They in turn inherit from
+     * {@link AppletParameters#global()}.
+     *
+     * @return the shared parameters.
+     */
+    public AppletParameters getSharedParameters() {
+        return shared;
+    }
+
+    /**
+     * Adds a listener told of the status messages of all instances.
+     *
+     * @param listener the listener, called on the thread that called {@code showStatus}.
+     */
+    public void addStatusListener(StatusListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeStatusListener(StatusListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Opens a window showing the latest frame of every instance, in a grid.
+     *
+     * @param title   the window title.
+     * @param columns the number of instances per row.
+     * @return the window.
+     */
+    public JFrame showWindow(String title, int columns) {
+        Tiles tiles = new Tiles(columns);
+        Runnable open = () -> {
+            frame = new JFrame(title);
+            frame.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+            frame.getContentPane().add(tiles);
+            frame.pack();
+            frame.setLocationRelativeTo(null);
+            frame.setVisible(true);
+            windowTimer = new Timer(Math.max(1, 1000 / framesPerSecond), e -> tiles.repaint());
+            windowTimer.start();
+        };
+        if (SwingUtilities.isEventDispatchThread()) {
+            open.run();
+        } else {
+            try {
+                SwingUtilities.invokeAndWait(open);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (InvocationTargetException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        return frame;
+    }
+
+    /**
+     * Stops every instance, closes the window if open and shuts the worker threads down.
+     */
+    @Override
+    public void close() {
+        List<Instance> running = new ArrayList<>(instances);
+        CountDownLatch stopped = new CountDownLatch(running.size());
+        for (Instance instance : running) {
+            remove(instance);
+            instance.execute(stopped::countDown);
+        }
+        try {
+            // Let every lane finish stop() and destroy() before its workers go away
+            stopped.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        SwingUtilities.invokeLater(() -> {
+            if (windowTimer != null) {
+                windowTimer.stop();
+            }
+            if (frame != null) {
+                frame.dispose();
+            }
+        });
+        ticker.shutdown();
+        workers.shutdown();
+    }
+
+    /**
+     * Listens for the status messages of the instances of a host.
+     */
+    @FunctionalInterface
+    public interface StatusListener {
+        /**
+         * Called when an instance calls {@code showStatus}.
+         *
+         * @param instance the instance.
+         * @param status   the status message.
+         */
+        void statusChanged(Instance instance, String status);
+    }
+
+    /**
+     * One adapter running in a {@link MultiAppletHost}.
+     */
+    public final class Instance {
+        private final String name;
+        private final JavaAppletAdapter adapter;
+        private final Component component;
+        private final AdapterContext context;
+        private final GameLoop loop;
+        private final Lane lane = new Lane();
+        private final AtomicBoolean frameQueued = new AtomicBoolean();
+        private BufferedImage front;
+        private BufferedImage back;
+        private volatile ScheduledFuture<?> ticks;
+        private volatile Throwable failure;
+        private volatile boolean running;
+
+        Instance(String name, JavaAppletAdapter adapter, int width, int height) {
+            this.name = name;
+            this.adapter = adapter;
+            this.component = (Component) adapter;
+            this.context = AdapterContext.attach(adapter, shared);
+            context.setStatusListener(status -> {
+                for (StatusListener listener : listeners) {
+                    listener.statusChanged(this, status);
+                }
+            });
+            component.setSize(width, height);
+            front = CompatibleImages.createCompatible(width, height, Transparency.OPAQUE);
+            back = CompatibleImages.createCompatible(width, height, Transparency.OPAQUE);
+            loop = new GameLoop(new GameLoop.Callbacks() {
+                @Override
+                public void update(double dt) {
+                    if (adapter instanceof Updatable) {
+                        ((Updatable) adapter).update(dt);
+                    }
+                }
+
+                @Override
+                public void render(double alpha) {
+                    renderFrame();
+                }
+            }, updatesPerSecond, framesPerSecond, maxUpdatesPerFrame);
+        }
+
+        void start() {
+            running = true;
+            lane.execute(() -> {
+                adapter.init();
+                adapter.start();
+            });
+            long period = 1_000_000_000L / framesPerSecond;
+            ScheduledFuture<?> t = ticker.scheduleAtFixedRate(this::queueFrame, 0, period, TimeUnit.NANOSECONDS);
+            ticks = t;
+            // init() may already have failed, and shutdown() found no ticks to cancel
+            if (!running) {
+                t.cancel(false);
+            }
+        }
+
+        private void queueFrame() {
+            // A frame still waiting for its lane is not queued twice; slow instances skip frames instead
+            if (running && frameQueued.compareAndSet(false, true)) {
+                lane.execute(() -> {
+                    frameQueued.set(false);
+                    if (running) {
+                        loop.advance(System.nanoTime());
+                    }
+                });
+            }
+        }
+
+        private void renderFrame() {
+            BufferedImage target = back;
+            Graphics2D g = target.createGraphics();
+            try {
+                g.setColor(component.getBackground() != null ? component.getBackground() : Color.BLACK);
+                g.fillRect(0, 0, target.getWidth(), target.getHeight());
+                component.paint(g);
+            } finally {
+                g.dispose();
+            }
+            synchronized (this) {
+                back = front;
+                front = target;
+            }
+        }
+
+        void shutdown() {
+            running = false;
+            ScheduledFuture<?> t = ticks;
+            if (t != null) {
+                t.cancel(false);
+            }
+            lane.execute(() -> {
+                try {
+                    adapter.stop();
+                    adapter.destroy();
+                } finally {
+                    AdapterContext.release(adapter);
+                }
+            });
+        }
+
+        /**
+         * Runs a task on this instance's lane, after the tasks and frames queued before it and never at the
+         * same time as them. Use it to touch adapter state from other threads.
+         *
+         * @param task the task.
+         */
+        public void execute(Runnable task) {
+            lane.execute(task);
+        }
+
+        /**
+         * Draws the latest complete frame.
+         *
+         * @param g the graphics to draw with.
+         * @param x the x coordinate of the top left corner.
+         * @param y the y coordinate of the top left corner.
+         */
+        public synchronized void drawFrame(Graphics g, int x, int y) {
+            g.drawImage(front, x, y, null);
+        }
+
+        /**
+         * @return a copy of the latest complete frame.
+         */
+        public BufferedImage snapshot() {
+            BufferedImage copy;
+            synchronized (this) {
+                copy = new BufferedImage(front.getWidth(), front.getHeight(), BufferedImage.TYPE_INT_RGB);
+                Graphics g = copy.createGraphics();
+                try {
+                    g.drawImage(front, 0, 0, null);
+                } finally {
+                    g.dispose();
+                }
+            }
+            return copy;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public JavaAppletAdapter getAdapter() {
+            return adapter;
+        }
+
+        public AdapterContext getContext() {
+            return context;
+        }
+
+        /**
+         * @return this instance's own parameters.
+         */
+        public AppletParameters getParameters() {
+            return context.getParameters();
+        }
+
+        /**
+         * @return the instance's last status message, or {@code null}.
+         */
+        public String getStatus() {
+            return context.getStatus();
+        }
+
+        public FrameStats getFrameStats() {
+            return loop.getStats();
+        }
+
+        /**
+         * @return the exception that stopped this instance, or {@code null}.
+         */
+        public Throwable getFailure() {
+            return failure;
+        }
+
+        public boolean isRunning() {
+            return running;
+        }
+
+        public int getWidth() {
+            return front.getWidth();
+        }
+
+        public int getHeight() {
+            return front.getHeight();
+        }
+
+        /**
+         * Stops this instance after one of its tasks threw, as {@link #remove(Instance)} would: it leaves the
+         * grid, and {@code stop()} and {@code destroy()} run on its lane before its context is released. Only the
+         * first failure is kept; one thrown while shutting down is reported but not recorded.
+         */
+        private void fail(Throwable t) {
+            if (failure == null) {
+                failure = t;
+            }
+            Diagnostics diagnostics = Diagnostics.getInstance();
+            if (diagnostics.hasListeners()) {
+                diagnostics.message("Instance " + name + " stopped: " + t);
+            }
+            if (instances.remove(this)) {
+                shutdown();
+            } else {
+                running = false;
+            }
+        }
+
+        /**
+         * Runs the tasks of one instance one after another on the shared workers.
+         */
+        private final class Lane implements Runnable {
+            private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+            private boolean scheduled;
+
+            synchronized void execute(Runnable task) {
+                tasks.add(task);
+                if (!scheduled) {
+                    scheduled = true;
+                    workers.execute(this);
+                }
+            }
+
+            @Override
+            public void run() {
+                Runnable task;
+                synchronized (this) {
+                    task = tasks.poll();
+                }
+                try {
+                    task.run();
+                } catch (RuntimeException | Error e) {
+                    fail(e);
+                }
+                synchronized (this) {
+                    if (tasks.isEmpty()) {
+                        scheduled = false;
+                    } else {
+                        // One task per turn, so a busy instance does not hold a worker from the others
+                        workers.execute(this);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Draws the latest frames of all instances in a grid.
+     */
+    private final class Tiles extends JComponent {
+        private static final long serialVersionUID = 1L;
+
+        private final int columns;
+
+        Tiles(int columns) {
+            this.columns = columns;
+        }
+
+        @Override
+        public Dimension getPreferredSize() {
+            int cellW = 0;
+            int cellH = 0;
+            for (Instance instance : instances) {
+                cellW = Math.max(cellW, instance.getWidth());
+                cellH = Math.max(cellH, instance.getHeight());
+            }
+            int rows = (instances.size() + columns - 1) / columns;
+            return new Dimension(Math.max(1, cellW * Math.min(columns, instances.size())), Math.max(1, cellH * rows));
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            int cellW = 0;
+            int cellH = 0;
+            List<Instance> all = new ArrayList<>(instances);
+            for (Instance instance : all) {
+                cellW = Math.max(cellW, instance.getWidth());
+                cellH = Math.max(cellH, instance.getHeight());
+            }
+            for (int i = 0; i < all.size(); i++) {
+                all.get(i).drawFrame(g, (i % columns) * cellW, (i / columns) * cellH);
+            }
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package dev.jcps;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferShort;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.ColorModel;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The {@code OffHeapImageTier} class keeps images evicted from an {@link AssetCache} in direct memory.
+ * <p>
+ * The pixel data of an evicted image is copied into an {@link OffHeapStore.Block}; only the image's colour and
+ * sample models stay on the heap. When the cache misses on the image again, the pixels are copied back into a
+ * new image, which is much cheaper than reading and decoding the file. The tier has its own byte budget and
+ * releases the least recently stored blocks when it is exceeded.
+ * </p>
+ * <p>
+ * Only images backed by a single bank of bytes, shorts or ints, which covers everything {@code ImageIO} and
+ * {@link CompatibleImages} produce, are kept; others are dropped as if there were no tier.
+ * </p>
+ * <p>
+ * Images in use are not moved off-heap. Java2D draws from rasters backed by heap arrays, so an image must be
+ * copied back onto the heap before it can be drawn, and every image held by the cache itself stays there. The
+ * tier only saves heap for images the cache has evicted, and decode time when they come back.
+ * </p>
+ *
+ * @since 1.1
+ */
+public class OffHeapImageTier implements AssetCache.SecondTier<BufferedImage> {
+    private final OffHeapStore store;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final long maxBytes;
+    private long currentBytes;
+    private long hits;
+
+    /**
+     * Constructs an {@code OffHeapImageTier} allocating from {@link OffHeapStore#shared()}.
+     *
+     * @param maxBytes the most direct memory the tier holds, in bytes.
+     */
+    public OffHeapImageTier(long maxBytes) {
+        this(OffHeapStore.shared(), maxBytes);
+    }
+
+    /**
+     * Constructs an {@code OffHeapImageTier}.
+     *
+     * @param store    the store blocks are allocated from.
+     * @param maxBytes the most direct memory the tier holds, in bytes.
+     */
+    public OffHeapImageTier(OffHeapStore store, long maxBytes) {
+        this.store = store;
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public synchronized void store(String key, BufferedImage image) {
+        WritableRaster raster = image.getRaster();
+        DataBuffer buffer = raster.getDataBuffer();
+        if (buffer.getNumBanks() != 1 || buffer.getOffset() != 0 || raster.getParent() != null) {
+            return;
+        }
+        int elementBytes = DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+        long bytes = (long) buffer.getSize() * elementBytes;
+        if (bytes > maxBytes || bytes > Integer.MAX_VALUE) {
+            return;
+        }
+        OffHeapStore.Block block;
+        if (buffer instanceof DataBufferByte) {
+            byte[] data = ((DataBufferByte) buffer).getData();
+            block = store.copyOf(data);
+        } else if (buffer instanceof DataBufferInt) {
+            block = store.allocate((int) bytes);
+            block.put(0, ((DataBufferInt) buffer).getData());
+        } else if (buffer instanceof DataBufferUShort) {
+            block = store.allocate((int) bytes);
+            block.put(0, ((DataBufferUShort) buffer).getData());
+        } else if (buffer instanceof DataBufferShort) {
+            block = store.allocate((int) bytes);
+            block.put(0, ((DataBufferShort) buffer).getData());
+        } else {
+            return;
+        }
+        Entry old = entries.put(key, new Entry(block, buffer.getDataType(), buffer.getSize(),
+                raster.getSampleModel(), image.getColorModel(), image.isAlphaPremultiplied()));
+        if (old != null) {
+            currentBytes -= old.block.size();
+            old.block.release();
+        }
+        currentBytes += block.size();
+        trim();
+    }
+
+    @Override
+    public synchronized BufferedImage take(String key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return null;
+        }
+        currentBytes -= entry.block.size();
+        try {
+            hits++;
+            return entry.toImage();
+        } finally {
+            entry.block.release();
+        }
+    }
+
+    @Override
+    public synchronized void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            currentBytes -= entry.block.size();
+            entry.block.release();
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        for (Entry entry : entries.values()) {
+            entry.block.release();
+        }
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the direct memory held by the tier, in bytes.
+     */
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @return the number of images taken back into the cache instead of being decoded again.
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    private void trim() {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && it.hasNext()) {
+            Entry eldest = it.next().getValue();
+            currentBytes -= eldest.block.size();
+            eldest.block.release();
+            it.remove();
+        }
+    }
+
+    /**
+     * The pixels of one image in direct memory, with the models needed to rebuild it.
+     */
+    private static final class Entry {
+        final OffHeapStore.Block block;
+        final int dataType;
+        final int size;
+        final SampleModel sampleModel;
+        final ColorModel colorModel;
+        final boolean premultiplied;
+
+        Entry(OffHeapStore.Block block, int dataType, int size, SampleModel sampleModel, ColorModel colorModel,
+              boolean premultiplied) {
+            this.block = block;
+            this.dataType = dataType;
+            this.size = size;
+            this.sampleModel = sampleModel;
+            this.colorModel = colorModel;
+            this.premultiplied = premultiplied;
+        }
+
+        BufferedImage toImage() {
+            DataBuffer buffer;
+            switch (dataType) {
+                case DataBuffer.TYPE_BYTE: {
+                    byte[] data = new byte[size];
+                    block.get(0, data, 0, size);
+                    buffer = new DataBufferByte(data, size);
+                    break;
+                }
+                case DataBuffer.TYPE_INT: {
+                    int[] data = new int[size];
+                    block.get(0, data);
+                    buffer = new DataBufferInt(data, size);
+                    break;
+                }
+                case DataBuffer.TYPE_USHORT: {
+                    short[] data = new short[size];
+                    block.get(0, data);
+                    buffer = new DataBufferUShort(data, size);
+                    break;
+                }
+                default: {
+                    short[] data = new short[size];
+                    block.get(0, data);
+                    buffer = new DataBufferShort(data, size);
+                    break;
+                }
+            }
+            WritableRaster raster = Raster.createWritableRaster(sampleModel, buffer, null);
+            return new BufferedImage(colorModel, raster, premultiplied, null);
+        }
+    }
+}
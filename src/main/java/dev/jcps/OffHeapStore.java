@@ -0,0 +1,259 @@
+package dev.jcps;
+
+import java.lang.ref.Cleaner;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@code OffHeapStore} class keeps asset bytes in direct memory, outside the garbage collected heap.
+ * <p>
+ * Decoded sprites and PCM are large, long-lived arrays that every full collection has to look at. Moving them
+ * into direct {@link ByteBuffer}s leaves only small {@link Block} handles on the heap. Blocks are freed
+ * explicitly with {@link Block#release()}, which returns the memory at once, or, if a block is dropped without
+ * being released, when its handle is garbage collected. The store counts the bytes held by live blocks.
+ * </p>
+ * <p>
+ * Blocks never hand out their buffer: data is copied in and out through methods that check the block has not
+ * been released, so a released block cannot be read by mistake.
+ * </p>
+ *
+ * @since 1.1
+ */
+public final class OffHeapStore {
+    private static final OffHeapStore SHARED = new OffHeapStore();
+    private static final Cleaner CLEANER = Cleaner.create();
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            // Frees a direct buffer at once instead of waiting for the collector
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            unsafe = null;
+            invokeCleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final AtomicLong allocatedBytes = new AtomicLong();
+    private final AtomicLong liveBlocks = new AtomicLong();
+    private final LongAdder allocations = new LongAdder();
+    private final LongAdder releases = new LongAdder();
+
+    /**
+     * Constructs an {@code OffHeapStore} with counts of its own. Most code uses {@link #shared()}.
+     */
+    public OffHeapStore() {
+    }
+
+    /**
+     * @return the store shared by the asset caches.
+     */
+    public static OffHeapStore shared() {
+        return SHARED;
+    }
+
+    /**
+     * Allocates a zeroed block of direct memory.
+     *
+     * @param size the block size, in bytes.
+     * @return the new block.
+     */
+    public Block allocate(int size) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+        allocatedBytes.addAndGet(size);
+        liveBlocks.incrementAndGet();
+        allocations.increment();
+        return new Block(this, buffer);
+    }
+
+    /**
+     * Copies an array into a new block.
+     *
+     * @param data the bytes to copy.
+     * @return a block holding a copy of {@code data}.
+     */
+    public Block copyOf(byte[] data) {
+        Block block = allocate(data.length);
+        block.put(0, data, 0, data.length);
+        return block;
+    }
+
+    /**
+     * @return the bytes held by blocks that have not been released.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes.get();
+    }
+
+    /**
+     * @return the number of blocks that have not been released.
+     */
+    public long getBlockCount() {
+        return liveBlocks.get();
+    }
+
+    public long getAllocationCount() {
+        return allocations.sum();
+    }
+
+    public long getReleaseCount() {
+        return releases.sum();
+    }
+
+    /**
+     * Frees the memory of a buffer and updates the counts. Runs once per block, from
+     * {@link Block#release()} or from the cleaner when the block was never released.
+     */
+    private static final class Deallocator implements Runnable {
+        private final OffHeapStore store;
+        private final ByteBuffer buffer;
+
+        Deallocator(OffHeapStore store, ByteBuffer buffer) {
+            this.store = store;
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void run() {
+            store.allocatedBytes.addAndGet(-buffer.capacity());
+            store.liveBlocks.decrementAndGet();
+            store.releases.increment();
+            if (INVOKE_CLEANER != null) {
+                try {
+                    INVOKE_CLEANER.invoke(UNSAFE, buffer);
+                } catch (ReflectiveOperationException e) {
+                    // The buffer is freed when it is collected instead
+                }
+            }
+        }
+    }
+
+    /**
+     * A block of direct memory. Copies in and out are synchronized with {@link #release()}.
+     */
+    public static final class Block implements AutoCloseable {
+        private final ByteBuffer buffer;
+        private final Cleaner.Cleanable cleanable;
+        private boolean released;
+
+        private Block(OffHeapStore store, ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.cleanable = CLEANER.register(this, new Deallocator(store, buffer));
+        }
+
+        /**
+         * @return the block size, in bytes.
+         */
+        public int size() {
+            return buffer.capacity();
+        }
+
+        /**
+         * Copies bytes out of the block.
+         *
+         * @param index  the offset in the block.
+         * @param dst    the array to copy into.
+         * @param offset the offset in {@code dst}.
+         * @param length the number of bytes.
+         */
+        public synchronized void get(int index, byte[] dst, int offset, int length) {
+            checkLive();
+            buffer.get(index, dst, offset, length);
+        }
+
+        /**
+         * Copies bytes into the block.
+         *
+         * @param index  the offset in the block.
+         * @param src    the array to copy from.
+         * @param offset the offset in {@code src}.
+         * @param length the number of bytes.
+         */
+        public synchronized void put(int index, byte[] src, int offset, int length) {
+            checkLive();
+            buffer.put(index, src, offset, length);
+        }
+
+        /**
+         * Copies ints, in native byte order, out of the block.
+         *
+         * @param index the offset in the block, in bytes.
+         * @param dst   the array to fill.
+         */
+        public synchronized void get(int index, int[] dst) {
+            checkLive();
+            buffer.asIntBuffer().get(index / 4, dst);
+        }
+
+        /**
+         * Copies ints, in native byte order, into the block.
+         *
+         * @param index the offset in the block, in bytes.
+         * @param src   the array to copy.
+         */
+        public synchronized void put(int index, int[] src) {
+            checkLive();
+            buffer.asIntBuffer().put(index / 4, src);
+        }
+
+        /**
+         * Copies shorts, in native byte order, out of the block.
+         *
+         * @param index the offset in the block, in bytes.
+         * @param dst   the array to fill.
+         */
+        public synchronized void get(int index, short[] dst) {
+            checkLive();
+            buffer.asShortBuffer().get(index / 2, dst);
+        }
+
+        /**
+         * Copies shorts, in native byte order, into the block.
+         *
+         * @param index the offset in the block, in bytes.
+         * @param src   the array to copy.
+         */
+        public synchronized void put(int index, short[] src) {
+            checkLive();
+            buffer.asShortBuffer().put(index / 2, src);
+        }
+
+        /**
+         * Frees the block's memory. Further copies throw {@link IllegalStateException}. Releasing twice does nothing.
+         */
+        public synchronized void release() {
+            if (!released) {
+                released = true;
+                cleanable.clean();
+            }
+        }
+
+        public synchronized boolean isReleased() {
+            return released;
+        }
+
+        @Override
+        public void close() {
+            release();
+        }
+
+        private void checkLive() {
+            if (released) {
+                throw new IllegalStateException("Block has been released");
+            }
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package dev.jcps;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * The {@code ParameterLoader} class reads applet parameters in bulk from the places they were kept before
+ * migration: the {@code <param>} tags of the original HTML page, {@code .properties} files and
+ * {@code --key=value} command-line arguments.
+ * <p>
+ * Each method returns a plain map that can be handed to {@link AppletParameters#putAll(Map)} in one call.
+ * HTML is tokenized as it is read, without building a document tree, and reading stops at the end of the
+ * applet the parameters belong to, so a large page costs little more than its header. Only the handful of
+ * tags that matter are split into attributes; everything else is skipped.
+ * </p>
+ * <p>
+ * Example usage:
+ * <pre>{@code
+ * AppletParameters params = adapter.getAppletParameters();
+ * params.putAll(ParameterLoader.readHtml(new File("game.html"), null));
+ * params.putAll(ParameterLoader.parseArguments(args));
+ * }</pre>
+ * </p>
+ *
+ * @since 1.1
+ */
+public final class ParameterLoader {
+    private ParameterLoader() {
+    }
+
+    /**
+     * Reads the parameters of an applet from an HTML file decoded as UTF-8.
+     *
+     * @param file       the HTML page.
+     * @param appletName the {@code name} or {@code id} of the applet to read, or {@code null} for the first one.
+     * @return the parameters, empty if the applet is not found.
+     * @throws IOException if the file cannot be read.
+     * @see #readHtml(Reader, String)
+     */
+    public static Map<String, String> readHtml(File file, String appletName) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return readHtml(new InputStreamReader(in, StandardCharsets.UTF_8), appletName);
+        }
+    }
+
+    /**
+     * Reads the parameters of an applet from an HTML page at a URL, decoded as UTF-8.
+     *
+     * @param url        the HTML page.
+     * @param appletName the {@code name} or {@code id} of the applet to read, or {@code null} for the first one.
+     * @return the parameters, empty if the applet is not found.
+     * @throws IOException if the page cannot be read.
+     * @see #readHtml(Reader, String)
+     */
+    public static Map<String, String> readHtml(URL url, String appletName) throws IOException {
+        try (InputStream in = url.openStream()) {
+            return readHtml(new InputStreamReader(in, StandardCharsets.UTF_8), appletName);
+        }
+    }
+
+    /**
+     * Reads the parameters of an applet from HTML.
+     * <p>
+     * The applet is an {@code <applet>} or {@code <object>} element. Its {@code <param name=... value=...>}
+     * tags become parameters, including those of elements nested in it, such as an {@code <applet>} used as
+     * the fallback of an {@code <object>}. As with the applet viewer, the attributes of an {@code <applet>} tag
+     * ({@code code}, {@code width}, ...) are parameters too, and {@code <param>} tags override them. Character
+     * references such as {@code &amp;} are decoded and comments are ignored. The reader is not closed.
+     * </p>
+     *
+     * @param in         the HTML.
+     * @param appletName the {@code name} or {@code id} of the applet to read, or {@code null} for the first one.
+     * @return the parameters, empty if the applet is not found.
+     * @throws IOException if the HTML cannot be read.
+     */
+    public static Map<String, String> readHtml(Reader in, String appletName) throws IOException {
+        HtmlScanner scanner = new HtmlScanner(in);
+        Map<String, String> params = new HashMap<>();
+        Map<String, String> attributes = new HashMap<>();
+        // Nesting depth of applet and object elements, and whether the outermost one is the applet wanted
+        int depth = 0;
+        boolean selected = false;
+        int c;
+        while ((c = scanner.read()) != -1) {
+            if (c != '<') {
+                continue;
+            }
+            c = scanner.read();
+            if (c == '!') {
+                scanner.skipDeclaration();
+                continue;
+            }
+            boolean closing = c == '/';
+            if (closing) {
+                c = scanner.read();
+            }
+            if (!isLetter(c)) {
+                scanner.unread(c);
+                continue;
+            }
+            String tag = scanner.readName(c);
+            boolean element = "applet".equals(tag) || "object".equals(tag);
+            if (closing) {
+                scanner.skipTag();
+                if (element && depth > 0 && --depth == 0 && selected) {
+                    // The rest of the page cannot hold parameters of this applet
+                    return params;
+                }
+            } else if (element) {
+                attributes.clear();
+                scanner.readAttributes(attributes);
+                if (depth++ == 0) {
+                    selected = appletName == null || appletName.equals(attributes.get("name"))
+                            || appletName.equals(attributes.get("id"));
+                }
+                if (selected && "applet".equals(tag)) {
+                    for (Map.Entry<String, String> e : attributes.entrySet()) {
+                        params.putIfAbsent(e.getKey(), e.getValue());
+                    }
+                }
+            } else if ("param".equals(tag) && depth > 0 && selected) {
+                attributes.clear();
+                scanner.readAttributes(attributes);
+                String name = attributes.get("name");
+                if (name != null) {
+                    String value = attributes.get("value");
+                    params.put(name, value == null ? "" : value);
+                }
+            } else {
+                scanner.skipTag();
+            }
+        }
+        return params;
+    }
+
+    /**
+     * Reads a {@code .properties} file encoded as ISO 8859-1, as {@link Properties#load(InputStream)} expects.
+     *
+     * @param file the properties file.
+     * @return the properties as parameters.
+     * @throws IOException if the file cannot be read.
+     */
+    public static Map<String, String> readProperties(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            Properties properties = new Properties();
+            properties.load(in);
+            return toMap(properties);
+        }
+    }
+
+    /**
+     * Reads properties in the {@link Properties#load(Reader)} format. The reader is not closed.
+     *
+     * @param in the properties.
+     * @return the properties as parameters.
+     * @throws IOException if the properties cannot be read.
+     */
+    public static Map<String, String> readProperties(Reader in) throws IOException {
+        Properties properties = new Properties();
+        properties.load(in);
+        return toMap(properties);
+    }
+
+    /**
+     * Collects the {@code --key=value} arguments of a command line. A bare {@code --key} sets the parameter to
+     * {@code "true"}. Other arguments are ignored, as is everything after a lone {@code --}.
+     *
+     * @param args the command-line arguments.
+     * @return the parameters.
+     */
+    public static Map<String, String> parseArguments(String[] args) {
+        Map<String, String> params = new HashMap<>();
+        for (String arg : args) {
+            if ("--".equals(arg)) {
+                break;
+            }
+            if (!arg.startsWith("--") || arg.length() == 2) {
+                continue;
+            }
+            int eq = arg.indexOf('=', 2);
+            if (eq < 0) {
+                params.put(arg.substring(2), "true");
+            } else if (eq > 2) {
+                params.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return params;
+    }
+
+    private static Map<String, String> toMap(Properties properties) {
+        Map<String, String> params = new HashMap<>(properties.size() * 4 / 3 + 1);
+        for (String name : properties.stringPropertyNames()) {
+            params.put(name, properties.getProperty(name));
+        }
+        return params;
+    }
+
+    private static boolean isLetter(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isSpace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+
+    /**
+     * Decodes the character references of an attribute value.
+     *
+     * @param s the raw value.
+     * @return the decoded value.
+     */
+    static String decodeEntities(String s) {
+        int amp = s.indexOf('&');
+        if (amp < 0) {
+            return s;
+        }
+        StringBuilder sb = new StringBuilder(s.length());
+        sb.append(s, 0, amp);
+        int i = amp;
+        while (i < s.length()) {
+            char ch = s.charAt(i);
+            int semi = ch == '&' ? s.indexOf(';', i) : -1;
+            if (semi < 0 || semi - i > 10) {
+                sb.append(ch);
+                i++;
+                continue;
+            }
+            String ref = s.substring(i + 1, semi);
+            int decoded = decodeEntity(ref);
+            if (decoded < 0) {
+                sb.append(ch);
+                i++;
+            } else {
+                sb.appendCodePoint(decoded);
+                i = semi + 1;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static int decodeEntity(String ref) {
+        switch (ref) {
+            case "amp":
+                return '&';
+            case "lt":
+                return '<';
+            case "gt":
+                return '>';
+            case "quot":
+                return '"';
+            case "apos":
+                return '\'';
+            case "nbsp":
+                return 0xA0;
+            default:
+                break;
+        }
+        if (ref.length() < 2 || ref.charAt(0) != '#') {
+            return -1;
+        }
+        try {
+            int cp = ref.charAt(1) == 'x' || ref.charAt(1) == 'X'
+                    ? Integer.parseInt(ref.substring(2), 16)
+                    : Integer.parseInt(ref.substring(1));
+            return Character.isValidCodePoint(cp) ? cp : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Reads characters through a buffer of its own, so the tokenizer makes no call per character into the
+     * underlying reader.
+     */
+    private static final class HtmlScanner {
+        private final Reader in;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder text = new StringBuilder();
+        private int pos;
+        private int limit;
+
+        HtmlScanner(Reader in) {
+            this.in = in;
+        }
+
+        int read() throws IOException {
+            if (pos == limit) {
+                int n = in.read(buffer, 0, buffer.length);
+                if (n <= 0) {
+                    return -1;
+                }
+                pos = 0;
+                limit = n;
+            }
+            return buffer[pos++];
+        }
+
+        void unread(int c) {
+            if (c != -1) {
+                pos--;
+            }
+        }
+
+        /**
+         * Reads a tag or attribute name, lower-cased.
+         */
+        String readName(int first) throws IOException {
+            text.setLength(0);
+            int c = first;
+            while (c != -1 && !isSpace(c) && c != '>' && c != '/' && c != '=') {
+                text.append((char) c);
+                c = read();
+            }
+            unread(c);
+            return text.toString().toLowerCase(Locale.ROOT);
+        }
+
+        /**
+         * Reads the attributes of a tag up to and including its closing {@code >}. The first of repeated
+         * attributes wins, as in a browser.
+         */
+        void readAttributes(Map<String, String> attributes) throws IOException {
+            while (true) {
+                int c = read();
+                while (isSpace(c) || c == '/') {
+                    c = read();
+                }
+                if (c == -1 || c == '>') {
+                    return;
+                }
+                String name = readName(c);
+                c = read();
+                while (isSpace(c)) {
+                    c = read();
+                }
+                String value = "";
+                if (c == '=') {
+                    c = read();
+                    while (isSpace(c)) {
+                        c = read();
+                    }
+                    value = readValue(c);
+                } else {
+                    unread(c);
+                }
+                if (!name.isEmpty()) {
+                    attributes.putIfAbsent(name, decodeEntities(value));
+                }
+            }
+        }
+
+        private String readValue(int first) throws IOException {
+            text.setLength(0);
+            if (first == '"' || first == '\'') {
+                int c;
+                while ((c = read()) != -1 && c != first) {
+                    text.append((char) c);
+                }
+                return text.toString();
+            }
+            int c = first;
+            while (c != -1 && !isSpace(c) && c != '>') {
+                text.append((char) c);
+                c = read();
+            }
+            unread(c);
+            return text.toString();
+        }
+
+        /**
+         * Skips the rest of a tag, including quoted attribute values that contain {@code >}.
+         */
+        void skipTag() throws IOException {
+            int quote = 0;
+            int c;
+            while ((c = read()) != -1) {
+                if (quote != 0) {
+                    if (c == quote) {
+                        quote = 0;
+                    }
+                } else if (c == '"' || c == '\'') {
+                    quote = c;
+                } else if (c == '>') {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Skips a comment or a declaration such as {@code <!DOCTYPE html>}, after its {@code <!}.
+         */
+        void skipDeclaration() throws IOException {
+            int c = read();
+            if (c == '-') {
+                c = read();
+                if (c == '-') {
+                    // Comment: skip to the first -->
+                    int dashes = 0;
+                    while ((c = read()) != -1) {
+                        if (c == '>' && dashes >= 2) {
+                            return;
+                        }
+                        dashes = c == '-' ? dashes + 1 : 0;
+                    }
+                    return;
+                }
+            }
+            while (c != -1 && c != '>') {
+                c = read();
+            }
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package dev.jcps;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.event.IIOReadUpdateListener;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ImageConsumer;
+import java.awt.image.ImageObserver;
+import java.awt.image.ImageProducer;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code ProgressiveImage} class loads and decodes an image in the background, behind an image that can be
+ * drawn at once.
+ * <p>
+ * {@link JavaAppletAdapter#getImage(String, String)} blocks until the whole image has been read and decoded,
+ * which for a large file or a slow URL stalls the caller. Applets were written for the older model, where
+ * {@code getImage} returned at once and pixels arrived later through {@link ImageObserver}s. A
+ * {@code ProgressiveImage} follows that model: {@link #getImage()} is an AWT image returned before anything has
+ * been read, whose width and height are {@code -1} until known. A background thread opens the file or URL, reads
+ * the header and decodes the pixels. Observers are told {@link ImageObserver#WIDTH} and
+ * {@link ImageObserver#HEIGHT} once the header is read, {@link ImageObserver#SOMEBITS} for the rows that
+ * arrived, then {@link ImageObserver#ALLBITS} or {@link ImageObserver#ERROR}. Row updates are sent at most every
+ * 10 ms, plus once at the end of each pass of an interlaced or progressive image. Drawing the image with a
+ * component as its observer repaints the component as pixels arrive, as with any AWT image.
+ * </p>
+ * <p>
+ * Opening the same location again while it is still being decoded returns the same {@code ProgressiveImage}.
+ * Once decoded, the image is stored in {@link AssetCache#images()} under the same key
+ * {@link JavaAppletAdapter#getImage(String, String)} uses, so later requests get it from the cache, and
+ * {@link #getFuture()} is completed with that cached instance.
+ * </p>
+ *
+ * @since 1.1
+ */
+public final class ProgressiveImage {
+    private static final long UPDATE_INTERVAL_NANOS = 10_000_000L;
+    private static final ColorModel RGB = ColorModel.getRGBdefault();
+    private static final ConcurrentHashMap<String, ProgressiveImage> IN_FLIGHT = new ConcurrentHashMap<>();
+    private static final AtomicInteger THREADS = new AtomicInteger();
+    private static final ExecutorService DECODER = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "ProgressiveImage-" + THREADS.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final String key;
+    private final Object location;
+    private final Image placeholder;
+    private final CompletableFuture<BufferedImage> future = new CompletableFuture<>();
+    private final ConcurrentLinkedQueue<ImageConsumer> pending = new ConcurrentLinkedQueue<>();
+    private final CopyOnWriteArrayList<ImageConsumer> consumers = new CopyOnWriteArrayList<>();
+    // Consumers are only called while holding this lock, and only from decoder threads
+    private final Object deliveryLock = new Object();
+    private volatile BufferedImage image;
+    private volatile int finalStatus;
+
+    private ProgressiveImage(String key, Object location) {
+        this.key = key;
+        this.location = location;
+        this.placeholder = Toolkit.getDefaultToolkit().createImage(new Producer());
+    }
+
+    /**
+     * Starts reading and decoding an image file in the background.
+     *
+     * @param file the image file.
+     * @return the image being decoded.
+     */
+    public static ProgressiveImage open(File file) {
+        return start("file:" + file.getAbsolutePath(), file);
+    }
+
+    /**
+     * Starts downloading and decoding an image at a URL in the background. The connection is opened on the
+     * background thread, so this never waits for the network.
+     *
+     * @param url the image location.
+     * @return the image being decoded.
+     */
+    public static ProgressiveImage open(URL url) {
+        return start(url.toString(), url);
+    }
+
+    private static ProgressiveImage start(String key, Object location) {
+        ProgressiveImage[] created = new ProgressiveImage[1];
+        ProgressiveImage progressive = IN_FLIGHT.computeIfAbsent(key,
+                k -> created[0] = new ProgressiveImage(k, location));
+        if (progressive == created[0]) {
+            DECODER.execute(progressive::decode);
+        }
+        return progressive;
+    }
+
+    /**
+     * Returns the image pixels are decoded into. It can be drawn at any time; until its header has been read
+     * its size is {@code -1}, and rows not decoded yet are transparent.
+     *
+     * @return the image.
+     */
+    public Image getImage() {
+        return placeholder;
+    }
+
+    /**
+     * Adds an observer to be told as the image is loaded, as {@link Toolkit#prepareImage} does. An observer added
+     * after decoding has finished is told the outcome at once.
+     *
+     * @param observer the observer. Returning {@code false} from its {@code imageUpdate} removes it.
+     */
+    public void addObserver(ImageObserver observer) {
+        Toolkit toolkit = Toolkit.getDefaultToolkit();
+        if (toolkit.prepareImage(placeholder, -1, -1, observer)) {
+            observer.imageUpdate(placeholder, ImageObserver.ALLBITS, 0, 0,
+                    placeholder.getWidth(null), placeholder.getHeight(null));
+        }
+    }
+
+    /**
+     * @return a future completed with the decoded image, the same instance stored in {@link AssetCache#images()},
+     * or exceptionally if the image cannot be read.
+     */
+    public CompletableFuture<BufferedImage> getFuture() {
+        return future;
+    }
+
+    /**
+     * @return {@code true} once decoding has finished, successfully or not.
+     */
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    private void decode() {
+        long start = System.nanoTime();
+        ImageReader reader = null;
+        InputStream in = null;
+        ImageInputStream stream = null;
+        try {
+            if (location instanceof File) {
+                stream = ImageIO.createImageInputStream((File) location);
+            } else {
+                in = ((URL) location).openStream();
+                stream = ImageIO.createImageInputStream(in);
+            }
+            if (stream == null) {
+                throw new IOException("Cannot read " + key);
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) {
+                throw new IOException("No image reader for " + key);
+            }
+            reader = readers.next();
+            reader.setInput(stream, true, true);
+            ImageTypeSpecifier type = reader.getImageTypes(0).next();
+            image = type.createBufferedImage(reader.getWidth(0), reader.getHeight(0));
+            deliverPending();
+
+            Updates updates = new Updates();
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setDestination(image);
+            reader.addIIOReadUpdateListener(updates);
+            reader.read(0, param);
+            updates.flush();
+            AssetCache<BufferedImage> cache = AssetCache.images();
+            BufferedImage prepared = CompatibleImages.prepare(image);
+            cache.put(key, prepared);
+            Diagnostics.getInstance().recordDecode(Diagnostics.Kind.IMAGE, key, System.nanoTime() - start,
+                    cache.weigh(prepared));
+            finish(ImageConsumer.STATICIMAGEDONE);
+            future.complete(prepared);
+        } catch (IOException | RuntimeException e) {
+            Diagnostics diagnostics = Diagnostics.getInstance();
+            diagnostics.recordError(Diagnostics.Kind.IMAGE, key,
+                    diagnostics.hasListeners() ? "Failure decoding image " + key + ": " + e.getMessage() : null);
+            finish(ImageConsumer.IMAGEERROR);
+            future.completeExceptionally(e);
+        } finally {
+            IN_FLIGHT.remove(key, this);
+            if (reader != null) {
+                reader.dispose();
+            }
+            close(stream);
+            close(in);
+        }
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+                // Nothing left to release
+            }
+        }
+    }
+
+    private void finish(int status) {
+        finalStatus = status;
+        synchronized (deliveryLock) {
+            deliverPending();
+            for (ImageConsumer consumer : consumers) {
+                consumer.imageComplete(status);
+            }
+            consumers.clear();
+        }
+    }
+
+    /**
+     * Brings consumers added since the last delivery up to date: their size and every row so far, and the outcome
+     * if decoding has finished.
+     */
+    private void deliverPending() {
+        synchronized (deliveryLock) {
+            BufferedImage img = image;
+            int status = finalStatus;
+            ImageConsumer consumer;
+            while ((consumer = pending.poll()) != null) {
+                if (img != null) {
+                    consumer.setDimensions(img.getWidth(), img.getHeight());
+                    consumer.setColorModel(RGB);
+                    consumer.setHints(ImageConsumer.RANDOMPIXELORDER);
+                    sendRows(consumer, img, 0, img.getHeight());
+                }
+                if (status != 0) {
+                    consumer.imageComplete(status);
+                } else {
+                    consumers.add(consumer);
+                }
+            }
+        }
+    }
+
+    private void notifyRows(int minY, int maxY) {
+        synchronized (deliveryLock) {
+            deliverPending();
+            for (ImageConsumer consumer : consumers) {
+                sendRows(consumer, image, minY, maxY);
+            }
+        }
+    }
+
+    private static void sendRows(ImageConsumer consumer, BufferedImage img, int minY, int maxY) {
+        int width = img.getWidth();
+        int rows = Math.max(1, Math.min(maxY - minY, (1 << 16) / Math.max(1, width)));
+        int[] pixels = new int[width * rows];
+        for (int y = minY; y < maxY; y += rows) {
+            int h = Math.min(rows, maxY - y);
+            img.getRGB(0, y, width, h, pixels, 0, width);
+            consumer.setPixels(0, y, width, h, RGB, pixels, 0, width);
+        }
+    }
+
+    /**
+     * Feeds the placeholder image. Consumers added here are only queued: they are called on the decoder thread,
+     * or on a decoder pool thread once decoding has finished, never on the thread that adds them, which may hold
+     * AWT image locks.
+     */
+    private final class Producer implements ImageProducer {
+        @Override
+        public void addConsumer(ImageConsumer ic) {
+            if (!isConsumer(ic)) {
+                pending.add(ic);
+                if (finalStatus != 0) {
+                    // The decoder has finished and will not look at the queue again
+                    DECODER.execute(ProgressiveImage.this::deliverPending);
+                }
+            }
+        }
+
+        @Override
+        public boolean isConsumer(ImageConsumer ic) {
+            return pending.contains(ic) || consumers.contains(ic);
+        }
+
+        @Override
+        public void removeConsumer(ImageConsumer ic) {
+            pending.remove(ic);
+            consumers.remove(ic);
+        }
+
+        @Override
+        public void startProduction(ImageConsumer ic) {
+            addConsumer(ic);
+        }
+
+        @Override
+        public void requestTopDownLeftRightResend(ImageConsumer ic) {
+            // Rows are sent in whatever order the decoder produces them
+        }
+    }
+
+    /**
+     * Collects the rows reported by the reader and passes them to the consumers in batches.
+     */
+    private final class Updates implements IIOReadUpdateListener {
+        private int minY = Integer.MAX_VALUE;
+        private int maxY;
+        private long last = System.nanoTime();
+
+        @Override
+        public void imageUpdate(ImageReader source, BufferedImage theImage, int minX, int minY, int width,
+                                int height, int periodX, int periodY, int[] bands) {
+            this.minY = Math.min(this.minY, minY);
+            this.maxY = Math.max(this.maxY, minY + Math.max(1, (height - 1) * periodY + 1));
+            if (System.nanoTime() - last >= UPDATE_INTERVAL_NANOS) {
+                flush();
+            }
+        }
+
+        @Override
+        public void passComplete(ImageReader source, BufferedImage theImage) {
+            flush();
+        }
+
+        void flush() {
+            if (maxY > minY) {
+                notifyRows(minY, Math.min(maxY, image.getHeight()));
+            }
+            minY = Integer.MAX_VALUE;
+            maxY = 0;
+            last = System.nanoTime();
+        }
+
+        @Override
+        public void passStarted(ImageReader source, BufferedImage theImage, int pass, int minPass, int maxPass,
+                                int minX, int minY, int periodX, int periodY, int[] bands) {
+        }
+
+        @Override
+        public void thumbnailPassStarted(ImageReader source, BufferedImage theThumbnail, int pass, int minPass,
+                                         int maxPass, int minX, int minY, int periodX, int periodY, int[] bands) {
+        }
+
+        @Override
+        public void thumbnailUpdate(ImageReader source, BufferedImage theThumbnail, int minX, int minY, int width,
+                                    int height, int periodX, int periodY, int[] bands) {
+        }
+
+        @Override
+        public void thumbnailPassComplete(ImageReader source, BufferedImage theThumbnail) {
+        }
+    }
+}
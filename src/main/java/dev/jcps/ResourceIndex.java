@@ -0,0 +1,301 @@
+package dev.jcps;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The {@code ResourceIndex} class lists the resources of one jar or class directory, read once.
+ * <p>
+ * Looking up a resource through a class loader searches each element of the class path in turn, and reading a
+ * {@code jar:} URL opens a new connection to the jar every time. An index scans the code source of an adapter
+ * class once, on first use, and maps each relative path, and each simple name, to its entry. A jar is opened
+ * once as a {@link ZipFile} that stays open, and every entry is read through it.
+ * </p>
+ * <p>
+ * Indexes are shared: {@link #of(Class)} returns the same index for every class loaded from the same jar or
+ * directory. {@link AdapterContext} takes the code base and the root of the adapter's jar from the index
+ * instead of slicing resource URLs around {@code "!/"}. Classpath images, and sounds relative to the adapter
+ * class or at the root of its jar, are read through it.
+ * </p>
+ * <p>
+ * A jar's contents cannot change while it is open, so a name missing from a jar's index is known to be missing
+ * without a look-up. A directory is listed as it was when indexed, so files added later are still found through
+ * the class loader but not through the index.
+ * </p>
+ * <p>
+ * Example usage:
+ * <pre>{@code
+ * ResourceIndex index = ResourceIndex.of(MyApplet.class);
+ * ResourceIndex.Entry entry = index.find("images/ship.png");
+ * try (InputStream in = entry.open()) {
+ *     ...
+ * }
+ * }</pre>
+ * </p>
+ *
+ * @since 1.1
+ */
+public final class ResourceIndex implements Closeable {
+    private static final Map<Path, ResourceIndex> INDEXES = new ConcurrentHashMap<>();
+
+    private final Path location;
+    private final URL root;
+    private final ZipFile zip;
+    private final Map<String, Entry> byPath;
+    private final Map<String, Entry> byName;
+
+    private ResourceIndex(Path location, URL root, ZipFile zip) {
+        this.location = location;
+        this.root = root;
+        this.zip = zip;
+        this.byPath = new HashMap<>();
+        this.byName = new HashMap<>();
+    }
+
+    /**
+     * Returns the index of the jar or directory a class was loaded from, building it on first use.
+     *
+     * @param owner the class.
+     * @return the index, or {@code null} if the class was not loaded from a local jar or directory, or it cannot
+     * be read.
+     */
+    public static ResourceIndex of(Class<?> owner) {
+        CodeSource source = owner.getProtectionDomain().getCodeSource();
+        if (source == null || source.getLocation() == null || !"file".equals(source.getLocation().getProtocol())) {
+            return null;
+        }
+        try {
+            return forLocation(Paths.get(source.getLocation().toURI()));
+        } catch (IOException | URISyntaxException | IllegalArgumentException e) {
+            Diagnostics diagnostics = Diagnostics.getInstance();
+            if (diagnostics.hasListeners()) {
+                diagnostics.message("Cannot index " + source.getLocation() + ": " + e.getMessage());
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Returns the index of a jar or directory, building it on first use.
+     *
+     * @param location a jar file or a class directory.
+     * @return the index.
+     * @throws IOException if the location cannot be read.
+     */
+    public static ResourceIndex forLocation(Path location) throws IOException {
+        Path key = location.toAbsolutePath().normalize();
+        ResourceIndex index = INDEXES.get(key);
+        if (index != null) {
+            return index;
+        }
+        index = build(key);
+        ResourceIndex raced = INDEXES.putIfAbsent(key, index);
+        if (raced != null) {
+            index.closeJar();
+            return raced;
+        }
+        return index;
+    }
+
+    /**
+     * Finds the entry a URL points to, in any index built so far.
+     *
+     * @param url a URL under the {@linkplain #getRootUrl() root} of an index, for instance a {@code jar:} URL as
+     *            returned by {@link Class#getResource(String)}.
+     * @return the entry, or {@code null} if no index holds it.
+     */
+    public static Entry findUrl(String url) {
+        for (ResourceIndex index : INDEXES.values()) {
+            String path = index.relativize(url);
+            if (path != null) {
+                return index.find(path);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param url a URL.
+     * @return the path of {@code url} relative to the {@linkplain #getRootUrl() root}, or {@code null} if the URL
+     * is not under the root.
+     */
+    String relativize(String url) {
+        String prefix = root.toString();
+        return url.startsWith(prefix) ? url.substring(prefix.length()) : null;
+    }
+
+    private static ResourceIndex build(Path location) throws IOException {
+        long start = System.nanoTime();
+        ResourceIndex index;
+        if (Files.isDirectory(location)) {
+            // File.toURI gives file:/path, the form class loaders use, where Path.toUri gives file:///path
+            ResourceIndex directory = new ResourceIndex(location, location.toFile().toURI().toURL(), null);
+            String separator = location.getFileSystem().getSeparator();
+            try (Stream<Path> files = Files.walk(location)) {
+                files.filter(Files::isRegularFile).forEach(file ->
+                        directory.add(location.relativize(file).toString().replace(separator, "/"), null, file));
+            }
+            index = directory;
+        } else {
+            ZipFile zip = new ZipFile(location.toFile());
+            index = new ResourceIndex(location, new URL("jar:" + location.toFile().toURI().toURL() + "!/"), zip);
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (!entry.isDirectory()) {
+                    index.add(entry.getName(), entry, null);
+                }
+            }
+        }
+        Diagnostics diagnostics = Diagnostics.getInstance();
+        if (diagnostics.hasListeners()) {
+            diagnostics.message("Indexed " + index.size() + " resources of " + location + " in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+        return index;
+    }
+
+    private void add(String path, ZipEntry zipEntry, Path file) {
+        Entry entry = new Entry(path, zipEntry, file);
+        byPath.put(path, entry);
+        // When several entries share a name, the one with the shortest path wins
+        byName.merge(entry.getName(), entry, (a, b) -> a.path.length() <= b.path.length() ? a : b);
+    }
+
+    private void closeJar() throws IOException {
+        if (zip != null) {
+            zip.close();
+        }
+    }
+
+    /**
+     * Finds an entry by its path relative to the root of the jar or directory.
+     *
+     * @param path the relative path, using {@code /} as separator; a leading {@code /} is ignored.
+     * @return the entry, or {@code null} if there is none.
+     */
+    public Entry find(String path) {
+        return byPath.get(path.startsWith("/") ? path.substring(1) : path);
+    }
+
+    /**
+     * Finds an entry by its simple name, wherever it is. Of several entries with the same name, the one nearest
+     * the root is returned.
+     *
+     * @param name the last segment of the path.
+     * @return the entry, or {@code null} if there is none.
+     */
+    public Entry findName(String name) {
+        return byName.get(name);
+    }
+
+    /**
+     * @return {@code true} if this index lists a jar rather than a directory.
+     */
+    public boolean isJar() {
+        return zip != null;
+    }
+
+    /**
+     * @return the jar file or directory listed.
+     */
+    public Path getLocation() {
+        return location;
+    }
+
+    /**
+     * @return the URL of the root of the jar, as {@code jar:file:...!/}, or of the directory.
+     */
+    public URL getRootUrl() {
+        return root;
+    }
+
+    /**
+     * @return the number of entries.
+     */
+    public int size() {
+        return byPath.size();
+    }
+
+    /**
+     * @return the relative paths of every entry.
+     */
+    public Set<String> paths() {
+        return Collections.unmodifiableSet(byPath.keySet());
+    }
+
+    /**
+     * Closes the jar, if any, and drops this index, so the next {@link #of(Class)} builds a new one.
+     *
+     * @throws IOException if the jar cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        INDEXES.remove(location, this);
+        closeJar();
+    }
+
+    /**
+     * One resource of an index.
+     */
+    public final class Entry {
+        private final String path;
+        private final ZipEntry zipEntry;
+        private final Path file;
+
+        Entry(String path, ZipEntry zipEntry, Path file) {
+            this.path = path;
+            this.zipEntry = zipEntry;
+            this.file = file;
+        }
+
+        /**
+         * Opens the resource, through the index's open jar or directly from its file.
+         *
+         * @return a stream of the resource's bytes.
+         * @throws IOException if the resource cannot be read.
+         */
+        public InputStream open() throws IOException {
+            return zipEntry != null ? zip.getInputStream(zipEntry) : Files.newInputStream(file);
+        }
+
+        /**
+         * @return the path relative to the root of the jar or directory.
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @return the last segment of the path.
+         */
+        public String getName() {
+            return path.substring(path.lastIndexOf('/') + 1);
+        }
+
+        /**
+         * @return the URL of the resource, under the index's {@linkplain #getRootUrl() root}.
+         * @throws MalformedURLException if the path does not form a valid URL.
+         */
+        public URL toUrl() throws MalformedURLException {
+            return new URL(root, path);
+        }
+    }
+}
@@ -0,0 +1,565 @@
+package dev.jcps;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code SoftwareMixer} class plays many sounds at once through a single output line.
+ * <p>
+ * Each {@link javax.sound.sampled.Clip} holds a line of the system mixer, and opening many of them runs out of
+ * lines or costs a great deal of mixing overhead. A {@code SoftwareMixer} sums a fixed number of voices itself,
+ * in blocks of a few hundred frames, and writes the result to one {@link Sink}, normally a
+ * {@link SourceDataLine}. The output is always 16-bit signed little-endian stereo.
+ * </p>
+ * <p>
+ * Sounds are converted once, by {@link #prepare(AudioSample)}, to 16-bit samples at their own rate; a sound at
+ * another rate than the mixer's is stepped through at the ratio of the two rates, interpolating linearly between
+ * neighbouring frames as {@link AudioConverter} does. Voices are
+ * kept in preallocated primitive arrays and mixed into preallocated buffers, so mixing a block allocates
+ * nothing. Each voice has its own gain and equal-power pan. When every voice is busy, {@link #play(Sound, float,
+ * float)} steals the voice that was started longest ago.
+ * </p>
+ * <p>
+ * {@link #open(float, int)} creates a mixer writing to a line of the default system mixer, with a thread
+ * mixing blocks as fast as the line takes them. For headless use and tests, construct a mixer with any
+ * {@link Sink} and call {@link #mixBlock()} directly.
+ * </p>
+ *
+ * @since 1.1
+ */
+public class SoftwareMixer implements AutoCloseable {
+    /**
+     * The number of frames mixed per block by default, about 12 ms at 44.1 kHz.
+     */
+    public static final int DEFAULT_BLOCK_FRAMES = 512;
+
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    private final Sink sink;
+    private final AudioFormat format;
+    private final int blockFrames;
+    private final float[] mixLeft;
+    private final float[] mixRight;
+    private final byte[] out;
+
+    private final Sound[] voiceSound;
+    private final long[] voicePosition;
+    private final long[] voiceStep;
+    private final float[] voiceGain;
+    private final float[] voicePan;
+    private final float[] voiceLeft;
+    private final float[] voiceRight;
+    private final boolean[] voiceLoop;
+    private final long[] voiceStarted;
+    private final int[] voiceGeneration;
+    private long playCount;
+    private long stolen;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    /**
+     * Constructs a {@code SoftwareMixer} writing to a sink.
+     *
+     * @param sink        receives the mixed 16-bit stereo blocks.
+     * @param sampleRate  the output sample rate, in Hz.
+     * @param voices      the number of sounds that can play at once.
+     * @param blockFrames the number of frames mixed per block.
+     */
+    public SoftwareMixer(Sink sink, float sampleRate, int voices, int blockFrames) {
+        if (voices < 1 || voices > 0xFFFF) {
+            throw new IllegalArgumentException("voices must be between 1 and 65535: " + voices);
+        }
+        this.sink = sink;
+        this.format = outputFormat(sampleRate);
+        this.blockFrames = blockFrames;
+        this.mixLeft = new float[blockFrames];
+        this.mixRight = new float[blockFrames];
+        this.out = new byte[blockFrames * 4];
+        this.voiceSound = new Sound[voices];
+        this.voicePosition = new long[voices];
+        this.voiceStep = new long[voices];
+        this.voiceGain = new float[voices];
+        this.voicePan = new float[voices];
+        this.voiceLeft = new float[voices];
+        this.voiceRight = new float[voices];
+        this.voiceLoop = new boolean[voices];
+        this.voiceStarted = new long[voices];
+        this.voiceGeneration = new int[voices];
+    }
+
+    /**
+     * Creates a mixer playing through a line of the default system mixer and starts its mixing thread.
+     *
+     * @param sampleRate the output sample rate, in Hz.
+     * @param voices     the number of sounds that can play at once.
+     * @return the running mixer.
+     * @throws LineUnavailableException if no line can be opened.
+     */
+    public static SoftwareMixer open(float sampleRate, int voices) throws LineUnavailableException {
+        AudioFormat format = outputFormat(sampleRate);
+        SourceDataLine line = AudioSystem.getSourceDataLine(format);
+        // Room for a few blocks, so one late block does not underrun the line
+        line.open(format, DEFAULT_BLOCK_FRAMES * 4 * 4);
+        line.start();
+        SoftwareMixer mixer = new SoftwareMixer(Sink.of(line), sampleRate, voices, DEFAULT_BLOCK_FRAMES);
+        mixer.start();
+        return mixer;
+    }
+
+    /**
+     * @param sampleRate the sample rate, in Hz.
+     * @return the 16-bit signed little-endian stereo format a mixer writes at that rate.
+     */
+    public static AudioFormat outputFormat(float sampleRate) {
+        return new AudioFormat(sampleRate, 16, 2, true, false);
+    }
+
+    /**
+     * Converts a sample to the form voices play from. This is done once per sound, not per play.
+     *
+     * @param sample a PCM sample of 8 to 32 bits per sample and one or more channels; channels beyond the
+     *               second are ignored.
+     * @return the prepared sound.
+     */
+    public static Sound prepare(AudioSample sample) {
+        AudioFormat f = sample.getFormat();
+        short[] pcm = AudioConverter.toShorts(sample);
+        int channels = Math.min(2, f.getChannels());
+        int frames = pcm.length / channels;
+        return new Sound(pcm, channels, frames, f.getSampleRate());
+    }
+
+    /**
+     * Starts a thread that mixes blocks into the sink until {@link #close()} is called. The sink's
+     * {@link Sink#write(byte[], int, int)} should block while its buffer is full, which paces the mixing. If the
+     * sink throws, the thread ends and the failure is reported to {@link Diagnostics}.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(() -> {
+            try {
+                while (running) {
+                    mixBlock();
+                }
+            } catch (RuntimeException e) {
+                // For instance a sink that cannot write any more; report it rather than fall silent unnoticed
+                running = false;
+                Diagnostics diagnostics = Diagnostics.getInstance();
+                diagnostics.recordError(Diagnostics.Kind.AUDIO, Thread.currentThread().getName(),
+                        diagnostics.hasListeners() ? "ERROR A4: " + e : null);
+            }
+        }, "SoftwareMixer-" + THREADS.incrementAndGet());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Plays a sound once at full gain, centred.
+     *
+     * @param sound the sound to play.
+     * @return a handle to the voice playing it.
+     */
+    public int play(Sound sound) {
+        return play(sound, 1f, 0f, false);
+    }
+
+    /**
+     * Plays a sound once.
+     *
+     * @param sound the sound to play.
+     * @param gain  the linear gain, {@code 1} for the sound's own level.
+     * @param pan   the position between {@code -1} (left) and {@code 1} (right).
+     * @return a handle to the voice playing it.
+     */
+    public int play(Sound sound, float gain, float pan) {
+        return play(sound, gain, pan, false);
+    }
+
+    /**
+     * Plays a sound on a free voice, or on the voice started longest ago if none is free.
+     *
+     * @param sound the sound to play.
+     * @param gain  the linear gain, {@code 1} for the sound's own level.
+     * @param pan   the position between {@code -1} (left) and {@code 1} (right).
+     * @param loop  {@code true} to repeat the sound until the voice is stopped.
+     * @return a handle to the voice playing it, for {@link #setGain(int, float)}, {@link #setPan(int, float)}
+     * and {@link #stop(int)}.
+     */
+    public synchronized int play(Sound sound, float gain, float pan, boolean loop) {
+        int voice = -1;
+        for (int i = 0; i < voiceSound.length; i++) {
+            if (voiceSound[i] == null) {
+                voice = i;
+                break;
+            }
+        }
+        if (voice < 0) {
+            voice = 0;
+            for (int i = 1; i < voiceSound.length; i++) {
+                if (voiceStarted[i] < voiceStarted[voice]) {
+                    voice = i;
+                }
+            }
+            stolen++;
+        }
+        voiceSound[voice] = sound;
+        voicePosition[voice] = 0;
+        voiceStep[voice] = AudioConverter.step(sound.sampleRate, format.getSampleRate());
+        voiceLoop[voice] = loop;
+        voiceStarted[voice] = playCount++;
+        voiceGeneration[voice] = (voiceGeneration[voice] + 1) & 0x7FFF;
+        voiceGain[voice] = gain;
+        voicePan[voice] = pan;
+        updateGains(voice);
+        return voiceGeneration[voice] << 16 | voice;
+    }
+
+    /**
+     * Changes the gain of a playing voice. Does nothing if the voice has finished or been stolen.
+     *
+     * @param handle the handle returned by {@code play}.
+     * @param gain   the linear gain.
+     */
+    public synchronized void setGain(int handle, float gain) {
+        int voice = voiceOf(handle);
+        if (voice >= 0) {
+            voiceGain[voice] = gain;
+            updateGains(voice);
+        }
+    }
+
+    /**
+     * Changes the pan of a playing voice. Does nothing if the voice has finished or been stolen.
+     *
+     * @param handle the handle returned by {@code play}.
+     * @param pan    the position between {@code -1} (left) and {@code 1} (right).
+     */
+    public synchronized void setPan(int handle, float pan) {
+        int voice = voiceOf(handle);
+        if (voice >= 0) {
+            voicePan[voice] = pan;
+            updateGains(voice);
+        }
+    }
+
+    /**
+     * Stops a voice. Does nothing if the voice has finished or been stolen.
+     *
+     * @param handle the handle returned by {@code play}.
+     */
+    public synchronized void stop(int handle) {
+        int voice = voiceOf(handle);
+        if (voice >= 0) {
+            voiceSound[voice] = null;
+        }
+    }
+
+    /**
+     * Stops every voice.
+     */
+    public synchronized void stopAll() {
+        for (int i = 0; i < voiceSound.length; i++) {
+            voiceSound[i] = null;
+        }
+    }
+
+    /**
+     * @param handle the handle returned by {@code play}.
+     * @return {@code true} if the voice is still playing that sound.
+     */
+    public synchronized boolean isPlaying(int handle) {
+        return voiceOf(handle) >= 0;
+    }
+
+    /**
+     * Mixes one block of every playing voice and writes it to the sink.
+     */
+    public void mixBlock() {
+        synchronized (this) {
+            mix();
+        }
+        sink.write(out, 0, out.length);
+    }
+
+    /**
+     * @return the number of voices currently playing.
+     */
+    public synchronized int getActiveVoiceCount() {
+        int active = 0;
+        for (Sound sound : voiceSound) {
+            if (sound != null) {
+                active++;
+            }
+        }
+        return active;
+    }
+
+    public int getVoiceCount() {
+        return voiceSound.length;
+    }
+
+    /**
+     * @return the number of plays that took a voice from a sound still playing.
+     */
+    public synchronized long getStolenCount() {
+        return stolen;
+    }
+
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    public int getBlockFrames() {
+        return blockFrames;
+    }
+
+    /**
+     * Stops the mixing thread, if any, and closes the sink.
+     */
+    @Override
+    public void close() {
+        Thread t;
+        synchronized (this) {
+            running = false;
+            t = thread;
+            thread = null;
+        }
+        if (t != null && t != Thread.currentThread()) {
+            try {
+                t.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        sink.close();
+    }
+
+    private int voiceOf(int handle) {
+        int voice = handle & 0xFFFF;
+        if (voice >= voiceSound.length || voiceSound[voice] == null || voiceGeneration[voice] != handle >>> 16) {
+            return -1;
+        }
+        return voice;
+    }
+
+    private void updateGains(int voice) {
+        // Equal-power pan: the total power stays the same as the sound moves across
+        double angle = (Math.max(-1f, Math.min(1f, voicePan[voice])) + 1) * Math.PI / 4;
+        voiceLeft[voice] = (float) (voiceGain[voice] * Math.cos(angle));
+        voiceRight[voice] = (float) (voiceGain[voice] * Math.sin(angle));
+    }
+
+    private void mix() {
+        float[] left = mixLeft;
+        float[] right = mixRight;
+        for (int i = 0; i < blockFrames; i++) {
+            left[i] = 0;
+            right[i] = 0;
+        }
+        for (int v = 0; v < voiceSound.length; v++) {
+            Sound sound = voiceSound[v];
+            if (sound != null) {
+                mixVoice(v, sound, left, right);
+            }
+        }
+        byte[] bytes = out;
+        for (int i = 0, b = 0; i < blockFrames; i++, b += 4) {
+            int l = clamp(left[i]);
+            int r = clamp(right[i]);
+            bytes[b] = (byte) l;
+            bytes[b + 1] = (byte) (l >> 8);
+            bytes[b + 2] = (byte) r;
+            bytes[b + 3] = (byte) (r >> 8);
+        }
+    }
+
+    private void mixVoice(int v, Sound sound, float[] left, float[] right) {
+        short[] pcm = sound.pcm;
+        int channels = sound.channels;
+        int frames = sound.frames;
+        long end = (long) frames << 32;
+        long position = voicePosition[v];
+        long step = voiceStep[v];
+        float gainLeft = voiceLeft[v];
+        float gainRight = voiceRight[v];
+        for (int i = 0; i < blockFrames; i++) {
+            if (position >= end) {
+                if (!voiceLoop[v] || end == 0) {
+                    voiceSound[v] = null;
+                    return;
+                }
+                // A loop shorter than one step would still be past its end after a single subtraction
+                position %= end;
+            }
+            int frame = (int) (position >>> 32);
+            int next = frame + 1 < frames ? frame + 1 : voiceLoop[v] ? 0 : frame;
+            float t = AudioConverter.weight(position);
+            int a = frame * channels;
+            int b = next * channels;
+            float l = AudioConverter.interpolate(pcm, a, b, t);
+            float r = channels == 2 ? AudioConverter.interpolate(pcm, a + 1, b + 1, t) : l;
+            left[i] += l * gainLeft;
+            right[i] += r * gainRight;
+            position += step;
+        }
+        voicePosition[v] = position;
+    }
+
+    private static int clamp(float sample) {
+        return sample >= Short.MAX_VALUE ? Short.MAX_VALUE : sample <= Short.MIN_VALUE ? Short.MIN_VALUE : (int) sample;
+    }
+
+    /**
+     * Receives mixed blocks of 16-bit signed little-endian stereo frames.
+     */
+    @FunctionalInterface
+    public interface Sink {
+        /**
+         * Returns a sink writing to a line. The line is drained and closed when the sink is.
+         *
+         * @param line an open line in the mixer's output format.
+         * @return a sink writing to {@code line}.
+         */
+        static Sink of(SourceDataLine line) {
+            return new Sink() {
+                @Override
+                public void write(byte[] data, int offset, int length) {
+                    line.write(data, offset, length);
+                }
+
+                @Override
+                public void close() {
+                    line.drain();
+                    line.close();
+                }
+            };
+        }
+
+        /**
+         * Returns a sink that drops every block, for running a mixer where there is no sound device.
+         *
+         * @return a sink doing nothing.
+         */
+        static Sink discard() {
+            return (data, offset, length) -> {
+            };
+        }
+
+        /**
+         * Returns a sink writing a WAV file. The file header is completed when the sink is closed.
+         *
+         * @param file       the file to write.
+         * @param sampleRate the mixer's sample rate, in Hz.
+         * @return a sink writing to {@code file}.
+         * @throws IOException if the file cannot be created.
+         */
+        static Sink wavFile(File file, float sampleRate) throws IOException {
+            return new WavSink(file, sampleRate);
+        }
+
+        /**
+         * Consumes one block. The array is reused for the next block, so its contents must be copied if kept.
+         *
+         * @param data   the mixed frames.
+         * @param offset the offset of the first byte.
+         * @param length the number of bytes.
+         */
+        void write(byte[] data, int offset, int length);
+
+        /**
+         * Releases the sink. The default does nothing.
+         */
+        default void close() {
+        }
+    }
+
+    /**
+     * Writes blocks to a WAV file, filling in the sizes in the header on close.
+     */
+    private static final class WavSink implements Sink {
+        private final RandomAccessFile file;
+        private long dataBytes;
+
+        WavSink(File target, float sampleRate) throws IOException {
+            file = new RandomAccessFile(target, "rw");
+            file.setLength(0);
+            int rate = (int) sampleRate;
+            byte[] header = new byte[44];
+            ByteBuffer b = ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN);
+            b.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(36)
+                    .put("WAVEfmt ".getBytes(StandardCharsets.US_ASCII)).putInt(16)
+                    .putShort((short) 1).putShort((short) 2).putInt(rate).putInt(rate * 4)
+                    .putShort((short) 4).putShort((short) 16)
+                    .put("data".getBytes(StandardCharsets.US_ASCII)).putInt(0);
+            file.write(header);
+        }
+
+        @Override
+        public void write(byte[] data, int offset, int length) {
+            try {
+                file.write(data, offset, length);
+                dataBytes += length;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                byte[] size = new byte[4];
+                ByteBuffer b = ByteBuffer.wrap(size).order(ByteOrder.LITTLE_ENDIAN);
+                file.seek(4);
+                file.write(b.putInt(0, (int) (36 + dataBytes)).array());
+                file.seek(40);
+                file.write(b.putInt(0, (int) dataBytes).array());
+                file.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * A sound converted to 16-bit samples for mixing, by {@link #prepare(AudioSample)}.
+     */
+    public static final class Sound {
+        private final short[] pcm;
+        private final int channels;
+        private final int frames;
+        private final float sampleRate;
+
+        Sound(short[] pcm, int channels, int frames, float sampleRate) {
+            this.pcm = pcm;
+            this.channels = channels;
+            this.frames = frames;
+            this.sampleRate = sampleRate;
+        }
+
+        public int getChannels() {
+            return channels;
+        }
+
+        public int getFrameLength() {
+            return frames;
+        }
+
+        public float getSampleRate() {
+            return sampleRate;
+        }
+    }
+}
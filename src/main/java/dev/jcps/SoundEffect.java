@@ -0,0 +1,98 @@
+package dev.jcps;
+
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Clip;
+import javax.sound.sampled.LineUnavailableException;
+
+/**
+ * The {@code SoundEffect} class plays one {@link AudioSample} through a fixed pool of {@link Clip} voices.
+ * <p>
+ * All voices are opened up front from the same decoded buffer, converted once by
+ * {@link AudioConverter#normalize(AudioSample)} to the format the device plays natively. Each call to
+ * {@link #play()} rewinds an idle voice, or the least recently started one if all are busy, so overlapping plays
+ * of the same effect never open a line, read a file or decode anything.
+ * </p>
+ *
+ * @since 1.1
+ */
+public class SoundEffect implements AutoCloseable {
+    private final Clip[] voices;
+    private int next;
+
+    /**
+     * Constructs a {@code SoundEffect} and opens {@code voices} clips from {@code sample}.
+     *
+     * @param sample the decoded sound to play.
+     * @param voices the maximum number of overlapping plays.
+     * @throws LineUnavailableException if the clips cannot be opened.
+     */
+    public SoundEffect(AudioSample sample, int voices) throws LineUnavailableException {
+        if (voices < 1) {
+            throw new IllegalArgumentException("voices must be at least 1: " + voices);
+        }
+        this.voices = new Clip[voices];
+        AudioSample playable = AudioConverter.normalize(sample);
+        try {
+            for (int i = 0; i < voices; i++) {
+                Clip clip = AudioSystem.getClip();
+                this.voices[i] = clip;
+                playable.open(clip);
+            }
+        } catch (LineUnavailableException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Plays the effect from the start on the next available voice.
+     */
+    public synchronized void play() {
+        Clip clip = voices[nextVoice()];
+        clip.stop();
+        clip.setFramePosition(0);
+        clip.start();
+    }
+
+    /**
+     * Stops every voice of this effect.
+     */
+    public synchronized void stop() {
+        for (Clip clip : voices) {
+            clip.stop();
+        }
+    }
+
+    /**
+     * @return the number of voices in the pool.
+     */
+    public int getVoiceCount() {
+        return voices.length;
+    }
+
+    /**
+     * Closes every voice and releases its line.
+     */
+    @Override
+    public synchronized void close() {
+        for (Clip clip : voices) {
+            if (clip != null) {
+                clip.close();
+            }
+        }
+    }
+
+    private int nextVoice() {
+        // Prefer an idle voice; otherwise steal the one started longest ago
+        for (int i = 0; i < voices.length; i++) {
+            int v = (next + i) % voices.length;
+            if (!voices[v].isActive()) {
+                next = (v + 1) % voices.length;
+                return v;
+            }
+        }
+        int v = next;
+        next = (next + 1) % voices.length;
+        return v;
+    }
+}
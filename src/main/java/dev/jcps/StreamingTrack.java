@@ -0,0 +1,298 @@
+package dev.jcps;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The {@code StreamingTrack} class plays a long sound, such as background music, without decoding it into memory.
+ * <p>
+ * A {@link javax.sound.sampled.Clip} holds the whole decoded sound, which for a few minutes of music is tens of
+ * megabytes and takes as long to load. A {@code StreamingTrack} instead decodes the sound while it plays: a
+ * dedicated thread reads a little ahead into a fixed ring buffer of about a quarter of a second and feeds it to a
+ * {@link SourceDataLine}. Memory use is the same whatever the length of the track.
+ * </p>
+ * <p>
+ * Tracks can loop, in which case the stream is reopened at its end without a gap in the ring, and can seek to
+ * any frame, which reopens the stream and skips forward. Control methods return at once; the feeding thread
+ * applies them. The feeding thread blocks in {@link SourceDataLine#write(byte[], int, int)} while the line is
+ * full, and sleeps while the track is paused, so it only runs when there is something to read or write. A track
+ * must be {@linkplain #close() closed} to end its thread and release its line.
+ * </p>
+ *
+ * @since 1.1
+ */
+public class StreamingTrack implements AutoCloseable {
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    private final AudioSample.Source source;
+    private final SourceDataLine line;
+    private final AudioFormat format;
+    private final int frameSize;
+    private final long frameLength;
+    private final byte[] ring;
+    private final AtomicLong pendingSeek = new AtomicLong(-1);
+    private final Thread feeder;
+    private AudioInputStream stream;
+    private int head;
+    private int count;
+    private volatile boolean ended;
+    private volatile boolean playing;
+    private volatile boolean looping;
+    private volatile boolean closed;
+    private volatile long startFrame;
+    private volatile long lineMark;
+
+    /**
+     * Constructs a {@code StreamingTrack} playing through a line of the default mixer.
+     *
+     * @param source opens the sound; it is called again each time the track loops or seeks.
+     * @throws IOException                   if the sound cannot be read.
+     * @throws UnsupportedAudioFileException if the sound is not in a recognised format.
+     * @throws LineUnavailableException      if no line can be opened for the sound.
+     */
+    public StreamingTrack(AudioSample.Source source)
+            throws IOException, UnsupportedAudioFileException, LineUnavailableException {
+        this(source, null);
+    }
+
+    /**
+     * Constructs a {@code StreamingTrack} playing through the given line.
+     *
+     * @param source opens the sound; it is called again each time the track loops or seeks.
+     * @param line   an unopened line to play through, or {@code null} to use a line of the default mixer.
+     * @throws IOException                   if the sound cannot be read.
+     * @throws UnsupportedAudioFileException if the sound is not in a recognised format.
+     * @throws LineUnavailableException      if the line cannot be opened.
+     */
+    public StreamingTrack(AudioSample.Source source, SourceDataLine line)
+            throws IOException, UnsupportedAudioFileException, LineUnavailableException {
+        this.source = source;
+        this.stream = AudioSample.toPcm(source.open());
+        this.format = stream.getFormat();
+        this.frameSize = Math.max(1, format.getFrameSize());
+        this.frameLength = stream.getFrameLength();
+        // About a quarter of a second, in whole frames
+        int bufferBytes = Math.max(1, (int) (format.getFrameRate() / 4)) * frameSize;
+        this.ring = new byte[bufferBytes];
+        try {
+            this.line = line != null ? line : AudioSystem.getSourceDataLine(format);
+            this.line.open(format, bufferBytes);
+        } catch (LineUnavailableException | RuntimeException e) {
+            stream.close();
+            throw e;
+        }
+        feeder = new Thread(this::feed, "StreamingTrack-" + THREADS.incrementAndGet());
+        feeder.setDaemon(true);
+        feeder.start();
+    }
+
+    /**
+     * Starts or resumes playback. A track that has played to its end starts again from the beginning.
+     */
+    public void play() {
+        if (ended && pendingSeek.get() < 0 && !playing) {
+            seek(0);
+        }
+        playing = true;
+        line.start();
+        LockSupport.unpark(feeder);
+    }
+
+    /**
+     * Pauses playback, keeping the current position.
+     */
+    public void pause() {
+        playing = false;
+        line.stop();
+    }
+
+    /**
+     * Stops playback and rewinds to the beginning.
+     */
+    public void stop() {
+        pause();
+        seek(0);
+    }
+
+    /**
+     * Moves playback to a frame. The stream is reopened and skipped forward by the feeding thread, so the new
+     * position is heard, and reported by {@link #getFramePosition()}, shortly after this method returns.
+     *
+     * @param frame the frame to continue from.
+     */
+    public void seek(long frame) {
+        pendingSeek.set(Math.max(0, frame));
+        // Flushing ends a write blocked on the line, so the feeding thread sees the seek at once
+        line.flush();
+        LockSupport.unpark(feeder);
+    }
+
+    /**
+     * @param looping {@code true} to start over from the beginning each time the end is reached.
+     */
+    public void setLooping(boolean looping) {
+        this.looping = looping;
+    }
+
+    public boolean isLooping() {
+        return looping;
+    }
+
+    /**
+     * @return {@code true} while the track is playing; {@code false} once paused, stopped or played to its end.
+     */
+    public boolean isPlaying() {
+        return playing;
+    }
+
+    /**
+     * @return the frame of the track currently being heard.
+     */
+    public long getFramePosition() {
+        long position = startFrame + line.getLongFramePosition() - lineMark;
+        // Past the end only when looping; a track that has played out reports its length
+        return frameLength > 0 && position > frameLength ? position % frameLength : position;
+    }
+
+    /**
+     * @return the length of the track in frames, or {@link AudioSystem#NOT_SPECIFIED} if the stream does not say.
+     */
+    public long getFrameLength() {
+        return frameLength;
+    }
+
+    /**
+     * @return the PCM format the track is played in.
+     */
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * @return the size of the read-ahead ring buffer, in bytes.
+     */
+    public int getBufferSize() {
+        return ring.length;
+    }
+
+    /**
+     * Stops playback, ends the feeding thread and releases the line.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        playing = false;
+        line.stop();
+        line.flush();
+        LockSupport.unpark(feeder);
+        if (Thread.currentThread() != feeder) {
+            try {
+                feeder.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        line.close();
+    }
+
+    private void feed() {
+        try {
+            while (!closed) {
+                long seek = pendingSeek.getAndSet(-1);
+                if (seek >= 0) {
+                    reopen(seek);
+                }
+                if (!playing) {
+                    LockSupport.park(this);
+                    continue;
+                }
+                if (!ended && count < ring.length) {
+                    fill();
+                }
+                if (count > 0) {
+                    write();
+                } else if (ended) {
+                    // Everything has been handed to the line, which plays out what it still holds
+                    playing = false;
+                }
+            }
+        } catch (IOException | UnsupportedAudioFileException | RuntimeException e) {
+            // A failing source or line ends this track only; report it rather than let the thread die silently
+            playing = false;
+            Diagnostics diagnostics = Diagnostics.getInstance();
+            diagnostics.recordError(Diagnostics.Kind.AUDIO, feeder.getName(),
+                    diagnostics.hasListeners() ? "ERROR A4: " + e : null);
+        } finally {
+            try {
+                stream.close();
+            } catch (IOException ignored) {
+                // Nothing left to release
+            }
+        }
+    }
+
+    /**
+     * Reads from the stream into the free space after the ring's tail.
+     */
+    private void fill() throws IOException, UnsupportedAudioFileException {
+        int tail = (head + count) % ring.length;
+        int space = Math.min(ring.length - count, ring.length - tail);
+        space -= space % frameSize;
+        if (space == 0) {
+            return;
+        }
+        int n = stream.read(ring, tail, space);
+        if (n < 0) {
+            if (looping) {
+                stream.close();
+                stream = AudioSample.toPcm(source.open());
+            } else {
+                ended = true;
+            }
+            return;
+        }
+        count += n;
+    }
+
+    /**
+     * Writes the ring up to its end or its tail, blocking until the line has taken it. The write returns early
+     * when the line is stopped or flushed, by {@link #pause()}, {@link #seek(long)} or {@link #close()}.
+     */
+    private void write() {
+        int n = Math.min(count, ring.length - head);
+        n -= n % frameSize;
+        if (n == 0) {
+            return;
+        }
+        int written = line.write(ring, head, n);
+        head = (head + written) % ring.length;
+        count -= written;
+    }
+
+    private void reopen(long frame) throws IOException, UnsupportedAudioFileException {
+        stream.close();
+        stream = AudioSample.toPcm(source.open());
+        long skip = frameLength > 0 ? frame % frameLength * frameSize : frame * frameSize;
+        while (skip > 0) {
+            long n = stream.skip(skip);
+            if (n <= 0) {
+                break;
+            }
+            skip -= n;
+        }
+        head = 0;
+        count = 0;
+        ended = false;
+        line.flush();
+        lineMark = line.getLongFramePosition();
+        startFrame = frameLength > 0 ? frame % frameLength : frame;
+    }
+}
@@ -0,0 +1,21 @@
+package dev.jcps;
+
+/**
+ * The {@code Updatable} interface is implemented by adapters that want fixed-timestep updates from an
+ * {@link AppletHost}.
+ * <p>
+ * The host calls {@link #update(double)} a fixed number of times per second from its game loop thread, then
+ * paints the adapter. Game logic that used to live in a {@code Thread.sleep} loop inside {@code run()} moves
+ * here.
+ * </p>
+ *
+ * @since 1.1
+ */
+public interface Updatable {
+    /**
+     * Advances the game by one fixed step.
+     *
+     * @param dt the step length, in seconds.
+     */
+    void update(double dt);
+}
@@ -0,0 +1,174 @@
+import dev.jcps.AdapterContext;
+import dev.jcps.AppletParameters;
+import dev.jcps.JavaAppletAdapter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class AdapterContextTest {
+
+    @AfterEach
+    void tearDown() {
+        AppletParameters.global().remove("shared");
+    }
+
+    @Test
+    void of_SameAdapter_ReturnsSameContext() {
+        // Arrange
+        TestAdapter adapter = new TestAdapter();
+
+        // Act & Assert
+        assertSame(AdapterContext.of(adapter), AdapterContext.of(adapter));
+        assertNotSame(AdapterContext.of(adapter), AdapterContext.of(new TestAdapter()));
+    }
+
+    @Test
+    void getParameter_InstanceValue_IsNotSharedWithOtherAdapters() {
+        // Arrange
+        TestAdapter a = new TestAdapter();
+        TestAdapter b = new TestAdapter();
+
+        // Act
+        a.getAppletParameters().putString("speed", "5");
+
+        // Assert
+        assertEquals("5", a.getParameter("speed"));
+        assertNull(b.getParameter("speed"));
+    }
+
+    @Test
+    void getParameter_ResolvesInstanceThenParentThenGlobal() {
+        // Arrange
+        AppletParameters host = new AppletParameters(AppletParameters.global());
+        TestAdapter adapter = new TestAdapter();
+        AdapterContext.attach(adapter, host);
+        AppletParameters.global().putString("shared", "global");
+
+        // Act & Assert
+        assertEquals("global", adapter.getParameter("shared"));
+        host.putString("shared", "host");
+        assertEquals("host", adapter.getParameter("shared"));
+        adapter.getAppletParameters().putInt("shared", 3);
+        assertEquals("3", adapter.getParameter("shared"));
+        adapter.getAppletParameters().remove("shared");
+        assertEquals("host", adapter.getParameter("shared"));
+    }
+
+    @Test
+    void getInt_ConcurrentWriter_AlwaysSeesAWrittenValue() throws InterruptedException {
+        // Arrange
+        TestAdapter adapter = new TestAdapter();
+        AppletParameters params = adapter.getAppletParameters();
+        params.putInt("frame", 0);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicBoolean bad = new AtomicBoolean();
+        CountDownLatch started = new CountDownLatch(1);
+        Thread reader = new Thread(() -> {
+            started.countDown();
+            while (!done.get()) {
+                int v = params.getInt("frame");
+                if (v < 0 || v > 10_000) {
+                    bad.set(true);
+                }
+            }
+        });
+
+        // Act
+        reader.start();
+        started.await();
+        for (int i = 1; i <= 10_000; i++) {
+            params.putInt("frame", i);
+        }
+        done.set(true);
+        reader.join();
+
+        // Assert
+        assertFalse(bad.get());
+        assertEquals(10_000, params.getInt("frame"));
+    }
+
+    @Test
+    void getDocumentBase_IsComputedOnceAndResolvesNames() {
+        // Arrange
+        TestAdapter adapter = new TestAdapter();
+        AdapterContext context = AdapterContext.of(adapter);
+
+        // Act
+        String first = adapter.getDocumentBase();
+
+        // Assert
+        assertSame(first, adapter.getDocumentBase());
+        assertEquals(System.getProperty("user.dir"), first);
+        assertEquals(Paths.get(first, "sprites", "a.png"), context.resolveDocument("sprites/a.png"));
+    }
+
+    @Test
+    void getCodeBase_IsCachedAsUriToo() throws Exception {
+        // Arrange
+        TestAdapter adapter = new TestAdapter();
+        AdapterContext context = AdapterContext.of(adapter);
+
+        // Act
+        Object codeBase = adapter.getCodeBase();
+
+        // Assert
+        assertSame(codeBase, adapter.getCodeBase());
+        assertEquals(String.valueOf(TestAdapter.class.getResource("/")), codeBase.toString());
+        assertEquals(((URL) codeBase).toURI().resolve("x/y.png"), context.resolveCode("/x/y.png"));
+    }
+
+    @Test
+    void refreshBases_RecomputesBases() {
+        // Arrange
+        AdapterContext context = AdapterContext.of(new TestAdapter());
+        Path before = context.getDocumentBasePath();
+
+        // Act
+        context.refreshBases();
+
+        // Assert
+        assertNotSame(before, context.getDocumentBasePath());
+        assertEquals(before, context.getDocumentBasePath());
+    }
+
+    @Test
+    void getDocumentBase_KnownAdapter_AllocatesLessThanAnObjectPerCall() {
+        // Arrange
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocation = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(allocation.isThreadAllocatedMemorySupported());
+        TestAdapter adapter = new TestAdapter();
+        int calls = 100_000;
+        int length = 0;
+        for (int i = 0; i < calls; i++) {
+            length += adapter.getDocumentBase().length();
+        }
+        long id = Thread.currentThread().getId();
+        long before = allocation.getThreadAllocatedBytes(id);
+
+        // Act
+        for (int i = 0; i < calls; i++) {
+            length += adapter.getDocumentBase().length();
+        }
+
+        // Assert: a loose bound, as the exact figure depends on the JIT and any agent; the benchmarks measure it
+        // precisely with -prof gc
+        assertTrue(allocation.getThreadAllocatedBytes(id) - before < 16L * calls);
+        assertTrue(length > 0);
+    }
+
+    static class TestAdapter extends JPanel implements JavaAppletAdapter {
+    }
+}
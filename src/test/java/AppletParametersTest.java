@@ -2,7 +2,13 @@ import dev.jcps.AppletParameters;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -105,4 +111,166 @@ class AppletParametersTest {
         // Assert
         assertEquals(40, result);
     }
+
+    @Test
+    void typedGetters_ParseValuesWrittenAsStrings() {
+        // Arrange
+        appletParameters.paramMap.put("long", "12345678901");
+        appletParameters.paramMap.put("double", "2.5");
+        appletParameters.paramMap.put("bool", "TRUE");
+        appletParameters.paramMap.put("color", "#FF8000");
+
+        // Act & Assert
+        assertEquals(12345678901L, appletParameters.getLong("long"));
+        assertEquals(2.5, appletParameters.getDouble("double"));
+        assertTrue(appletParameters.getBoolean("bool"));
+        assertEquals(0xFF8000, appletParameters.getColor("color"));
+    }
+
+    @Test
+    void typedSetters_KeepStringViewConsistent() {
+        // Act
+        appletParameters.putLong("long", 7L);
+        appletParameters.putDouble("double", 0.25);
+        appletParameters.putBoolean("bool", true);
+        appletParameters.putColor("color", 0x00FF00);
+        appletParameters.putColor("alpha", 0x80FF0000);
+
+        // Assert
+        assertEquals("7", appletParameters.paramMap.get("long"));
+        assertEquals("0.25", appletParameters.paramMap.get("double"));
+        assertEquals("true", appletParameters.paramMap.get("bool"));
+        assertEquals("#00FF00", appletParameters.paramMap.get("color"));
+        assertEquals("#80FF0000", appletParameters.paramMap.get("alpha"));
+        assertEquals(0x80FF0000, appletParameters.getColor("alpha"));
+    }
+
+    @Test
+    void getInt_AfterLegacyPut_SeesNewValue() {
+        // Arrange
+        appletParameters.putInt("key", 1);
+        assertEquals(1, appletParameters.getInt("key"));
+
+        // Act
+        appletParameters.paramMap.put("key", "2");
+
+        // Assert
+        assertEquals(2, appletParameters.getInt("key"));
+    }
+
+    @Test
+    void getInt_NotANumber_Throws() {
+        // Arrange
+        appletParameters.paramMap.put("key", "abc");
+
+        // Act & Assert
+        assertThrows(NumberFormatException.class, () -> appletParameters.getInt("key"));
+    }
+
+    @Test
+    void typedGetters_MissingKey_ReturnDefaults() {
+        // Act & Assert
+        assertEquals(0L, appletParameters.getLong("none"));
+        assertEquals(0.0, appletParameters.getDouble("none"));
+        assertFalse(appletParameters.getBoolean("none"));
+        assertEquals(0, appletParameters.getColor("none"));
+    }
+
+    @Test
+    void paramMap_NullKeyAndValue_AreAcceptedLikeHashMap() {
+        // Act
+        appletParameters.paramMap.put(null, "5");
+        appletParameters.paramMap.put("empty", null);
+
+        // Assert
+        assertEquals("5", appletParameters.getString(null));
+        assertEquals(5, appletParameters.getInt(null));
+        assertTrue(appletParameters.paramMap.containsKey("empty"));
+        assertNull(appletParameters.getString("empty"));
+        assertEquals(0, appletParameters.getInt("empty"));
+        appletParameters.remove(null);
+        assertNull(appletParameters.getString(null));
+    }
+
+    @Test
+    void paramMap_IsStillAHashMap() {
+        // Arrange
+        HashMap<String, String> values = new HashMap<>();
+        values.put("key", "value");
+
+        // Act
+        HashMap<String, String> paramMap = new AppletParameters(values).paramMap;
+
+        // Assert
+        assertEquals(values, paramMap);
+        assertEquals(values, paramMap.clone());
+        assertEquals("{key=value}", paramMap.toString());
+    }
+
+    @Test
+    void paramMap_OverridesEveryPublicHashMapMethod() {
+        // Arrange
+        Class<?> type = appletParameters.paramMap.getClass();
+
+        // Act
+        List<String> missing = new ArrayList<>();
+        for (Method method : HashMap.class.getDeclaredMethods()) {
+            if (!Modifier.isPublic(method.getModifiers()) || Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            try {
+                type.getDeclaredMethod(method.getName(), method.getParameterTypes());
+            } catch (NoSuchMethodException e) {
+                missing.add(method.toString());
+            }
+        }
+
+        // Assert: a method left out would work on the empty table inherited from HashMap
+        assertEquals(List.of(), missing);
+    }
+
+    @Test
+    void paramMap_CompoundOperations_BehaveLikeHashMap() {
+        // Arrange
+        HashMap<String, String> paramMap = appletParameters.paramMap;
+        paramMap.put("a", "1");
+        paramMap.put("nil", null);
+
+        // Act & Assert
+        assertEquals("1", paramMap.putIfAbsent("a", "2"));
+        assertNull(paramMap.putIfAbsent("nil", "3"));
+        assertEquals("3", paramMap.get("nil"));
+        assertEquals("12", paramMap.merge("a", "2", String::concat));
+        assertNull(paramMap.merge("a", "x", (oldValue, value) -> null));
+        assertFalse(paramMap.containsKey("a"));
+        assertEquals("b", paramMap.computeIfAbsent("b", key -> key));
+        assertEquals("b!", paramMap.computeIfPresent("b", (key, value) -> value + "!"));
+        assertEquals("c", paramMap.compute("c", (key, value) -> value == null ? key : value));
+        assertTrue(paramMap.replace("c", "c", "d"));
+        assertEquals("d", paramMap.replace("c", "e"));
+        assertEquals("x", paramMap.getOrDefault("missing", "x"));
+    }
+
+    @Test
+    void paramMap_Views_WriteThrough() {
+        // Arrange
+        HashMap<String, String> paramMap = appletParameters.paramMap;
+        paramMap.put("a", "1");
+        paramMap.put("b", "2");
+
+        // Act
+        for (Map.Entry<String, String> entry : paramMap.entrySet()) {
+            entry.setValue(entry.getValue() + "0");
+        }
+        Iterator<String> keys = paramMap.keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next().equals("a")) {
+                keys.remove();
+            }
+        }
+        paramMap.values().remove("20");
+
+        // Assert
+        assertTrue(paramMap.isEmpty());
+    }
 }
@@ -0,0 +1,111 @@
+import dev.jcps.AssetCache;
+import dev.jcps.JavaAppletAdapter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssetCacheTest {
+
+    @TempDir
+    File tempDir;
+
+    private AssetCache<BufferedImage> cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new AssetCache<>(1024, i -> (long) i.getWidth() * i.getHeight() * 4);
+    }
+
+    @Test
+    void load_SecondCall_ReturnsCachedInstance() throws IOException {
+        // Arrange
+        int[] decodes = {0};
+        AssetCache.Loader<BufferedImage> loader = () -> {
+            decodes[0]++;
+            return new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB);
+        };
+
+        // Act
+        BufferedImage first = cache.load("file:/a.png", loader);
+        BufferedImage second = cache.load("file:/a.png", loader);
+
+        // Assert
+        assertSame(first, second);
+        assertEquals(1, decodes[0]);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(64, cache.getCurrentBytes());
+    }
+
+    @Test
+    void put_OverBudget_EvictsLeastRecentlyUsed() {
+        // Arrange: each 8x8 image weighs 256 bytes, the budget holds four
+        for (int i = 0; i < 4; i++) {
+            cache.put("img" + i, new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB));
+        }
+        cache.get("img0");
+
+        // Act
+        cache.put("img4", new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB));
+
+        // Assert
+        assertEquals(1, cache.getEvictionCount());
+        assertNotNull(cache.get("img0"));
+        assertNull(cache.get("img1"));
+        assertEquals(4, cache.size());
+    }
+
+    @Test
+    void put_LargerThanBudget_IsNotStored() {
+        // Act
+        cache.put("huge", new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB));
+
+        // Assert
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getCurrentBytes());
+    }
+
+    @Test
+    void setMaxBytes_Shrinking_Evicts() {
+        // Arrange
+        cache.put("a", new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB));
+        cache.put("b", new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB));
+
+        // Act
+        cache.setMaxBytes(256);
+
+        // Assert
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get("b"));
+    }
+
+    @Test
+    void getImage_SameFileTwice_DecodesOnce() throws IOException {
+        // Arrange
+        File png = new File(tempDir, "sprite.png");
+        ImageIO.write(new BufferedImage(2, 2, BufferedImage.TYPE_INT_RGB), "png", png);
+        JavaAppletAdapter adapter = new TestAdapter();
+        long hits = AssetCache.images().getHitCount();
+
+        // Act
+        Image first = adapter.getImage(tempDir.getPath(), "sprite.png");
+        Image second = adapter.getImage(tempDir.getPath(), "sprite.png");
+
+        // Assert
+        assertNotNull(first);
+        assertSame(first, second);
+        assertEquals(hits + 1, AssetCache.images().getHitCount());
+    }
+
+    static class TestAdapter extends JPanel implements JavaAppletAdapter {
+    }
+}
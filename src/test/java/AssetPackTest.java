@@ -0,0 +1,171 @@
+import dev.jcps.AssetCache;
+import dev.jcps.AssetPack;
+import dev.jcps.AssetPackWriter;
+import dev.jcps.AudioSample;
+import dev.jcps.JavaAppletAdapter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import javax.sound.sampled.AudioFormat;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssetPackTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void write_ThenOpen_ServesEntriesBySlice() throws IOException {
+        // Arrange
+        Path assets = Files.createDirectories(tempDir.resolve("assets/sub"));
+        Files.write(assets.resolve("a.txt"), new byte[]{1, 2, 3});
+        Files.write(tempDir.resolve("assets/b.txt"), new byte[]{4, 5});
+        AssetPackWriter writer = new AssetPackWriter();
+        assertEquals(2, writer.addDirectory(tempDir.resolve("assets")));
+        Path packFile = tempDir.resolve("game.pack");
+
+        // Act
+        writer.write(packFile);
+        AssetPack pack = AssetPack.open(packFile);
+
+        // Assert
+        assertEquals(2, pack.names().size());
+        ByteBuffer a = pack.get("sub/a.txt");
+        assertEquals(3, a.remaining());
+        assertEquals(3, a.get(2));
+        assertTrue(a.isReadOnly());
+        assertEquals(2, pack.get("b.txt").remaining());
+        assertNull(pack.get("missing"));
+    }
+
+    @Test
+    void open_NotAPack_Throws() throws IOException {
+        // Arrange
+        Path bogus = Files.write(tempDir.resolve("bogus.pack"), new byte[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11});
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> AssetPack.open(bogus));
+    }
+
+    @Test
+    void write_OverTwoGigabytes_Throws() throws IOException {
+        // Arrange
+        AssetPackWriter writer = new AssetPackWriter();
+        for (String name : new String[]{"a.bin", "b.bin"}) {
+            // Sparse files: only their size is read before the writer refuses
+            try (RandomAccessFile file = new RandomAccessFile(tempDir.resolve(name).toFile(), "rw")) {
+                file.setLength(1L << 30);
+            }
+            writer.add(name, tempDir.resolve(name));
+        }
+        Path out = tempDir.resolve("huge.pack");
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> writer.write(out));
+        assertFalse(Files.exists(out));
+    }
+
+    @Test
+    void open_OverTwoGigabytes_Throws() throws IOException {
+        // Arrange
+        Path huge = tempDir.resolve("huge.pack");
+        try (RandomAccessFile file = new RandomAccessFile(huge.toFile(), "rw")) {
+            file.setLength(3L << 30);
+        }
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> AssetPack.open(huge));
+    }
+
+    private AssetPack writePack(String name, int width, int frames, String... entries) throws IOException {
+        Path assets = Files.createDirectories(tempDir.resolve(name));
+        for (String entry : entries) {
+            if (entry.endsWith(".png")) {
+                ImageIO.write(new BufferedImage(width, 3, BufferedImage.TYPE_INT_ARGB), "png",
+                        assets.resolve(entry).toFile());
+            } else {
+                AudioSampleTest.writeWav(assets.resolve(entry).toFile(),
+                        new AudioFormat(8000, 16, 1, true, false), frames);
+            }
+        }
+        AssetPackWriter writer = new AssetPackWriter();
+        writer.addDirectory(assets);
+        Path packFile = tempDir.resolve(name + ".pack");
+        writer.write(packFile);
+        return AssetPack.open(packFile);
+    }
+
+    @Test
+    void mountedPack_IsCheckedBeforeFiles() throws IOException {
+        // Arrange: the base directory holds files of the same names with other contents
+        AssetPack pack = writePack("packed", 7, 50, "packed-sprite.png", "packed-pin.wav");
+        Path base = Files.createDirectories(tempDir.resolve("base"));
+        ImageIO.write(new BufferedImage(2, 2, BufferedImage.TYPE_INT_ARGB), "png",
+                base.resolve("packed-sprite.png").toFile());
+        AudioSampleTest.writeWav(base.resolve("packed-pin.wav").toFile(),
+                new AudioFormat(8000, 16, 1, true, false), 20);
+        JavaAppletAdapter adapter = new TestAdapter();
+
+        // Act
+        AssetPack.mount(pack);
+        Image image;
+        AudioSample sample;
+        try {
+            image = adapter.getImage(base.toString(), "packed-sprite.png");
+            sample = adapter.getAudioSample(base.toString(), "packed-pin.wav");
+        } finally {
+            AssetPack.unmount(pack);
+        }
+        Image unmountedImage = adapter.getImage(base.toString(), "packed-sprite.png");
+        AudioSample unmountedSample = adapter.getAudioSample(base.toString(), "packed-pin.wav");
+
+        // Assert
+        assertEquals(7, image.getWidth(null));
+        assertEquals(50, sample.getFrameLength());
+        assertEquals(2, unmountedImage.getWidth(null));
+        assertEquals(20, unmountedSample.getFrameLength());
+        assertNull(AssetCache.images().get("pack:packed-sprite.png"));
+        assertNull(AssetCache.samples().get("pack:packed-pin.wav"));
+    }
+
+    @Test
+    void mount_AfterMiss_FindsPackedAsset() throws IOException {
+        // Arrange
+        AssetPack pack = writePack("late", 5, 30, "late-sprite.png", "late-pin.wav");
+        String base = Files.createDirectories(tempDir.resolve("nothing")).toString();
+        JavaAppletAdapter adapter = new TestAdapter();
+        assertNull(adapter.getImage(base, "late-sprite.png"));
+        assertNull(adapter.getAudioSample(base, "late-pin.wav"));
+
+        // Act
+        AssetPack.mount(pack);
+        Image image;
+        AudioSample sample;
+        try {
+            image = adapter.getImage(base, "late-sprite.png");
+            sample = adapter.getAudioSample(base, "late-pin.wav");
+        } finally {
+            AssetPack.unmount(pack);
+        }
+
+        // Assert
+        assertNotNull(image);
+        assertEquals(5, image.getWidth(null));
+        assertNotNull(sample);
+        assertEquals(30, sample.getFrameLength());
+        assertNull(adapter.getImage(base, "late-sprite.png"));
+    }
+
+    static class TestAdapter extends JPanel implements JavaAppletAdapter {
+    }
+}
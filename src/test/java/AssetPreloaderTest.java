@@ -0,0 +1,90 @@
+import dev.jcps.AssetCache;
+import dev.jcps.AssetPreloader;
+import dev.jcps.JavaAppletAdapter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import javax.sound.sampled.AudioFormat;
+import javax.swing.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssetPreloaderTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void preload_Manifest_LoadsIntoSharedCaches() throws Exception {
+        // Arrange
+        ImageIO.write(new BufferedImage(3, 3, BufferedImage.TYPE_INT_RGB), "png", new File(tempDir, "a.png"));
+        ImageIO.write(new BufferedImage(5, 5, BufferedImage.TYPE_INT_RGB), "png", new File(tempDir, "b.png"));
+        AudioSampleTest.writeWav(new File(tempDir, "c.wav"), new AudioFormat(8000, 16, 1, true, false), 100);
+        TestAdapter adapter = new TestAdapter();
+        List<String> progress = new CopyOnWriteArrayList<>();
+
+        // Act
+        AssetPreloader.Batch batch;
+        try (AssetPreloader preloader = new AssetPreloader(2)) {
+            batch = preloader.preload(adapter, tempDir.getPath(), List.of("a.png", "b.png"), List.of("c.wav"),
+                    (name, done, total, ok) -> progress.add(name + ":" + ok));
+            batch.all().get(10, TimeUnit.SECONDS);
+        }
+
+        // Assert
+        assertEquals(3, batch.getTotal());
+        assertEquals(3, batch.getCompleted());
+        assertEquals(3, progress.size());
+        assertTrue(progress.contains("c.wav:true"));
+        assertSame(batch.getImages().get("a.png").get(), adapter.getImage(tempDir.getPath(), "a.png"));
+        assertSame(batch.getSounds().get("c.wav").get(), adapter.getAudioSample(tempDir.getPath(), "c.wav"));
+        assertNotNull(AssetCache.images().get("file:" + new File(tempDir, "b.png").getAbsolutePath()));
+    }
+
+    @Test
+    void preload_MissingAsset_ReportsFailure() throws Exception {
+        // Arrange
+        List<String> progress = new CopyOnWriteArrayList<>();
+
+        // Act
+        try (AssetPreloader preloader = new AssetPreloader(1)) {
+            AssetPreloader.Batch batch = preloader.preload(new TestAdapter(), tempDir.getPath(),
+                    List.of("missing.png"), List.of(), (name, done, total, ok) -> progress.add(name + ":" + ok));
+            batch.all().get(10, TimeUnit.SECONDS);
+
+            // Assert
+            assertNull(batch.getImages().get("missing.png").get());
+        }
+        assertEquals(List.of("missing.png:false"), progress);
+    }
+
+    @Test
+    void preload_DuplicateNames_CountsEachAssetOnce() throws Exception {
+        // Arrange
+        ImageIO.write(new BufferedImage(3, 3, BufferedImage.TYPE_INT_RGB), "png", new File(tempDir, "d.png"));
+        List<Integer> totals = new CopyOnWriteArrayList<>();
+
+        // Act
+        AssetPreloader.Batch batch;
+        try (AssetPreloader preloader = new AssetPreloader(2)) {
+            batch = preloader.preload(new TestAdapter(), tempDir.getPath(), List.of("d.png", "d.png", "d.png"),
+                    List.of(), (name, done, total, ok) -> totals.add(total));
+            batch.all().get(10, TimeUnit.SECONDS);
+        }
+
+        // Assert
+        assertEquals(1, batch.getTotal());
+        assertEquals(1, batch.getCompleted());
+        assertEquals(List.of(1), totals);
+        assertEquals(1, batch.getImages().size());
+    }
+
+    static class TestAdapter extends JPanel implements JavaAppletAdapter {
+    }
+}
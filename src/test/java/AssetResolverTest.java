@@ -0,0 +1,120 @@
+import dev.jcps.AssetResolver;
+import dev.jcps.JavaAppletAdapter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssetResolverTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void lookup_AfterRecord_ReturnsSourceAndCountsSavedProbes() {
+        // Arrange
+        AssetResolver resolver = new AssetResolver();
+        String key = AssetResolver.key(getClass(), "image", "/base/", "a.png");
+        resolver.record(key, AssetResolver.Source.URL, 2);
+
+        // Act
+        AssetResolver.Resolution r = resolver.lookup(key);
+
+        // Assert
+        assertEquals(AssetResolver.Source.URL, r.getSource());
+        assertFalse(r.isMissing());
+        assertEquals(1, resolver.getResolvedHitCount());
+        assertEquals(2, resolver.getProbesSavedCount());
+    }
+
+    @Test
+    void lookup_UnknownKey_ReturnsNull() {
+        // Arrange
+        AssetResolver resolver = new AssetResolver();
+
+        // Act & Assert
+        assertNull(resolver.lookup("nothing"));
+        assertEquals(1, resolver.getLookupCount());
+        assertEquals(0, resolver.getProbesSavedCount());
+    }
+
+    @Test
+    void forget_RemovesResolution() {
+        // Arrange
+        AssetResolver resolver = new AssetResolver();
+        resolver.recordMissing("k", 3);
+
+        // Act
+        resolver.forget("k");
+
+        // Assert
+        assertNull(resolver.lookup("k"));
+    }
+
+    @Test
+    void forgetNamed_RemovesMatchingNamesAndKeepsOthers() {
+        // Arrange
+        AssetResolver resolver = new AssetResolver();
+        String exact = AssetResolver.key(getClass(), "image", "/base/", "img/a.png");
+        String nested = AssetResolver.key(getClass(), "image", "/", "base/img/a.png");
+        String other = AssetResolver.key(getClass(), "image", "/base/", "img/b.png");
+        resolver.record(exact, AssetResolver.Source.FILE, 0);
+        resolver.record(nested, AssetResolver.Source.FILE, 0);
+        resolver.recordMissing(other, 4);
+
+        // Act
+        resolver.forgetNamed("img/a.png");
+
+        // Assert
+        assertNull(resolver.lookup(exact));
+        assertNull(resolver.lookup(nested));
+        assertNotNull(resolver.lookup(other));
+
+        // Act
+        resolver.forgetMissing();
+
+        // Assert
+        assertNull(resolver.lookup(other));
+    }
+
+    @Test
+    void getImage_MissingName_IsNotProbedAgain() {
+        // Arrange
+        AssetResolver resolver = AssetResolver.getInstance();
+        TestAdapter adapter = new TestAdapter();
+        assertNull(adapter.getImage(tempDir.getPath(), "nowhere.png"));
+        long probes = resolver.getProbeCount();
+        long missingHits = resolver.getMissingHitCount();
+
+        // Act
+        assertNull(adapter.getImage(tempDir.getPath(), "nowhere.png"));
+
+        // Assert
+        assertEquals(probes, resolver.getProbeCount());
+        assertEquals(missingHits + 1, resolver.getMissingHitCount());
+    }
+
+    @Test
+    void getImage_FoundFile_RemembersFileSource() throws IOException {
+        // Arrange
+        File png = new File(tempDir, "found.png");
+        ImageIO.write(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB), "png", png);
+        TestAdapter adapter = new TestAdapter();
+        String key = AssetResolver.key(TestAdapter.class, "image", tempDir.getPath() + "/", "found.png");
+
+        // Act
+        assertNotNull(adapter.getImage(tempDir.getPath(), "found.png"));
+
+        // Assert
+        assertEquals(AssetResolver.Source.FILE, AssetResolver.getInstance().lookup(key).getSource());
+    }
+
+    static class TestAdapter extends JPanel implements JavaAppletAdapter {
+    }
+}
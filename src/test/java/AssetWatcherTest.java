@@ -0,0 +1,95 @@
+import dev.jcps.AppletParameters;
+import dev.jcps.AssetCache;
+import dev.jcps.AssetWatcher;
+import dev.jcps.JavaAppletAdapter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssetWatcherTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void modifiedImage_IsReloadedIntoCache() throws Exception {
+        // Arrange
+        File file = new File(tempDir, "sprite.png");
+        writeImage(file, 0xFF0000);
+        TestAdapter adapter = new TestAdapter();
+        Image before = adapter.getImage(tempDir.getPath() + File.separator, "sprite.png");
+        assertNotNull(before);
+        String key = "file:" + file.getAbsolutePath();
+        CountDownLatch batch = new CountDownLatch(1);
+
+        try (AssetWatcher watcher = new AssetWatcher(tempDir.toPath(), 50)) {
+            watcher.addListener(changed -> {
+                if (changed.contains(file.toPath().toAbsolutePath())) {
+                    batch.countDown();
+                }
+            });
+
+            // Act
+            writeImage(file, 0x00FF00);
+
+            // Assert
+            assertTrue(batch.await(10, TimeUnit.SECONDS));
+            BufferedImage reloaded = AssetCache.images().get(key);
+            assertNotNull(reloaded);
+            assertNotSame(before, reloaded);
+            assertEquals(0x00FF00, reloaded.getRGB(0, 0) & 0xFFFFFF);
+            assertTrue(watcher.getReloadCount() >= 1);
+        } finally {
+            AssetCache.images().invalidate(key);
+        }
+    }
+
+    @Test
+    void watchParameters_ChangedFile_UpdatesAndRemovesKeys() throws Exception {
+        // Arrange
+        Path file = tempDir.toPath().resolve("game.properties");
+        Files.write(file, "speed=3\nlevel=one\n".getBytes(StandardCharsets.ISO_8859_1));
+        AppletParameters params = new AppletParameters();
+        CountDownLatch batch = new CountDownLatch(1);
+
+        try (AssetWatcher watcher = new AssetWatcher(tempDir.toPath(), 50)) {
+            watcher.watchParameters(file, params);
+            assertEquals(3, params.getInt("speed"));
+            watcher.addListener(changed -> batch.countDown());
+
+            // Act
+            Files.write(file, "speed=8\n".getBytes(StandardCharsets.ISO_8859_1));
+
+            // Assert
+            assertTrue(batch.await(10, TimeUnit.SECONDS));
+            assertEquals(8, params.getInt("speed"));
+            assertNull(params.getString("level"));
+        }
+    }
+
+    private static void writeImage(File file, int rgb) throws IOException {
+        BufferedImage image = new BufferedImage(2, 2, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 2; y++) {
+            for (int x = 0; x < 2; x++) {
+                image.setRGB(x, y, rgb);
+            }
+        }
+        ImageIO.write(image, "png", file);
+    }
+
+    static class TestAdapter extends JPanel implements JavaAppletAdapter {
+    }
+}
@@ -0,0 +1,133 @@
+import dev.jcps.AssetCache;
+import dev.jcps.AudioConverter;
+import dev.jcps.AudioSample;
+import dev.jcps.JavaAppletAdapter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.swing.*;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AudioConverterTest {
+
+    @TempDir
+    File tempDir;
+
+    private static AudioSample mono16(float rate, short... values) {
+        byte[] data = new byte[values.length * 2];
+        for (int i = 0; i < values.length; i++) {
+            data[i * 2] = (byte) values[i];
+            data[i * 2 + 1] = (byte) (values[i] >> 8);
+        }
+        return new AudioSample(new AudioFormat(rate, 16, 1, true, false), data);
+    }
+
+    private static short sampleAt(byte[] data, int index) {
+        return (short) (data[index * 2] & 0xFF | data[index * 2 + 1] << 8);
+    }
+
+    @Test
+    void convert_DoubleRateMonoToStereo_InterpolatesBetweenFrames() {
+        // Arrange
+        AudioSample sample = mono16(8000, (short) 0, (short) 1000, (short) 2000);
+
+        // Act
+        AudioSample converted = AudioConverter.convert(sample, new AudioFormat(16000, 16, 2, true, false));
+
+        // Assert
+        byte[] data = converted.getData();
+        assertEquals(6, converted.getFrameLength());
+        // Frame 1 falls halfway between input frames 0 and 1, on both channels
+        assertEquals(500, sampleAt(data, 2));
+        assertEquals(500, sampleAt(data, 3));
+        assertEquals(1000, sampleAt(data, 4));
+        // Past the last input frame the last frame is held
+        assertEquals(2000, sampleAt(data, 10));
+    }
+
+    @Test
+    void convert_UnsignedEightBit_ScalesToSixteenBits() {
+        // Arrange
+        AudioFormat format = new AudioFormat(AudioFormat.Encoding.PCM_UNSIGNED, 8000, 8, 1, 1, 8000, false);
+        AudioSample sample = new AudioSample(format, new byte[]{(byte) 0x80, (byte) 0xC0, 0x00});
+
+        // Act
+        AudioSample converted = AudioConverter.convert(sample, new AudioFormat(8000, 16, 1, true, false));
+
+        // Assert
+        byte[] data = converted.getData();
+        assertEquals(0, sampleAt(data, 0));
+        assertEquals(0x4000, sampleAt(data, 1));
+        assertEquals(Short.MIN_VALUE, sampleAt(data, 2));
+    }
+
+    @Test
+    void resample_HalfRate_SkipsFramesWithoutAllocating() {
+        // Arrange
+        short[] in = {0, 10, 20, 30, 40, 50};
+        short[] out = new short[4];
+
+        // Act
+        long position = AudioConverter.resample(in, 1, in.length, 0, AudioConverter.step(16000, 8000), out, 1, 3);
+
+        // Assert
+        assertArrayEquals(new short[]{0, 0, 20, 40}, out);
+        assertEquals(6L << 32, position);
+    }
+
+    @Test
+    void normalize_SameSampleTwice_ConvertsOnceIntoSampleCache() throws IOException {
+        // Arrange
+        AudioSample written = mono16(11025, new short[110]);
+        File wav = new File(tempDir, "tone.wav");
+        AudioSystem.write(new AudioInputStream(new ByteArrayInputStream(written.getData()), written.getFormat(), 110),
+                AudioFileFormat.Type.WAVE, wav);
+        AudioSample sample = new TestAdapter().getAudioSample(tempDir.getPath(), "tone.wav");
+        AssetCache<AudioSample> cache = AssetCache.samples();
+        int cached = cache.size();
+        long conversions = AudioConverter.getConversionCount();
+
+        // Act
+        AudioSample first = AudioConverter.normalize(sample);
+        AudioSample second = AudioConverter.normalize(sample);
+
+        // Assert
+        assertSame(first, second);
+        assertTrue(first.getFormat().matches(AudioConverter.getTargetFormat()));
+        assertEquals(conversions + 1, AudioConverter.getConversionCount());
+        assertEquals(cached + 1, cache.size());
+        assertSame(first, AudioConverter.normalize(first));
+    }
+
+    @Test
+    void normalize_UncachedSample_IsNotStored() {
+        // Arrange
+        AudioSample sample = mono16(11025, new short[110]);
+        int cached = AssetCache.samples().size();
+
+        // Act
+        AudioSample converted = AudioConverter.normalize(sample);
+
+        // Assert
+        assertTrue(converted.getFormat().matches(AudioConverter.getTargetFormat()));
+        assertEquals(cached, AssetCache.samples().size());
+    }
+
+    @Test
+    void setTargetFormat_EightBit_IsRejected() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> AudioConverter.setTargetFormat(new AudioFormat(8000, 8, 1, true, false)));
+    }
+
+    static class TestAdapter extends JPanel implements JavaAppletAdapter {
+    }
+}
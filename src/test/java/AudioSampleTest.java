@@ -0,0 +1,93 @@
+import dev.jcps.AssetCache;
+import dev.jcps.AudioSample;
+import dev.jcps.JavaAppletAdapter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.swing.*;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AudioSampleTest {
+
+    @TempDir
+    File tempDir;
+
+    static File writeWav(File file, AudioFormat format, int frames) throws IOException {
+        byte[] pcm = new byte[frames * format.getFrameSize()];
+        for (int i = 0; i < pcm.length; i++) {
+            pcm[i] = (byte) i;
+        }
+        AudioInputStream in = new AudioInputStream(new ByteArrayInputStream(pcm), format, frames);
+        AudioSystem.write(in, AudioFileFormat.Type.WAVE, file);
+        return file;
+    }
+
+    @Test
+    void decode_PcmStream_KeepsFormatAndFrames() throws IOException {
+        // Arrange
+        AudioFormat format = new AudioFormat(22050, 16, 1, true, false);
+        byte[] pcm = new byte[200];
+        AudioInputStream in = new AudioInputStream(new ByteArrayInputStream(pcm), format, 100);
+
+        // Act
+        AudioSample sample = AudioSample.decode(in);
+
+        // Assert
+        assertEquals(format.toString(), sample.getFormat().toString());
+        assertEquals(100, sample.getFrameLength());
+        assertEquals(200, sample.getData().length);
+    }
+
+    @Test
+    void decode_ULawStream_ConvertsToSignedPcm() throws IOException {
+        // Arrange
+        AudioFormat ulaw = new AudioFormat(AudioFormat.Encoding.ULAW, 8000, 8, 1, 1, 8000, false);
+        AudioInputStream in = new AudioInputStream(new ByteArrayInputStream(new byte[80]), ulaw, 80);
+
+        // Act
+        AudioSample sample = AudioSample.decode(in);
+
+        // Assert
+        assertEquals(AudioFormat.Encoding.PCM_SIGNED, sample.getFormat().getEncoding());
+        assertEquals(16, sample.getFormat().getSampleSizeInBits());
+        assertEquals(80, sample.getFrameLength());
+    }
+
+    @Test
+    void getAudioSample_SameFileTwice_DecodesOnce() throws IOException {
+        // Arrange
+        writeWav(new File(tempDir, "pin.wav"), new AudioFormat(8000, 16, 1, true, false), 400);
+        JavaAppletAdapter adapter = new TestAdapter();
+        long hits = AssetCache.samples().getHitCount();
+
+        // Act
+        AudioSample first = adapter.getAudioSample(tempDir.getPath(), "pin.wav");
+        AudioSample second = adapter.getAudioSample(tempDir.getPath(), "pin.wav");
+
+        // Assert
+        assertNotNull(first);
+        assertSame(first, second);
+        assertEquals(400, first.getFrameLength());
+        assertEquals(hits + 1, AssetCache.samples().getHitCount());
+    }
+
+    @Test
+    void getAudioSample_MissingFile_ReturnsNull() {
+        // Act
+        AudioSample sample = new TestAdapter().getAudioSample(tempDir.getPath(), "missing.wav");
+
+        // Assert
+        assertNull(sample);
+    }
+
+    static class TestAdapter extends JPanel implements JavaAppletAdapter {
+    }
+}
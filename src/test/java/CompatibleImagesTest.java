@@ -0,0 +1,82 @@
+import dev.jcps.CompatibleImages;
+import dev.jcps.JavaAppletAdapter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompatibleImagesTest {
+
+    @TempDir
+    File tempDir;
+
+    @AfterEach
+    void tearDown() {
+        CompatibleImages.setEnabled(false);
+    }
+
+    @Test
+    void transparencyOf_DetectsLeastNeededMode() {
+        // Arrange
+        BufferedImage opaque = new BufferedImage(2, 2, BufferedImage.TYPE_INT_ARGB);
+        opaque.setRGB(0, 0, 2, 2, new int[]{0xFF000000, 0xFFFFFFFF, 0xFF112233, 0xFF445566}, 0, 2);
+        BufferedImage bitmask = new BufferedImage(2, 1, BufferedImage.TYPE_INT_ARGB);
+        bitmask.setRGB(0, 0, 2, 1, new int[]{0x00000000, 0xFF123456}, 0, 2);
+        BufferedImage translucent = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        translucent.setRGB(0, 0, 0x80FFFFFF);
+
+        // Act & Assert
+        assertEquals(Transparency.OPAQUE, CompatibleImages.transparencyOf(opaque));
+        assertEquals(Transparency.BITMASK, CompatibleImages.transparencyOf(bitmask));
+        assertEquals(Transparency.TRANSLUCENT, CompatibleImages.transparencyOf(translucent));
+        assertEquals(Transparency.OPAQUE,
+                CompatibleImages.transparencyOf(new BufferedImage(1, 1, BufferedImage.TYPE_3BYTE_BGR)));
+    }
+
+    @Test
+    void toCompatible_KeepsPixels() {
+        // Arrange
+        BufferedImage src = new BufferedImage(3, 1, BufferedImage.TYPE_3BYTE_BGR);
+        src.setRGB(0, 0, 0xFF0000);
+        src.setRGB(1, 0, 0x00FF00);
+        src.setRGB(2, 0, 0x0000FF);
+
+        // Act
+        BufferedImage dst = CompatibleImages.toCompatible(src);
+
+        // Assert
+        assertNotSame(src, dst);
+        assertEquals(Transparency.OPAQUE, dst.getTransparency());
+        assertEquals(0xFFFF0000, dst.getRGB(0, 0));
+        assertEquals(0xFF00FF00, dst.getRGB(1, 0));
+        assertEquals(0xFF0000FF, dst.getRGB(2, 0));
+        assertSame(dst, CompatibleImages.toCompatible(dst));
+    }
+
+    @Test
+    void getImage_WhenEnabled_ReturnsConvertedImage() throws IOException {
+        // Arrange
+        BufferedImage bgr = new BufferedImage(4, 4, BufferedImage.TYPE_3BYTE_BGR);
+        ImageIO.write(bgr, "png", new File(tempDir, "bgr.png"));
+        CompatibleImages.setEnabled(true);
+
+        // Act
+        Image image = new TestAdapter().getImage(tempDir.getPath(), "bgr.png");
+
+        // Assert
+        assertInstanceOf(BufferedImage.class, image);
+        assertEquals(CompatibleImages.toCompatible((BufferedImage) image), image);
+        assertEquals(Transparency.OPAQUE, ((BufferedImage) image).getTransparency());
+    }
+
+    static class TestAdapter extends JPanel implements JavaAppletAdapter {
+    }
+}
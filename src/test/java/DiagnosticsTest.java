@@ -0,0 +1,145 @@
+import dev.jcps.AssetResolver;
+import dev.jcps.Diagnostics;
+import dev.jcps.JavaAppletAdapter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import javax.sound.sampled.AudioFormat;
+import javax.swing.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiagnosticsTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void histogram_Percentiles_AreBucketUpperBounds() {
+        // Arrange
+        Diagnostics.Histogram histogram = new Diagnostics.Histogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(1000);
+        }
+        histogram.record(1_000_000);
+
+        // Act & Assert
+        assertEquals(100, histogram.getCount());
+        assertEquals(1024, histogram.getPercentileNanos(50));
+        assertEquals(1024, histogram.getPercentileNanos(99));
+        assertEquals(1L << 20, histogram.getPercentileNanos(100));
+        assertEquals(99, histogram.getBucketCount(10));
+    }
+
+    @Test
+    void getImage_Decode_ReportsLatencyBytesAndSource() throws IOException {
+        // Arrange
+        ImageIO.write(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB), "png", new File(tempDir, "d.png"));
+        Diagnostics diagnostics = Diagnostics.getInstance();
+        List<String> decoded = new ArrayList<>();
+        Diagnostics.Listener listener = new Diagnostics.Listener() {
+            @Override
+            public void decoded(Diagnostics.Kind kind, String key, long nanos, long bytes) {
+                decoded.add(kind + " " + bytes);
+            }
+        };
+        long fileHits = diagnostics.getSuccessCount(AssetResolver.Source.FILE);
+        long bytes = diagnostics.getBytesRead();
+        diagnostics.addListener(listener);
+
+        // Act
+        try {
+            assertNotNull(new TestAdapter().getImage(tempDir.getPath(), "d.png"));
+        } finally {
+            diagnostics.removeListener(listener);
+        }
+
+        // Assert: a 4x4 RGB PNG decodes to three bytes per pixel
+        assertEquals(List.of("IMAGE 48"), decoded);
+        assertEquals(fileHits + 1, diagnostics.getSuccessCount(AssetResolver.Source.FILE));
+        assertEquals(bytes + 48, diagnostics.getBytesRead());
+    }
+
+    @Test
+    void getAudioSample_Missing_ReportsOneError() throws IOException {
+        // Arrange
+        Diagnostics diagnostics = Diagnostics.getInstance();
+        List<String> errors = new ArrayList<>();
+        Diagnostics.Listener listener = new Diagnostics.Listener() {
+            @Override
+            public void failed(Diagnostics.Kind kind, String name, String message) {
+                errors.add(kind + " " + name);
+            }
+        };
+        long failures = diagnostics.getFailureCount(AssetResolver.Source.FILE);
+        diagnostics.addListener(listener);
+
+        // Act
+        try {
+            assertNull(new TestAdapter().getAudioSample(tempDir.getPath(), "missing-diag.wav"));
+        } finally {
+            diagnostics.removeListener(listener);
+        }
+
+        // Assert
+        assertEquals(List.of("AUDIO missing-diag.wav"), errors);
+        assertEquals(failures + 1, diagnostics.getFailureCount(AssetResolver.Source.FILE));
+    }
+
+    @Test
+    void getAudioSample_Decode_RecordsAudioLatency() throws IOException {
+        // Arrange
+        AudioSampleTest.writeWav(new File(tempDir, "diag.wav"), new AudioFormat(8000, 16, 1, true, false), 100);
+        Diagnostics.Histogram latency = Diagnostics.getInstance().getLatency(Diagnostics.Kind.AUDIO);
+        long count = latency.getCount();
+
+        // Act
+        assertNotNull(new TestAdapter().getAudioSample(tempDir.getPath(), "diag.wav"));
+
+        // Assert
+        assertEquals(count + 1, latency.getCount());
+    }
+
+    @Test
+    void showStatus_ReachesListeners() {
+        // Arrange
+        List<String> messages = new ArrayList<>();
+        Diagnostics.Listener listener = new Diagnostics.Listener() {
+            @Override
+            public void message(String message) {
+                messages.add(message);
+            }
+        };
+        Diagnostics.getInstance().addListener(listener);
+
+        // Act
+        try {
+            new TestAdapter().showStatus("loading");
+        } finally {
+            Diagnostics.getInstance().removeListener(listener);
+        }
+
+        // Assert
+        assertEquals(List.of("loading"), messages);
+    }
+
+    @Test
+    void registerMBean_ExposesCounters() throws Exception {
+        // Act
+        var name = Diagnostics.registerMBean();
+
+        // Assert
+        assertEquals(Diagnostics.registerMBean(), name);
+        assertNotNull(ManagementFactory.getPlatformMBeanServer().getAttribute(name, "BytesRead"));
+    }
+
+    static class TestAdapter extends JPanel implements JavaAppletAdapter {
+    }
+}
@@ -0,0 +1,141 @@
+import dev.jcps.DirtyRegionManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DirtyRegionManagerTest {
+
+    private JPanel panel;
+    private List<Rectangle> clips;
+    private List<Shape> shapes;
+    private Color fill;
+    private DirtyRegionManager manager;
+
+    @BeforeEach
+    void setUp() {
+        panel = new JPanel();
+        panel.setSize(100, 50);
+        panel.setBackground(Color.BLACK);
+        clips = new ArrayList<>();
+        shapes = new ArrayList<>();
+        fill = Color.RED;
+        manager = new DirtyRegionManager(panel, g -> {
+            clips.add(g.getClipBounds());
+            shapes.add(g.getClip());
+            g.setColor(fill);
+            g.fillRect(0, 0, 100, 50);
+        });
+    }
+
+    @Test
+    void render_FirstFrame_PaintsEverything() {
+        // Act
+        manager.render();
+
+        // Assert
+        assertEquals(List.of(new Rectangle(0, 0, 100, 50)), clips);
+        assertEquals(5000, manager.getLastPixelsPainted());
+        assertEquals(0, manager.getLastPixelsSaved());
+        assertFalse(manager.isDirty());
+    }
+
+    @Test
+    void render_DirtyRectangle_RepaintsOnlyIt() {
+        // Arrange
+        manager.render();
+        clips.clear();
+        fill = Color.GREEN;
+
+        // Act
+        manager.markDirty(10, 10, 5, 5);
+        BufferedImage buffer = manager.render();
+
+        // Assert
+        assertEquals(List.of(new Rectangle(10, 10, 5, 5)), clips);
+        assertEquals(0x00FF00, buffer.getRGB(12, 12) & 0xFFFFFF);
+        assertEquals(0xFF0000, buffer.getRGB(50, 30) & 0xFFFFFF);
+        assertEquals(25, manager.getLastPixelsPainted());
+        assertEquals(4975, manager.getLastPixelsSaved());
+        assertEquals(4975, manager.getPixelsSaved());
+    }
+
+    @Test
+    void render_NearbyRectangles_AreMerged() {
+        // Arrange
+        manager.render();
+        clips.clear();
+        shapes.clear();
+
+        // Act
+        manager.markDirty(10, 10, 8, 8);
+        manager.markDirty(12, 12, 8, 8);
+        manager.markDirty(40, 40, 4, 4);
+        manager.markDirty(95, 45, 20, 20);
+        manager.render();
+
+        // Assert
+        assertEquals(3, manager.getLastRectangleCount());
+        assertEquals(1, shapes.size());
+        Shape clip = shapes.get(0);
+        assertTrue(clip.contains(new Rectangle(10, 10, 10, 10)));
+        assertTrue(clip.contains(new Rectangle(40, 40, 4, 4)));
+        // Clipped to the panel
+        assertTrue(clip.contains(new Rectangle(95, 45, 5, 5)));
+        assertFalse(clip.contains(30, 30));
+        assertEquals(100 + 16 + 25, manager.getLastPixelsPainted());
+    }
+
+    @Test
+    void render_ManyRectangles_RepaintsTheirBoundingBoxOnce() {
+        // Arrange
+        manager.render();
+        clips.clear();
+
+        // Act
+        for (int i = 0; i < 1000; i++) {
+            manager.markDirty(i % 50 * 2, i % 25 * 2, 1, 1);
+        }
+        manager.render();
+
+        // Assert
+        assertEquals(1, manager.getLastRectangleCount());
+        assertEquals(List.of(new Rectangle(0, 0, 99, 49)), clips);
+    }
+
+    @Test
+    void render_Resize_RepaintsEverything() {
+        // Arrange
+        manager.render();
+        clips.clear();
+
+        // Act
+        panel.setSize(60, 40);
+        BufferedImage buffer = manager.render();
+
+        // Assert
+        assertEquals(60, buffer.getWidth());
+        assertEquals(List.of(new Rectangle(0, 0, 60, 40)), clips);
+    }
+
+    @Test
+    void render_NothingDirty_PaintsNothing() {
+        // Arrange
+        manager.render();
+        clips.clear();
+
+        // Act
+        manager.render();
+
+        // Assert
+        assertTrue(clips.isEmpty());
+        assertEquals(5000, manager.getLastPixelsSaved());
+        assertEquals(2, manager.getFrameCount());
+    }
+}
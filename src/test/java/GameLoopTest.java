@@ -0,0 +1,185 @@
+import dev.jcps.AppletHost;
+import dev.jcps.FrameStats;
+import dev.jcps.GameLoop;
+import dev.jcps.JavaAppletAdapter;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.awt.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+class GameLoopTest {
+
+    private static final long MS = 1_000_000L;
+
+    private final List<Double> alphas = new ArrayList<>();
+    private int updates;
+
+    private GameLoop newLoop(int maxUpdatesPerFrame) {
+        return new GameLoop(new GameLoop.Callbacks() {
+            @Override
+            public void update(double dt) {
+                assertEquals(0.01, dt, 1e-9);
+                updates++;
+            }
+
+            @Override
+            public void render(double alpha) {
+                alphas.add(alpha);
+            }
+        }, 100, 0, maxUpdatesPerFrame);
+    }
+
+    @Test
+    void advance_RunsFixedStepsForElapsedTime() {
+        // Arrange
+        GameLoop loop = newLoop(10);
+        loop.advance(0);
+
+        // Act
+        int ran = loop.advance(25 * MS);
+
+        // Assert
+        assertEquals(2, ran);
+        assertEquals(2, updates);
+        assertEquals(0.5, loop.getAlpha(), 1e-9);
+        assertEquals(2, alphas.size());
+    }
+
+    @Test
+    void advance_LeftoverTimeCarriesIntoNextFrame() {
+        // Arrange
+        GameLoop loop = newLoop(10);
+        loop.advance(0);
+        loop.advance(15 * MS);
+
+        // Act
+        int ran = loop.advance(20 * MS);
+
+        // Assert
+        assertEquals(1, ran);
+        assertEquals(2, updates);
+        assertEquals(0.0, loop.getAlpha(), 1e-9);
+    }
+
+    @Test
+    void advance_FarBehind_DropsBacklog() {
+        // Arrange
+        GameLoop loop = newLoop(3);
+        loop.advance(0);
+
+        // Act
+        int ran = loop.advance(100 * MS);
+
+        // Assert
+        assertEquals(3, ran);
+        assertEquals(7, loop.getStats().getDroppedUpdates());
+    }
+
+    @Test
+    void advance_NegativeClock_StartsOnFirstFrameWithoutRecordingIt() {
+        // Arrange
+        GameLoop loop = newLoop(10);
+        long start = Long.MIN_VALUE / 2;
+        loop.advance(start);
+
+        // Act
+        int ran = loop.advance(start + 25 * MS);
+
+        // Assert
+        assertEquals(2, ran);
+        assertEquals(1, loop.getStats().getTotalFrames());
+        assertEquals(25, loop.getStats().getMaxMillis(), 1e-9);
+    }
+
+    @Test
+    void frameStats_SummariseWindow() {
+        // Arrange
+        FrameStats stats = new FrameStats(4);
+
+        // Act
+        stats.recordFrame(10 * MS);
+        stats.recordFrame(10 * MS);
+        stats.recordFrame(20 * MS);
+        stats.recordFrame(40 * MS);
+        stats.recordFrame(20 * MS); // pushes the first frame out of the window
+
+        // Assert
+        assertEquals(22.5, stats.getMeanMillis(), 1e-9);
+        assertEquals(40, stats.getMaxMillis(), 1e-9);
+        assertEquals(40, stats.getPercentileMillis(99), 1e-9);
+        assertEquals(10, stats.getPercentileMillis(1), 1e-9);
+        assertEquals(5, stats.getTotalFrames());
+    }
+
+    @Test
+    void run_StopsWhenAsked() throws InterruptedException {
+        // Arrange
+        GameLoop loop = new GameLoop(new GameLoop.Callbacks() {
+            @Override
+            public void update(double dt) {
+            }
+
+            @Override
+            public void render(double alpha) {
+            }
+        }, 100, 200, 5);
+        Thread t = new Thread(loop);
+
+        // Act
+        t.start();
+        Thread.sleep(50);
+        loop.stop();
+        t.join(1000);
+
+        // Assert
+        assertFalse(t.isAlive());
+        assertTrue(loop.getStats().getTotalFrames() > 0);
+    }
+
+    @Test
+    void run_StoppedBeforeThreadStarts_ReturnsAtOnce() throws InterruptedException {
+        // Arrange
+        GameLoop loop = newLoop(5);
+        Thread t = new Thread(loop);
+
+        // Act
+        loop.stop();
+        t.start();
+        t.join(1000);
+
+        // Assert
+        assertFalse(t.isAlive());
+        assertFalse(loop.isRunning());
+        assertTrue(alphas.isEmpty());
+    }
+
+    @Test
+    void launch_ShutdownStraightAfter_Returns() {
+        assumeFalse(GraphicsEnvironment.isHeadless());
+        // Arrange
+        TestAdapter adapter = new TestAdapter();
+
+        // Act & Assert: the loop thread may not have reached run() when shutdown() stops it
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            AppletHost host = AppletHost.launch(adapter, "GameLoopTest", 20, 20);
+            host.shutdown();
+            assertNull(host.getLoop());
+        });
+        assertTrue(adapter.destroyed);
+    }
+
+    static class TestAdapter extends JPanel implements JavaAppletAdapter {
+        volatile boolean destroyed;
+
+        @Override
+        public void destroy() {
+            destroyed = true;
+        }
+    }
+}
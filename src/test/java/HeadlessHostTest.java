@@ -0,0 +1,150 @@
+import dev.jcps.AudioSample;
+import dev.jcps.HeadlessHost;
+import dev.jcps.JavaAppletAdapter;
+import dev.jcps.SoftwareMixer;
+import dev.jcps.Updatable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeadlessHostTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void capture_RawRgb_WritesFramesInOrder() throws Exception {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CountingAdapter adapter = new CountingAdapter();
+        HeadlessHost host = new HeadlessHost(adapter, 4, 3);
+        host.setUpdatesPerSecond(30);
+        host.setFramesPerSecond(30);
+        host.setEncoderThreads(3);
+        host.setOutput(HeadlessHost.FrameOutput.stream(out), HeadlessHost.Format.RGB);
+
+        // Act
+        host.capture(8);
+        host.close();
+
+        // Assert
+        byte[] frames = out.toByteArray();
+        assertEquals(8 * 4 * 3 * 3, frames.length);
+        for (int i = 0; i < 8; i++) {
+            // One update per frame: frame i shows the count after i updates
+            assertEquals(i * 10, frames[i * 36] & 0xFF, "frame " + i);
+        }
+        assertTrue(adapter.destroyed);
+    }
+
+    @Test
+    void capture_Png_WritesOneFilePerFrame() throws Exception {
+        // Arrange
+        Path dir = tempDir.toPath().resolve("frames");
+        try (HeadlessHost host = new HeadlessHost(new CountingAdapter(), 5, 5)) {
+            host.setOutput(HeadlessHost.FrameOutput.directory(dir, "frame", HeadlessHost.Format.PNG),
+                    HeadlessHost.Format.PNG);
+
+            // Act
+            host.capture(3);
+        }
+
+        // Assert
+        BufferedImage last = ImageIO.read(dir.resolve("frame-000002.png").toFile());
+        assertNotNull(last);
+        assertEquals(5, last.getWidth());
+        assertNotNull(ImageIO.read(dir.resolve("frame-000000.png").toFile()));
+    }
+
+    @Test
+    void audio_WavSink_KeepsStepWithFrames() throws Exception {
+        // Arrange
+        File wav = new File(tempDir, "out.wav");
+        AudioSample tone = new AudioSample(new AudioFormat(8000, 16, 1, true, false), new byte[16000]);
+        try (HeadlessHost host = new HeadlessHost(new CountingAdapter(), 2, 2)) {
+            host.setFramesPerSecond(10);
+            host.setAudioSink(SoftwareMixer.Sink.wavFile(wav, 8000), 8000);
+            host.start();
+            host.getMixer().play(SoftwareMixer.prepare(tone));
+
+            // Act
+            host.capture(21);
+        }
+
+        // Assert
+        try (AudioInputStream in = AudioSystem.getAudioInputStream(wav)) {
+            assertEquals(2, in.getFormat().getChannels());
+            // Two seconds of audio, in whole blocks
+            long frames = in.getFrameLength();
+            assertTrue(frames > 16000 - SoftwareMixer.DEFAULT_BLOCK_FRAMES && frames <= 16000, "frames " + frames);
+        }
+    }
+
+    @Test
+    void capture_OutputThrowsUnchecked_ReportsInsteadOfHanging() {
+        // Arrange
+        HeadlessHost host = new HeadlessHost(new CountingAdapter(), 2, 2);
+        host.setEncoderThreads(2);
+        host.setOutput((index, data) -> {
+            throw new IllegalStateException("disk gone");
+        }, HeadlessHost.Format.RGB);
+
+        // Act
+        IOException e = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> assertThrows(IOException.class, () -> host.capture(4)));
+
+        // Assert
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertThrows(IOException.class, host::close));
+    }
+
+    @Test
+    void snapshot_PaintsWithoutAdvancing() {
+        // Arrange
+        CountingAdapter adapter = new CountingAdapter();
+        HeadlessHost host = new HeadlessHost(adapter, 3, 3);
+
+        // Act
+        BufferedImage image = host.snapshot();
+
+        // Assert
+        assertEquals(0, image.getRGB(1, 1) & 0xFFFFFF);
+        assertEquals(0, host.getFrameCount());
+        assertEquals(0, adapter.updates);
+    }
+
+    static class CountingAdapter extends JPanel implements JavaAppletAdapter, Updatable {
+        volatile int updates;
+        volatile boolean destroyed;
+
+        @Override
+        public void update(double dt) {
+            updates++;
+        }
+
+        @Override
+        public void paint(Graphics g) {
+            g.setColor(new Color(updates * 10 % 256, 0, 0));
+            g.fillRect(0, 0, getWidth(), getHeight());
+        }
+
+        @Override
+        public void destroy() {
+            destroyed = true;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+import dev.jcps.AssetCache;
+import dev.jcps.ImageAtlas;
+import dev.jcps.JavaAppletAdapter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageAtlasTest {
+
+    @TempDir
+    File tempDir;
+
+    private static BufferedImage filled(int width, int height, int argb) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, argb);
+            }
+        }
+        return image;
+    }
+
+    @Test
+    void add_SmallImages_ShareOneSheetAndDrawBack() {
+        // Arrange
+        ImageAtlas atlas = new ImageAtlas(64, 64);
+        BufferedImage target = new BufferedImage(20, 10, BufferedImage.TYPE_INT_ARGB);
+
+        // Act
+        ImageAtlas.Region red = atlas.add("red", filled(10, 10, 0xFFFF0000));
+        ImageAtlas.Region blue = atlas.add("blue", filled(10, 10, 0xFF0000FF));
+        Graphics2D g = target.createGraphics();
+        red.draw(g, 0, 0);
+        blue.draw(g, 10, 0);
+        g.dispose();
+
+        // Assert
+        assertEquals(1, atlas.getSheets().size());
+        assertSame(red.getSheet(), blue.getSheet());
+        assertEquals(0xFFFF0000, target.getRGB(0, 0));
+        assertEquals(0xFFFF0000, target.getRGB(9, 9));
+        assertEquals(0xFF0000FF, target.getRGB(10, 0));
+        assertEquals(0xFF0000FF, target.getRGB(19, 9));
+        assertSame(blue, atlas.get("blue"));
+    }
+
+    @Test
+    void add_ShelfFull_StartsNewShelfThenNewSheet() {
+        // Arrange
+        ImageAtlas atlas = new ImageAtlas(32, 32, 0);
+        ImageAtlas.Region[] regions = new ImageAtlas.Region[5];
+
+        // Act
+        for (int i = 0; i < regions.length; i++) {
+            regions[i] = atlas.add("r" + i, filled(16, 16, 0xFF00FF00));
+        }
+
+        // Assert
+        assertEquals(16, regions[1].getX());
+        assertEquals(0, regions[1].getY());
+        assertEquals(0, regions[2].getX());
+        assertEquals(16, regions[2].getY());
+        assertEquals(2, atlas.getSheets().size());
+        assertNotSame(regions[0].getSheet(), regions[4].getSheet());
+        assertEquals(5 * 256 / (2.0 * 1024), atlas.getFillRatio(), 1e-9);
+    }
+
+    @Test
+    void add_ImageLargerThanSheet_GetsOwnSheet() {
+        // Arrange
+        ImageAtlas atlas = new ImageAtlas(32, 32);
+
+        // Act
+        ImageAtlas.Region big = atlas.add("big", filled(100, 40, 0xFF123456));
+
+        // Assert
+        assertEquals(102, big.getSheet().getWidth());
+        assertEquals(0xFF123456, big.toImage().getRGB(99, 39));
+    }
+
+    @Test
+    void addAll_PacksTallestFirst() {
+        // Arrange
+        ImageAtlas atlas = new ImageAtlas(64, 64, 0);
+        Map<String, Image> images = new LinkedHashMap<>();
+        images.put("short", filled(8, 4, 0xFF000000));
+        images.put("tall", filled(8, 30, 0xFF000000));
+
+        // Act
+        Map<String, ImageAtlas.Region> regions = atlas.addAll(images);
+
+        // Assert
+        assertEquals(0, regions.get("tall").getX());
+        assertEquals(8, regions.get("short").getX());
+    }
+
+    @Test
+    void add_FromAdapter_LoadsAndPacks() throws IOException {
+        // Arrange
+        ImageIO.write(filled(5, 5, 0xFFABCDEF), "png", new File(tempDir, "atlas.png"));
+        ImageAtlas atlas = new ImageAtlas(64, 64);
+        int cached = AssetCache.images().size();
+
+        // Act
+        ImageAtlas.Region region = atlas.add(new TestAdapter(), tempDir.getPath(), "atlas.png");
+
+        // Assert
+        assertEquals(cached, AssetCache.images().size());
+        assertEquals(5, region.getWidth());
+        assertEquals(0xFFABCDEF, region.toImage().getRGB(2, 2));
+        assertNull(atlas.add(new TestAdapter(), tempDir.getPath(), "missing-atlas.png"));
+    }
+
+    static class TestAdapter extends JPanel implements JavaAppletAdapter {
+    }
+}
@@ -0,0 +1,192 @@
+import dev.jcps.InputQueue;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class InputQueueTest {
+    private final JPanel panel = new JPanel();
+
+    private MouseEvent mouse(int id, int x, int y, int modifiersEx, int button) {
+        return new MouseEvent(panel, id, 0L, modifiersEx, x, y, 1, false, button);
+    }
+
+    private KeyEvent key(int id, int code, char c) {
+        return new KeyEvent(panel, id, 0L, 0, code, c);
+    }
+
+    @Test
+    void drain_PassesEventsInOrder() {
+        // Arrange
+        InputQueue queue = new InputQueue(8);
+        RecordingHandler handler = new RecordingHandler();
+        queue.mouseMoved(mouse(MouseEvent.MOUSE_MOVED, 1, 2, 0, MouseEvent.NOBUTTON));
+        queue.mousePressed(mouse(MouseEvent.MOUSE_PRESSED, 3, 4, InputEvent.SHIFT_DOWN_MASK, MouseEvent.BUTTON1));
+        queue.keyPressed(key(KeyEvent.KEY_PRESSED, KeyEvent.VK_A, 'a'));
+        queue.keyReleased(key(KeyEvent.KEY_RELEASED, KeyEvent.VK_UP, KeyEvent.CHAR_UNDEFINED));
+
+        // Act
+        int drained = queue.drain(handler);
+
+        // Assert
+        assertEquals(4, drained);
+        assertEquals(List.of("move 1,2 0", "down 3,4 1 x1", "keyDown 97 0", "keyUp " + InputQueue.UP + " 0"),
+                handler.events);
+        assertEquals(0, queue.size());
+        assertEquals(0, queue.drain(handler));
+    }
+
+    @Test
+    void modifiers_RightButton_IsReportedAsMeta() {
+        // Arrange
+        InputQueue queue = new InputQueue(8);
+        RecordingHandler handler = new RecordingHandler();
+
+        // Act
+        queue.mousePressed(mouse(MouseEvent.MOUSE_PRESSED, 0, 0, InputEvent.BUTTON3_DOWN_MASK, MouseEvent.BUTTON3));
+        queue.mouseReleased(mouse(MouseEvent.MOUSE_RELEASED, 0, 0, 0, MouseEvent.BUTTON3));
+        queue.keyPressed(key(KeyEvent.KEY_PRESSED, KeyEvent.VK_SHIFT, KeyEvent.CHAR_UNDEFINED));
+        queue.drain(handler);
+
+        // Assert
+        assertEquals(List.of("down 0,0 " + InputQueue.META_MASK + " x1", "up 0,0 " + InputQueue.META_MASK),
+                handler.events);
+    }
+
+    @Test
+    void offer_FullBuffer_DropsNewEvents() {
+        // Arrange
+        InputQueue queue = new InputQueue(3);
+        RecordingHandler handler = new RecordingHandler();
+
+        // Act
+        for (int i = 0; i < 6; i++) {
+            queue.mouseDragged(mouse(MouseEvent.MOUSE_DRAGGED, i, 0, 0, MouseEvent.NOBUTTON));
+        }
+        queue.drain(handler);
+
+        // Assert
+        assertEquals(4, queue.getCapacity());
+        assertEquals(2, queue.getDroppedCount());
+        assertEquals(List.of("drag 0,0 0", "drag 1,0 0", "drag 2,0 0", "drag 3,0 0"), handler.events);
+    }
+
+    @Test
+    void drain_ConcurrentProducer_LosesNothing() throws Exception {
+        // Arrange
+        InputQueue queue = new InputQueue(16);
+        int count = 100_000;
+        MouseEvent[] events = new MouseEvent[count];
+        for (int i = 0; i < count; i++) {
+            events[i] = mouse(MouseEvent.MOUSE_MOVED, i, -i, 0, MouseEvent.NOBUTTON);
+        }
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        Thread producer = new Thread(() -> {
+            for (MouseEvent event : events) {
+                // Yield rather than spin, so the test also passes on a single processor
+                while (queue.size() == queue.getCapacity() && System.nanoTime() < deadline) {
+                    Thread.yield();
+                }
+                queue.mouseMoved(event);
+            }
+        });
+        int[] next = new int[1];
+        boolean[] ordered = {true};
+        InputQueue.Handler handler = new InputQueue.Handler() {
+            @Override
+            public void mouseMove(int x, int y, int modifiers) {
+                ordered[0] &= x == next[0] && y == -next[0];
+                next[0]++;
+            }
+        };
+
+        // Act
+        producer.start();
+        while (next[0] < count && System.nanoTime() < deadline) {
+            if (queue.drain(handler) == 0) {
+                Thread.yield();
+            }
+        }
+        producer.join();
+
+        // Assert
+        assertEquals(count, next[0]);
+        assertTrue(ordered[0]);
+        assertEquals(0, queue.getDroppedCount());
+    }
+
+    @Test
+    void offerAndDrain_AllocateLessThanAnObjectPerEvent() {
+        // Arrange
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocation = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(allocation.isThreadAllocatedMemorySupported());
+        InputQueue queue = new InputQueue(64);
+        MouseEvent move = mouse(MouseEvent.MOUSE_MOVED, 5, 5, 0, MouseEvent.NOBUTTON);
+        KeyEvent press = key(KeyEvent.KEY_PRESSED, KeyEvent.VK_LEFT, KeyEvent.CHAR_UNDEFINED);
+        InputQueue.Handler handler = new InputQueue.Handler() {
+        };
+        int rounds = 50_000;
+        for (int i = 0; i < rounds; i++) {
+            queue.mouseMoved(move);
+            queue.keyPressed(press);
+            queue.drain(handler);
+        }
+        long id = Thread.currentThread().getId();
+        long before = allocation.getThreadAllocatedBytes(id);
+
+        // Act
+        for (int i = 0; i < rounds; i++) {
+            queue.mouseMoved(move);
+            queue.keyPressed(press);
+            queue.drain(handler);
+        }
+
+        // Assert: a loose bound, as the exact figure depends on the JIT and any agent
+        assertTrue(allocation.getThreadAllocatedBytes(id) - before < 16L * 2 * rounds);
+    }
+
+    static class RecordingHandler implements InputQueue.Handler {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void mouseDown(int x, int y, int modifiers, int clickCount) {
+            events.add("down " + x + "," + y + " " + modifiers + " x" + clickCount);
+        }
+
+        @Override
+        public void mouseUp(int x, int y, int modifiers) {
+            events.add("up " + x + "," + y + " " + modifiers);
+        }
+
+        @Override
+        public void mouseMove(int x, int y, int modifiers) {
+            events.add("move " + x + "," + y + " " + modifiers);
+        }
+
+        @Override
+        public void mouseDrag(int x, int y, int modifiers) {
+            events.add("drag " + x + "," + y + " " + modifiers);
+        }
+
+        @Override
+        public void keyDown(int key, int modifiers) {
+            events.add("keyDown " + key + " " + modifiers);
+        }
+
+        @Override
+        public void keyUp(int key, int modifiers) {
+            events.add("keyUp " + key + " " + modifiers);
+        }
+    }
+}
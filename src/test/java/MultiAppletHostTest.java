@@ -0,0 +1,137 @@
+import dev.jcps.JavaAppletAdapter;
+import dev.jcps.MultiAppletHost;
+import dev.jcps.Updatable;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.awt.*;
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiAppletHostTest {
+
+    @Test
+    void instances_KeepParametersAndStatusApart() throws Exception {
+        // Arrange
+        Map<String, String> statuses = new ConcurrentHashMap<>();
+        try (MultiAppletHost host = new MultiAppletHost(2)) {
+            host.getSharedParameters().putString("theme", "dark");
+            host.addStatusListener((instance, status) -> statuses.put(instance.getName(), status));
+
+            // Act
+            TestAdapter red = new TestAdapter();
+            TestAdapter blue = new TestAdapter();
+            MultiAppletHost.Instance a = host.add("red", red, 20, 10, Map.of("color", "#FF0000"));
+            MultiAppletHost.Instance b = host.add("blue", blue, 20, 10, Map.of("color", "#0000FF"));
+            assertTrue(red.painted.await(5, TimeUnit.SECONDS));
+            assertTrue(blue.painted.await(5, TimeUnit.SECONDS));
+            a.getParameters().putString("score", "10");
+
+            // Assert
+            assertEquals("#FF0000", red.getParameter("color"));
+            assertEquals("#0000FF", blue.getParameter("color"));
+            assertEquals("dark", blue.getParameter("theme"));
+            assertNull(blue.getParameter("score"));
+            assertEquals("started #FF0000", a.getStatus());
+            assertEquals("started #0000FF", b.getStatus());
+            assertEquals("started #0000FF", statuses.get("blue"));
+            assertEquals(0xFF0000, a.snapshot().getRGB(5, 5) & 0xFFFFFF);
+            assertEquals(0x0000FF, b.snapshot().getRGB(5, 5) & 0xFFFFFF);
+        }
+    }
+
+    @Test
+    void failingInstance_StopsAlone() throws Exception {
+        // Arrange
+        try (MultiAppletHost host = new MultiAppletHost(2)) {
+            TestAdapter healthy = new TestAdapter();
+            FailingAdapter failing = new FailingAdapter();
+
+            // Act
+            MultiAppletHost.Instance ok = host.add("ok", healthy, 10, 10, Map.of("color", "#00FF00"));
+            MultiAppletHost.Instance bad = host.add("bad", failing, 10, 10);
+            assertTrue(healthy.painted.await(5, TimeUnit.SECONDS));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (bad.isRunning() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            int frames = healthy.frames;
+            Thread.sleep(100);
+
+            // Assert
+            assertFalse(bad.isRunning());
+            assertInstanceOf(IllegalStateException.class, bad.getFailure());
+            assertTrue(ok.isRunning());
+            assertTrue(healthy.frames > frames);
+            assertTrue(failing.destroyed.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of(ok), host.getInstances());
+        }
+    }
+
+    @Test
+    void failingInit_CancelsTheTicks() throws Exception {
+        // Arrange
+        try (MultiAppletHost host = new MultiAppletHost(2)) {
+            FailingAdapter failing = new FailingAdapter();
+            failing.failInit = true;
+
+            // Act
+            MultiAppletHost.Instance bad = host.add("bad", failing, 10, 10);
+            assertTrue(failing.destroyed.await(5, TimeUnit.SECONDS));
+
+            // Assert: the ticks are cancelled whether init() failed before or after they were scheduled
+            Field field = MultiAppletHost.Instance.class.getDeclaredField("ticks");
+            field.setAccessible(true);
+            assertTrue(((Future<?>) field.get(bad)).isCancelled());
+            assertInstanceOf(IllegalStateException.class, bad.getFailure());
+        }
+    }
+
+    static class TestAdapter extends JPanel implements JavaAppletAdapter {
+        // Two paints: the first frame has been swapped in once the second starts
+        final CountDownLatch painted = new CountDownLatch(2);
+        volatile int frames;
+
+        @Override
+        public void init() {
+            showStatus("started " + getParameter("color"));
+        }
+
+        @Override
+        public void paint(Graphics g) {
+            g.setColor(Color.decode(getParameter("color")));
+            g.fillRect(0, 0, getWidth(), getHeight());
+            frames++;
+            painted.countDown();
+        }
+    }
+
+    static class FailingAdapter extends JPanel implements JavaAppletAdapter, Updatable {
+        final CountDownLatch destroyed = new CountDownLatch(1);
+        volatile boolean failInit;
+
+        @Override
+        public void init() {
+            if (failInit) {
+                throw new IllegalStateException("broken init");
+            }
+        }
+
+        @Override
+        public void destroy() {
+            destroyed.countDown();
+        }
+
+        @Override
+        public void update(double dt) {
+            throw new IllegalStateException("broken");
+        }
+    }
+}
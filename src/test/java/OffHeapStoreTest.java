@@ -0,0 +1,124 @@
+import dev.jcps.AssetCache;
+import dev.jcps.AudioSample;
+import dev.jcps.OffHeapImageTier;
+import dev.jcps.OffHeapStore;
+import org.junit.jupiter.api.Test;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapStoreTest {
+
+    @Test
+    void block_PutThenGet_RoundTripsAndCountsBytes() {
+        // Arrange
+        OffHeapStore store = new OffHeapStore();
+        byte[] data = {1, 2, 3, 4, 5, 6, 7, 8};
+
+        // Act
+        OffHeapStore.Block block = store.copyOf(data);
+        byte[] read = new byte[8];
+        block.get(0, read, 0, 8);
+
+        // Assert
+        assertArrayEquals(data, read);
+        assertEquals(8, store.getAllocatedBytes());
+        assertEquals(1, store.getBlockCount());
+    }
+
+    @Test
+    void block_IntsAndShorts_RoundTrip() {
+        // Arrange
+        OffHeapStore store = new OffHeapStore();
+        OffHeapStore.Block block = store.allocate(16);
+        int[] ints = {0x11223344, -1};
+        short[] shorts = {(short) 0xABCD, 7};
+
+        // Act
+        block.put(0, ints);
+        block.put(8, shorts);
+        int[] readInts = new int[2];
+        short[] readShorts = new short[2];
+        block.get(0, readInts);
+        block.get(8, readShorts);
+
+        // Assert
+        assertArrayEquals(ints, readInts);
+        assertArrayEquals(shorts, readShorts);
+    }
+
+    @Test
+    void release_FreesBytesAndRejectsFurtherAccess() {
+        // Arrange
+        OffHeapStore store = new OffHeapStore();
+        OffHeapStore.Block block = store.allocate(32);
+
+        // Act
+        block.release();
+        block.release();
+
+        // Assert
+        assertTrue(block.isReleased());
+        assertEquals(0, store.getAllocatedBytes());
+        assertEquals(0, store.getBlockCount());
+        assertEquals(1, store.getReleaseCount());
+        assertThrows(IllegalStateException.class, () -> block.get(0, new byte[1], 0, 1));
+    }
+
+    @Test
+    void audioSample_OffHeapDecode_KeepsDataOutsideHeap() throws IOException {
+        // Arrange
+        AudioFormat format = new AudioFormat(8000, 16, 1, true, false);
+        byte[] pcm = {1, 0, 2, 0, 3, 0, 4, 0};
+        AudioInputStream stream = new AudioInputStream(new ByteArrayInputStream(pcm), format, 4);
+        AudioSample.setOffHeap(true);
+        AudioSample sample;
+        try {
+            // Act
+            sample = AudioSample.decode(stream);
+        } finally {
+            AudioSample.setOffHeap(false);
+        }
+
+        // Assert
+        assertTrue(sample.isOffHeap());
+        assertEquals(8, sample.getByteLength());
+        assertEquals(4, sample.getFrameLength());
+        assertArrayEquals(pcm, sample.getData());
+        sample.release();
+        assertThrows(IllegalStateException.class, sample::getData);
+    }
+
+    @Test
+    void offHeapImageTier_EvictedImage_IsRestoredOnMiss() {
+        // Arrange
+        OffHeapStore store = new OffHeapStore();
+        OffHeapImageTier tier = new OffHeapImageTier(store, 1 << 20);
+        AssetCache<BufferedImage> cache = new AssetCache<>(64, i -> (long) i.getWidth() * i.getHeight() * 4);
+        cache.setSecondTier(tier);
+        BufferedImage first = new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB);
+        first.setRGB(1, 2, 0xFF336699);
+        BufferedImage second = new BufferedImage(4, 4, BufferedImage.TYPE_3BYTE_BGR);
+
+        // Act
+        cache.put("file:/a.png", first);
+        cache.put("file:/b.png", second);
+        int spilled = tier.size();
+        BufferedImage restored = cache.get("file:/a.png");
+
+        // Assert
+        assertEquals(1, spilled);
+        assertNotNull(restored);
+        assertEquals(0xFF336699, restored.getRGB(1, 2));
+        assertEquals(BufferedImage.TYPE_INT_ARGB, restored.getType());
+        assertEquals(1, tier.getHitCount());
+        assertEquals(1, tier.size());
+        cache.clear();
+        assertEquals(0, store.getAllocatedBytes());
+    }
+}
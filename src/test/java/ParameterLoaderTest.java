@@ -0,0 +1,113 @@
+import dev.jcps.AppletParameters;
+import dev.jcps.ParameterLoader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParameterLoaderTest {
+
+    private static final String PAGE = "<!DOCTYPE html>\n"
+            + "<html><head><title>a < b</title></head><body>\n"
+            + "<!-- <applet code=\"Old.class\"><param name=\"speed\" value=\"1\"></applet> -->\n"
+            + "<applet code=\"Game.class\" width=640 height='480' name=\"game\">\n"
+            + "  <PARAM NAME=\"speed\" VALUE=\"5\">\n"
+            + "  <param name=level value=intro.map />\n"
+            + "  <param name=\"title\" value=\"Tom &amp; Jerry &#x263A;\">\n"
+            + "  <param name=\"width\" value=\"800\">\n"
+            + "</applet>\n"
+            + "<object name=\"chat\" type=\"application/x-java-applet\">\n"
+            + "  <param name=\"code\" value=\"Chat.class\">\n"
+            + "  <param name=\"room\" value=\"lobby\">\n"
+            + "</object>\n"
+            + "</body></html>\n";
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void readHtml_FirstApplet_ReadsParamsAndAttributes() throws IOException {
+        // Act
+        Map<String, String> params = ParameterLoader.readHtml(new StringReader(PAGE), null);
+
+        // Assert
+        assertEquals("5", params.get("speed"));
+        assertEquals("intro.map", params.get("level"));
+        assertEquals("Tom & Jerry ☺", params.get("title"));
+        assertEquals("Game.class", params.get("code"));
+        assertEquals("480", params.get("height"));
+        assertEquals("800", params.get("width"));
+        assertFalse(params.containsKey("room"));
+    }
+
+    @Test
+    void readHtml_NamedObject_ReadsOnlyItsParams() throws IOException {
+        // Act
+        Map<String, String> params = ParameterLoader.readHtml(new StringReader(PAGE), "chat");
+
+        // Assert
+        assertEquals(2, params.size());
+        assertEquals("Chat.class", params.get("code"));
+        assertEquals("lobby", params.get("room"));
+    }
+
+    @Test
+    void readHtml_MissingApplet_ReturnsEmptyMap() throws IOException {
+        // Act
+        Map<String, String> params = ParameterLoader.readHtml(new StringReader(PAGE), "missing");
+
+        // Assert
+        assertTrue(params.isEmpty());
+    }
+
+    @Test
+    void readProperties_File_ReadsEveryKey() throws IOException {
+        // Arrange
+        File file = new File(tempDir, "game.properties");
+        Files.write(file.toPath(), "# settings\nspeed=7\nlevel = two.map\n".getBytes(StandardCharsets.ISO_8859_1));
+
+        // Act
+        Map<String, String> params = ParameterLoader.readProperties(file);
+
+        // Assert
+        assertEquals(2, params.size());
+        assertEquals("7", params.get("speed"));
+        assertEquals("two.map", params.get("level"));
+    }
+
+    @Test
+    void parseArguments_MixedArguments_KeepsOnlyOptions() {
+        // Act
+        Map<String, String> params = ParameterLoader.parseArguments(
+                new String[]{"--speed=9", "file.txt", "--fullscreen", "--empty=", "--", "--ignored=1"});
+
+        // Assert
+        assertEquals(3, params.size());
+        assertEquals("9", params.get("speed"));
+        assertEquals("true", params.get("fullscreen"));
+        assertEquals("", params.get("empty"));
+    }
+
+    @Test
+    void putAll_LoadedValues_OverrideTypedValues() throws IOException {
+        // Arrange
+        AppletParameters parameters = new AppletParameters();
+        parameters.putInt("speed", 1);
+        assertEquals(1, parameters.getInt("speed"));
+
+        // Act
+        parameters.putAll(ParameterLoader.readHtml(new StringReader(PAGE), "game"));
+
+        // Assert
+        assertEquals(5, parameters.getInt("speed"));
+        assertEquals(800, parameters.getInt("width"));
+        assertEquals("intro.map", parameters.getString("level"));
+    }
+}
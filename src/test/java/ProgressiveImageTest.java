@@ -0,0 +1,190 @@
+import dev.jcps.AssetCache;
+import dev.jcps.JavaAppletAdapter;
+import dev.jcps.ProgressiveImage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.ImageObserver;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProgressiveImageTest {
+
+    @TempDir
+    File tempDir;
+
+    private File writePng(String name, int size) throws IOException {
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                image.setRGB(x, y, x * 31 + y * 17);
+            }
+        }
+        File file = new File(tempDir, name);
+        ImageIO.write(image, "png", file);
+        return file;
+    }
+
+    @Test
+    void getImageProgressive_File_ReportsSizeThenCompletes() throws Exception {
+        // Arrange
+        File png = writePng("large.png", 256);
+        AtomicInteger flags = new AtomicInteger();
+        AtomicInteger width = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1);
+        ImageObserver observer = (img, info, x, y, w, h) -> {
+            if ((info & ImageObserver.WIDTH) != 0) {
+                width.set(w);
+            }
+            flags.accumulateAndGet(info, (a, b) -> a | b);
+            if ((info & (ImageObserver.ALLBITS | ImageObserver.ERROR)) != 0) {
+                done.countDown();
+            }
+            return true;
+        };
+
+        // Act
+        Image image = new TestAdapter().getImageProgressive(tempDir.getPath(), "large.png", observer);
+
+        // Assert
+        assertNotNull(image);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(ImageObserver.WIDTH | ImageObserver.HEIGHT,
+                flags.get() & (ImageObserver.WIDTH | ImageObserver.HEIGHT));
+        assertEquals(ImageObserver.ALLBITS, flags.get() & ImageObserver.ALLBITS);
+        assertEquals(256, width.get());
+        assertEquals(256, image.getWidth(null));
+        BufferedImage expected = ImageIO.read(png);
+        BufferedImage drawn = new BufferedImage(256, 256, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = drawn.createGraphics();
+        assertTrue(g.drawImage(image, 0, 0, null));
+        g.dispose();
+        assertEquals(expected.getRGB(200, 250), drawn.getRGB(200, 250));
+    }
+
+    @Test
+    void open_Url_CompletesFutureWithCachedImage() throws Exception {
+        // Arrange
+        File png = writePng("url.png", 32);
+
+        // Act
+        ProgressiveImage progressive = ProgressiveImage.open(png.toURI().toURL());
+
+        // Assert
+        BufferedImage image = progressive.getFuture().get(5, TimeUnit.SECONDS);
+        assertSame(AssetCache.images().get(png.toURI().toURL().toString()), image);
+        assertEquals(ImageIO.read(png).getRGB(31, 31), image.getRGB(31, 31));
+        assertTrue(progressive.isDone());
+    }
+
+    @Test
+    void open_SameFileWhileDecoding_ReturnsSameImage() throws Exception {
+        // Arrange
+        File png = writePng("shared.png", 512);
+
+        // Act
+        ProgressiveImage first = ProgressiveImage.open(png);
+        ProgressiveImage second = ProgressiveImage.open(png);
+        first.getFuture().get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertTrue(second == first || second.isDone());
+        assertSame(first.getFuture().get(), AssetCache.images().get("file:" + png.getAbsolutePath()));
+    }
+
+    @Test
+    void open_MissingUrl_ReportsErrorWithoutBlocking() throws Exception {
+        // Arrange
+        CountDownLatch error = new CountDownLatch(1);
+
+        // Act
+        ProgressiveImage progressive = ProgressiveImage.open(new File(tempDir, "gone.png").toURI().toURL());
+        progressive.addObserver((img, info, x, y, w, h) -> {
+            if ((info & ImageObserver.ERROR) != 0) {
+                error.countDown();
+            }
+            return true;
+        });
+
+        // Assert
+        assertTrue(error.await(5, TimeUnit.SECONDS));
+        assertThrows(ExecutionException.class, () -> progressive.getFuture().get());
+    }
+
+    @Test
+    void open_TruncatedFile_ReportsError() throws Exception {
+        // Arrange
+        File png = writePng("truncated.png", 128);
+        byte[] bytes = Files.readAllBytes(png.toPath());
+        Files.write(png.toPath(), Arrays.copyOf(bytes, bytes.length / 2));
+        CountDownLatch error = new CountDownLatch(1);
+
+        // Act
+        ProgressiveImage progressive = ProgressiveImage.open(png);
+        progressive.addObserver((img, info, x, y, w, h) -> {
+            if ((info & ImageObserver.ERROR) != 0) {
+                error.countDown();
+            }
+            return true;
+        });
+
+        // Assert
+        assertTrue(error.await(5, TimeUnit.SECONDS));
+        assertThrows(ExecutionException.class, () -> progressive.getFuture().get());
+    }
+
+    @Test
+    void getImageProgressive_Missing_TellsObserverError() {
+        // Arrange
+        AtomicInteger flags = new AtomicInteger();
+
+        // Act
+        Image image = new TestAdapter().getImageProgressive(tempDir.getPath(), "none.png", (img, info, x, y, w, h) -> {
+            flags.set(info);
+            return false;
+        });
+
+        // Assert
+        assertNull(image);
+        assertEquals(ImageObserver.ERROR, flags.get() & ImageObserver.ERROR);
+    }
+
+    @Test
+    void getImageProgressive_OnClasspathWithUrlBase_LoadsFromClasspath() throws Exception {
+        // Arrange: the classpath comes before URLs, so the missing URL under the base must not win
+        File root = new File(TestAdapter.class.getResource("/").toURI());
+        File resource = new File(root, "progressive-classpath-" + System.nanoTime() + ".png");
+        ImageIO.write(new BufferedImage(3, 3, BufferedImage.TYPE_INT_RGB), "png", resource);
+        AtomicInteger flags = new AtomicInteger();
+        try {
+            // Act
+            Image image = new TestAdapter().getImageProgressive(tempDir.toURI().toString(), resource.getName(),
+                    (img, info, x, y, w, h) -> {
+                        flags.accumulateAndGet(info, (a, b) -> a | b);
+                        return false;
+                    });
+
+            // Assert
+            assertNotNull(image);
+            assertEquals(3, image.getWidth(null));
+            assertEquals(ImageObserver.ALLBITS, flags.get() & (ImageObserver.ALLBITS | ImageObserver.ERROR));
+        } finally {
+            Files.delete(resource.toPath());
+        }
+    }
+
+    static class TestAdapter extends JPanel implements JavaAppletAdapter {
+    }
+}
@@ -0,0 +1,121 @@
+import dev.jcps.ResourceIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResourceIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path writeJar(String name, String... entries) throws IOException {
+        Path jar = tempDir.resolve(name);
+        try (OutputStream out = Files.newOutputStream(jar); ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("sounds/"));
+            for (String entry : entries) {
+                zip.putNextEntry(new ZipEntry(entry));
+                zip.write(entry.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return jar;
+    }
+
+    private static String read(ResourceIndex.Entry entry) throws IOException {
+        try (InputStream in = entry.open()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    void forLocation_Jar_MapsPathsAndNames() throws IOException {
+        // Arrange
+        Path jar = writeJar("game.jar", "sounds/pin.au", "ship.png", "levels/deep/ship.png");
+
+        // Act
+        try (ResourceIndex index = ResourceIndex.forLocation(jar)) {
+
+            // Assert
+            assertTrue(index.isJar());
+            assertEquals(3, index.size());
+            assertEquals("sounds/pin.au", read(index.find("/sounds/pin.au")));
+            assertEquals("sounds/pin.au", index.findName("pin.au").getPath());
+            // The shallower of two entries with the same name
+            assertEquals("ship.png", index.findName("ship.png").getPath());
+            assertNull(index.find("sounds"));
+            assertNull(index.find("missing.png"));
+        }
+    }
+
+    @Test
+    void forLocation_SameJarTwice_ReturnsSameIndex() throws IOException {
+        // Arrange
+        Path jar = writeJar("shared.jar", "a.txt");
+
+        // Act
+        try (ResourceIndex first = ResourceIndex.forLocation(jar)) {
+            ResourceIndex second = ResourceIndex.forLocation(tempDir.resolve("./shared.jar"));
+
+            // Assert
+            assertSame(first, second);
+        }
+    }
+
+    @Test
+    void findUrl_JarUrl_ReadsThroughOpenJar() throws IOException {
+        // Arrange
+        Path jar = writeJar("urls.jar", "sounds/pin.au");
+        try (ResourceIndex index = ResourceIndex.forLocation(jar)) {
+            String url = index.getRootUrl() + "sounds/pin.au";
+
+            // Act
+            ResourceIndex.Entry entry = ResourceIndex.findUrl(url);
+
+            // Assert
+            assertTrue(url.startsWith("jar:file:/"));
+            assertEquals("sounds/pin.au", read(entry));
+            assertEquals(url, entry.toUrl().toString());
+            assertNull(ResourceIndex.findUrl(index.getRootUrl() + "other.au"));
+        }
+    }
+
+    @Test
+    void forLocation_Directory_ListsFilesWithSlashes() throws IOException {
+        // Arrange
+        Path dir = Files.createDirectories(tempDir.resolve("classes/images"));
+        Files.write(dir.resolve("ship.png"), new byte[]{1, 2, 3});
+
+        // Act
+        try (ResourceIndex index = ResourceIndex.forLocation(tempDir.resolve("classes"))) {
+
+            // Assert
+            assertFalse(index.isJar());
+            assertEquals(1, index.size());
+            try (InputStream in = index.find("images/ship.png").open()) {
+                assertEquals(3, in.readAllBytes().length);
+            }
+            assertEquals(index.find("images/ship.png"), ResourceIndex.findUrl(
+                    tempDir.resolve("classes/images/ship.png").toFile().toURI().toString()));
+        }
+    }
+
+    @Test
+    void of_TestClass_IndexesItsClassDirectory() {
+        // Act
+        ResourceIndex index = ResourceIndex.of(ResourceIndexTest.class);
+
+        // Assert
+        assertNotNull(index);
+        assertNotNull(index.find("ResourceIndexTest.class"));
+        assertEquals(String.valueOf(ResourceIndexTest.class.getResource("/")), index.getRootUrl().toString());
+    }
+}
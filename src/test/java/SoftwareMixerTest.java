@@ -0,0 +1,243 @@
+import dev.jcps.AudioSample;
+import dev.jcps.Diagnostics;
+import dev.jcps.SoftwareMixer;
+import org.junit.jupiter.api.Test;
+
+import javax.sound.sampled.AudioFormat;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class SoftwareMixerTest {
+    private static final int BLOCK = 64;
+
+    private static SoftwareMixer.Sound constant(int frames, short value) {
+        byte[] data = new byte[frames * 2];
+        for (int i = 0; i < frames; i++) {
+            data[i * 2] = (byte) value;
+            data[i * 2 + 1] = (byte) (value >> 8);
+        }
+        return SoftwareMixer.prepare(new AudioSample(new AudioFormat(8000, 16, 1, true, false), data));
+    }
+
+    private static short left(byte[] out, int frame) {
+        return (short) (out[frame * 4] & 0xFF | out[frame * 4 + 1] << 8);
+    }
+
+    private static short right(byte[] out, int frame) {
+        return (short) (out[frame * 4 + 2] & 0xFF | out[frame * 4 + 3] << 8);
+    }
+
+    @Test
+    void mixBlock_CentredVoice_UsesEqualPowerPan() {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SoftwareMixer mixer = new SoftwareMixer(out::write, 8000, 4, BLOCK);
+        mixer.play(constant(BLOCK, (short) 10000));
+
+        // Act
+        mixer.mixBlock();
+
+        // Assert
+        byte[] block = out.toByteArray();
+        assertEquals(BLOCK * 4, block.length);
+        assertEquals(7071, left(block, 0));
+        assertEquals(7071, right(block, BLOCK - 1));
+    }
+
+    @Test
+    void mixBlock_PannedLeft_SilencesRight() {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SoftwareMixer mixer = new SoftwareMixer(out::write, 8000, 4, BLOCK);
+        mixer.play(constant(BLOCK, (short) 10000), 0.5f, -1f);
+
+        // Act
+        mixer.mixBlock();
+
+        // Assert
+        byte[] block = out.toByteArray();
+        assertEquals(5000, left(block, 10));
+        assertEquals(0, right(block, 10));
+    }
+
+    @Test
+    void mixBlock_LoudVoices_ClampsInsteadOfWrapping() {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SoftwareMixer mixer = new SoftwareMixer(out::write, 8000, 4, BLOCK);
+        SoftwareMixer.Sound loud = constant(BLOCK, (short) 30000);
+        mixer.play(loud, 1f, -1f);
+        mixer.play(loud, 1f, -1f);
+
+        // Act
+        mixer.mixBlock();
+
+        // Assert
+        assertEquals(Short.MAX_VALUE, left(out.toByteArray(), 0));
+    }
+
+    @Test
+    void mixBlock_SoundEnds_FreesVoiceAndPadsWithSilence() {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SoftwareMixer mixer = new SoftwareMixer(out::write, 8000, 4, BLOCK);
+        int handle = mixer.play(constant(10, (short) 1000));
+
+        // Act
+        mixer.mixBlock();
+
+        // Assert
+        byte[] block = out.toByteArray();
+        assertNotEquals(0, left(block, 9));
+        assertEquals(0, left(block, 10));
+        assertFalse(mixer.isPlaying(handle));
+        assertEquals(0, mixer.getActiveVoiceCount());
+    }
+
+    @Test
+    void mixBlock_HigherOutputRate_InterpolatesBetweenFrames() {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SoftwareMixer mixer = new SoftwareMixer(out::write, 16000, 4, BLOCK);
+        byte[] ramp = {0, 0, (byte) 0x10, (byte) 0x27, (byte) 0x20, (byte) 0x4E};
+        mixer.play(SoftwareMixer.prepare(new AudioSample(new AudioFormat(8000, 16, 1, true, false), ramp)), 1f, -1f);
+
+        // Act
+        mixer.mixBlock();
+
+        // Assert
+        byte[] block = out.toByteArray();
+        assertEquals(0, left(block, 0));
+        assertEquals(5000, left(block, 1));
+        assertEquals(10000, left(block, 2));
+        assertEquals(15000, left(block, 3));
+    }
+
+    @Test
+    void play_AllVoicesBusy_StealsOldest() {
+        // Arrange
+        SoftwareMixer mixer = new SoftwareMixer((b, o, l) -> {
+        }, 8000, 2, BLOCK);
+        SoftwareMixer.Sound sound = constant(1000, (short) 1);
+        int first = mixer.play(sound);
+        int second = mixer.play(sound);
+
+        // Act
+        int third = mixer.play(sound);
+
+        // Assert
+        assertFalse(mixer.isPlaying(first));
+        assertTrue(mixer.isPlaying(second));
+        assertTrue(mixer.isPlaying(third));
+        assertEquals(1, mixer.getStolenCount());
+    }
+
+    @Test
+    void play_LoopingVoice_KeepsPlaying() {
+        // Arrange
+        SoftwareMixer mixer = new SoftwareMixer((b, o, l) -> {
+        }, 8000, 2, BLOCK);
+        int handle = mixer.play(constant(10, (short) 1), 1f, 0f, true);
+
+        // Act
+        mixer.mixBlock();
+        mixer.mixBlock();
+
+        // Assert
+        assertTrue(mixer.isPlaying(handle));
+        mixer.stop(handle);
+        assertFalse(mixer.isPlaying(handle));
+    }
+
+    @Test
+    void mixBlock_ManyVoices_AllocatesLessThanAnObjectPerBlock() {
+        // Arrange
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocation = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(allocation.isThreadAllocatedMemorySupported());
+        SoftwareMixer mixer = new SoftwareMixer((b, o, l) -> {
+        }, 8000, 16, BLOCK);
+        SoftwareMixer.Sound sound = constant(100, (short) 100);
+        for (int i = 0; i < 16; i++) {
+            mixer.play(sound, 0.5f, i / 8f - 1, true);
+        }
+        int blocks = 10_000;
+        for (int i = 0; i < blocks; i++) {
+            mixer.mixBlock();
+        }
+        long id = Thread.currentThread().getId();
+        long before = allocation.getThreadAllocatedBytes(id);
+
+        // Act
+        for (int i = 0; i < blocks; i++) {
+            mixer.mixBlock();
+        }
+
+        // Assert: a loose bound, as the exact figure depends on the JIT and any agent
+        assertTrue(allocation.getThreadAllocatedBytes(id) - before < 16L * blocks);
+    }
+
+    @Test
+    void mixBlock_LoopShorterThanOneStep_WrapsWithinTheSound() {
+        // Arrange: two frames at 48 kHz stepped through at 22.05 kHz, more than two frames per output frame
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SoftwareMixer mixer = new SoftwareMixer(out::write, 22050, 4, BLOCK);
+        byte[] data = {0x10, 0x27, 0x10, 0x27};
+        SoftwareMixer.Sound sound = SoftwareMixer.prepare(
+                new AudioSample(new AudioFormat(48000, 16, 1, true, false), data));
+        mixer.play(sound, 1f, -1f, true);
+
+        // Act
+        for (int i = 0; i < 4; i++) {
+            mixer.mixBlock();
+        }
+
+        // Assert
+        byte[] block = out.toByteArray();
+        assertEquals(4 * BLOCK * 4, block.length);
+        assertEquals(10000, left(block, 4 * BLOCK - 1), 1);
+    }
+
+    @Test
+    void start_SinkThrows_ReportsAndStops() throws Exception {
+        // Arrange
+        CountDownLatch failed = new CountDownLatch(1);
+        List<String> messages = new CopyOnWriteArrayList<>();
+        Diagnostics.Listener listener = new Diagnostics.Listener() {
+            @Override
+            public void failed(Diagnostics.Kind kind, String name, String message) {
+                messages.add(kind + " " + message);
+                failed.countDown();
+            }
+        };
+        SoftwareMixer mixer = new SoftwareMixer((b, o, l) -> {
+            throw new UncheckedIOException(new IOException("disk full"));
+        }, 8000, 4, BLOCK);
+        Diagnostics.getInstance().addListener(listener);
+
+        // Act
+        try {
+            mixer.start();
+            assertTrue(failed.await(5, TimeUnit.SECONDS));
+        } finally {
+            Diagnostics.getInstance().removeListener(listener);
+            mixer.close();
+        }
+
+        // Assert
+        assertEquals(1, messages.size());
+        assertTrue(messages.get(0).startsWith("AUDIO "));
+        assertTrue(messages.get(0).contains("disk full"));
+    }
+}
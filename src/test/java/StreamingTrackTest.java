@@ -0,0 +1,304 @@
+import dev.jcps.AudioSample;
+import dev.jcps.Diagnostics;
+import dev.jcps.JavaAppletAdapter;
+import dev.jcps.StreamingTrack;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Control;
+import javax.sound.sampled.Line;
+import javax.sound.sampled.LineListener;
+import javax.sound.sampled.SourceDataLine;
+import javax.swing.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingTrackTest {
+    private static final AudioFormat FORMAT = new AudioFormat(8000, 16, 1, true, false);
+
+    @TempDir
+    File tempDir;
+
+    private static byte[] pcm(int frames) {
+        byte[] pcm = new byte[frames * FORMAT.getFrameSize()];
+        for (int i = 0; i < pcm.length; i++) {
+            pcm[i] = (byte) (i * 7);
+        }
+        return pcm;
+    }
+
+    private static AudioSample.Source source(byte[] pcm) {
+        return () -> new AudioInputStream(new ByteArrayInputStream(pcm), FORMAT, pcm.length / FORMAT.getFrameSize());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void play_WholeTrack_WritesEveryFrameThenStops() throws Exception {
+        // Arrange
+        byte[] pcm = pcm(5000);
+        CapturingLine line = new CapturingLine();
+
+        // Act
+        try (StreamingTrack track = new StreamingTrack(source(pcm), line)) {
+            track.play();
+            await(() -> !track.isPlaying());
+
+            // Assert
+            assertArrayEquals(pcm, line.captured());
+            assertEquals(5000, track.getFramePosition());
+        }
+    }
+
+    @Test
+    void play_LongTrack_UsesFixedBuffer() throws Exception {
+        // Arrange: a minute of audio
+        byte[] pcm = pcm(8000 * 60);
+
+        // Act
+        try (StreamingTrack track = new StreamingTrack(source(pcm), new CapturingLine())) {
+            // Assert: a quarter of a second
+            assertEquals(2000 * FORMAT.getFrameSize(), track.getBufferSize());
+        }
+    }
+
+    @Test
+    void setLooping_StartsOverAtTheEnd() throws Exception {
+        // Arrange
+        byte[] pcm = pcm(3000);
+        CapturingLine line = new CapturingLine();
+
+        // Act
+        try (StreamingTrack track = new StreamingTrack(source(pcm), line)) {
+            track.setLooping(true);
+            track.play();
+            await(() -> line.size() >= pcm.length * 2);
+            track.pause();
+        }
+
+        // Assert
+        byte[] captured = line.captured();
+        assertArrayEquals(pcm, Arrays.copyOfRange(captured, 0, pcm.length));
+        assertArrayEquals(pcm, Arrays.copyOfRange(captured, pcm.length, pcm.length * 2));
+    }
+
+    @Test
+    void seek_BeforePlay_SkipsToFrame() throws Exception {
+        // Arrange
+        byte[] pcm = pcm(4000);
+        CapturingLine line = new CapturingLine();
+
+        // Act
+        try (StreamingTrack track = new StreamingTrack(source(pcm), line)) {
+            track.seek(1500);
+            track.play();
+            await(() -> !track.isPlaying());
+        }
+
+        // Assert
+        assertArrayEquals(Arrays.copyOfRange(pcm, 1500 * 2, pcm.length), line.captured());
+    }
+
+    @Test
+    void play_SourceThrowsUnchecked_StopsAndReports() throws Exception {
+        // Arrange: the source fails when the track loops back to its start
+        byte[] pcm = pcm(1000);
+        AtomicInteger opens = new AtomicInteger();
+        AudioSample.Source failing = () -> {
+            if (opens.getAndIncrement() > 0) {
+                throw new IllegalStateException("gone");
+            }
+            return source(pcm).open();
+        };
+        List<String> errors = new CopyOnWriteArrayList<>();
+        Diagnostics.Listener listener = new Diagnostics.Listener() {
+            @Override
+            public void failed(Diagnostics.Kind kind, String name, String message) {
+                errors.add(message);
+            }
+        };
+        Diagnostics.getInstance().addListener(listener);
+
+        // Act
+        try (StreamingTrack track = new StreamingTrack(failing, new CapturingLine())) {
+            track.setLooping(true);
+            track.play();
+            await(() -> !track.isPlaying());
+        } finally {
+            Diagnostics.getInstance().removeListener(listener);
+        }
+
+        // Assert
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0).contains("gone"));
+    }
+
+    @Test
+    void getMusicTrack_MissingFile_ReturnsNull() {
+        // Act & Assert
+        assertNull(new TestAdapter().getMusicTrack(tempDir.getPath(), "no-music.wav"));
+    }
+
+    static class TestAdapter extends JPanel implements JavaAppletAdapter {
+    }
+
+    /**
+     * A line that accepts everything at once and keeps what was written.
+     */
+    static class CapturingLine implements SourceDataLine {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private AudioFormat format;
+        private int bufferSize;
+        private boolean open;
+        private boolean running;
+
+        synchronized byte[] captured() {
+            return out.toByteArray();
+        }
+
+        synchronized int size() {
+            return out.size();
+        }
+
+        @Override
+        public void open(AudioFormat format, int bufferSize) {
+            this.format = format;
+            this.bufferSize = bufferSize;
+            open = true;
+        }
+
+        @Override
+        public void open(AudioFormat format) {
+            open(format, 4096);
+        }
+
+        @Override
+        public void open() {
+            open(format, 4096);
+        }
+
+        @Override
+        public synchronized int write(byte[] b, int off, int len) {
+            out.write(b, off, len);
+            return len;
+        }
+
+        @Override
+        public void drain() {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void start() {
+            running = true;
+        }
+
+        @Override
+        public void stop() {
+            running = false;
+        }
+
+        @Override
+        public boolean isRunning() {
+            return running;
+        }
+
+        @Override
+        public boolean isActive() {
+            return running;
+        }
+
+        @Override
+        public AudioFormat getFormat() {
+            return format;
+        }
+
+        @Override
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        @Override
+        public int available() {
+            return bufferSize;
+        }
+
+        @Override
+        public int getFramePosition() {
+            return (int) getLongFramePosition();
+        }
+
+        @Override
+        public synchronized long getLongFramePosition() {
+            return out.size() / format.getFrameSize();
+        }
+
+        @Override
+        public long getMicrosecondPosition() {
+            return (long) (getLongFramePosition() * 1_000_000L / format.getFrameRate());
+        }
+
+        @Override
+        public float getLevel() {
+            return AudioSystem.NOT_SPECIFIED;
+        }
+
+        @Override
+        public Line.Info getLineInfo() {
+            return new Line.Info(SourceDataLine.class);
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public Control[] getControls() {
+            return new Control[0];
+        }
+
+        @Override
+        public boolean isControlSupported(Control.Type control) {
+            return false;
+        }
+
+        @Override
+        public Control getControl(Control.Type control) {
+            throw new IllegalArgumentException("No controls");
+        }
+
+        @Override
+        public void addLineListener(LineListener listener) {
+        }
+
+        @Override
+        public void removeLineListener(LineListener listener) {
+        }
+    }
+}